@@ -34,6 +34,9 @@ import org.wordpress.android.networking.RestClientUtils;
 import org.wordpress.android.networking.SelfSignedSSLCertsManager;
 import org.wordpress.android.ui.notifications.NotificationUtils;
 import org.wordpress.android.ui.prefs.UserPrefs;
+import org.wordpress.android.ui.reader.ReaderPostRenderer;
+import org.wordpress.android.ui.reader.ReaderWebViewPool;
+import org.wordpress.android.ui.reader.actions.ReaderOutbox;
 import org.wordpress.android.ui.stats.service.StatsService;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
@@ -41,6 +44,7 @@ import org.wordpress.android.util.BitmapLruCache;
 import org.wordpress.android.util.DateTimeUtils;
 import org.wordpress.android.util.NetworkUtils;
 import org.wordpress.android.util.ProfilingUtils;
+import org.wordpress.android.util.ReaderOfflineCache;
 import org.wordpress.android.util.Utils;
 import org.wordpress.android.util.VolleyUtils;
 import org.wordpress.android.util.stats.AnalyticsTracker;
@@ -438,9 +442,13 @@ public class WordPress extends Application {
         editor.remove(WordPress.ACCESS_TOKEN_PREFERENCE);
         editor.commit();
 
-        // reset all reader-related prefs & data
+        // reset all reader-related prefs & data, including the offline pack since it contains
+        // posts from the previous account
         UserPrefs.reset();
         ReaderDatabase.reset();
+        ReaderOutbox.reset();
+        ReaderOfflineCache.clear();
+        ReaderPostRenderer.clearCache();
 
         // send broadcast that user is signing out - this is received by WPActionBarActivity
         // descendants
@@ -554,6 +562,7 @@ public class WordPress extends Application {
 
         @Override
         public void onLowMemory() {
+            ReaderWebViewPool.clear();
         }
 
         @Override
@@ -570,8 +579,12 @@ public class WordPress extends Application {
             // Levels that we need to consider are  TRIM_MEMORY_RUNNING_CRITICAL = 15;
             // - TRIM_MEMORY_RUNNING_LOW = 10; - TRIM_MEMORY_RUNNING_MODERATE = 5;
             if (level < ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN && mBitmapCache != null) {
-                mBitmapCache.evictAll();
+                mBitmapCache.clearAll();
             }
+
+            // rendered reader posts can always be rebuilt, so drop them whenever memory is trimmed
+            ReaderPostRenderer.clearCache();
+            ReaderWebViewPool.trim(level);
         }
 
         /**
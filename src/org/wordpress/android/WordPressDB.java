@@ -17,6 +17,7 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.wordpress.android.datasets.CommentTable;
+import org.wordpress.android.datasets.SearchTable;
 import org.wordpress.android.models.Blog;
 import org.wordpress.android.models.MediaFile;
 import org.wordpress.android.models.Note;
@@ -41,7 +42,6 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Vector;
 
@@ -51,7 +51,7 @@ import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.DESKeySpec;
 
 public class WordPressDB {
-    private static final int DATABASE_VERSION = 26;
+    private static final int DATABASE_VERSION = 27;
 
     private static final String CREATE_TABLE_SETTINGS = "create table if not exists accounts (id integer primary key autoincrement, "
             + "url text, blogName text, username text, password text, imagePlacement text, centerThumbnail boolean, fullSizeImage boolean, maxImageWidth text, maxImageWidthId integer);";
@@ -59,7 +59,7 @@ public class WordPressDB {
             + "postID integer not null, filePath text default '', fileName text default '', title text default '', description text default '', caption text default '', horizontalAlignment integer default 0, width integer default 0, height integer default 0, mimeType text default '', featured boolean default false, isVideo boolean default false);";
     public static final String SETTINGS_TABLE = "accounts";
     private static final String DATABASE_NAME = "wordpress";
-    private static final String MEDIA_TABLE = "media";
+    public static final String MEDIA_TABLE = "media";
 
     private static final String CREATE_TABLE_POSTS = "create table if not exists posts (id integer primary key autoincrement, blogID text, "
             + "postid text, title text default '', dateCreated date, date_created_gmt date, categories text default '', custom_fields text default '', "
@@ -68,7 +68,7 @@ public class WordPressDB {
             + "wp_author_display_name text default '', wp_author_id text default '', wp_password text default '', wp_post_format text default '', wp_slug text default '', mediaPaths text default '', "
             + "latitude real, longitude real, localDraft boolean default 0, uploaded boolean default 0, isPage boolean default 0, wp_page_parent_id text, wp_page_parent_title text);";
 
-    private static final String POSTS_TABLE = "posts";
+    public static final String POSTS_TABLE = "posts";
 
     private static final String THEMES_TABLE = "themes";
     private static final String CREATE_TABLE_THEMES = "create table if not exists themes (_id integer primary key autoincrement, "
@@ -145,6 +145,9 @@ public class WordPressDB {
     // add hidden flag to blog settings (accounts)
     private static final String ADD_ACCOUNTS_HIDDEN_FLAG = "alter table accounts add isHidden boolean default 0;";
 
+    // max number of rows returned by a full-text search
+    private static final int MAX_SEARCH_RESULTS = 250;
+
     private SQLiteDatabase db;
 
     protected static final String PASSWORD_SECRET = BuildConfig.DB_SECRET;
@@ -164,6 +167,7 @@ public class WordPressDB {
         db.execSQL(CREATE_TABLE_THEMES);
         db.execSQL(CREATE_TABLE_NOTES);
         CommentTable.createTables(db);
+        SearchTable.createTables(db);
 
         // Update tables for new installs and app updates
         int currentVersion = db.getVersion();
@@ -248,6 +252,10 @@ public class WordPressDB {
                 //The ALTER TABLE command in SQLite allows the user to rename a table or to add a new column to an existing table.
                 //It is not possible to rename a column, remove a column, or add or remove constraints from a table.
                 currentVersion++;
+            case 26:
+                // version 27 added full-text search tables, populate them from existing data
+                SearchTable.rebuild(db);
+                currentVersion++;
         }
         db.setVersion(DATABASE_VERSION);
     }
@@ -725,9 +733,9 @@ public class WordPressDB {
     }
 
     public boolean deletePost(Post post) {
-        int result = db.delete(POSTS_TABLE,
-                "blogID=? AND id=?",
-                new String[]{String.valueOf(post.getLocalTableBlogId()), String.valueOf(post.getLocalTablePostId())});
+        String[] args = {String.valueOf(post.getLocalTableBlogId()), String.valueOf(post.getLocalTablePostId())};
+        SearchTable.unindexPosts(db, "blogID=? AND id=?", args);
+        int result = db.delete(POSTS_TABLE, "blogID=? AND id=?", args);
 
         return (result == 1);
     }
@@ -782,7 +790,7 @@ public class WordPressDB {
                         values.put("date_created_gmt", dateCreatedGmt.getTime() + (dateCreatedGmt.getTimezoneOffset() * 60000));
                     }
 
-                    values.put("description", MapUtils.getMapStr(postMap, "description"));
+                    SqlUtils.putCompressedText(values, "description", MapUtils.getMapStr(postMap, "description"));
                     values.put("link", MapUtils.getMapStr(postMap, "link"));
                     values.put("permaLink", MapUtils.getMapStr(postMap, "permaLink"));
 
@@ -815,7 +823,7 @@ public class WordPressDB {
                     values.put("custom_fields", jsonCustomFieldsArray.toString());
 
                     values.put("mt_excerpt", MapUtils.getMapStr(postMap, (isPage) ? "excerpt" : "mt_excerpt"));
-                    values.put("mt_text_more", MapUtils.getMapStr(postMap, (isPage) ? "text_more" : "mt_text_more"));
+                    SqlUtils.putCompressedText(values, "mt_text_more", MapUtils.getMapStr(postMap, (isPage) ? "text_more" : "mt_text_more"));
                     values.put("mt_allow_comments", MapUtils.getMapInt(postMap, "mt_allow_comments", 0));
                     values.put("mt_allow_pings", MapUtils.getMapInt(postMap, "mt_allow_pings", 0));
                     values.put("wp_slug", MapUtils.getMapStr(postMap, "wp_slug"));
@@ -839,10 +847,20 @@ public class WordPressDB {
                         whereClause += " AND NOT isLocalChange=1";
                     }
 
-                    int result = db.update(POSTS_TABLE, values, whereClause,
-                            new String[]{String.valueOf(localBlogId), postID, String.valueOf(SqlUtils.boolToSql(isPage))});
-                    if (result == 0)
-                        db.insert(POSTS_TABLE, null, values);
+                    String[] args = {String.valueOf(localBlogId), postID, String.valueOf(SqlUtils.boolToSql(isPage))};
+                    int result = db.update(POSTS_TABLE, values, whereClause, args);
+                    long localId;
+                    if (result == 0) {
+                        localId = db.insert(POSTS_TABLE, null, values);
+                    } else {
+                        localId = SqlUtils.longForQuery(db,
+                                "SELECT id FROM " + POSTS_TABLE + " WHERE blogID=? AND postid=? AND isPage=?", args);
+                    }
+
+                    // only the posts saved here are reindexed, otherwise saving each page of a
+                    // large blog would reindex every page saved before it
+                    if (localId > 0)
+                        SearchTable.reindexPosts(db, "id=?", new String[]{Long.toString(localId)});
                 }
 
                 db.setTransactionSuccessful();
@@ -891,8 +909,8 @@ public class WordPressDB {
             values.put("blogID", post.getLocalTableBlogId());
             values.put("title", post.getTitle());
             values.put("date_created_gmt", post.getDate_created_gmt());
-            values.put("description", post.getDescription());
-            values.put("mt_text_more", post.getMoreText());
+            SqlUtils.putCompressedText(values, "description", post.getDescription());
+            SqlUtils.putCompressedText(values, "mt_text_more", post.getMoreText());
 
             JSONArray categoriesJsonArray = post.getJSONCategories();
             if (categoriesJsonArray != null) {
@@ -913,6 +931,10 @@ public class WordPressDB {
 
             result = db.insert(POSTS_TABLE, null, values);
 
+            if (result >= 0) {
+                SearchTable.reindexPosts(db, "id=?", new String[]{Long.toString(result)});
+            }
+
             if (result >= 0 && post.isLocalDraft() && !post.isUploaded()) {
                 post.setLocalTablePostId(result);
             }
@@ -927,8 +949,8 @@ public class WordPressDB {
             ContentValues values = new ContentValues();
             values.put("title", post.getTitle());
             values.put("date_created_gmt", post.getDate_created_gmt());
-            values.put("description", post.getDescription());
-            values.put("mt_text_more", post.getMoreText());
+            SqlUtils.putCompressedText(values, "description", post.getDescription());
+            SqlUtils.putCompressedText(values, "mt_text_more", post.getMoreText());
             values.put("uploaded", post.isUploaded());
 
             JSONArray categoriesJsonArray = post.getJSONCategories();
@@ -952,11 +974,49 @@ public class WordPressDB {
                         String.valueOf(post.getLocalTablePostId()),
                         String.valueOf(SqlUtils.boolToSql(post.isPage()))
                     });
+            if (result > 0) {
+                SearchTable.reindexPosts(db, "id=?", new String[]{String.valueOf(post.getLocalTablePostId())});
+            }
         }
 
         return (result);
     }
 
+    /**
+     * Updates only the passed columns of an existing post, used by autosave to avoid rewriting
+     * the entire row when only a few fields have changed
+     *
+     * @param post the post to update
+     * @param values the changed columns
+     * @return the number of rows updated
+     */
+    public int updatePostColumns(Post post, ContentValues values) {
+        if (post == null || values == null || values.size() == 0) {
+            return 0;
+        }
+
+        // the post body is stored compressed
+        ContentValues dbValues = new ContentValues(values);
+        if (values.containsKey("description"))
+            SqlUtils.putCompressedText(dbValues, "description", values.getAsString("description"));
+        if (values.containsKey("mt_text_more"))
+            SqlUtils.putCompressedText(dbValues, "mt_text_more", values.getAsString("mt_text_more"));
+
+        int result = db.update(POSTS_TABLE, dbValues, "blogID=? AND id=? AND isPage=?",
+                new String[]{
+                    String.valueOf(post.getLocalTableBlogId()),
+                    String.valueOf(post.getLocalTablePostId()),
+                    String.valueOf(SqlUtils.boolToSql(post.isPage()))
+                });
+        if (result > 0 && (values.containsKey("title")
+                || values.containsKey("description")
+                || values.containsKey("mt_text_more"))) {
+            SearchTable.reindexPosts(db, "id=?", new String[]{String.valueOf(post.getLocalTablePostId())});
+        }
+
+        return result;
+    }
+
     public List<Map<String, Object>> loadUploadedPosts(int blogID, boolean loadPages) {
         List<Map<String, Object>> returnVector = new Vector<Map<String, Object>>();
         Cursor c;
@@ -1000,13 +1060,56 @@ public class WordPressDB {
     }
 
     public void deleteUploadedPosts(int blogID, boolean isPage) {
-        if (isPage)
-            db.delete(POSTS_TABLE, "blogID=" + blogID
-                    + " AND localDraft != 1 AND isPage=1", null);
-        else
-            db.delete(POSTS_TABLE, "blogID=" + blogID
-                    + " AND localDraft != 1 AND isPage=0", null);
+        String where = "blogID=" + blogID + " AND localDraft != 1 AND isPage=" + (isPage ? "1" : "0");
+        SearchTable.unindexPosts(db, where, null);
+        db.delete(POSTS_TABLE, where, null);
+    }
 
+    /**
+     * Full-text search of the local posts or pages for a blog
+     *
+     * @param blogId local blog id
+     * @param searchTerm text entered by the user, each word is treated as a prefix
+     * @param loadPages true to search pages rather than posts
+     * @return matching posts, best match first
+     */
+    public List<PostsListPost> searchPostsListPosts(int blogId, String searchTerm, boolean loadPages) {
+        List<Long> ids = SearchTable.searchPosts(db, blogId, loadPages, searchTerm, MAX_SEARCH_RESULTS);
+        List<PostsListPost> posts = new ArrayList<PostsListPost>();
+        if (ids.size() == 0) {
+            return posts;
+        }
+
+        Cursor c = db.query(POSTS_TABLE,
+                new String[] { "id", "blogID", "title",
+                        "date_created_gmt", "post_status", "localDraft", "isLocalChange" },
+                "id IN (" + TextUtils.join(",", ids) + ")", null, null, null, null);
+        Map<Long, PostsListPost> postMap = new HashMap<Long, PostsListPost>();
+        try {
+            while (c.moveToNext()) {
+                PostsListPost post = new PostsListPost(
+                        c.getInt(0),
+                        c.getInt(1),
+                        StringUtils.unescapeHTML(c.getString(2)),
+                        c.getLong(3),
+                        c.getString(4),
+                        SqlUtils.sqlToBool(c.getInt(5)),
+                        SqlUtils.sqlToBool(c.getInt(6))
+                );
+                postMap.put(c.getLong(0), post);
+            }
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+
+        // return the posts in ranked order
+        for (Long id : ids) {
+            PostsListPost post = postMap.get(id);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return posts;
     }
 
     public Post getPostForLocalTablePostId(long localTablePostId) {
@@ -1022,13 +1125,13 @@ public class WordPressDB {
                 post.setDate_created_gmt(c.getLong(c.getColumnIndex("date_created_gmt")));
                 post.setCategories(c.getString(c.getColumnIndex("categories")));
                 post.setCustomFields(c.getString(c.getColumnIndex("custom_fields")));
-                post.setDescription(c.getString(c.getColumnIndex("description")));
+                post.setDescription(SqlUtils.getCompressedText(c, c.getColumnIndex("description")));
                 post.setLink(c.getString(c.getColumnIndex("link")));
                 post.setAllowComments(SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("mt_allow_comments"))));
                 post.setAllowPings(SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("mt_allow_pings"))));
                 post.setPostExcerpt(c.getString(c.getColumnIndex("mt_excerpt")));
                 post.setKeywords(c.getString(c.getColumnIndex("mt_keywords")));
-                post.setMoreText(c.getString(c.getColumnIndex("mt_text_more")));
+                post.setMoreText(SqlUtils.getCompressedText(c, c.getColumnIndex("mt_text_more")));
                 post.setPermaLink(c.getString(c.getColumnIndex("permaLink")));
                 post.setPostStatus(c.getString(c.getColumnIndex("post_status")));
                 post.setUserId(c.getString(c.getColumnIndex("userid")));
@@ -1318,11 +1421,19 @@ public class WordPressDB {
                             new String[]{StringUtils.notNullStr(mf.getBlogId()), StringUtils.notNullStr(mf.getMediaId())});
             }
 
-            if (result == 0 && !isMarkedForDelete) {
-                result = db.update(MEDIA_TABLE, values, "postID=? AND filePath=?",
-                        new String[]{String.valueOf(mf.getPostID()), StringUtils.notNullStr(mf.getFilePath())});
-                if (result == 0)
-                    db.insert(MEDIA_TABLE, null, values);
+            if (result > 0) {
+                SearchTable.reindexMedia(db, "blogId=? AND mediaId=?",
+                        new String[]{StringUtils.notNullStr(mf.getBlogId()), StringUtils.notNullStr(mf.getMediaId())});
+            } else if (!isMarkedForDelete) {
+                String[] args = {String.valueOf(mf.getPostID()), StringUtils.notNullStr(mf.getFilePath())};
+                result = db.update(MEDIA_TABLE, values, "postID=? AND filePath=?", args);
+                if (result == 0) {
+                    long id = db.insert(MEDIA_TABLE, null, values);
+                    if (id > -1)
+                        SearchTable.reindexMedia(db, "id=?", new String[]{Long.toString(id)});
+                } else {
+                    SearchTable.reindexMedia(db, "postID=? AND filePath=?", args);
+                }
             }
         }
 
@@ -1341,13 +1452,24 @@ public class WordPressDB {
                 + "(uploadState IS NULL OR uploadState IN ('uploaded', 'queued', 'failed', 'uploading')) ORDER BY (uploadState=?) DESC, date_created_gmt DESC", new String[] { blogId, "uploading" });
     }
 
-    /** For a given blogId, get all the media files with searchTerm **/
+    /** For a given blogId, get all the media files with searchTerm, best match first **/
     public Cursor getMediaFilesForBlog(String blogId, String searchTerm) {
-        // Currently on WordPress.com, the media search engine only searches the title.
-        // We'll match this.
+        // uses the full-text index on title, caption and file name - results are ranked and
+        // limited to library media by the index, so the ORDER BY below simply preserves that
+        // ranking
+        List<Long> ids = SearchTable.searchMedia(db, blogId, searchTerm, MAX_SEARCH_RESULTS);
+        if (ids.size() == 0) {
+            return db.rawQuery("SELECT id as _id, * FROM " + MEDIA_TABLE + " WHERE 0", null);
+        }
+
+        StringBuilder orderBy = new StringBuilder("CASE id");
+        for (int i = 0; i < ids.size(); i++) {
+            orderBy.append(" WHEN ").append(ids.get(i)).append(" THEN ").append(i);
+        }
+        orderBy.append(" END");
 
-        String term = searchTerm.toLowerCase(Locale.getDefault());
-        return db.rawQuery("SELECT id as _id, * FROM " + MEDIA_TABLE + " WHERE blogId=? AND mediaId <> '' AND title LIKE ? AND (uploadState IS NULL OR uploadState ='uploaded') ORDER BY (uploadState=?) DESC, date_created_gmt DESC", new String[] { blogId, "%" + term + "%", "uploading" });
+        return db.rawQuery("SELECT id as _id, * FROM " + MEDIA_TABLE + " WHERE id IN (" + TextUtils.join(",", ids) + ")"
+                + " ORDER BY " + orderBy.toString(), null);
     }
 
     /** For a given blogId, get the media file with the given media_id **/
@@ -1453,7 +1575,9 @@ public class WordPressDB {
     }
 
     public void deleteMediaFilesForPost(Post post) {
-        db.delete(MEDIA_TABLE, "blogId='" + post.getLocalTableBlogId() + "' AND postID=" + post.getLocalTablePostId(), null);
+        String where = "blogId='" + post.getLocalTableBlogId() + "' AND postID=" + post.getLocalTablePostId();
+        SearchTable.unindexMedia(db, where, null);
+        db.delete(MEDIA_TABLE, where, null);
     }
 
     /** Get the queued media files for upload for a given blogId **/
@@ -1502,7 +1626,9 @@ public class WordPressDB {
             values.put("caption", caption);
         }
 
-        db.update(MEDIA_TABLE, values, "blogId = ? AND mediaId=?", new String[] { blogId, mediaId });
+        String[] args = {blogId, mediaId};
+        db.update(MEDIA_TABLE, values, "blogId = ? AND mediaId=?", args);
+        SearchTable.reindexMedia(db, "blogId = ? AND mediaId=?", args);
     }
 
     /**
@@ -1530,7 +1656,9 @@ public class WordPressDB {
 
     /** Delete a media item from a blog locally **/
     public void deleteMediaFile(String blogId, String mediaId) {
-        db.delete(MEDIA_TABLE, "blogId=? AND mediaId=?", new String[] { blogId, mediaId });
+        String[] args = {blogId, mediaId};
+        SearchTable.unindexMedia(db, "blogId=? AND mediaId=?", args);
+        db.delete(MEDIA_TABLE, "blogId=? AND mediaId=?", args);
     }
 
     /** Mark media files for deletion without actually deleting them. **/
@@ -1550,7 +1678,9 @@ public class WordPressDB {
 
     /** Delete files marked as deleted **/
     public void deleteFilesMarkedForDeleted(String blogId) {
-        db.delete(MEDIA_TABLE, "blogId=? AND uploadState=?", new String[] { blogId, "deleted" });
+        String[] args = {blogId, "deleted"};
+        SearchTable.unindexMedia(db, "blogId=? AND uploadState=?", args);
+        db.delete(MEDIA_TABLE, "blogId=? AND uploadState=?", args);
     }
 
     /** Get a media file scheduled for delete for a given blogId **/
@@ -5,6 +5,7 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteStatement;
+import android.text.TextUtils;
 
 import org.wordpress.android.WordPress;
 import org.wordpress.android.WordPressDB;
@@ -14,12 +15,16 @@ import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.SqlUtils;
 import org.wordpress.android.util.StringUtils;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * replaces the comments table used in versions prior to 2.6.1, which didn't use a primary key
  * and missed a few important fields
  */
 public class CommentTable {
-    private static final String COMMENTS_TABLE = "comments";
+    static final String COMMENTS_TABLE = "comments";
 
     public static void createTables(SQLiteDatabase db) {
         db.execSQL("CREATE TABLE IF NOT EXISTS " + COMMENTS_TABLE + " ("
@@ -44,10 +49,13 @@ public class CommentTable {
 
     public static void reset(SQLiteDatabase db) {
         AppLog.i(AppLog.T.COMMENTS, "resetting comment table");
+        SearchTable.unindexComments(db, null, null);
         dropTables(db);
         createTables(db);
     }
 
+    private static final String COMMENT_KEY_WHERE = "blog_id=? AND post_id=? AND comment_id=?";
+
     private static SQLiteDatabase getReadableDb() {
         return WordPress.wpDB.getDatabase();
     }
@@ -56,30 +64,43 @@ public class CommentTable {
     }
 
     /*
-     * purge comments attached to blogs that no longer exist, and remove older comments
-     * TODO: call after hiding or deleting blogs
+     * purge comments attached to blogs that no longer exist, and remove older comments - called
+     * by DatabaseMaintenance
      */
     private static final int MAX_COMMENTS = 1000;
+    private static final int MAX_SEARCH_RESULTS = 250;
     public static int purge(SQLiteDatabase db) {
         int numDeleted = 0;
 
         // get rid of comments on blogs that don't exist or are hidden
-        String sql = " blog_id NOT IN (SELECT DISTINCT id FROM " + WordPressDB.SETTINGS_TABLE
-                   + " WHERE isHidden = 0)";
+        String sql = "NOT EXISTS (SELECT 1 FROM " + WordPressDB.SETTINGS_TABLE
+                   + " WHERE " + WordPressDB.SETTINGS_TABLE + ".id = " + COMMENTS_TABLE + ".blog_id"
+                   + " AND " + WordPressDB.SETTINGS_TABLE + ".isHidden = 0)";
+        SearchTable.unindexComments(db, sql, null);
         numDeleted += db.delete(COMMENTS_TABLE, sql, null);
 
         // get rid of older comments if we've reached the max
         int numExisting = (int)SqlUtils.getRowCount(db, COMMENTS_TABLE);
         if (numExisting > MAX_COMMENTS) {
-            int numToPurge = numExisting - MAX_COMMENTS;
-            sql = " comment_id IN (SELECT DISTINCT comment_id FROM " + COMMENTS_TABLE
-                + " ORDER BY published LIMIT " + Integer.toString(numToPurge) + ")";
-            numDeleted += db.delete(COMMENTS_TABLE, sql, null);
+            numDeleted += deleteOldestComments(db, numExisting - MAX_COMMENTS);
         }
 
         return numDeleted;
     }
 
+    /*
+     * deletes the oldest comments across all blogs - used by DatabaseMaintenance to keep the
+     * db within its size budget
+     */
+    public static int deleteOldestComments(SQLiteDatabase db, int numComments) {
+        if (numComments <= 0)
+            return 0;
+        String sql = "rowid IN (SELECT rowid FROM " + COMMENTS_TABLE
+                   + " ORDER BY published LIMIT " + Integer.toString(numComments) + ")";
+        SearchTable.unindexComments(db, sql, null);
+        return db.delete(COMMENTS_TABLE, sql, null);
+    }
+
     /**
      * nbradbury 11/15/13 - add a single comment - will update existing comment with same IDs
      * @param localBlogId - unique id in account table for the blog the comment is from
@@ -102,7 +123,14 @@ public class CommentTable {
         values.put("published",         comment.getPublished());
         values.put("profile_image_url", comment.getProfileImageUrl());
 
-        getWritableDb().insertWithOnConflict(COMMENTS_TABLE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        // the replaced comment gets a new rowid, so remove it from the search index first
+        SQLiteDatabase db = getWritableDb();
+        String[] args = {Integer.toString(localBlogId),
+                         Long.toString(comment.postID),
+                         Long.toString(comment.commentID)};
+        SearchTable.unindexComments(db, COMMENT_KEY_WHERE, args);
+        db.insertWithOnConflict(COMMENTS_TABLE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        SearchTable.reindexComments(db, COMMENT_KEY_WHERE, args);
     }
 
     /**
@@ -154,7 +182,43 @@ public class CommentTable {
     * @return number of comments deleted
      */
     public static int deleteCommentsForBlog(int localBlogId) {
-        return getWritableDb().delete(COMMENTS_TABLE, "blog_id=?", new String[]{Integer.toString(localBlogId)});
+        String[] args = {Integer.toString(localBlogId)};
+        SearchTable.unindexComments(getWritableDb(), "blog_id=?", args);
+        return getWritableDb().delete(COMMENTS_TABLE, "blog_id=?", args);
+    }
+
+    /**
+     * full-text search of the comments for a blog by author name and comment text
+     * @param localBlogId - unique id in account table for this blog
+     * @param searchTerm - text entered by the user, each word is treated as a prefix
+     * @return matching comments, best match first
+     */
+    public static CommentList searchComments(int localBlogId, String searchTerm) {
+        CommentList comments = new CommentList();
+
+        List<Long> rowIds = SearchTable.searchComments(getReadableDb(), localBlogId, searchTerm, MAX_SEARCH_RESULTS);
+        if (rowIds.size() == 0)
+            return comments;
+
+        Cursor c = getReadableDb().rawQuery("SELECT rowid, * FROM " + COMMENTS_TABLE
+                + " WHERE rowid IN (" + TextUtils.join(",", rowIds) + ")", null);
+        Map<Long, Comment> commentMap = new HashMap<Long, Comment>();
+        try {
+            while (c.moveToNext()) {
+                commentMap.put(c.getLong(0), getCommentFromCursor(c));
+            }
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+
+        // return the comments in ranked order
+        for (Long rowId: rowIds) {
+            Comment comment = commentMap.get(rowId);
+            if (comment != null)
+                comments.add(comment);
+        }
+
+        return comments;
     }
 
     /**
@@ -187,6 +251,11 @@ public class CommentTable {
         try {
             try {
                 for (Comment comment: comments) {
+                    String[] keyArgs = {Integer.toString(localBlogId),
+                                        Long.toString(comment.postID),
+                                        Long.toString(comment.commentID)};
+                    SearchTable.unindexComments(db, COMMENT_KEY_WHERE, keyArgs);
+
                     stmt.bindLong  ( 1, localBlogId);
                     stmt.bindLong  ( 2, comment.postID);
                     stmt.bindLong  ( 3, comment.commentID);
@@ -199,6 +268,8 @@ public class CommentTable {
                     stmt.bindString(10, comment.getPostTitle());
                     stmt.bindString(11, comment.getProfileImageUrl());
                     stmt.execute();
+
+                    SearchTable.reindexComments(db, COMMENT_KEY_WHERE, keyArgs);
                 }
 
                 db.setTransactionSuccessful();
@@ -284,6 +355,7 @@ public class CommentTable {
     public static boolean deleteComment(int localBlogId, long commentId) {
         String[] args = {Integer.toString(localBlogId),
                          Long.toString(commentId)};
+        SearchTable.unindexComments(getWritableDb(), "blog_id=? AND comment_id=?", args);
         int count = getWritableDb().delete(COMMENTS_TABLE, "blog_id=? AND comment_id=?", args);
         return (count > 0);
     }
@@ -0,0 +1,211 @@
+package org.wordpress.android.datasets;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.wordpress.android.WordPress;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.SqlUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the reader and main databases from growing without bound: purges unattached rows,
+ * evicts the oldest cached data when a db exceeds its size budget, refreshes the statistics
+ * used by the query planner and returns free pages to the file system - the full VACUUM
+ * needed the first time free pages are reclaimed blocks every writer, so it's only done when
+ * the device is idle. This is slow enough that it must never be called from the UI thread - use
+ * DatabaseMaintenanceService instead.
+ */
+public class DatabaseMaintenance {
+    // size budgets - note these are for the pages in use, not the size of the db file
+    private static final long READER_DB_BUDGET_BYTES = 20 * 1024 * 1024;
+    private static final long MAIN_DB_BUDGET_BYTES   = 10 * 1024 * 1024;
+
+    // fraction of the evictable rows removed on each pass when a db is over budget
+    private static final int EVICTION_DIVISOR = 10;
+
+    // value returned by "PRAGMA auto_vacuum" when incremental vacuum is enabled
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    private DatabaseMaintenance() {
+        throw new AssertionError();
+    }
+
+    /*
+     * describes the result of maintaining a single db
+     */
+    public static class Report {
+        public final String dbName;
+        public long bytesBefore;
+        public long bytesAfter;
+        public long fileBytesBefore;
+        public long fileBytesAfter;
+        public int numPurged;
+        public int numEvicted;
+        public boolean didAnalyze;
+        public boolean didReclaim;
+        public long purgeMs;
+        public long analyzeMs;
+        public long reclaimMs;
+
+        private Report(String dbName) {
+            this.dbName = dbName;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s maintenance: %d purged, %d evicted in %dms, used %d > %d bytes,"
+                               + " file %d > %d bytes, analyze %s (%dms), reclaim %s (%dms)",
+                    dbName, numPurged, numEvicted, purgeMs, bytesBefore, bytesAfter,
+                    fileBytesBefore, fileBytesAfter,
+                    didAnalyze, analyzeMs, didReclaim, reclaimMs);
+        }
+    }
+
+    /*
+     * maintains both databases - analyze & reclaim are skipped unless requested since they
+     * can take a while on large databases, and reclaiming only releases free pages in dbs
+     * already using incremental vacuum unless allowFullVacuum is set (see reclaimFreePages)
+     */
+    public static List<Report> maintainAll(boolean analyze, boolean reclaim, boolean allowFullVacuum) {
+        List<Report> reports = new ArrayList<Report>();
+        reports.add(maintainReaderDb(analyze, reclaim, allowFullVacuum));
+        if (WordPress.wpDB != null) {
+            reports.add(maintainMainDb(analyze, reclaim, allowFullVacuum));
+        }
+        return reports;
+    }
+
+    public static Report maintainReaderDb(boolean analyze, boolean reclaim, boolean allowFullVacuum) {
+        SQLiteDatabase db = ReaderDatabase.getWritableDb();
+        Report report = startReport(db, ReaderDatabase.DB_NAME);
+
+        long start = System.currentTimeMillis();
+        db.beginTransaction();
+        try {
+            report.numPurged = ReaderDatabase.purge(db);
+
+            // evict the oldest posts until the db is within budget, purging their comments,
+            // likes, etc. along the way
+            while (getUsedBytes(db) > READER_DB_BUDGET_BYTES) {
+                int numPosts = (int) SqlUtils.getRowCount(db, "tbl_posts");
+                if (numPosts == 0)
+                    break;
+                int numEvicted = ReaderPostTable.deleteOldestPosts(db, Math.max(1, numPosts / EVICTION_DIVISOR));
+                if (numEvicted == 0)
+                    break;
+                report.numEvicted += numEvicted;
+                report.numPurged += ReaderDatabase.purge(db);
+            }
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        report.purgeMs = System.currentTimeMillis() - start;
+
+        finishReport(db, report, analyze, reclaim, allowFullVacuum);
+        return report;
+    }
+
+    public static Report maintainMainDb(boolean analyze, boolean reclaim, boolean allowFullVacuum) {
+        SQLiteDatabase db = WordPress.wpDB.getDatabase();
+        Report report = startReport(db, "wordpress");
+
+        // only cached server data is evicted to stay within budget - posts, drafts and media
+        // belong to the user and are never removed here
+        long start = System.currentTimeMillis();
+        db.beginTransaction();
+        try {
+            report.numPurged = CommentTable.purge(db);
+
+            while (getUsedBytes(db) > MAIN_DB_BUDGET_BYTES) {
+                int numComments = (int) SqlUtils.getRowCount(db, CommentTable.COMMENTS_TABLE);
+                if (numComments == 0)
+                    break;
+                int numEvicted = CommentTable.deleteOldestComments(db, Math.max(1, numComments / EVICTION_DIVISOR));
+                if (numEvicted == 0)
+                    break;
+                report.numEvicted += numEvicted;
+            }
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        report.purgeMs = System.currentTimeMillis() - start;
+
+        finishReport(db, report, analyze, reclaim, allowFullVacuum);
+        return report;
+    }
+
+    private static Report startReport(SQLiteDatabase db, String dbName) {
+        Report report = new Report(dbName);
+        report.bytesBefore = getUsedBytes(db);
+        report.fileBytesBefore = getFileBytes(db);
+        return report;
+    }
+
+    private static void finishReport(SQLiteDatabase db, Report report, boolean analyze, boolean reclaim, boolean allowFullVacuum) {
+        if (analyze) {
+            long start = System.currentTimeMillis();
+            db.execSQL("ANALYZE");
+            report.analyzeMs = System.currentTimeMillis() - start;
+            report.didAnalyze = true;
+        }
+
+        if (reclaim) {
+            long start = System.currentTimeMillis();
+            report.didReclaim = reclaimFreePages(db, allowFullVacuum);
+            report.reclaimMs = System.currentTimeMillis() - start;
+        }
+
+        report.bytesAfter = getUsedBytes(db);
+        report.fileBytesAfter = getFileBytes(db);
+        AppLog.i(T.DB, report.toString());
+    }
+
+    /*
+     * returns free pages to the file system - the first time this is called on a db it switches
+     * the db to incremental vacuum, which requires a full VACUUM, after which only the free
+     * pages need to be released. returns false if the db needs that VACUUM but it isn't allowed
+     */
+    private static boolean reclaimFreePages(SQLiteDatabase db, boolean allowFullVacuum) {
+        if (SqlUtils.intForQuery(db, "PRAGMA auto_vacuum", null) != AUTO_VACUUM_INCREMENTAL) {
+            if (!allowFullVacuum) {
+                return false;
+            }
+            AppLog.i(T.DB, "enabling incremental vacuum");
+            db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+            db.execSQL("VACUUM");
+        } else if (SqlUtils.longForQuery(db, "PRAGMA freelist_count", null) > 0) {
+            // incremental_vacuum does its work as the statement is stepped, so run it as a query
+            Cursor c = db.rawQuery("PRAGMA incremental_vacuum", null);
+            try {
+                while (c.moveToNext()) {
+                    // nop
+                }
+            } finally {
+                SqlUtils.closeCursor(c);
+            }
+        }
+        return true;
+    }
+
+    /*
+     * size of the pages which are in use, which unlike the file size shrinks as soon as
+     * rows are deleted
+     */
+    private static long getUsedBytes(SQLiteDatabase db) {
+        long pageCount = SqlUtils.longForQuery(db, "PRAGMA page_count", null);
+        long freeCount = SqlUtils.longForQuery(db, "PRAGMA freelist_count", null);
+        return (pageCount - freeCount) * db.getPageSize();
+    }
+
+    private static long getFileBytes(SQLiteDatabase db) {
+        return SqlUtils.longForQuery(db, "PRAGMA page_count", null) * db.getPageSize();
+    }
+}
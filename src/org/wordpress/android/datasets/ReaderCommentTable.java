@@ -9,10 +9,20 @@ import org.wordpress.android.models.ReaderCommentList;
 import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.util.SqlUtils;
 
+import java.util.HashMap;
+import java.util.HashSet;
+
 /**
  * stores comments on reader posts
+ *  tbl_comments stores the comments themselves
+ *  tbl_comment_anchors stores the newest comment returned when paging through each post's
+ *  comments, and the timestamp the next page starts from (see addPagedComments)
  */
 public class ReaderCommentTable {
+    // # seconds before the paging anchor to request comments from, so comments published in
+    // the same second as the anchor aren't skipped
+    private static final int PAGING_OVERLAP = 1;
+
     private static final String COLUMN_NAMES =
                       " blog_id,"
                     + " post_id,"
@@ -44,11 +54,22 @@ public class ReaderCommentTable {
                 + " timestamp           INTEGER DEFAULT 0,"
                 + " status              TEXT,"
                 + " text                TEXT,"
+                + " sort_key            INTEGER DEFAULT 0,"
+                + " depth               INTEGER DEFAULT 0,"
                 + " PRIMARY KEY (blog_id, post_id, comment_id))");
+
+        db.execSQL("CREATE TABLE tbl_comment_anchors ("
+                + " blog_id             INTEGER DEFAULT 0,"
+                + " post_id             INTEGER DEFAULT 0,"
+                + " comment_id          INTEGER DEFAULT 0,"
+                + " timestamp           INTEGER DEFAULT 0,"
+                + " after_timestamp     INTEGER DEFAULT 0,"
+                + " PRIMARY KEY (blog_id, post_id))");
     }
 
     protected static void dropTables(SQLiteDatabase db) {
         db.execSQL("DROP TABLE IF EXISTS tbl_comments");
+        db.execSQL("DROP TABLE IF EXISTS tbl_comment_anchors");
     }
 
     protected static void reset(SQLiteDatabase db) {
@@ -76,12 +97,38 @@ public class ReaderCommentTable {
         return SqlUtils.intForQuery(ReaderDatabase.getReadableDb(), "SELECT count(*) FROM tbl_comments WHERE blog_id=? AND post_id=?", args);
     }
 
+    /*
+     * returns the ids of all comments stored locally for this post
+     */
+    public static HashSet<Long> getCommentIdsForPost(ReaderPost post) {
+        HashSet<Long> commentIds = new HashSet<Long>();
+        if (post==null)
+            return commentIds;
+
+        String[] args = {Long.toString(post.blogId), Long.toString(post.postId)};
+        Cursor c = ReaderDatabase.getReadableDb().rawQuery("SELECT comment_id FROM tbl_comments WHERE blog_id=? AND post_id=?", args);
+        try {
+            if (c.moveToFirst()) {
+                do {
+                    commentIds.add(c.getLong(0));
+                } while (c.moveToNext());
+            }
+            return commentIds;
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    /*
+     * returns comments for this post in thread order (replies beneath their parents) with their
+     * indent levels set, as computed by updateThreadOrder() when the comments were stored
+     */
     public static ReaderCommentList getCommentsForPost(ReaderPost post) {
         if (post==null)
             return new ReaderCommentList();
 
         String[] args = {Long.toString(post.blogId), Long.toString(post.postId)};
-        Cursor c = ReaderDatabase.getReadableDb().rawQuery("SELECT * FROM tbl_comments WHERE blog_id=? AND post_id=? ORDER BY timestamp", args);
+        Cursor c = ReaderDatabase.getReadableDb().rawQuery("SELECT * FROM tbl_comments WHERE blog_id=? AND post_id=? ORDER BY sort_key", args);
         try {
             ReaderCommentList comments = new ReaderCommentList();
             if (c.moveToFirst()) {
@@ -112,6 +159,8 @@ public class ReaderCommentTable {
         SQLiteStatement stmt = db.compileStatement("INSERT OR REPLACE INTO tbl_comments ("
                                                   + COLUMN_NAMES
                                                   + ") VALUES (?1,?2,?3,?4,?5,?6,?7,?8,?9,?10,?11,?12,?13)");
+        // posts whose comments were changed, keyed by blogId:postId
+        HashMap<String, ReaderComment> changedPosts = new HashMap<String, ReaderComment>();
         try {
             for (ReaderComment comment: comments) {
                 stmt.bindLong  (1, comment.blogId);
@@ -130,6 +179,13 @@ public class ReaderCommentTable {
 
                 stmt.execute();
                 stmt.clearBindings();
+
+                changedPosts.put(comment.blogId + ":" + comment.postId, comment);
+            }
+
+            // recompute the thread order of the affected posts now rather than each time they're read
+            for (ReaderComment comment: changedPosts.values()) {
+                updateThreadOrder(db, comment.blogId, comment.postId);
             }
 
             db.setTransactionSuccessful();
@@ -140,18 +196,171 @@ public class ReaderCommentTable {
         }
     }
 
+    /*
+     * threads the comments on the passed post and stores each comment's position in the thread
+     * (sort_key) and its indent level (depth) - only the ids are read here, and threading is
+     * a single pass so this is cheap even for posts with thousands of comments
+     */
+    private static void updateThreadOrder(SQLiteDatabase db, long blogId, long postId) {
+        String[] args = {Long.toString(blogId), Long.toString(postId)};
+        Cursor c = db.rawQuery("SELECT comment_id, parent_id FROM tbl_comments"
+                             + " WHERE blog_id=? AND post_id=? ORDER BY timestamp, comment_id", args);
+        ReaderCommentList comments = new ReaderCommentList();
+        try {
+            if (c.moveToFirst()) {
+                do {
+                    ReaderComment comment = new ReaderComment();
+                    comment.commentId = c.getLong(0);
+                    comment.parentId = c.getLong(1);
+                    comments.add(comment);
+                } while (c.moveToNext());
+            }
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+
+        ReaderCommentList threadedComments = ReaderCommentList.getLevelList(comments);
+
+        SQLiteStatement stmt = db.compileStatement("UPDATE tbl_comments SET sort_key=?1, depth=?2"
+                                                 + " WHERE blog_id=?3 AND post_id=?4 AND comment_id=?5");
+        try {
+            for (int i = 0; i < threadedComments.size(); i++) {
+                ReaderComment comment = threadedComments.get(i);
+                stmt.bindLong(1, i);
+                stmt.bindLong(2, comment.level);
+                stmt.bindLong(3, blogId);
+                stmt.bindLong(4, postId);
+                stmt.bindLong(5, comment.commentId);
+                stmt.execute();
+                stmt.clearBindings();
+            }
+        } finally {
+            SqlUtils.closeStatement(stmt);
+        }
+    }
+
     /*
      * purge comments attached to posts that no longer exist
      */
     protected static int purge(SQLiteDatabase db) {
-        return db.delete("tbl_comments", "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_posts)", null);
+        int numDeleted = db.delete("tbl_comments",
+                "NOT EXISTS (SELECT 1 FROM tbl_posts"
+              + " WHERE tbl_posts.post_id = tbl_comments.post_id AND tbl_posts.blog_id = tbl_comments.blog_id)",
+                null);
+        numDeleted += db.delete("tbl_comment_anchors",
+                "NOT EXISTS (SELECT 1 FROM tbl_posts"
+              + " WHERE tbl_posts.post_id = tbl_comment_anchors.post_id AND tbl_posts.blog_id = tbl_comment_anchors.blog_id)",
+                null);
+        return numDeleted;
     }
 
     public static void deleteComment(ReaderPost post, long commentId) {
         if (post==null)
             return;
         String[] args = {Long.toString(post.blogId), Long.toString(post.postId), Long.toString(commentId)};
-        ReaderDatabase.getWritableDb().delete("tbl_comments", "blog_id=? AND post_id=? AND comment_id=?", args);
+        SQLiteDatabase db = ReaderDatabase.getWritableDb();
+        db.beginTransaction();
+        try {
+            db.delete("tbl_comments", "blog_id=? AND post_id=? AND comment_id=?", args);
+            // replies to the deleted comment are now orphans
+            updateThreadOrder(db, post.blogId, post.postId);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * tbl_comment_anchors routines
+     **/
+
+    /*
+     * returns the newest comment returned when paging through this post's comments, or null if
+     * they haven't been requested yet - only the comment's id and timestamp are set. this isn't
+     * simply the newest stored comment since comments the user posts are stored without being
+     * paged, and paging from them would skip comments others posted before them
+     */
+    public static ReaderComment getCommentAnchor(ReaderPost post) {
+        if (post==null)
+            return null;
+
+        String[] args = {Long.toString(post.blogId), Long.toString(post.postId)};
+        Cursor c = ReaderDatabase.getReadableDb().rawQuery("SELECT comment_id, timestamp FROM tbl_comment_anchors WHERE blog_id=? AND post_id=?", args);
+        try {
+            if (!c.moveToFirst())
+                return null;
+            ReaderComment anchor = new ReaderComment();
+            anchor.blogId = post.blogId;
+            anchor.postId = post.postId;
+            anchor.commentId = c.getLong(0);
+            anchor.timestamp = c.getLong(1);
+            return anchor;
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    /*
+     * returns the timestamp the next page of comments on this post should start from, or zero
+     * if they haven't been requested yet
+     */
+    public static long getCommentPagingTimestamp(ReaderPost post) {
+        if (post==null)
+            return 0;
+        String[] args = {Long.toString(post.blogId), Long.toString(post.postId)};
+        return SqlUtils.longForQuery(ReaderDatabase.getReadableDb(),
+                "SELECT after_timestamp FROM tbl_comment_anchors WHERE blog_id=? AND post_id=?", args);
+    }
+
+    /*
+     * stores a page of comments returned by the server for this post and moves the paging
+     * window forward, returns the number of comments that weren't already stored. pages
+     * overlap the previous one, so the window normally starts just before the anchor (the
+     * newest comment paged so far, with its id breaking timestamp ties) - but if a full page
+     * has nothing new, every comment in it shares the window's first seconds and requesting
+     * the same window again would return the same page, so the window moves past the page's
+     * newest timestamp instead. the window never moves backwards, so paging always progresses
+     */
+    public static int addPagedComments(ReaderPost post, ReaderCommentList serverComments, int pageSize) {
+        if (post==null || serverComments==null)
+            return 0;
+
+        int numNew = serverComments.getUnknownComments(getCommentIdsForPost(post)).size();
+        addOrUpdateComments(serverComments);
+
+        ReaderComment newest = serverComments.getNewestComment();
+        if (newest==null)
+            return numNew;
+
+        ReaderCommentList anchors = new ReaderCommentList();
+        anchors.add(newest);
+        ReaderComment oldAnchor = getCommentAnchor(post);
+        if (oldAnchor!=null)
+            anchors.add(oldAnchor);
+        ReaderComment anchor = anchors.getNewestComment();
+
+        long afterTimestamp;
+        if (numNew==0 && serverComments.size() >= pageSize) {
+            afterTimestamp = newest.timestamp + 1;
+        } else {
+            afterTimestamp = anchor.timestamp - PAGING_OVERLAP;
+        }
+        afterTimestamp = Math.max(afterTimestamp, getCommentPagingTimestamp(post));
+
+        SQLiteStatement stmt = ReaderDatabase.getWritableDb().compileStatement(
+                "INSERT OR REPLACE INTO tbl_comment_anchors (blog_id, post_id, comment_id, timestamp, after_timestamp) VALUES (?1,?2,?3,?4,?5)");
+        try {
+            stmt.bindLong(1, post.blogId);
+            stmt.bindLong(2, post.postId);
+            stmt.bindLong(3, anchor.commentId);
+            stmt.bindLong(4, anchor.timestamp);
+            stmt.bindLong(5, afterTimestamp);
+            stmt.execute();
+        } finally {
+            SqlUtils.closeStatement(stmt);
+        }
+
+        return numNew;
     }
 
     public static ReaderComment getCommentFromCursor(Cursor c) {
@@ -177,6 +386,8 @@ public class ReaderCommentTable {
         comment.setStatus(c.getString(c.getColumnIndex("status")));
         comment.setText(c.getString(c.getColumnIndex("text")));
 
+        comment.level = c.getInt(c.getColumnIndex("depth"));
+
         return comment;
     }
 }
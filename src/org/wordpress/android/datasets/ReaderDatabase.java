@@ -21,7 +21,7 @@ import java.io.OutputStream;
  */
 public class ReaderDatabase extends SQLiteOpenHelper {
     protected static final String DB_NAME = "wpreader.db";
-    private static final int DB_VERSION = 75;
+    private static final int DB_VERSION = 81;
 
     /*
      * version history
@@ -34,6 +34,12 @@ public class ReaderDatabase extends SQLiteOpenHelper {
      *   73 - added tbl_recommended_blogs to ReaderBlogTable
      *   74 - added primary_tag to ReaderPostTable
      *   75 - added secondary_tag to ReaderPostTable
+     *   76 - added sort_key and depth to ReaderCommentTable
+     *   77 - added ReaderOutboxTable
+     *   78 - added date_expires to ReaderThumbnailTable
+     *   79 - added tbl_tag_stats to ReaderTagTable
+     *   80 - added tbl_comment_anchors to ReaderCommentTable
+     *   81 - added after_timestamp to tbl_comment_anchors in ReaderCommentTable
      */
 
     /*
@@ -109,6 +115,7 @@ public class ReaderDatabase extends SQLiteOpenHelper {
         ReaderUserTable.createTables(db);
         ReaderThumbnailTable.createTables(db);
         ReaderBlogTable.createTables(db);
+        ReaderOutboxTable.createTables(db);
     }
 
     private void dropAllTables(SQLiteDatabase db) {
@@ -119,6 +126,7 @@ public class ReaderDatabase extends SQLiteOpenHelper {
         ReaderUserTable.dropTables(db);
         ReaderThumbnailTable.dropTables(db);
         ReaderBlogTable.dropTables(db);
+        ReaderOutboxTable.dropTables(db);
     }
 
     /*
@@ -136,54 +144,38 @@ public class ReaderDatabase extends SQLiteOpenHelper {
     }
 
     /*
-     * purge older/unattached data - use purgeAsync() to do this in the background
+     * purge older/unattached data - this is called by DatabaseMaintenance, which wraps it in
+     * a transaction and runs it in the background
      */
-    private static void purge() {
-        SQLiteDatabase db = getWritableDb();
-        db.beginTransaction();
-        try {
-            int numPostsDeleted = ReaderPostTable.purge(db);
-
-            // don't bother purging other data unless posts were purged
-            if (numPostsDeleted > 0) {
-                AppLog.i(T.READER, String.format("%d total posts purged", numPostsDeleted));
-
-                // purge unattached comments
-                int numCommentsDeleted = ReaderCommentTable.purge(db);
-                if (numCommentsDeleted > 0)
-                    AppLog.i(T.READER, String.format("%d comments purged", numCommentsDeleted));
-
-                // purge unattached likes
-                int numLikesDeleted = ReaderLikeTable.purge(db);
-                if (numLikesDeleted > 0)
-                    AppLog.i(T.READER, String.format("%d likes purged", numLikesDeleted));
-
-                // purge unattached thumbnails
-                int numThumbsPurged = ReaderThumbnailTable.purge(db);
-                if (numThumbsPurged > 0)
-                    AppLog.i(T.READER, String.format("%d thumbnails purged", numThumbsPurged));
-
-                // purge unattached tags
-                int numTagsPurged = ReaderTagTable.purge(db);
-                if (numTagsPurged > 0)
-                    AppLog.i(T.READER, String.format("%d tags purged", numTagsPurged));
-            }
-            db.setTransactionSuccessful();
-        } finally {
-            db.endTransaction();
-        }
-    }
-
-    /*
-     * async purge
-     */
-    public static void purgeAsync() {
-        new Thread() {
-            @Override
-            public void run() {
-                purge();
-            }
-        }.start();
+    protected static int purge(SQLiteDatabase db) {
+        int numPostsDeleted = ReaderPostTable.purge(db);
+        if (numPostsDeleted > 0)
+            AppLog.i(T.READER, String.format("%d total posts purged", numPostsDeleted));
+
+        // the remaining purges are cheap anti-joins so they're always performed, rather than
+        // only when posts were purged, since rows can be orphaned in other ways
+        int numCommentsDeleted = ReaderCommentTable.purge(db);
+        if (numCommentsDeleted > 0)
+            AppLog.i(T.READER, String.format("%d comments purged", numCommentsDeleted));
+
+        int numLikesDeleted = ReaderLikeTable.purge(db);
+        if (numLikesDeleted > 0)
+            AppLog.i(T.READER, String.format("%d likes purged", numLikesDeleted));
+
+        int numThumbsPurged = ReaderThumbnailTable.purge(db);
+        if (numThumbsPurged > 0)
+            AppLog.i(T.READER, String.format("%d thumbnails purged", numThumbsPurged));
+
+        int numTagsPurged = ReaderTagTable.purge(db);
+        if (numTagsPurged > 0)
+            AppLog.i(T.READER, String.format("%d tags purged", numTagsPurged));
+
+        int numUsersPurged = ReaderUserTable.purge(db);
+        if (numUsersPurged > 0)
+            AppLog.i(T.READER, String.format("%d users purged", numUsersPurged));
+
+        return numPostsDeleted + numCommentsDeleted + numLikesDeleted
+             + numThumbsPurged + numTagsPurged + numUsersPurged;
     }
 
     /*
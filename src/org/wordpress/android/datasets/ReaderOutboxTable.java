@@ -0,0 +1,136 @@
+package org.wordpress.android.datasets;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.text.TextUtils;
+
+import org.wordpress.android.models.ReaderOutboxAction;
+import org.wordpress.android.models.ReaderOutboxAction.OutboxActionType;
+import org.wordpress.android.util.SqlUtils;
+
+/**
+ * stores likes, follows and tag changes that haven't been sent to the server yet - there's
+ * at most one pending action for each target (see ReaderOutboxAction.getKey)
+ */
+public class ReaderOutboxTable {
+    protected static void createTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE tbl_outbox ("
+                + " action_key          TEXT PRIMARY KEY,"
+                + " action_type         TEXT,"
+                + " blog_id             INTEGER DEFAULT 0,"
+                + " post_id             INTEGER DEFAULT 0,"
+                + " blog_url            TEXT,"
+                + " tag_name            TEXT,"
+                + " is_originally_on    INTEGER DEFAULT 0,"
+                + " is_on               INTEGER DEFAULT 0,"
+                + " num_attempts        INTEGER DEFAULT 0,"
+                + " next_attempt        INTEGER DEFAULT 0,"
+                + " date_queued         INTEGER DEFAULT 0)");
+    }
+
+    protected static void dropTables(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS tbl_outbox");
+    }
+
+    public static int getNumActions() {
+        return (int) SqlUtils.getRowCount(ReaderDatabase.getReadableDb(), "tbl_outbox");
+    }
+
+    public static ReaderOutboxAction getAction(String key) {
+        if (TextUtils.isEmpty(key))
+            return null;
+        Cursor c = ReaderDatabase.getReadableDb().rawQuery("SELECT * FROM tbl_outbox WHERE action_key=?", new String[]{key});
+        try {
+            if (!c.moveToFirst())
+                return null;
+            return getActionFromCursor(c);
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    public static boolean hasAction(String key) {
+        if (TextUtils.isEmpty(key))
+            return false;
+        return SqlUtils.boolForQuery(ReaderDatabase.getReadableDb(), "SELECT 1 FROM tbl_outbox WHERE action_key=?", new String[]{key});
+    }
+
+    /*
+     * returns the oldest action that's due to be sent at the passed time, or null if none are due
+     */
+    public static ReaderOutboxAction getNextAction(long now) {
+        String[] args = {Long.toString(now)};
+        Cursor c = ReaderDatabase.getReadableDb().rawQuery(
+                "SELECT * FROM tbl_outbox WHERE next_attempt <= ? ORDER BY date_queued LIMIT 1", args);
+        try {
+            if (!c.moveToFirst())
+                return null;
+            return getActionFromCursor(c);
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    /*
+     * returns the time the next action that's backing off is due, or 0 if there aren't any
+     */
+    public static long getNextAttemptTime() {
+        return SqlUtils.longForQuery(ReaderDatabase.getReadableDb(), "SELECT MIN(next_attempt) FROM tbl_outbox", null);
+    }
+
+    /*
+     * adds the passed action, replacing any existing action with the same key - an existing
+     * action keeps its place in the queue
+     */
+    public static void addOrUpdateAction(ReaderOutboxAction action) {
+        if (action == null)
+            return;
+
+        SQLiteDatabase db = ReaderDatabase.getWritableDb();
+        SQLiteStatement stmt = db.compileStatement("INSERT OR REPLACE INTO tbl_outbox"
+                + " (action_key, action_type, blog_id, post_id, blog_url, tag_name, is_originally_on, is_on, num_attempts, next_attempt, date_queued)"
+                + " VALUES (?1,?2,?3,?4,?5,?6,?7,?8,?9,?10,"
+                + " IFNULL((SELECT date_queued FROM tbl_outbox WHERE action_key=?1), ?11))");
+        try {
+            stmt.bindString(1, action.getKey());
+            stmt.bindString(2, action.actionType.name());
+            stmt.bindLong  (3, action.blogId);
+            stmt.bindLong  (4, action.postId);
+            stmt.bindString(5, action.getBlogUrl());
+            stmt.bindString(6, action.getTagName());
+            stmt.bindLong  (7, SqlUtils.boolToSql(action.isOriginallyOn));
+            stmt.bindLong  (8, SqlUtils.boolToSql(action.isOn));
+            stmt.bindLong  (9, action.numAttempts);
+            stmt.bindLong  (10, action.nextAttempt);
+            stmt.bindLong  (11, System.currentTimeMillis());
+            stmt.execute();
+        } finally {
+            SqlUtils.closeStatement(stmt);
+        }
+    }
+
+    public static void deleteAction(String key) {
+        if (TextUtils.isEmpty(key))
+            return;
+        ReaderDatabase.getWritableDb().delete("tbl_outbox", "action_key=?", new String[]{key});
+    }
+
+    private static ReaderOutboxAction getActionFromCursor(Cursor c) {
+        OutboxActionType actionType = OutboxActionType.valueOf(c.getString(c.getColumnIndex("action_type")));
+        ReaderOutboxAction action = new ReaderOutboxAction(actionType);
+
+        action.blogId = c.getLong(c.getColumnIndex("blog_id"));
+        action.postId = c.getLong(c.getColumnIndex("post_id"));
+        action.setBlogUrl(c.getString(c.getColumnIndex("blog_url")));
+        action.setTagName(c.getString(c.getColumnIndex("tag_name")));
+
+        action.isOriginallyOn = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_originally_on")));
+        action.isOn = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_on")));
+
+        action.numAttempts = c.getInt(c.getColumnIndex("num_attempts"));
+        action.nextAttempt = c.getLong(c.getColumnIndex("next_attempt"));
+
+        return action;
+    }
+}
@@ -11,6 +11,11 @@ import org.wordpress.android.models.ReaderTag;
 import org.wordpress.android.util.SqlUtils;
 import org.wordpress.android.util.UrlUtils;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * tbl_posts contains all reader posts
  * tbl_post_tags stores the association between posts and tags (posts can exist in more than one tag)
@@ -47,6 +52,16 @@ public class ReaderPostTable {
           + "primary_tag,"          // 27
           + "secondary_tag";        // 28
 
+    // columns used when loading posts for lists, which never need the text - excluding it keeps
+    // large posts from filling the CursorWindow
+    private static final String LIST_COLUMN_NAMES =
+            "tbl_posts.post_id, tbl_posts.blog_id, tbl_posts.pseudo_id, tbl_posts.author_name,"
+          + " tbl_posts.author_id, tbl_posts.title, tbl_posts.excerpt, tbl_posts.url,"
+          + " tbl_posts.blog_url, tbl_posts.blog_name, tbl_posts.featured_image, tbl_posts.featured_video,"
+          + " tbl_posts.post_avatar, tbl_posts.timestamp, tbl_posts.published, tbl_posts.num_replies,"
+          + " tbl_posts.num_likes, tbl_posts.is_liked, tbl_posts.is_followed, tbl_posts.is_comments_open,"
+          + " tbl_posts.is_reblogged, tbl_posts.is_external, tbl_posts.is_private, tbl_posts.is_videopress,"
+          + " tbl_posts.tag_list, tbl_posts.primary_tag, tbl_posts.secondary_tag";
 
     protected static void createTables(SQLiteDatabase db) {
         db.execSQL("CREATE TABLE tbl_posts ("
@@ -56,7 +71,7 @@ public class ReaderPostTable {
                 + "	author_name	        TEXT,"
                 + " author_id           INTEGER DEFAULT 0,"
                 + "	title	            TEXT,"
-                + "	text                TEXT,"
+                + "	text                TEXT,"       // may be compressed, see SqlUtils.bindCompressedText()
                 + "	excerpt             TEXT,"
                 + " url                 TEXT,"
                 + " blog_url            TEXT,"
@@ -106,14 +121,35 @@ public class ReaderPostTable {
      */
     protected static int purge(SQLiteDatabase db) {
         // delete posts in tbl_post_tags attached to tags that no longer exist
-        int numDeleted = db.delete("tbl_post_tags", "tag_name NOT IN (SELECT DISTINCT tag_name FROM tbl_tags)", null);
+        int numDeleted = db.delete("tbl_post_tags",
+                "NOT EXISTS (SELECT 1 FROM tbl_tags WHERE tbl_tags.tag_name = tbl_post_tags.tag_name)",
+                null);
 
         // delete posts in tbl_posts that no longer exist in tbl_post_tags
-        numDeleted += db.delete("tbl_posts", "pseudo_id NOT IN (SELECT DISTINCT pseudo_id FROM tbl_post_tags)", null);
+        numDeleted += deleteUntaggedPosts(db);
 
         return numDeleted;
     }
 
+    private static int deleteUntaggedPosts(SQLiteDatabase db) {
+        return db.delete("tbl_posts",
+                "NOT EXISTS (SELECT 1 FROM tbl_post_tags"
+              + " WHERE tbl_post_tags.post_id = tbl_posts.post_id AND tbl_post_tags.blog_id = tbl_posts.blog_id)",
+                null);
+    }
+
+    /*
+     * deletes the oldest posts regardless of tag - used by DatabaseMaintenance to keep the
+     * reader db within its size budget, caller must purge related tables afterwards
+     */
+    protected static int deleteOldestPosts(SQLiteDatabase db, int numPosts) {
+        if (numPosts <= 0)
+            return 0;
+        String oldest = "SELECT pseudo_id FROM tbl_posts ORDER BY timestamp LIMIT " + Integer.toString(numPosts);
+        db.delete("tbl_post_tags", "pseudo_id IN (" + oldest + ")", null);
+        return deleteUntaggedPosts(db);
+    }
+
     public static boolean isEmpty() {
         return (getNumPosts() == 0);
     }
@@ -152,8 +188,16 @@ public class ReaderPostTable {
     }
 
     public static ReaderPost getPost(long blogId, long postId) {
+        return getPost(blogId, postId, false);
+    }
+
+    /*
+     * pass excludeText=true when the post is for a list rather than the detail view
+     */
+    public static ReaderPost getPost(long blogId, long postId, boolean excludeText) {
         String[] args = new String[] {Long.toString(blogId), Long.toString(postId)};
-        Cursor c = ReaderDatabase.getReadableDb().rawQuery("SELECT * FROM tbl_posts WHERE blog_id=? AND post_id=? LIMIT 1", args);
+        String columns = (excludeText ? LIST_COLUMN_NAMES : "*");
+        Cursor c = ReaderDatabase.getReadableDb().rawQuery("SELECT " + columns + " FROM tbl_posts WHERE blog_id=? AND post_id=? LIMIT 1", args);
         try {
             if (!c.moveToFirst())
                 return null;
@@ -193,19 +237,15 @@ public class ReaderPostTable {
         if (getNumPostsWithTag(tagName) == 0)
             return posts.size();
 
-        StringBuilder sb = new StringBuilder("SELECT COUNT(*) FROM tbl_post_tags WHERE tag_name=? AND pseudo_id IN (");
-        boolean isFirst = true;
+        List<String> pseudoIds = new ArrayList<String>(posts.size());
         for (ReaderPost post: posts) {
-            if (isFirst) {
-                isFirst = false;
-            } else {
-                sb.append(",");
-            }
-            sb.append("'").append(post.getPseudoId()).append("'");
+            pseudoIds.add(post.getPseudoId());
         }
-        sb.append(")");
 
-        int numExisting = SqlUtils.intForQuery(ReaderDatabase.getReadableDb(), sb.toString(), new String[]{tagName});
+        int numExisting = SqlUtils.countInSet(ReaderDatabase.getReadableDb(),
+                "SELECT COUNT(*) FROM tbl_post_tags WHERE tag_name=? AND pseudo_id IN " + SqlUtils.SET_PLACEHOLDER,
+                new String[]{tagName},
+                pseudoIds);
         return posts.size() - numExisting;
     }
 
@@ -262,11 +302,30 @@ public class ReaderPostTable {
             return false;
         }
 
+        // get the follow status of every post in a single pass - posts are looked up by post_id,
+        // which is the first column of the primary key, and then matched on blog_id here
+        List<Long> postIds = new ArrayList<Long>(posts.size());
+        for (ReaderPost post: posts) {
+            postIds.add(post.postId);
+        }
+        final Map<String, Boolean> followStatus = new HashMap<String, Boolean>();
+        SqlUtils.queryInSet(ReaderDatabase.getReadableDb(),
+                "SELECT blog_id, post_id, is_followed FROM tbl_posts WHERE post_id IN " + SqlUtils.SET_PLACEHOLDER,
+                null,
+                postIds,
+                new SqlUtils.RowHandler() {
+                    @Override
+                    public void onRow(Cursor c) {
+                        followStatus.put(c.getLong(0) + ":" + c.getLong(1), SqlUtils.sqlToBool(c.getInt(2)));
+                    }
+                });
+
         boolean isChanged = false;
         for (ReaderPost post: posts) {
-            boolean isFollowed = isPostFollowed(post);
-            if (isFollowed != post.isFollowedByCurrentUser) {
-                post.isFollowedByCurrentUser = isFollowed;
+            Boolean isFollowed = followStatus.get(post.blogId + ":" + post.postId);
+            boolean isFollowedValue = (isFollowed != null && isFollowed);
+            if (isFollowedValue != post.isFollowedByCurrentUser) {
+                post.isFollowedByCurrentUser = isFollowedValue;
                 isChanged = true;
             }
         }
@@ -283,9 +342,7 @@ public class ReaderPostTable {
                 new String[]{tagName});
 
         if (numDeleted > 0)
-            ReaderDatabase.getWritableDb().delete("tbl_posts",
-                    "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_post_tags)",
-                    null);
+            deleteUntaggedPosts(ReaderDatabase.getWritableDb());
 
         return numDeleted;
     }
@@ -303,6 +360,19 @@ public class ReaderPostTable {
         return SqlUtils.stringForQuery(ReaderDatabase.getReadableDb(), sql, new String[]{tagName});
     }
 
+    /*
+     * returns the iso8601 published date of the newest post with the passed tag
+     */
+    public static String getNewestPubDateWithTag(final String tagName) {
+        if (TextUtils.isEmpty(tagName))
+            return "";
+
+        String sql = "SELECT tbl_posts.published FROM tbl_posts, tbl_post_tags"
+                   + " WHERE tbl_posts.post_id = tbl_post_tags.post_id AND tbl_posts.blog_id = tbl_post_tags.blog_id"
+                   + " AND tbl_post_tags.tag_name=? ORDER BY published DESC LIMIT 1";
+        return SqlUtils.stringForQuery(ReaderDatabase.getReadableDb(), sql, new String[]{tagName});
+    }
+
     /*
      * returns the iso8601 published date of the oldest post in the passed blog
      */
@@ -358,7 +428,10 @@ public class ReaderPostTable {
         SQLiteStatement stmtPosts = db.compileStatement(
                 "INSERT OR REPLACE INTO tbl_posts ("
                 + COLUMN_NAMES
-                + ") VALUES (?1,?2,?3,?4,?5,?6,?7,?8,?9,?10,?11,?12,?13,?14,?15,?16,?17,?18,?19,?20,?21,?22,?23,?24,?25,?26,?27,?28)");
+                + ") VALUES (?1,?2,?3,?4,?5,?6,"
+                // keep the existing text when updating a post loaded without it
+                + "IFNULL(?7, (SELECT text FROM tbl_posts WHERE post_id=?1 AND blog_id=?2)),"
+                + "?8,?9,?10,?11,?12,?13,?14,?15,?16,?17,?18,?19,?20,?21,?22,?23,?24,?25,?26,?27,?28)");
         SQLiteStatement stmtTags = db.compileStatement(
                 "INSERT OR REPLACE INTO tbl_post_tags (post_id, blog_id, pseudo_id, tag_name) VALUES (?1,?2,?3,?4)");
 
@@ -372,7 +445,15 @@ public class ReaderPostTable {
                 stmtPosts.bindString(4,  post.getAuthorName());
                 stmtPosts.bindLong  (5,  post.authorId);
                 stmtPosts.bindString(6,  post.getTitle());
-                stmtPosts.bindString(7,  post.getText());
+                // write compressed text as-is if it was never inflated after being loaded
+                byte[] compressedText = post.getCompressedText();
+                if (!post.isTextLoaded()) {
+                    stmtPosts.bindNull(7);
+                } else if (compressedText != null) {
+                    stmtPosts.bindBlob(7, compressedText);
+                } else {
+                    SqlUtils.bindCompressedText(stmtPosts, 7, post.getText());
+                }
                 stmtPosts.bindString(8,  post.getExcerpt());
                 stmtPosts.bindString(9,  post.getUrl());
                 stmtPosts.bindString(10, post.getBlogUrl());
@@ -424,7 +505,7 @@ public class ReaderPostTable {
         if (TextUtils.isEmpty(tagName))
             return new ReaderPostList();
 
-        String sql = "SELECT tbl_posts.* FROM tbl_posts, tbl_post_tags"
+        String sql = "SELECT " + LIST_COLUMN_NAMES + " FROM tbl_posts, tbl_post_tags"
                    + " WHERE tbl_posts.post_id = tbl_post_tags.post_id"
                    + " AND tbl_posts.blog_id = tbl_post_tags.blog_id"
                    + " AND tbl_post_tags.tag_name=?";
@@ -460,7 +541,7 @@ public class ReaderPostTable {
     }
 
     public static ReaderPostList getPostsInBlog(long blogId, int maxPosts) {
-        String sql = "SELECT * FROM tbl_posts WHERE blog_id = ? ORDER BY tbl_posts.timestamp DESC";
+        String sql = "SELECT " + LIST_COLUMN_NAMES + " FROM tbl_posts WHERE blog_id = ? ORDER BY tbl_posts.timestamp DESC";
 
         if (maxPosts > 0)
             sql += " LIMIT " + Integer.toString(maxPosts);
@@ -483,6 +564,42 @@ public class ReaderPostTable {
     }
 
 
+    /*
+     * updates the counts and current user flags of the passed posts without touching the rest
+     * of the post, returns the number of posts that actually changed
+     */
+    public static int updatePostCounts(ReaderPostList posts) {
+        if (posts == null || posts.size() == 0)
+            return 0;
+
+        SQLiteDatabase db = ReaderDatabase.getWritableDb();
+        SQLiteStatement stmt = db.compileStatement(
+                "UPDATE tbl_posts SET num_replies=?1, num_likes=?2, is_liked=?3, is_followed=?4, is_comments_open=?5"
+              + " WHERE blog_id=?6 AND post_id=?7"
+              + " AND (num_replies<>?1 OR num_likes<>?2 OR is_liked<>?3 OR is_followed<>?4 OR is_comments_open<>?5)");
+        int numChanged = 0;
+        db.beginTransaction();
+        try {
+            for (ReaderPost post: posts) {
+                stmt.bindLong(1, post.numReplies);
+                stmt.bindLong(2, post.numLikes);
+                stmt.bindLong(3, SqlUtils.boolToSql(post.isLikedByCurrentUser));
+                stmt.bindLong(4, SqlUtils.boolToSql(post.isFollowedByCurrentUser));
+                stmt.bindLong(5, SqlUtils.boolToSql(post.isCommentsOpen));
+                stmt.bindLong(6, post.blogId);
+                stmt.bindLong(7, post.postId);
+                numChanged += stmt.executeUpdateDelete();
+                stmt.clearBindings();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            SqlUtils.closeStatement(stmt);
+        }
+
+        return numChanged;
+    }
+
     public static void setPostReblogged(ReaderPost post, boolean isReblogged) {
         if (post == null)
             return;
@@ -597,7 +714,16 @@ public class ReaderPostTable {
         post.setFeaturedVideo(c.getString(cols.idx_featured_video));
 
         post.setTitle(c.getString(cols.idx_title));
-        post.setText(c.getString(cols.idx_text));
+        // text isn't loaded for lists - when it is loaded it's usually compressed, in which case
+        // it's inflated when first accessed rather than here
+        if (cols.idx_text != -1) {
+            byte[] compressedText = SqlUtils.getCompressedBlob(c, cols.idx_text);
+            if (compressedText != null) {
+                post.setCompressedText(compressedText);
+            } else {
+                post.setText(SqlUtils.getCompressedText(c, cols.idx_text));
+            }
+        }
         post.setUrl(c.getString(cols.idx_url));
         post.setPostAvatar(c.getString(cols.idx_post_avatar));
 
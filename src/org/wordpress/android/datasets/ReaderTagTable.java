@@ -10,7 +10,7 @@ import android.text.TextUtils;
 import org.wordpress.android.models.ReaderTag;
 import org.wordpress.android.models.ReaderTag.ReaderTagType;
 import org.wordpress.android.models.ReaderTagList;
-import org.wordpress.android.ui.reader.ReaderConstants;
+import org.wordpress.android.models.ReaderTagStats;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.DateTimeUtils;
@@ -25,6 +25,8 @@ import java.util.Date;
  *      date_updated is the date the topic was last updated
  *      date_newest is used when retrieving new posts - only get posts newer than date_newest
  *      date_oldest is used when retrieving old posts - only get posts older than date_oldest
+ *  tbl_tag_stats stores statistics about past updates of each topic, which determine how
+ *  often the topic is automatically updated (see ReaderTagStats)
  */
 public class ReaderTagTable {
     private static final String COLUMN_NAMES = "tag_name, endpoint, topic_type";
@@ -45,16 +47,32 @@ public class ReaderTagTable {
                 + " 	date_updated TEXT,"
                 + " 	date_oldest	 TEXT,"
                 + " 	date_newest	 TEXT)");
+
+        db.execSQL("CREATE TABLE tbl_tag_stats ("
+                + "     tag_name                  TEXT COLLATE NOCASE PRIMARY KEY,"
+                + "     num_updates               INTEGER DEFAULT 0,"
+                + "     avg_new_posts             REAL DEFAULT 0,"
+                + "     num_empty_updates         INTEGER DEFAULT 0,"
+                + "     date_last_new_posts       INTEGER DEFAULT 0,"
+                + "     avg_new_posts_interval    INTEGER DEFAULT 0,"
+                + "     date_last_opened          INTEGER DEFAULT 0)");
     }
 
     protected static void dropTables(SQLiteDatabase db) {
         db.execSQL("DROP TABLE IF EXISTS tbl_tags");
         db.execSQL("DROP TABLE IF EXISTS tbl_recommended_tags");
         db.execSQL("DROP TABLE IF EXISTS tbl_tag_updates");
+        db.execSQL("DROP TABLE IF EXISTS tbl_tag_stats");
     }
 
     protected static int purge(SQLiteDatabase db) {
-        return db.delete("tbl_tag_updates", "tag_name NOT IN (SELECT DISTINCT tag_name FROM tbl_tags)", null);
+        int numDeleted = db.delete("tbl_tag_updates",
+                "NOT EXISTS (SELECT 1 FROM tbl_tags WHERE tbl_tags.tag_name = tbl_tag_updates.tag_name)",
+                null);
+        numDeleted += db.delete("tbl_tag_stats",
+                "NOT EXISTS (SELECT 1 FROM tbl_tags WHERE tbl_tags.tag_name = tbl_tag_stats.tag_name)",
+                null);
+        return numDeleted;
     }
 
     /*
@@ -228,6 +246,7 @@ public class ReaderTagTable {
         String[] args = {tagName};
         ReaderDatabase.getWritableDb().delete("tbl_tags", "tag_name=?", args);
         ReaderDatabase.getWritableDb().delete("tbl_tag_updates", "tag_name=?", args);
+        ReaderDatabase.getWritableDb().delete("tbl_tag_stats", "tag_name=?", args);
     }
 
     /**
@@ -308,13 +327,83 @@ public class ReaderTagTable {
 
     /*
      * determine whether the passed topic should be auto-updated based on when it was last updated
+     * and how often it has new posts (see ReaderTagStats.getUpdateIntervalMinutes)
      */
     public static boolean shouldAutoUpdateTag(String tagName) {
         int minutes = minutesSinceLastUpdate(tagName);
         if (minutes == NEVER_UPDATED) {
             return true;
         }
-        return (minutes >= ReaderConstants.READER_AUTO_UPDATE_DELAY_MINUTES);
+        return (minutes >= getTagStats(tagName).getUpdateIntervalMinutes(System.currentTimeMillis()));
+    }
+
+    /**
+     * tbl_tag_stats routines
+     **/
+    public static ReaderTagStats getTagStats(String tagName) {
+        ReaderTagStats stats = new ReaderTagStats();
+        stats.tagName = tagName;
+        if (TextUtils.isEmpty(tagName)) {
+            return stats;
+        }
+
+        Cursor c = ReaderDatabase.getReadableDb().rawQuery("SELECT * FROM tbl_tag_stats WHERE tag_name=?", new String[]{tagName});
+        try {
+            if (c.moveToFirst()) {
+                stats.numUpdates = c.getInt(c.getColumnIndex("num_updates"));
+                stats.avgNewPosts = c.getFloat(c.getColumnIndex("avg_new_posts"));
+                stats.numEmptyUpdates = c.getInt(c.getColumnIndex("num_empty_updates"));
+                stats.dateLastNewPosts = c.getLong(c.getColumnIndex("date_last_new_posts"));
+                stats.avgNewPostsIntervalMs = c.getLong(c.getColumnIndex("avg_new_posts_interval"));
+                stats.dateLastOpened = c.getLong(c.getColumnIndex("date_last_opened"));
+            }
+            return stats;
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    private static void setTagStats(ReaderTagStats stats) {
+        SQLiteStatement stmt = ReaderDatabase.getWritableDb().compileStatement(
+                "INSERT OR REPLACE INTO tbl_tag_stats"
+              + " (tag_name, num_updates, avg_new_posts, num_empty_updates, date_last_new_posts, avg_new_posts_interval, date_last_opened)"
+              + " VALUES (?1,?2,?3,?4,?5,?6,?7)");
+        try {
+            stmt.bindString(1, stats.tagName);
+            stmt.bindLong  (2, stats.numUpdates);
+            stmt.bindDouble(3, stats.avgNewPosts);
+            stmt.bindLong  (4, stats.numEmptyUpdates);
+            stmt.bindLong  (5, stats.dateLastNewPosts);
+            stmt.bindLong  (6, stats.avgNewPostsIntervalMs);
+            stmt.bindLong  (7, stats.dateLastOpened);
+            stmt.execute();
+        } finally {
+            SqlUtils.closeStatement(stmt);
+        }
+    }
+
+    /*
+     * called after requesting newer posts in the passed topic
+     */
+    public static void addTagUpdateStats(String tagName, int numNewPosts) {
+        if (TextUtils.isEmpty(tagName)) {
+            return;
+        }
+        ReaderTagStats stats = getTagStats(tagName);
+        stats.addUpdate(numNewPosts, System.currentTimeMillis());
+        setTagStats(stats);
+    }
+
+    /*
+     * called when the user views the passed topic - topics the user views often are kept fresher
+     */
+    public static void setTagLastOpened(String tagName) {
+        if (TextUtils.isEmpty(tagName)) {
+            return;
+        }
+        ReaderTagStats stats = getTagStats(tagName);
+        stats.dateLastOpened = System.currentTimeMillis();
+        setTagStats(stats);
     }
 
     private static final int NEVER_UPDATED = -1;
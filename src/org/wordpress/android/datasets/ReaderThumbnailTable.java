@@ -1,5 +1,6 @@
 package org.wordpress.android.datasets;
 
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteStatement;
 import android.text.TextUtils;
@@ -7,15 +8,26 @@ import android.text.TextUtils;
 import org.wordpress.android.util.ReaderVideoUtils;
 import org.wordpress.android.util.SqlUtils;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
 /**
- * stores thumbnail urls for videos embedded in Reader posts
+ * stores thumbnail urls for videos embedded in Reader posts - videos that don't have a
+ * thumbnail are also stored (with an empty thumbnail_url) so they aren't requested again
  */
 public class ReaderThumbnailTable {
+    // how long a thumbnail is kept before it's requested again, and how long a video without
+    // a thumbnail (or whose request failed) is skipped before trying again
+    private static final long THUMBNAIL_TTL_MS = 30L * 24 * 60 * 60 * 1000;
+    private static final long MISSING_THUMBNAIL_TTL_MS = 24L * 60 * 60 * 1000;
+
     protected static void createTables(SQLiteDatabase db) {
         db.execSQL("CREATE TABLE tbl_thumbnails ("
                 + "	full_url	  TEXT COLLATE NOCASE PRIMARY KEY,"
                 + " thumbnail_url TEXT NOT NULL,"
-                + " post_id       INTEGER)");
+                + " post_id       INTEGER,"
+                + " date_expires  INTEGER DEFAULT 0)");
     }
 
     protected static void dropTables(SQLiteDatabase db) {
@@ -23,27 +35,49 @@ public class ReaderThumbnailTable {
     }
 
     /*
-     * purge table of thumbnails attached to posts that no longer exist
+     * purge table of thumbnails attached to posts that no longer exist, along with expired
+     * entries for videos without thumbnails (expired thumbnails are kept until replaced)
      */
     protected static int purge(SQLiteDatabase db) {
-        return db.delete("tbl_thumbnails", "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_posts)", null);
+        return db.delete("tbl_thumbnails",
+                "NOT EXISTS (SELECT 1 FROM tbl_posts WHERE tbl_posts.post_id = tbl_thumbnails.post_id)"
+              + " OR (thumbnail_url = '' AND date_expires < ?)",
+                new String[]{Long.toString(System.currentTimeMillis())});
     }
 
     public static void addThumbnail(long postId, String fullUrl, String thumbnailUrl) {
         if (TextUtils.isEmpty(fullUrl) || TextUtils.isEmpty(thumbnailUrl))
             return;
+        insertThumbnail(postId, fullUrl, thumbnailUrl, THUMBNAIL_TTL_MS);
+    }
+
+    /*
+     * remember that the passed video doesn't have a thumbnail (or that requesting it failed)
+     */
+    public static void addMissingThumbnail(long postId, String fullUrl) {
+        if (TextUtils.isEmpty(fullUrl))
+            return;
+        insertThumbnail(postId, fullUrl, "", MISSING_THUMBNAIL_TTL_MS);
+    }
 
-        SQLiteStatement stmt = ReaderDatabase.getWritableDb().compileStatement("INSERT OR REPLACE INTO tbl_thumbnails (full_url, thumbnail_url, post_id) VALUES (?1,?2,?3)");
+    private static void insertThumbnail(long postId, String fullUrl, String thumbnailUrl, long ttl) {
+        SQLiteStatement stmt = ReaderDatabase.getWritableDb().compileStatement("INSERT OR REPLACE INTO tbl_thumbnails (full_url, thumbnail_url, post_id, date_expires) VALUES (?1,?2,?3,?4)");
         try {
             stmt.bindString(1, fullUrl);
             stmt.bindString(2, thumbnailUrl);
             stmt.bindLong  (3, postId);
+            stmt.bindLong  (4, System.currentTimeMillis() + ttl);
             stmt.execute();
         } finally {
             SqlUtils.closeStatement(stmt);
         }
     }
 
+    /*
+     * returns the thumbnail for the passed video, or an empty string if it doesn't have one
+     * or hasn't been resolved yet - note that expired thumbnails are still returned since
+     * an old thumbnail is better than none
+     */
     public static String getThumbnailUrl(String fullUrl) {
         if (TextUtils.isEmpty(fullUrl))
             return null;
@@ -56,4 +90,48 @@ public class ReaderThumbnailTable {
         return SqlUtils.stringForQuery(ReaderDatabase.getReadableDb(), "SELECT thumbnail_url FROM tbl_thumbnails WHERE full_url=?", new String[]{fullUrl});
     }
 
+    /*
+     * returns true if the passed video has an unexpired result, either a thumbnail or the fact
+     * that it doesn't have one
+     */
+    public static boolean isThumbnailResolved(String fullUrl) {
+        if (TextUtils.isEmpty(fullUrl))
+            return false;
+        String[] args = {fullUrl, Long.toString(System.currentTimeMillis())};
+        return SqlUtils.boolForQuery(ReaderDatabase.getReadableDb(),
+                "SELECT 1 FROM tbl_thumbnails WHERE full_url=? AND date_expires >= ?", args);
+    }
+
+    /*
+     * returns which of the passed videos don't have an unexpired result
+     */
+    public static Set<String> getUnresolvedUrls(Collection<String> fullUrls) {
+        final Set<String> unresolved = new HashSet<String>();
+        if (fullUrls == null || fullUrls.size() == 0)
+            return unresolved;
+
+        // urls are case-insensitive here, so compare them in lowercase
+        for (String url: fullUrls) {
+            unresolved.add(url.toLowerCase());
+        }
+        String[] args = {Long.toString(System.currentTimeMillis())};
+        SqlUtils.queryInSet(ReaderDatabase.getReadableDb(),
+                "SELECT LOWER(full_url) FROM tbl_thumbnails WHERE date_expires >= ? AND full_url IN " + SqlUtils.SET_PLACEHOLDER,
+                args,
+                fullUrls,
+                new SqlUtils.RowHandler() {
+                    @Override
+                    public void onRow(Cursor c) {
+                        unresolved.remove(c.getString(0));
+                    }
+                });
+
+        // return the urls as passed rather than lowercased
+        Set<String> result = new HashSet<String>();
+        for (String url: fullUrls) {
+            if (unresolved.contains(url.toLowerCase()))
+                result.add(url);
+        }
+        return result;
+    }
 }
@@ -13,6 +13,7 @@ import org.wordpress.android.util.PhotonUtils;
 import org.wordpress.android.util.SqlUtils;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * stores info about the current user and liking users
@@ -33,6 +34,15 @@ public class ReaderUserTable {
         db.execSQL("DROP TABLE IF EXISTS tbl_users");
     }
 
+    /*
+     * purge users other than the current user who no longer like any posts
+     */
+    protected static int purge(SQLiteDatabase db) {
+        return db.delete("tbl_users",
+                "user_id != ? AND NOT EXISTS (SELECT 1 FROM tbl_post_likes WHERE tbl_post_likes.user_id = tbl_users.user_id)",
+                new String[]{Long.toString(UserPrefs.getCurrentUserId())});
+    }
+
     public static void addOrUpdateUser(ReaderUser user) {
         if (user==null)
             return;
@@ -83,52 +93,45 @@ public class ReaderUserTable {
      * returns avatar urls for the passed user ids - used by post detail to show avatars for liking users
      */
     public static ArrayList<String> getAvatarUrls(ReaderUserIdList userIds, int max, int avatarSz) {
-        ArrayList<String> avatars = new ArrayList<String>();
         if (userIds==null || userIds.size()==0)
-            return avatars;
-
-        StringBuilder sb = new StringBuilder("SELECT user_id, avatar_url FROM tbl_users WHERE user_id IN (");
+            return new ArrayList<String>();
 
         // make sure current user's avatar is returned if the passed list contains them - this is
         // important since it may not otherwise be returned when a "max" is passed, and we want
         // the current user to appear first in post detail when they like a post
-        long currentUserId = UserPrefs.getCurrentUserId();
-        boolean containsCurrentUser = userIds.contains(currentUserId);
-        if (containsCurrentUser)
-            sb.append(currentUserId);
+        final long currentUserId = UserPrefs.getCurrentUserId();
+        List<Long> idsToQuery = new ArrayList<Long>();
+        if (userIds.contains(currentUserId))
+            idsToQuery.add(currentUserId);
 
-        int numAdded = (containsCurrentUser ? 1 : 0);
         for (Long id: userIds) {
+            if (max > 0 && idsToQuery.size() >= max)
+                break;
             // skip current user since we added them already
-            if (id!=currentUserId) {
-                if (numAdded > 0)
-                    sb.append(",");
-                sb.append(id);
-                numAdded++;
-                if (max > 0 && numAdded >= max)
-                    break;
-            }
+            if (id!=currentUserId)
+                idsToQuery.add(id);
         }
-        sb.append(")");
 
-        Cursor c = ReaderDatabase.getReadableDb().rawQuery(sb.toString(), null);
-        try {
-            if (c.moveToFirst()) {
-                do {
-                    long userId = c.getLong(0);
-                    String url = PhotonUtils.fixAvatar(c.getString(1), avatarSz);
-                    // add current user to the top
-                    if (userId==currentUserId) {
-                        avatars.add(0, url);
-                    } else {
-                        avatars.add(url);
+        final ArrayList<String> avatars = new ArrayList<String>();
+        final int avatarSize = avatarSz;
+        SqlUtils.queryInSet(ReaderDatabase.getReadableDb(),
+                "SELECT user_id, avatar_url FROM tbl_users WHERE user_id IN " + SqlUtils.SET_PLACEHOLDER,
+                null,
+                idsToQuery,
+                new SqlUtils.RowHandler() {
+                    @Override
+                    public void onRow(Cursor c) {
+                        long userId = c.getLong(0);
+                        String url = PhotonUtils.fixAvatar(c.getString(1), avatarSize);
+                        // add current user to the top
+                        if (userId==currentUserId) {
+                            avatars.add(0, url);
+                        } else {
+                            avatars.add(url);
+                        }
                     }
-                } while (c.moveToNext());
-            }
-            return avatars;
-        } finally {
-            SqlUtils.closeCursor(c);
-        }
+                });
+        return avatars;
     }
 
     public static ReaderUser getCurrentUser() {
@@ -0,0 +1,296 @@
+package org.wordpress.android.datasets;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.text.TextUtils;
+
+import org.wordpress.android.WordPressDB;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.SqlUtils;
+import org.wordpress.android.util.StringUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * FTS4 virtual tables which mirror the searchable text of local posts, comments and media so
+ * they can be searched without a full table scan. Each FTS row uses the rowid of the row it
+ * mirrors as its docid, and the index is kept in sync by the save/delete paths in WordPressDB
+ * and CommentTable via the reindex/unindex routines below.
+ */
+public class SearchTable {
+    private static final String POSTS_FTS    = "posts_fts";
+    private static final String COMMENTS_FTS = "comments_fts";
+    private static final String MEDIA_FTS    = "media_fts";
+
+    // per-column weights used when ranking matches - titles count more than body text
+    private static final double[] POST_WEIGHTS    = {2.0, 1.0};       // title, content
+    private static final double[] COMMENT_WEIGHTS = {1.0, 1.0};       // author_name, comment
+    private static final double[] MEDIA_WEIGHTS   = {2.0, 1.0, 1.0};  // title, caption, file_name
+
+    private SearchTable() {
+        throw new AssertionError();
+    }
+
+    public static void createTables(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + POSTS_FTS
+                 + " USING fts4(title, content)");
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + COMMENTS_FTS
+                 + " USING fts4(author_name, comment)");
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + MEDIA_FTS
+                 + " USING fts4(title, caption, file_name)");
+    }
+
+    private static void dropTables(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS " + POSTS_FTS);
+        db.execSQL("DROP TABLE IF EXISTS " + COMMENTS_FTS);
+        db.execSQL("DROP TABLE IF EXISTS " + MEDIA_FTS);
+    }
+
+    /*
+     * drops and recreates the search tables, then populates them from the existing posts,
+     * comments and media - used when the tables are first added to an existing database
+     */
+    public static void rebuild(SQLiteDatabase db) {
+        AppLog.i(AppLog.T.DB, "rebuilding search index");
+        db.beginTransaction();
+        try {
+            dropTables(db);
+            createTables(db);
+            reindexPosts(db, null, null);
+            reindexComments(db, null, null);
+            reindexMedia(db, null, null);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static String whereClause(String where) {
+        return (TextUtils.isEmpty(where) ? "" : " WHERE " + where);
+    }
+
+    /*
+     * posts - docid is posts.id, content is the post body plus the "more" text. the body may be
+     * stored compressed, so unlike the other tables this can't be a single INSERT...SELECT
+     */
+    public static void reindexPosts(SQLiteDatabase db, String where, String[] args) {
+        unindexPosts(db, where, args);
+        Cursor c = db.rawQuery("SELECT id, title, description, mt_text_more"
+                             + " FROM " + WordPressDB.POSTS_TABLE + whereClause(where), args);
+        SQLiteStatement stmt = db.compileStatement(
+                "INSERT INTO " + POSTS_FTS + " (docid, title, content) VALUES (?1,?2,?3)");
+        try {
+            while (c.moveToNext()) {
+                String description = SqlUtils.getCompressedText(c, 2);
+                String moreText = SqlUtils.getCompressedText(c, 3);
+                stmt.bindLong  (1, c.getLong(0));
+                stmt.bindString(2, StringUtils.notNullStr(c.getString(1)));
+                stmt.bindString(3, StringUtils.notNullStr(description) + " " + StringUtils.notNullStr(moreText));
+                stmt.execute();
+                stmt.clearBindings();
+            }
+        } finally {
+            SqlUtils.closeCursor(c);
+            SqlUtils.closeStatement(stmt);
+        }
+    }
+    public static void unindexPosts(SQLiteDatabase db, String where, String[] args) {
+        db.execSQL("DELETE FROM " + POSTS_FTS + " WHERE docid IN"
+                 + " (SELECT id FROM " + WordPressDB.POSTS_TABLE + whereClause(where) + ")",
+                   (args != null ? args : new String[]{}));
+    }
+
+    /*
+     * comments - docid is the rowid of the comment, which changes whenever a comment is
+     * replaced, so callers must unindex before replacing and reindex afterwards
+     */
+    public static void reindexComments(SQLiteDatabase db, String where, String[] args) {
+        unindexComments(db, where, args);
+        db.execSQL("INSERT INTO " + COMMENTS_FTS + " (docid, author_name, comment)"
+                 + " SELECT rowid, author_name, comment"
+                 + " FROM " + CommentTable.COMMENTS_TABLE + whereClause(where),
+                   (args != null ? args : new String[]{}));
+    }
+    public static void unindexComments(SQLiteDatabase db, String where, String[] args) {
+        db.execSQL("DELETE FROM " + COMMENTS_FTS + " WHERE docid IN"
+                 + " (SELECT rowid FROM " + CommentTable.COMMENTS_TABLE + whereClause(where) + ")",
+                   (args != null ? args : new String[]{}));
+    }
+
+    /*
+     * media - docid is media.id
+     */
+    public static void reindexMedia(SQLiteDatabase db, String where, String[] args) {
+        unindexMedia(db, where, args);
+        db.execSQL("INSERT INTO " + MEDIA_FTS + " (docid, title, caption, file_name)"
+                 + " SELECT id, title, caption, fileName"
+                 + " FROM " + WordPressDB.MEDIA_TABLE + whereClause(where),
+                   (args != null ? args : new String[]{}));
+    }
+    public static void unindexMedia(SQLiteDatabase db, String where, String[] args) {
+        db.execSQL("DELETE FROM " + MEDIA_FTS + " WHERE docid IN"
+                 + " (SELECT id FROM " + WordPressDB.MEDIA_TABLE + whereClause(where) + ")",
+                   (args != null ? args : new String[]{}));
+    }
+
+    /*
+     * returns local post ids (posts.id) matching the passed search term, best match first
+     */
+    public static List<Long> searchPosts(SQLiteDatabase db, int localBlogId, boolean isPage, String searchTerm, int maxResults) {
+        String match = toPrefixQuery(searchTerm);
+        if (match == null)
+            return new ArrayList<Long>();
+
+        String sql = "SELECT " + POSTS_FTS + ".docid, matchinfo(" + POSTS_FTS + ", 'pcx')"
+                   + " FROM " + POSTS_FTS
+                   + " INNER JOIN " + WordPressDB.POSTS_TABLE + " ON " + WordPressDB.POSTS_TABLE + ".id = " + POSTS_FTS + ".docid"
+                   + " WHERE " + POSTS_FTS + " MATCH ? AND blogID=? AND isPage=?";
+        String[] args = {match,
+                         Integer.toString(localBlogId),
+                         Long.toString(SqlUtils.boolToSql(isPage))};
+        return rankedSearch(db, sql, args, POST_WEIGHTS, maxResults);
+    }
+
+    /*
+     * returns comment rowids matching the passed search term, best match first
+     */
+    public static List<Long> searchComments(SQLiteDatabase db, int localBlogId, String searchTerm, int maxResults) {
+        String match = toPrefixQuery(searchTerm);
+        if (match == null)
+            return new ArrayList<Long>();
+
+        String sql = "SELECT " + COMMENTS_FTS + ".docid, matchinfo(" + COMMENTS_FTS + ", 'pcx')"
+                   + " FROM " + COMMENTS_FTS
+                   + " INNER JOIN " + CommentTable.COMMENTS_TABLE + " ON " + CommentTable.COMMENTS_TABLE + ".rowid = " + COMMENTS_FTS + ".docid"
+                   + " WHERE " + COMMENTS_FTS + " MATCH ? AND blog_id=?";
+        String[] args = {match, Integer.toString(localBlogId)};
+        return rankedSearch(db, sql, args, COMMENT_WEIGHTS, maxResults);
+    }
+
+    /*
+     * returns local media ids (media.id) matching the passed search term, best match first -
+     * only media in the library (uploaded to the server) is returned, and it's filtered here
+     * rather than by the caller so the results aren't cut short by media that's excluded
+     */
+    public static List<Long> searchMedia(SQLiteDatabase db, String blogId, String searchTerm, int maxResults) {
+        String match = toPrefixQuery(searchTerm);
+        if (match == null)
+            return new ArrayList<Long>();
+
+        String sql = "SELECT " + MEDIA_FTS + ".docid, matchinfo(" + MEDIA_FTS + ", 'pcx')"
+                   + " FROM " + MEDIA_FTS
+                   + " INNER JOIN " + WordPressDB.MEDIA_TABLE + " ON " + WordPressDB.MEDIA_TABLE + ".id = " + MEDIA_FTS + ".docid"
+                   + " WHERE " + MEDIA_FTS + " MATCH ? AND blogId=?"
+                   + " AND mediaId <> '' AND (uploadState IS NULL OR uploadState = 'uploaded')";
+        String[] args = {match, blogId};
+        return rankedSearch(db, sql, args, MEDIA_WEIGHTS, maxResults);
+    }
+
+    /*
+     * converts user-entered text into an FTS prefix query - ie: "hello wor" becomes "hello* wor*",
+     * with FTS operators and punctuation stripped so the query can never be malformed. returns
+     * null if there's nothing left to search for.
+     */
+    static String toPrefixQuery(String searchTerm) {
+        if (TextUtils.isEmpty(searchTerm))
+            return null;
+
+        StringBuilder sb = new StringBuilder();
+        StringBuilder token = new StringBuilder();
+        int len = searchTerm.length();
+        for (int i = 0; i <= len; i++) {
+            char ch = (i < len ? searchTerm.charAt(i) : ' ');
+            if (Character.isLetterOrDigit(ch)) {
+                token.append(Character.toLowerCase(ch));
+            } else if (token.length() > 0) {
+                String word = token.toString();
+                token.setLength(0);
+                // skip words the FTS query parser would treat as operators
+                if (word.equals("and") || word.equals("or") || word.equals("not") || word.equals("near"))
+                    continue;
+                if (sb.length() > 0)
+                    sb.append(' ');
+                sb.append(word).append('*');
+            }
+        }
+
+        return (sb.length() > 0 ? sb.toString() : null);
+    }
+
+    private static class RankedId {
+        final long id;
+        final double score;
+        RankedId(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    private static final Comparator<RankedId> SCORE_COMPARATOR = new Comparator<RankedId>() {
+        @Override
+        public int compare(RankedId lhs, RankedId rhs) {
+            return Double.compare(rhs.score, lhs.score);
+        }
+    };
+
+    /*
+     * runs a query whose first column is a docid and whose second column is matchinfo(fts, 'pcx'),
+     * then ranks the results using the passed per-column weights
+     */
+    private static List<Long> rankedSearch(SQLiteDatabase db, String sql, String[] args, double[] weights, int maxResults) {
+        ArrayList<RankedId> ranked = new ArrayList<RankedId>();
+        Cursor c = db.rawQuery(sql, args);
+        try {
+            while (c.moveToNext()) {
+                ranked.add(new RankedId(c.getLong(0), scoreMatchInfo(c.getBlob(1), weights)));
+            }
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+
+        Collections.sort(ranked, SCORE_COMPARATOR);
+
+        int count = (maxResults > 0 ? Math.min(maxResults, ranked.size()) : ranked.size());
+        List<Long> ids = new ArrayList<Long>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(ranked.get(i).id);
+        }
+        return ids;
+    }
+
+    /*
+     * simple tf-idf style score computed from the 'pcx' matchinfo blob, which is an array of
+     * native-order 32-bit unsigned ints: [phrase count, column count, then for each phrase/column
+     * pair: hits in this row, hits in all rows, rows with hits]
+     */
+    private static double scoreMatchInfo(byte[] blob, double[] weights) {
+        if (blob == null || blob.length < 8)
+            return 0;
+
+        ByteBuffer buffer = ByteBuffer.wrap(blob).order(ByteOrder.nativeOrder());
+        int numPhrases = buffer.getInt(0);
+        int numColumns = buffer.getInt(4);
+
+        double score = 0;
+        for (int phrase = 0; phrase < numPhrases; phrase++) {
+            for (int col = 0; col < numColumns; col++) {
+                int offset = 8 + (((phrase * numColumns) + col) * 3 * 4);
+                if (offset + 8 > blob.length)
+                    return score;
+                int hitsThisRow = buffer.getInt(offset);
+                int hitsAllRows = buffer.getInt(offset + 4);
+                if (hitsThisRow > 0 && hitsAllRows > 0) {
+                    double weight = (col < weights.length ? weights[col] : 1.0);
+                    score += weight * ((double) hitsThisRow / (double) hitsAllRows);
+                }
+            }
+        }
+        return score;
+    }
+}
@@ -29,7 +29,7 @@ public class ReaderComment {
     public long timestamp;
     private String published;
 
-    // not stored in db - denotes the indentation level when displaying this comment
+    // denotes the indentation level when displaying this comment - stored in db as depth
     public transient int level = 0;
 
     public static ReaderComment fromJson(JSONObject json, long blogId) {
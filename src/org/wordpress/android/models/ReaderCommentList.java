@@ -1,9 +1,17 @@
 package org.wordpress.android.models;
 
+import android.util.JsonReader;
+
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.wordpress.android.util.JSONStreamUtils;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 
 public class ReaderCommentList extends ArrayList<ReaderComment> {
     public static ReaderCommentList fromJson(JSONObject json, long blogId) {
@@ -21,6 +29,19 @@ public class ReaderCommentList extends ArrayList<ReaderComment> {
         return comments;
     }
 
+    /*
+     * reads the array of comments at the reader's current position one comment at a time
+     */
+    public static ReaderCommentList fromJsonReader(JsonReader reader, long blogId) throws IOException {
+        ReaderCommentList comments = new ReaderCommentList();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            comments.add(ReaderComment.fromJson(JSONStreamUtils.readObject(reader), blogId));
+        }
+        reader.endArray();
+        return comments;
+    }
+
     private boolean commentIdExists(long commentId) {
         return (indexOfCommentId(commentId) > -1);
     }
@@ -40,14 +61,46 @@ public class ReaderCommentList extends ArrayList<ReaderComment> {
         if (comments==null || comments.size()!=this.size())
             return false;
 
+        HashSet<Long> commentIds = new HashSet<Long>(this.size());
+        for (ReaderComment comment: this) {
+            commentIds.add(comment.commentId);
+        }
         for (ReaderComment comment: comments) {
-            if (!commentIdExists(comment.commentId))
+            if (!commentIds.contains(comment.commentId))
                 return false;
         }
 
         return true;
     }
 
+    /*
+     * returns the newest comment in the list, using the comment id to order comments published
+     * in the same second - this is the anchor comments are paged from (see ReaderCommentActions)
+     */
+    public ReaderComment getNewestComment() {
+        ReaderComment newest = null;
+        for (ReaderComment comment: this) {
+            if (newest==null
+                    || comment.timestamp > newest.timestamp
+                    || (comment.timestamp==newest.timestamp && comment.commentId > newest.commentId))
+                newest = comment;
+        }
+        return newest;
+    }
+
+    /*
+     * returns the comments in this list whose ids aren't in the passed set, each only once - the
+     * passed set is updated to include the ids of the returned comments
+     */
+    public ReaderCommentList getUnknownComments(Set<Long> knownIds) {
+        ReaderCommentList unknown = new ReaderCommentList();
+        for (ReaderComment comment: this) {
+            if (knownIds.add(comment.commentId))
+                unknown.add(comment);
+        }
+        return unknown;
+    }
+
     public boolean replaceComment(long commentId, ReaderComment comment) {
         if (comment==null)
             return false;
@@ -59,7 +112,9 @@ public class ReaderCommentList extends ArrayList<ReaderComment> {
     }
 
     /*
-     * builds a new list from the passed one with child comments placed under their parents and indent levels applied
+     * builds a new list from the passed one with child comments placed under their parents and indent
+     * levels applied - siblings keep their order in the passed list. this is done in a single pass
+     * using a map of parentId to children, so it's fast even on posts with thousands of comments
      */
     public static ReaderCommentList getLevelList(ReaderCommentList thisList) {
         if (thisList==null)
@@ -73,53 +128,80 @@ public class ReaderCommentList extends ArrayList<ReaderComment> {
                 break;
             }
         }
-        if (!hasChildComments)
+        if (!hasChildComments) {
+            for (ReaderComment comment: thisList) {
+                comment.level = 0;
+            }
             return thisList;
+        }
 
-        ReaderCommentList result = new ReaderCommentList();
-
-        // reset all levels, and add root comments to result
+        // map each parent to its children, and reset all levels
+        HashMap<Long, ReaderCommentList> children = new HashMap<Long, ReaderCommentList>();
         for (ReaderComment comment: thisList) {
-            comment.level = 0;
-            if (comment.parentId==0)
-                result.add(comment);
+            comment.level = -1;
+            ReaderCommentList siblings = children.get(comment.parentId);
+            if (siblings==null) {
+                siblings = new ReaderCommentList();
+                children.put(comment.parentId, siblings);
+            }
+            siblings.add(comment);
         }
 
-        // add child comments under their parents
-        boolean done;
-        do {
-            done = true;
-            for (ReaderComment comment: thisList) {
-                // only look at comments that have a parentId but no level assigned yet
-                if (comment.parentId!=0 && comment.level==0) {
-                    int parentIndex = result.indexOfCommentId(comment.parentId);
-                    if (parentIndex > -1) {
-                        comment.level = result.get(parentIndex).level + 1;
-
-                        // insert this comment after the last comment of this level that has this parent
-                        int commentIndex=parentIndex+1;
-                        while (commentIndex < result.size()) {
-                            if (result.get(commentIndex).level!=comment.level || result.get(commentIndex).parentId!=comment.parentId)
-                                break;
-                            commentIndex++;
-                        }
-                        result.add(commentIndex, comment);
-
-
-                        done = false;
-                    }
-                }
+        ReaderCommentList result = new ReaderCommentList();
+
+        // add root comments with their replies beneath them
+        ReaderCommentList roots = children.get(0L);
+        if (roots!=null) {
+            for (ReaderComment root: roots) {
+                addThread(root, 0, children, result);
             }
-        } while (!done);
+        }
 
-        // handle orphans (child comments whose parents weren't found above)
+        // handle orphans (child comments whose parents aren't in the list) - these are given a
+        // non-zero level so they're indented by ReaderCommentAdapter, with their replies beneath them
+        HashSet<Long> commentIds = new HashSet<Long>(thisList.size());
         for (ReaderComment comment: thisList) {
-            if (comment.level==0 && comment.parentId!=0) {
-                comment.level = 1; // give it a non-zero level so it's indented by ReaderCommentAdapter
-                result.add(comment);
-            }
+            commentIds.add(comment.commentId);
+        }
+        for (ReaderComment comment: thisList) {
+            if (comment.level==-1 && !commentIds.contains(comment.parentId))
+                addThread(comment, 1, children, result);
+        }
+
+        // anything left over is part of a cycle in bad data, which is broken at the first comment found
+        for (ReaderComment comment: thisList) {
+            if (comment.level==-1)
+                addThread(comment, 1, children, result);
         }
 
         return result;
     }
+
+    /*
+     * adds the passed comment and its replies to the result depth-first - a stack is used rather
+     * than recursion so deeply nested threads can't overflow
+     */
+    private static void addThread(ReaderComment comment,
+                                  int level,
+                                  HashMap<Long, ReaderCommentList> children,
+                                  ReaderCommentList result) {
+        comment.level = level;
+        ArrayDeque<ReaderComment> stack = new ArrayDeque<ReaderComment>();
+        stack.push(comment);
+        while (!stack.isEmpty()) {
+            ReaderComment parent = stack.pop();
+            result.add(parent);
+            ReaderCommentList replies = children.get(parent.commentId);
+            if (replies==null)
+                continue;
+            for (int i = replies.size() - 1; i >= 0; i--) {
+                ReaderComment reply = replies.get(i);
+                // skip replies that were already placed (guards against cycles in bad data)
+                if (reply.level==-1) {
+                    reply.level = parent.level + 1;
+                    stack.push(reply);
+                }
+            }
+        }
+    }
 }
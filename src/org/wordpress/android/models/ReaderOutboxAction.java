@@ -0,0 +1,69 @@
+package org.wordpress.android.models;
+
+import org.wordpress.android.util.StringUtils;
+
+/**
+ * a pending change (like, follow, tag subscription) that has been made locally but hasn't yet
+ * been sent to the server - stored in ReaderOutboxTable until it's sent
+ */
+public class ReaderOutboxAction {
+    public static enum OutboxActionType {LIKE_POST,
+                                         FOLLOW_BLOG,
+                                         FOLLOW_TAG}
+
+    public OutboxActionType actionType;
+
+    // the target of the action - blogId & postId for likes, blogId or blogUrl for follows,
+    // tagName for tags
+    public long blogId;
+    public long postId;
+    private String blogUrl;
+    private String tagName;
+
+    // the state the server had when the action was first queued, and the state the user wants
+    public boolean isOriginallyOn;
+    public boolean isOn;
+
+    public int numAttempts;
+    public long nextAttempt;
+
+    public ReaderOutboxAction(OutboxActionType actionType) {
+        this.actionType = actionType;
+    }
+
+    public String getBlogUrl() {
+        return StringUtils.notNullStr(blogUrl);
+    }
+    public void setBlogUrl(String blogUrl) {
+        this.blogUrl = StringUtils.notNullStr(blogUrl);
+    }
+
+    public String getTagName() {
+        return StringUtils.notNullStr(tagName);
+    }
+    public void setTagName(String tagName) {
+        this.tagName = StringUtils.notNullStr(tagName);
+    }
+
+    /*
+     * identifies the target of this action - actions with the same key are coalesced
+     */
+    public String getKey() {
+        switch (actionType) {
+            case LIKE_POST:
+                return "like:" + blogId + ":" + postId;
+            case FOLLOW_BLOG:
+                // follows by url are only used when the blogId isn't known
+                return "follow:" + (blogId != 0 ? Long.toString(blogId) : getBlogUrl());
+            default:
+                return "tag:" + getTagName();
+        }
+    }
+
+    /*
+     * an action whose desired state matches the server's state doesn't need to be sent
+     */
+    public boolean isNoOp() {
+        return (isOn == isOriginallyOn);
+    }
+}
@@ -4,6 +4,7 @@ import android.net.Uri;
 import android.text.TextUtils;
 
 import org.json.JSONObject;
+import org.wordpress.android.util.CompressionUtils;
 import org.wordpress.android.util.DateTimeUtils;
 import org.wordpress.android.util.HtmlUtils;
 import org.wordpress.android.util.JSONUtil;
@@ -22,6 +23,7 @@ public class ReaderPost {
 
     private String title;
     private String text;
+    private byte[] compressedText; // text as stored in the db, inflated only when it's needed
     private String excerpt;
     private String authorName;
     private String blogName;
@@ -436,10 +438,35 @@ public class ReaderPost {
     }
 
     public String getText() {
+        if (text == null && compressedText != null) {
+            text = CompressionUtils.decompressText(compressedText);
+            compressedText = null;
+        }
         return StringUtils.notNullStr(text);
     }
     public void setText(String text) {
         this.text = StringUtils.notNullStr(text);
+        this.compressedText = null;
+    }
+
+    /*
+     * posts loaded for lists don't include the text, use ReaderPostTable.getPost() to get the
+     * post with its text
+     */
+    public boolean isTextLoaded() {
+        return (text != null || compressedText != null);
+    }
+
+    /*
+     * compressed text is set by ReaderPostTable when loading from the db, and is returned
+     * as-is when writing the post back unless the text has since been inflated
+     */
+    public byte[] getCompressedText() {
+        return compressedText;
+    }
+    public void setCompressedText(byte[] compressedText) {
+        this.compressedText = compressedText;
+        this.text = null;
     }
 
     public String getExcerpt() {
@@ -544,7 +571,7 @@ public class ReaderPost {
     // --------------------------------------------------------------------------------------------
 
     public boolean hasText() {
-        return !TextUtils.isEmpty(text);
+        return compressedText != null || !TextUtils.isEmpty(text);
     }
 
     public boolean hasExcerpt() {
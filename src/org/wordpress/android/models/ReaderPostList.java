@@ -1,26 +1,148 @@
 package org.wordpress.android.models;
 
+import android.util.JsonReader;
+
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.wordpress.android.util.JSONStreamUtils;
+import org.wordpress.android.util.ParsingExecutor;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class ReaderPostList extends ArrayList<ReaderPost> {
     public static ReaderPostList fromJson(JSONObject json) {
+        return fromJson(json, true);
+    }
+
+    static ReaderPostList fromJson(JSONObject json, boolean parseInParallel) {
         if (json==null)
             throw new IllegalArgumentException("null json post list");
 
         ReaderPostList posts = new ReaderPostList();
         JSONArray jsonPosts = json.optJSONArray("posts");
         if (jsonPosts!=null) {
-            for (int i=0; i < jsonPosts.length(); i++)
-                posts.add(ReaderPost.fromJson(jsonPosts.optJSONObject(i)));
+            if (parseInParallel) {
+                ChunkedPostParser parser = new ChunkedPostParser(posts);
+                for (int i=0; i < jsonPosts.length(); i++)
+                    parser.add(jsonPosts.optJSONObject(i));
+                parser.finish();
+            } else {
+                for (int i=0; i < jsonPosts.length(); i++)
+                    posts.add(ReaderPost.fromJson(jsonPosts.optJSONObject(i)));
+            }
         }
 
         return posts;
     }
 
+    /*
+     * reads the array of posts at the reader's current position - each post's json is read
+     * from the stream then handed off to be parsed in parallel, so only the handful of posts
+     * waiting to be parsed are in memory at once
+     */
+    public static ReaderPostList fromJsonReader(JsonReader reader) throws IOException {
+        ReaderPostList posts = new ReaderPostList();
+        ChunkedPostParser parser = new ChunkedPostParser(posts);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            parser.add(JSONStreamUtils.readObject(reader));
+        }
+        reader.endArray();
+        parser.finish();
+        return posts;
+    }
+
+    /*
+     * ReaderPost.fromJson() is fairly expensive (stripping html from the excerpt, scanning the
+     * content for a featured image, etc.) so posts are parsed in chunks on the shared parsing
+     * executor - chunks are added to the list in the order they were submitted so the order of
+     * the posts is unchanged, and the number of chunks in flight is limited so we never hold
+     * the json for more than a few chunks
+     */
+    private static class ChunkedPostParser {
+        private static final int CHUNK_SIZE = 5;
+        private static final int MAX_PENDING_CHUNKS = ParsingExecutor.getNumThreads() * 2;
+
+        private final ReaderPostList mPosts;
+        private final LinkedList<List<JSONObject>> mPendingChunks = new LinkedList<List<JSONObject>>();
+        private final LinkedList<Future<List<ReaderPost>>> mPendingResults = new LinkedList<Future<List<ReaderPost>>>();
+        private List<JSONObject> mChunk = new ArrayList<JSONObject>(CHUNK_SIZE);
+
+        ChunkedPostParser(ReaderPostList posts) {
+            mPosts = posts;
+        }
+
+        void add(JSONObject json) {
+            mChunk.add(json);
+            if (mChunk.size() == CHUNK_SIZE) {
+                submitChunk();
+            }
+        }
+
+        void finish() {
+            // parse a lone partial chunk on this thread rather than handing it off
+            if (mPendingResults.isEmpty()) {
+                mPosts.addAll(parseChunk(mChunk));
+                mChunk.clear();
+                return;
+            }
+            if (mChunk.size() > 0) {
+                submitChunk();
+            }
+            while (!mPendingResults.isEmpty()) {
+                addOldestResult();
+            }
+        }
+
+        private void submitChunk() {
+            final List<JSONObject> chunk = mChunk;
+            mChunk = new ArrayList<JSONObject>(CHUNK_SIZE);
+            mPendingChunks.add(chunk);
+            mPendingResults.add(ParsingExecutor.getExecutor().submit(new Callable<List<ReaderPost>>() {
+                @Override
+                public List<ReaderPost> call() {
+                    return parseChunk(chunk);
+                }
+            }));
+            if (mPendingResults.size() > MAX_PENDING_CHUNKS) {
+                addOldestResult();
+            }
+        }
+
+        private void addOldestResult() {
+            List<JSONObject> chunk = mPendingChunks.removeFirst();
+            Future<List<ReaderPost>> result = mPendingResults.removeFirst();
+            try {
+                mPosts.addAll(result.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
+            } catch (InterruptedException e) {
+                // don't lose the chunk, parse it on this thread instead
+                Thread.currentThread().interrupt();
+                result.cancel(true);
+                mPosts.addAll(parseChunk(chunk));
+            }
+        }
+
+        private static List<ReaderPost> parseChunk(List<JSONObject> chunk) {
+            List<ReaderPost> posts = new ArrayList<ReaderPost>(chunk.size());
+            for (JSONObject json: chunk) {
+                posts.add(ReaderPost.fromJson(json));
+            }
+            return posts;
+        }
+    }
+
     private int indexOfPost(long blogId, long postId) {
         for (int i=0; i < size(); i++) {
             if (this.get(i).blogId==blogId && this.get(i).postId==postId)
@@ -69,4 +191,23 @@ public class ReaderPostList extends ArrayList<ReaderPost> {
         return oldestDate;
     }
 
+    /*
+     * returns the newest pubDate of posts in this list
+     */
+    public Date getNewestPubDate() {
+        Date newestDate = null;
+        for (ReaderPost post: this) {
+            Date dtPublished = post.getDatePublished();
+            if (dtPublished != null) {
+                if (newestDate == null) {
+                    newestDate = dtPublished;
+                } else if (newestDate.before(dtPublished)) {
+                    newestDate = dtPublished;
+                }
+            }
+        }
+
+        return newestDate;
+    }
+
 }
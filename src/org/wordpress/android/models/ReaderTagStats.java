@@ -0,0 +1,92 @@
+package org.wordpress.android.models;
+
+/**
+ * statistics gathered from past updates of a tag, used to decide how often the tag should be
+ * automatically updated - busy tags are updated often so they don't fall behind, quiet tags are
+ * updated less often each time an update finds nothing new, and tags the user hasn't opened in
+ * a while are updated less often still
+ */
+public class ReaderTagStats {
+    private static final long MINUTE_MS = 60 * 1000;
+    private static final long DAY_MS = 24 * 60 * MINUTE_MS;
+
+    public static final long MIN_UPDATE_INTERVAL_MINUTES = 10;
+    public static final long MAX_UPDATE_INTERVAL_MINUTES = 12 * 60;
+
+    // a tag the user opened recently is never allowed to get more than an hour stale
+    private static final long MAX_ENGAGED_INTERVAL_MINUTES = 60;
+    private static final long ENGAGED_MS = DAY_MS;
+    private static final long NEGLECTED_MS = 7 * DAY_MS;
+
+    // weight given to the latest update when averaging
+    private static final float AVERAGE_WEIGHT = 0.3f;
+
+    public String tagName;
+
+    public int numUpdates;
+    public float avgNewPosts;          // average # new posts found by each update
+    public int numEmptyUpdates;        // # consecutive updates that found no new posts
+    public long dateLastNewPosts;      // when an update last found new posts
+    public long avgNewPostsIntervalMs; // average time between updates that found new posts
+    public long dateLastOpened;        // when the user last opened the tag
+
+    /*
+     * records the result of an update that found the passed number of new posts
+     */
+    public void addUpdate(int numNewPosts, long now) {
+        if (numUpdates == 0) {
+            avgNewPosts = numNewPosts;
+        } else {
+            avgNewPosts = (AVERAGE_WEIGHT * numNewPosts) + ((1 - AVERAGE_WEIGHT) * avgNewPosts);
+        }
+        numUpdates++;
+
+        if (numNewPosts > 0) {
+            if (dateLastNewPosts > 0 && now > dateLastNewPosts) {
+                long interval = now - dateLastNewPosts;
+                if (avgNewPostsIntervalMs == 0) {
+                    avgNewPostsIntervalMs = interval;
+                } else {
+                    avgNewPostsIntervalMs = (long) ((AVERAGE_WEIGHT * interval) + ((1 - AVERAGE_WEIGHT) * avgNewPostsIntervalMs));
+                }
+            }
+            dateLastNewPosts = now;
+            numEmptyUpdates = 0;
+        } else {
+            numEmptyUpdates++;
+        }
+    }
+
+    /*
+     * returns how long to wait after the last update before automatically updating again
+     */
+    public long getUpdateIntervalMinutes(long now) {
+        if (numUpdates == 0) {
+            return MIN_UPDATE_INTERVAL_MINUTES;
+        }
+
+        long interval;
+        if (avgNewPosts >= 1 && avgNewPostsIntervalMs > 0) {
+            // new posts show up regularly, so check about twice as often as they've been
+            // showing up (sooner if each update finds a lot of them)
+            interval = (avgNewPostsIntervalMs / MINUTE_MS) / 2;
+            if (avgNewPosts >= 10) {
+                interval /= 2;
+            }
+        } else {
+            interval = MIN_UPDATE_INTERVAL_MINUTES;
+        }
+
+        // back off exponentially for each update in a row that found nothing new
+        int numDoublings = Math.min(numEmptyUpdates, 10);
+        interval = Math.max(interval, MIN_UPDATE_INTERVAL_MINUTES << numDoublings);
+
+        if (dateLastOpened > 0 && now - dateLastOpened < ENGAGED_MS) {
+            interval = Math.min(interval, MAX_ENGAGED_INTERVAL_MINUTES);
+        } else if (now - dateLastOpened > NEGLECTED_MS) {
+            interval *= 2;
+        }
+
+        return Math.max(MIN_UPDATE_INTERVAL_MINUTES, Math.min(interval, MAX_UPDATE_INTERVAL_MINUTES));
+    }
+}
@@ -1,5 +1,6 @@
 package org.wordpress.android.networking;
 
+import com.android.volley.RequestQueue;
 import com.android.volley.VolleyError;
 import com.wordpress.rest.Oauth;
 import com.wordpress.rest.RestClient;
@@ -14,8 +15,10 @@ public class AuthenticatorRequest {
     static private final String SITE_PREFIX = "https://public-api.wordpress.com/rest/v1/sites/";
     static private final String BATCH_CALL_PREFIX = "https://public-api.wordpress.com/rest/v1/batch/?urls%5B%5D=%2Fsites%2F";
     private RestRequest mRequest;
+    private StreamingRestRequest<?> mStreamingRequest;
     private RestRequest.ErrorListener mListener;
     private RestClient mRestClient;
+    private RequestQueue mQueue;
     private Authenticator mAuthenticator;
 
     protected AuthenticatorRequest(RestRequest request, ErrorListener listener, RestClient restClient,
@@ -26,7 +29,18 @@ public class AuthenticatorRequest {
         mAuthenticator = authenticator;
     }
 
+    protected AuthenticatorRequest(StreamingRestRequest<?> request, ErrorListener listener, RequestQueue queue,
+                                   Authenticator authenticator) {
+        mStreamingRequest = request;
+        mListener = listener;
+        mQueue = queue;
+        mAuthenticator = authenticator;
+    }
+
     public String getSiteId() {
+        if (mStreamingRequest != null) {
+            return extractSiteIdFromUrl(mStreamingRequest.getUrl());
+        }
         return extractSiteIdFromUrl(mRequest.getUrl());
     }
 
@@ -66,13 +80,22 @@ public class AuthenticatorRequest {
      */
     protected void send(){
         if (mAuthenticator == null) {
-            mRestClient.send(mRequest);
+            if (mStreamingRequest != null) {
+                mQueue.add(mStreamingRequest);
+            } else {
+                mRestClient.send(mRequest);
+            }
         } else {
             mAuthenticator.authenticate(this);
         }
     }
 
     public void sendWithAccessToken(String token){
+        if (mStreamingRequest != null) {
+            mStreamingRequest.setAccessToken(token);
+            mQueue.add(mStreamingRequest);
+            return;
+        }
         mRequest.setAccessToken(token.toString());
         mRestClient.send(mRequest);
     }
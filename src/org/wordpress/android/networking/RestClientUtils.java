@@ -12,6 +12,7 @@ import com.android.volley.DefaultRetryPolicy;
 import com.android.volley.Request.Method;
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
+import com.android.volley.Response;
 import com.android.volley.RetryPolicy;
 import com.android.volley.toolbox.RequestFuture;
 import com.wordpress.rest.RestClient;
@@ -29,6 +30,7 @@ public class RestClientUtils {
     private static final String COMMENT_REPLY_CONTENT_FIELD = "content";
 
     private RestClient mRestClient;
+    private RequestQueue mQueue;
     private Authenticator mAuthenticator;
 
     /**
@@ -54,6 +56,7 @@ public class RestClientUtils {
     public RestClientUtils(RequestQueue queue, Authenticator authenticator) {
         // load an existing access token from prefs if we have one
         mAuthenticator = authenticator;
+        mQueue = queue;
         mRestClient = RestClientFactory.instantiate(queue);
         mRestClient.setUserAgent(WordPress.getUserAgent());
     }
@@ -221,6 +224,21 @@ public class RestClientUtils {
         return request;
     }
 
+    /**
+     * Make GET request whose response is parsed from a JsonReader by the passed parser - use this
+     * for large responses so the entire response doesn't have to be turned into a JSONObject
+     */
+    public <T> Request<T> getStreaming(String path, Map<String, String> params,
+                                       StreamingRestRequest.StreamParser<T> parser,
+                                       Response.Listener<T> listener, ErrorListener errorListener) {
+        StreamingRestRequest<T> request = new StreamingRestRequest<T>(RestClient.getAbsoluteURL(path, params),
+                                                                      parser, listener, errorListener);
+        request.setRetryPolicy(new DefaultRetryPolicy(REST_TIMEOUT_MS, REST_MAX_RETRIES_GET, REST_BACKOFF_MULT));
+        AuthenticatorRequest authCheck = new AuthenticatorRequest(request, errorListener, mQueue, mAuthenticator);
+        authCheck.send();
+        return request;
+    }
+
     /**
      * Make Synchronous GET request
      *
@@ -0,0 +1,99 @@
+package org.wordpress.android.networking;
+
+import android.util.JsonReader;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.wordpress.rest.RestRequest;
+
+import org.wordpress.android.WordPress;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * REST request whose response is read with a JsonReader by the passed parser rather than being
+ * converted to a String and then a JSONObject tree - use this for large responses such as lists
+ * of posts or comments. Parsing happens on the network thread, and the listener receives the
+ * parsed result on the main thread.
+ */
+public class StreamingRestRequest<T> extends Request<T> {
+    public interface StreamParser<T> {
+        T parse(JsonReader reader) throws IOException;
+    }
+
+    private static final String DEFAULT_CHARSET = "UTF-8";
+
+    private final StreamParser<T> mParser;
+    private final Response.Listener<T> mListener;
+    private String mAccessToken;
+
+    public StreamingRestRequest(String url,
+                                StreamParser<T> parser,
+                                Response.Listener<T> listener,
+                                RestRequest.ErrorListener errorListener) {
+        super(Method.GET, url, errorListener);
+        mParser = parser;
+        mListener = listener;
+    }
+
+    public void setAccessToken(String token) {
+        mAccessToken = token;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() throws AuthFailureError {
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put("User-Agent", WordPress.getUserAgent());
+        if (mAccessToken != null) {
+            headers.put("Authorization", "Bearer " + mAccessToken);
+        }
+        return headers;
+    }
+
+    @Override
+    protected Response<T> parseNetworkResponse(NetworkResponse response) {
+        JsonReader reader;
+        try {
+            String charset = HttpHeaderParser.parseCharset(response.headers);
+            reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(response.data), charset));
+        } catch (UnsupportedEncodingException e) {
+            try {
+                reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(response.data), DEFAULT_CHARSET));
+            } catch (UnsupportedEncodingException e1) {
+                return Response.error(new ParseError(e1));
+            }
+        }
+
+        try {
+            T result = mParser.parse(reader);
+            return Response.success(result, HttpHeaderParser.parseCacheHeaders(response));
+        } catch (IOException e) {
+            return Response.error(new ParseError(e));
+        } catch (IllegalStateException e) {
+            // thrown by JsonReader when the response doesn't have the expected structure
+            return Response.error(new ParseError(e));
+        } finally {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                // nop
+            }
+        }
+    }
+
+    @Override
+    protected void deliverResponse(T response) {
+        if (mListener != null) {
+            mListener.onResponse(response);
+        }
+    }
+}
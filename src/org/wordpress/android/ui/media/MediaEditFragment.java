@@ -28,6 +28,7 @@ import com.android.volley.toolbox.NetworkImageView;
 import org.wordpress.android.R;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.models.Blog;
+import org.wordpress.android.util.BitmapPool;
 import org.wordpress.android.util.ImageHelper.BitmapWorkerCallback;
 import org.wordpress.android.util.ImageHelper.BitmapWorkerTask;
 import org.wordpress.android.util.MediaUtils;
@@ -377,15 +378,15 @@ public class MediaEditFragment extends Fragment {
 
             Bitmap bitmap = WordPress.getBitmapCache().get(filePath);
             if (bitmap != null) {
-                imageView.setImageBitmap(bitmap);
+                BitmapPool.setImageBitmap(imageView, bitmap);
             } else {
                 BitmapWorkerTask task = new BitmapWorkerTask(imageView, width, height, new BitmapWorkerCallback() {
                     @Override
                     public void onBitmapReady(String path, ImageView imageView, Bitmap bitmap) {
                         if (imageView != null) {
-                            imageView.setImageBitmap(bitmap);
+                            BitmapPool.setImageBitmap(imageView, bitmap);
                         }
-                        WordPress.getBitmapCache().put(path, bitmap);
+                        WordPress.getBitmapCache().putBitmap(path, bitmap);
                     }
                 });
                 task.execute(filePath);
@@ -28,6 +28,7 @@ import org.wordpress.android.R;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.ui.CheckableFrameLayout;
 import org.wordpress.android.ui.CheckableFrameLayout.OnCheckedChangeListener;
+import org.wordpress.android.util.BitmapPool;
 import org.wordpress.android.util.ImageHelper.BitmapWorkerCallback;
 import org.wordpress.android.util.ImageHelper.BitmapWorkerTask;
 import org.wordpress.android.util.MediaUtils;
@@ -328,9 +329,9 @@ public class MediaGridAdapter extends CursorAdapter {
 
             Bitmap bitmap = WordPress.getBitmapCache().get(filePath);
             if (bitmap != null) {
-                imageView.setImageBitmap(bitmap);
+                BitmapPool.setImageBitmap(imageView, bitmap);
             } else {
-                imageView.setImageBitmap(null);
+                BitmapPool.setImageBitmap(imageView, null);
 
                 boolean shouldFetch = false;
 
@@ -346,7 +347,7 @@ public class MediaGridAdapter extends CursorAdapter {
                     @Override
                     public void onBitmapReady(Bitmap bitmap) {
                         if (imageView.getTag() instanceof String && imageView.getTag().equals(filePath))
-                            imageView.setImageBitmap(bitmap);
+                            BitmapPool.setImageBitmap(imageView, bitmap);
                     }
                 });
 
@@ -357,7 +358,7 @@ public class MediaGridAdapter extends CursorAdapter {
             }
         } else {
             // if not image, for now show no image.
-            imageView.setImageBitmap(null);
+            BitmapPool.setImageBitmap(imageView, null);
         }
     }
 
@@ -373,7 +374,7 @@ public class MediaGridAdapter extends CursorAdapter {
                             callback.onBitmapReady(bitmap);
                         }
 
-                        WordPress.getBitmapCache().put(path, bitmap);
+                        WordPress.getBitmapCache().putBitmap(path, bitmap);
                         callbacks.clear();
                         mFilePathToCallbackMap.remove(path);
                     }
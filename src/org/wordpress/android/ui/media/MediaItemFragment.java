@@ -29,6 +29,7 @@ import com.android.volley.toolbox.NetworkImageView;
 import org.wordpress.android.R;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.models.Blog;
+import org.wordpress.android.util.BitmapPool;
 import org.wordpress.android.util.ImageHelper.BitmapWorkerCallback;
 import org.wordpress.android.util.ImageHelper.BitmapWorkerTask;
 import org.wordpress.android.util.MediaUtils;
@@ -293,13 +294,13 @@ public class MediaItemFragment extends Fragment {
 
             Bitmap bitmap = WordPress.getBitmapCache().get(filePath);
             if (bitmap != null) {
-                imageView.setImageBitmap(bitmap);
+                BitmapPool.setImageBitmap(imageView, bitmap);
             } else {
                 BitmapWorkerTask task = new BitmapWorkerTask(imageView, width, height, new BitmapWorkerCallback() {
                     @Override
                     public void onBitmapReady(String path, ImageView imageView, Bitmap bitmap) {
-                        imageView.setImageBitmap(bitmap);
-                        WordPress.getBitmapCache().put(path, bitmap);
+                        BitmapPool.setImageBitmap(imageView, bitmap);
+                        WordPress.getBitmapCache().putBitmap(path, bitmap);
                     }
                 });
                 task.execute(filePath);
@@ -41,6 +41,7 @@ public class EditPostActivity extends Activity {
 
     private static final int AUTOSAVE_INTERVAL_MILLIS = 30000;
     private Handler mAutoSaveHandler;
+    private PostAutosaveJournal mAutosaveJournal;
 
     /**
      * The {@link android.support.v4.view.PagerAdapter} that will provide
@@ -169,6 +170,7 @@ public class EditPostActivity extends Activity {
 
         // Autosave handler
         mAutoSaveHandler = new Handler();
+        mAutosaveJournal = new PostAutosaveJournal(mPost);
     }
 
     @Override
@@ -263,7 +265,7 @@ public class EditPostActivity extends Activity {
     private Runnable autoSaveRunnable = new Runnable() {
         @Override
         public void run() {
-            savePost(true);
+            autosavePost();
             mAutoSaveHandler.postDelayed(this, AUTOSAVE_INTERVAL_MILLIS);
         }
     };
@@ -272,12 +274,34 @@ public class EditPostActivity extends Activity {
         return mPost;
     }
 
+    PostAutosaveJournal getAutosaveJournal() {
+        return mAutosaveJournal;
+    }
+
     private void savePost(boolean isAutosave) {
-        // Update post content from fragment fields
-        if (mEditPostContentFragment != null)
-            mEditPostContentFragment.savePostContent(isAutosave);
+        // hold the journal's lock so an in-progress autosave can't overwrite this save
+        synchronized (mAutosaveJournal.getLock()) {
+            // Update post content from fragment fields
+            if (mEditPostContentFragment != null)
+                mEditPostContentFragment.savePostContent(isAutosave);
+            if (mEditPostSettingsFragment != null)
+                mEditPostSettingsFragment.savePostSettings();
+            mAutosaveJournal.onPostSaved(mPost);
+        }
+    }
+
+    /*
+     * periodic autosave, which is skipped if nothing changed since the last save and otherwise
+     * writes only the changed columns from a background thread
+     */
+    private void autosavePost() {
         if (mEditPostSettingsFragment != null)
-            mEditPostSettingsFragment.savePostSettings();
+            mEditPostSettingsFragment.updatePostSettings();
+        if (mEditPostContentFragment != null) {
+            mEditPostContentFragment.autosavePostContent(mAutosaveJournal);
+        } else {
+            mAutosaveJournal.autosave(mPost, null, null);
+        }
     }
 
     @Override
@@ -312,7 +336,7 @@ public class EditPostActivity extends Activity {
         // Compare the current Post to the original and if no changes have been made,
         // set the Post back to the original and go back to the previous view
         if (mOriginalPost != null && !mPost.hasChanges(mOriginalPost)) {
-            WordPress.wpDB.updatePost(mOriginalPost);
+            restoreOriginalPost();
             WordPress.currentPost = mOriginalPost;
             finish();
             return;
@@ -335,7 +359,7 @@ public class EditPostActivity extends Activity {
             public void onClick(DialogInterface dialog, int whichButton) {
                 // When discard option is chosen, restore existing post or delete new post if it was autosaved.
                 if (mOriginalPost != null && !mIsNewPost) {
-                    WordPress.wpDB.updatePost(mOriginalPost);
+                    restoreOriginalPost();
                     WordPress.currentPost = mOriginalPost;
                 } else if (mPost != null && mIsNewPost) {
                     WordPress.wpDB.deletePost(mPost);
@@ -352,6 +376,13 @@ public class EditPostActivity extends Activity {
         dialogBuilder.create().show();
     }
 
+    private void restoreOriginalPost() {
+        synchronized (mAutosaveJournal.getLock()) {
+            WordPress.wpDB.updatePost(mOriginalPost);
+            mAutosaveJournal.onPostSaved(mOriginalPost);
+        }
+    }
+
     public void showPostSettings() {
         mViewPager.setCurrentItem(PAGE_SETTINGS);
     }
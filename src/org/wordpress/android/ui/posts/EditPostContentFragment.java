@@ -24,7 +24,6 @@ import android.text.TextUtils;
 import android.text.TextWatcher;
 import android.text.method.ArrowKeyMovementMethod;
 import android.text.style.AlignmentSpan;
-import android.text.style.CharacterStyle;
 import android.text.style.QuoteSpan;
 import android.text.style.StrikethroughSpan;
 import android.text.style.StyleSpan;
@@ -145,6 +144,18 @@ public class EditPostContentFragment extends Fragment implements TextWatcher,
                 return false;
             }
         });
+        mTitleEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+                onContentEdited();
+            }
+            @Override
+            public void afterTextChanged(Editable s) {
+            }
+        });
         mContentEditText = (WPEditText) rootView.findViewById(R.id.post_content);
         mPostContentLinearLayout = (LinearLayout) rootView.findViewById(R.id.post_content_wrapper);
         mPostSettingsLinearLayout = (LinearLayout) rootView.findViewById(R.id.post_settings_wrapper);
@@ -535,22 +546,7 @@ public class EditPostContentFragment extends Fragment implements TextWatcher,
             return;
 
         if (post.isLocalDraft()) {
-            // remove suggestion spans, they cause craziness in WPHtml.toHTML().
-            CharacterStyle[] characterStyles = postContentEditable.getSpans(0, postContentEditable.length(),
-                    CharacterStyle.class);
-            for (CharacterStyle characterStyle : characterStyles) {
-                if (characterStyle.getClass().getName().equals("android.text.style.SuggestionSpan")) {
-                    postContentEditable.removeSpan(characterStyle);
-                }
-            }
-            content = WPHtml.toHtml(postContentEditable);
-            // replace duplicate <p> tags so there's not duplicates, trac #86
-            content = content.replace("<p><p>", "<p>");
-            content = content.replace("</p></p>", "</p>");
-            content = content.replace("<br><br>", "<br>");
-            // sometimes the editor creates extra tags
-            content = content.replace("</strong><strong>", "").replace("</em><em>", "").replace("</u><u>", "")
-                    .replace("</strike><strike>", "").replace("</blockquote><blockquote>", "");
+            content = PostAutosaveJournal.serializeContent(postContentEditable, true);
         } else {
             //content = (mContentEditText.getText() != null) ? mContentEditText.getText().toString() : "";
             WPImageSpan[] imageSpans = postContentEditable.getSpans(0, postContentEditable.length(), WPImageSpan.class);
@@ -595,17 +591,11 @@ public class EditPostContentFragment extends Fragment implements TextWatcher,
             }
         }
 
-        String moreTag = "<!--more-->";
-
         post.setTitle(title);
         // split up the post content if there's a more tag
-        if (post.isLocalDraft() && content.contains(moreTag)) {
-            post.setDescription(content.substring(0, content.indexOf(moreTag)));
-            post.setMoreText(content.substring(content.indexOf(moreTag) + moreTag.length(), content.length()));
-        } else {
-            post.setDescription(content);
-            post.setMoreText("");
-        }
+        String[] contentParts = PostAutosaveJournal.splitAtMoreTag(content, post.isLocalDraft());
+        post.setDescription(contentParts[0]);
+        post.setMoreText(contentParts[1]);
 
         if (!post.isLocalDraft())
             post.setLocalChange(true);
@@ -613,6 +603,22 @@ public class EditPostContentFragment extends Fragment implements TextWatcher,
         WordPress.wpDB.updatePost(post);
     }
 
+    /*
+     * periodic autosave - unlike savePostContent() this doesn't touch image spans or write the
+     * entire post, instead the journal skips the save if nothing was edited and otherwise
+     * serializes the content and writes the changed columns in the background
+     */
+    public void autosavePostContent(PostAutosaveJournal journal) {
+        if (journal == null || mActivity.getPost() == null)
+            return;
+        journal.autosave(mActivity.getPost(), mTitleEditText.getText(), mContentEditText.getText());
+    }
+
+    private void onContentEdited() {
+        if (mActivity != null && mActivity.getAutosaveJournal() != null)
+            mActivity.getAutosaveJournal().onEdit();
+    }
+
     public boolean hasEmptyContentFields() {
         return TextUtils.isEmpty(mTitleEditText.getText()) && TextUtils.isEmpty(mContentEditText.getText());
     }
@@ -1100,6 +1106,8 @@ public class EditPostContentFragment extends Fragment implements TextWatcher,
     private View.OnClickListener mFormatBarButtonClickListener = new View.OnClickListener() {
         @Override
         public void onClick(View v) {
+            // formatting may only change spans, which doesn't trigger the text watcher
+            onContentEdited();
             int id = v.getId();
             if (id == R.id.bold) {
                 onFormatButtonClick(mBoldToggleButton, TAG_FORMAT_BAR_BUTTON_STRONG);
@@ -1505,6 +1513,7 @@ public class EditPostContentFragment extends Fragment implements TextWatcher,
 
     @Override
     public void onTextChanged(CharSequence s, int start, int before, int count) {
+        onContentEdited();
     }
 
     @Override
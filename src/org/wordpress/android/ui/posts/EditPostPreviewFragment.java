@@ -10,6 +10,7 @@ import android.widget.TextView;
 
 import org.wordpress.android.R;
 import org.wordpress.android.models.Post;
+import org.wordpress.android.ui.reader.ReaderWebViewPool;
 import org.wordpress.android.util.StringUtils;
 import org.wordpress.android.util.WPHtml;
 
@@ -25,15 +26,27 @@ public class EditPostPreviewFragment extends Fragment {
 
         ViewGroup rootView = (ViewGroup) inflater
                 .inflate(R.layout.fragment_edit_post_preview, container, false);
-        mWebView = (WebView) rootView.findViewById(R.id.post_preview_webview);
         mTextView = (TextView) rootView.findViewById(R.id.post_preview_textview);
 
+        // use a pre-created webView rather than inflating one
+        mWebView = ReaderWebViewPool.acquire(getActivity());
+        rootView.addView(mWebView, 0, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+
         return rootView;
     }
 
+    @Override
+    public void onDestroyView() {
+        if (mWebView != null) {
+            ReaderWebViewPool.release(mWebView);
+            mWebView = null;
+        }
+        super.onDestroyView();
+    }
+
     public void loadPost(Post post) {
         // Don't load if the Post object is null, see #395
-        if (post == null)
+        if (post == null || mWebView == null)
             return;
 
         String postTitle = "<h1>" + post.getTitle() + "</h1>";
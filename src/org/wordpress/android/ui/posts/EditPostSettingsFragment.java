@@ -415,6 +415,18 @@ public class EditPostSettingsFragment extends Fragment implements View.OnClickLi
         if (post == null)
             return;
 
+        updatePostSettings();
+        WordPress.wpDB.updatePost(post);
+    }
+
+    /*
+     * sets the post's settings from the UI without saving the post
+     */
+    public void updatePostSettings() {
+        Post post = mActivity.getPost();
+        if (post == null)
+            return;
+
         String password = (mPasswordEditText.getText() != null) ? mPasswordEditText.getText().toString() : "";
         String pubDate = (mPubDateText.getText() != null) ? mPubDateText.getText().toString() : "";
         String excerpt = (mExcerptEditText.getText() != null) ? mExcerptEditText.getText().toString() : "";
@@ -485,8 +497,6 @@ public class EditPostSettingsFragment extends Fragment implements View.OnClickLi
         post.setLatitude(latitude);
         post.setLongitude(longitude);
         post.setPostFormat(postFormat);
-
-        WordPress.wpDB.updatePost(post);
     }
 
     /**
@@ -0,0 +1,285 @@
+package org.wordpress.android.ui.posts;
+
+import android.content.ContentValues;
+import android.os.AsyncTask;
+import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.text.style.CharacterStyle;
+
+import org.json.JSONArray;
+import org.wordpress.android.WordPress;
+import org.wordpress.android.models.Post;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.WPHtml;
+
+/**
+ * Journal used by the post editor's autosave. The editor bumps the edit generation whenever the
+ * title or content changes, which lets autosave skip entirely when nothing is dirty. When the
+ * content has changed it's copied on the UI thread, then serialized to HTML in the background,
+ * and only the post columns which differ from the last save are written to the db.
+ */
+public class PostAutosaveJournal {
+    private static final String MORE_TAG = "<!--more-->";
+
+    private final Object mLock = new Object();
+
+    // accessed only from the UI thread
+    private int mEditGeneration;
+    private boolean mIsAutosaving;
+
+    // guarded by mLock
+    private int mSavedGeneration;
+    private final ContentValues mSavedValues = new ContentValues();
+
+    public PostAutosaveJournal(Post post) {
+        if (post != null) {
+            mSavedValues.putAll(getPostValues(post));
+        }
+    }
+
+    /*
+     * lock which must be held when saving the post outside of the journal, so a background
+     * autosave can't write older content over it
+     */
+    public Object getLock() {
+        return mLock;
+    }
+
+    /*
+     * called by the editor whenever the title or content is changed
+     */
+    public void onEdit() {
+        mEditGeneration++;
+    }
+
+    /*
+     * called after the entire post has been saved outside of the journal (ie: explicit saves, or
+     * restoring the original post) - this also causes any autosave which is still serializing
+     * to be dropped since its content is now older than what's in the db
+     */
+    public void onPostSaved(Post post) {
+        if (post == null)
+            return;
+        synchronized (mLock) {
+            mSavedValues.putAll(getPostValues(post));
+            mEditGeneration++;
+            mSavedGeneration = mEditGeneration;
+        }
+    }
+
+    /*
+     * autosaves the passed post using the passed title & content from the editor, which may be
+     * null if the editor isn't available - returns false if the save was skipped because
+     * nothing changed or an autosave is already in progress
+     */
+    public boolean autosave(Post post, CharSequence title, Editable content) {
+        if (post == null || mIsAutosaving)
+            return false;
+
+        ContentValues settingsValues = getSettingsValues(post);
+        boolean isContentDirty;
+        synchronized (mLock) {
+            isContentDirty = (content != null && mEditGeneration != mSavedGeneration);
+            if (!isContentDirty && getChangedValues(settingsValues).size() == 0)
+                return false;
+        }
+
+        // copy the content so it can be serialized off the UI thread - this is the only
+        // work autosave does on the UI thread
+        SpannableStringBuilder contentCopy = null;
+        if (isContentDirty) {
+            try {
+                contentCopy = new SpannableStringBuilder(content);
+            } catch (IndexOutOfBoundsException e) {
+                // https://code.google.com/p/android/issues/detail?id=5164 - try again next time
+                AppLog.w(T.EDITOR, "unable to copy post content for autosave");
+                return false;
+            }
+        }
+
+        mIsAutosaving = true;
+        new AutosaveTask(post,
+                         (title != null ? title.toString() : ""),
+                         contentCopy,
+                         settingsValues,
+                         mEditGeneration).executeOnExecutor(AsyncTask.SERIAL_EXECUTOR);
+        return true;
+    }
+
+    private class AutosaveTask extends AsyncTask<Void, Void, ContentValues> {
+        private final Post mPost;
+        private final boolean mIsLocalDraft;
+        private final String mTitle;
+        private final SpannableStringBuilder mContent;
+        private final ContentValues mSettingsValues;
+        private final int mGeneration;
+
+        AutosaveTask(Post post, String title, SpannableStringBuilder content, ContentValues settingsValues, int generation) {
+            mPost = post;
+            mIsLocalDraft = post.isLocalDraft();
+            mTitle = title;
+            mContent = content;
+            mSettingsValues = settingsValues;
+            mGeneration = generation;
+        }
+
+        @Override
+        protected ContentValues doInBackground(Void... params) {
+            ContentValues values = new ContentValues(mSettingsValues);
+            if (mContent != null) {
+                String[] parts = splitAtMoreTag(serializeContent(mContent, mIsLocalDraft), mIsLocalDraft);
+                values.put("title", mTitle);
+                values.put("description", parts[0]);
+                values.put("mt_text_more", parts[1]);
+                if (!mIsLocalDraft)
+                    values.put("isLocalChange", true);
+            }
+
+            synchronized (mLock) {
+                // skip if the post was saved with newer content while this was serializing
+                if (mGeneration < mSavedGeneration)
+                    return null;
+                ContentValues changedValues = getChangedValues(values);
+                if (changedValues.size() > 0) {
+                    WordPress.wpDB.updatePostColumns(mPost, changedValues);
+                    mSavedValues.putAll(changedValues);
+                }
+                mSavedGeneration = mGeneration;
+                return changedValues;
+            }
+        }
+
+        @Override
+        protected void onPostExecute(ContentValues changedValues) {
+            mIsAutosaving = false;
+            if (changedValues == null || changedValues.size() == 0)
+                return;
+
+            synchronized (mLock) {
+                if (mSavedGeneration != mGeneration)
+                    return;
+            }
+
+            // reflect the saved content in the post, settings are already set by the editor
+            if (changedValues.containsKey("title"))
+                mPost.setTitle(changedValues.getAsString("title"));
+            if (changedValues.containsKey("description"))
+                mPost.setDescription(changedValues.getAsString("description"));
+            if (changedValues.containsKey("mt_text_more"))
+                mPost.setMoreText(changedValues.getAsString("mt_text_more"));
+            if (changedValues.containsKey("isLocalChange"))
+                mPost.setLocalChange(true);
+        }
+
+        @Override
+        protected void onCancelled() {
+            mIsAutosaving = false;
+        }
+    }
+
+    /*
+     * returns the passed values which differ from those last saved, must be called with mLock held
+     */
+    private ContentValues getChangedValues(ContentValues values) {
+        ContentValues changedValues = new ContentValues();
+        for (String key : values.keySet()) {
+            Object value = values.get(key);
+            Object savedValue = mSavedValues.get(key);
+            if (value == null ? savedValue != null : !value.equals(savedValue)) {
+                // preserve the original type so later comparisons still match
+                putValue(changedValues, key, value);
+            }
+        }
+        return changedValues;
+    }
+
+    private static void putValue(ContentValues values, String key, Object value) {
+        if (value == null) {
+            values.putNull(key);
+        } else if (value instanceof String) {
+            values.put(key, (String) value);
+        } else if (value instanceof Long) {
+            values.put(key, (Long) value);
+        } else if (value instanceof Integer) {
+            values.put(key, (Integer) value);
+        } else if (value instanceof Boolean) {
+            values.put(key, (Boolean) value);
+        } else if (value instanceof Double) {
+            values.put(key, (Double) value);
+        } else {
+            values.put(key, value.toString());
+        }
+    }
+
+    /*
+     * the columns set by the post settings screen - these match the columns written by
+     * WordPressDB.updatePost()
+     */
+    private static ContentValues getSettingsValues(Post post) {
+        ContentValues values = new ContentValues();
+        values.put("date_created_gmt", post.getDate_created_gmt());
+        JSONArray categoriesJsonArray = post.getJSONCategories();
+        if (categoriesJsonArray != null) {
+            values.put("categories", categoriesJsonArray.toString());
+        }
+        values.put("mt_keywords", post.getKeywords());
+        values.put("wp_password", post.getPassword());
+        values.put("post_status", post.getPostStatus());
+        values.put("wp_post_format", post.getPostFormat());
+        values.put("mt_excerpt", post.getPostExcerpt());
+        return values;
+    }
+
+    /*
+     * all columns tracked by the journal
+     */
+    private static ContentValues getPostValues(Post post) {
+        ContentValues values = getSettingsValues(post);
+        values.put("title", post.getTitle());
+        values.put("description", post.getDescription());
+        values.put("mt_text_more", post.getMoreText());
+        values.put("isLocalChange", post.isLocalChange());
+        return values;
+    }
+
+    /*
+     * converts the editor content to the html stored for the post - local drafts are stored as
+     * html generated from the spans, others are stored as-is
+     */
+    static String serializeContent(Editable postContentEditable, boolean isLocalDraft) {
+        if (!isLocalDraft)
+            return postContentEditable.toString();
+
+        // remove suggestion spans, they cause craziness in WPHtml.toHTML().
+        CharacterStyle[] characterStyles = postContentEditable.getSpans(0, postContentEditable.length(),
+                CharacterStyle.class);
+        for (CharacterStyle characterStyle : characterStyles) {
+            if (characterStyle.getClass().getName().equals("android.text.style.SuggestionSpan")) {
+                postContentEditable.removeSpan(characterStyle);
+            }
+        }
+        String content = WPHtml.toHtml(postContentEditable);
+        // replace duplicate <p> tags so there's not duplicates, trac #86
+        content = content.replace("<p><p>", "<p>");
+        content = content.replace("</p></p>", "</p>");
+        content = content.replace("<br><br>", "<br>");
+        // sometimes the editor creates extra tags
+        content = content.replace("</strong><strong>", "").replace("</em><em>", "").replace("</u><u>", "")
+                .replace("</strike><strike>", "").replace("</blockquote><blockquote>", "");
+        return content;
+    }
+
+    /*
+     * splits local draft content into the description and "more" text, returned as a two
+     * element array
+     */
+    static String[] splitAtMoreTag(String content, boolean isLocalDraft) {
+        if (isLocalDraft && content.contains(MORE_TAG)) {
+            int index = content.indexOf(MORE_TAG);
+            return new String[]{content.substring(0, index),
+                                content.substring(index + MORE_TAG.length(), content.length())};
+        }
+        return new String[]{content, ""};
+    }
+}
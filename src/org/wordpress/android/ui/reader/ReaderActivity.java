@@ -13,7 +13,6 @@ import android.view.Window;
 
 import org.wordpress.android.Constants;
 import org.wordpress.android.R;
-import org.wordpress.android.datasets.ReaderDatabase;
 import org.wordpress.android.datasets.ReaderPostTable;
 import org.wordpress.android.datasets.ReaderTagTable;
 import org.wordpress.android.models.ReaderPost;
@@ -27,10 +26,14 @@ import org.wordpress.android.ui.reader.actions.ReaderActions.RequestDataAction;
 import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResult;
 import org.wordpress.android.ui.reader.actions.ReaderAuthActions;
 import org.wordpress.android.ui.reader.actions.ReaderBlogActions;
+import org.wordpress.android.ui.reader.actions.ReaderOutbox;
+import org.wordpress.android.ui.reader.actions.ReaderPostActions;
 import org.wordpress.android.ui.reader.actions.ReaderTagActions;
 import org.wordpress.android.ui.reader.actions.ReaderUserActions;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.DatabaseMaintenanceService;
+import org.wordpress.android.util.ReaderOfflinePackService;
 import org.wordpress.android.util.NetworkUtils;
 import org.wordpress.android.util.stats.AnalyticsTracker;
 
@@ -90,6 +93,9 @@ public class ReaderActivity extends WPActionBarActivity
         super.onCreate(savedInstanceState);
         getFragmentManager().addOnBackStackChangedListener(this);
 
+        // create the webViews used to display posts while the UI thread is idle
+        ReaderWebViewPool.warmUp(this);
+
         readIntent(getIntent(), savedInstanceState);
     }
 
@@ -178,7 +184,7 @@ public class ReaderActivity extends WPActionBarActivity
         // these booleans are static
         if (!mHasPerformedPurge) {
             mHasPerformedPurge = true;
-            ReaderDatabase.purgeAsync();
+            DatabaseMaintenanceService.startService(this);
         }
         if (!mHasPerformedInitialUpdate) {
             performInitialUpdate();
@@ -260,7 +266,7 @@ public class ReaderActivity extends WPActionBarActivity
                     long blogId = data.getLongExtra(ARG_BLOG_ID, 0);
                     long postId = data.getLongExtra(ARG_POST_ID, 0);
                     if (listFragment != null)
-                        listFragment.reloadPost(ReaderPostTable.getPost(blogId, postId));
+                        listFragment.reloadPost(ReaderPostTable.getPost(blogId, postId, true));
                     if (detailFragment != null)
                         detailFragment.reloadPost();
                 }
@@ -378,6 +384,10 @@ public class ReaderActivity extends WPActionBarActivity
             return;
         }
 
+        // send likes, follows, etc. that were made while offline before requesting the
+        // latest data from the server
+        ReaderOutbox.flush();
+
         // remember whether we have any tags and posts before updating
         final boolean isTagTableEmpty = ReaderTagTable.isEmpty();
         final boolean isPostTableEmpty = ReaderPostTable.isEmpty();
@@ -417,6 +427,20 @@ public class ReaderActivity extends WPActionBarActivity
                 AppLog.i(T.READER, "reader activity > updating followed blogs");
                 ReaderBlogActions.updateFollowedBlogs(null);
 
+                // update followed tags that are due for an update in batches, skipping the
+                // current tag since the list fragment updates it, then build the offline pack
+                // from the updated tags (the service decides whether it's due and whether the
+                // connection allows it)
+                AppLog.i(T.READER, "reader activity > updating stale followed tags");
+                ReaderPostListFragment fragment = getListFragment();
+                String currentTag = (fragment != null ? fragment.getCurrentTag() : null);
+                ReaderPostActions.updateStaleFollowedTags(currentTag, new ReaderActions.UpdateResultListener() {
+                    @Override
+                    public void onUpdateResult(UpdateResult tagsResult) {
+                        ReaderOfflinePackService.startService(getApplicationContext());
+                    }
+                });
+
                 // update cookies so that we can show authenticated images in WebViews
                 AppLog.i(T.READER, "reader activity > updating cookies");
                 ReaderAuthActions.updateCookies(ReaderActivity.this);
@@ -491,7 +515,7 @@ public class ReaderActivity extends WPActionBarActivity
             return;
         }
 
-        final ReaderPost updatedPost = ReaderPostTable.getPost(blogId, postId);
+        final ReaderPost updatedPost = ReaderPostTable.getPost(blogId, postId, true);
         if (updatedPost == null) {
             return;
         }
@@ -1,29 +1,64 @@
 package org.wordpress.android.ui.reader;
 
 import android.app.Activity;
+import android.graphics.BitmapRegionDecoder;
 import android.graphics.Point;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.view.View;
 import android.widget.ProgressBar;
 
+import com.android.volley.AuthFailureError;
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpStack;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.wordpress.android.R;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.DisplayUtils;
 import org.wordpress.android.util.PhotonUtils;
 import org.wordpress.android.util.ToastUtils;
 import org.wordpress.android.util.UrlUtils;
+import org.wordpress.android.util.VolleyUtils;
 import org.wordpress.android.widgets.WPNetworkImageView;
 import org.wordpress.android.widgets.WPNetworkImageView.ImageListener;
 import org.wordpress.android.widgets.WPNetworkImageView.ImageType;
+import org.wordpress.android.widgets.WPTileOverlayView;
 import org.wordpress.android.widgets.photoview.PhotoViewAttacher;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+
 /**
- * Full-screen photo viewer, relies on widgets.photoview for pinch/zoom & double tap enlargement
+ * Full-screen photo viewer, relies on widgets.photoview for pinch/zoom & double tap enlargement.
+ * The photo is first shown at screen size, and if the user zooms past that the full-size photo
+ * is downloaded and the visible part of it is shown at full resolution by WPTileOverlayView
  */
 public class ReaderPhotoViewerActivity extends Activity {
     static final String ARG_IMAGE_URL = "image_url";
     private String mImageUrl;
 
+    private WPNetworkImageView mImageView;
+    private WPTileOverlayView mTileOverlay;
+    private PhotoViewAttacher mAttacher;
+
+    private LoadFullImageTask mLoadFullImageTask;
+    private File mFullImageFile;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -42,31 +77,201 @@ public class ReaderPhotoViewerActivity extends Activity {
             }
         }
 
-        final WPNetworkImageView imageView = (WPNetworkImageView) findViewById(R.id.image_photo);
+        mImageView = (WPNetworkImageView) findViewById(R.id.image_photo);
+        mTileOverlay = (WPTileOverlayView) findViewById(R.id.tile_overlay);
         final ProgressBar progress = (ProgressBar) findViewById(R.id.progress);
 
         if (!TextUtils.isEmpty(mImageUrl)) {
             progress.setVisibility(View.VISIBLE);
-            imageView.setImageUrl(mImageUrl, ImageType.PHOTO_FULL, new ImageListener() {
+            mImageView.setImageUrl(mImageUrl, ImageType.PHOTO_FULL, new ImageListener() {
                 @Override
                 public void onImageLoaded(boolean succeeded) {
                     progress.setVisibility(View.GONE);
                     if (succeeded) {
-                        new PhotoViewAttacher(imageView);
+                        attachPhotoView();
                     } else {
                         ToastUtils.showToast(ReaderPhotoViewerActivity.this, R.string.reader_toast_err_view_image, ToastUtils.Duration.LONG);
                     }
                 }
             });
         } else {
-            imageView.setImageResource(R.drawable.ic_error);
+            mImageView.setImageResource(R.drawable.ic_error);
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        if (mLoadFullImageTask != null) {
+            mLoadFullImageTask.cancel(false);
+        }
+        if (mAttacher != null) {
+            mAttacher.cleanup();
+        }
+        mTileOverlay.cleanup();
+        if (mFullImageFile != null) {
+            mFullImageFile.delete();
+        }
+        super.onDestroy();
+    }
+
     @Override
     public void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
         if (mImageUrl != null)
             outState.putString(ARG_IMAGE_URL, mImageUrl);
     }
+
+    private void attachPhotoView() {
+        mAttacher = new PhotoViewAttacher(mImageView);
+        mAttacher.setOnMatrixChangeListener(new PhotoViewAttacher.OnMatrixChangedListener() {
+            @Override
+            public void onMatrixChanged(RectF rect) {
+                mTileOverlay.setDisplayRect(rect);
+                // start loading the full-size photo the first time the user zooms past the
+                // resolution of the one that's displayed
+                if (mLoadFullImageTask == null && rect.width() > getBaseImageWidth()) {
+                    mLoadFullImageTask = new LoadFullImageTask();
+                    mLoadFullImageTask.execute();
+                }
+            }
+        });
+    }
+
+    private int getBaseImageWidth() {
+        Drawable drawable = mImageView.getDrawable();
+        return (drawable != null ? drawable.getIntrinsicWidth() : 0);
+    }
+
+    /*
+     * once the full-size photo has loaded, allow zooming until it's shown at full resolution
+     */
+    private void onFullImageLoaded(BitmapRegionDecoder decoder) {
+        int baseWidth = getBaseImageWidth();
+        if (decoder.getWidth() <= baseWidth || mAttacher == null) {
+            // the displayed photo is already full size
+            decoder.recycle();
+            return;
+        }
+
+        mTileOverlay.setRegionDecoder(decoder, baseWidth);
+        RectF rect = mAttacher.getDisplayRect();
+        if (rect != null) {
+            mTileOverlay.setDisplayRect(rect);
+            float fitWidth = rect.width() / mAttacher.getScale();
+            float fullScale = decoder.getWidth() / fitWidth;
+            if (fullScale > mAttacher.getMaxScale()) {
+                mAttacher.setMaxScale(fullScale);
+            }
+        }
+    }
+
+    /*
+     * downloads the original photo to a temp file and opens a region decoder on it - the photo
+     * is never decoded as a whole. the download goes through the same http stack as the app's
+     * other requests so private images are sent the auth headers they need, and photos larger
+     * than MAX_FULL_IMAGE_BYTES are skipped (the screen-size photo stays zoomable)
+     */
+    private static final long MAX_FULL_IMAGE_BYTES = 25 * 1024 * 1024;
+    private static final int FULL_IMAGE_TIMEOUT_MS = 30 * 1000;
+    private class LoadFullImageTask extends AsyncTask<Void, Void, BitmapRegionDecoder> {
+        private final String mFullImageUrl = getIntent().getStringExtra(ARG_IMAGE_URL);
+        private final File mCacheDir = getCacheDir();
+        private final HttpStack mHttpStack = VolleyUtils.getHTTPClientStack(getApplicationContext());
+
+        @Override
+        protected BitmapRegionDecoder doInBackground(Void... params) {
+            if (TextUtils.isEmpty(mFullImageUrl)) {
+                return null;
+            }
+
+            // the request is performed directly by the stack rather than queued so the photo is
+            // streamed to the file instead of being read into memory
+            Request<Void> request = new Request<Void>(Request.Method.GET, mFullImageUrl, null) {
+                @Override
+                protected Response<Void> parseNetworkResponse(NetworkResponse response) {
+                    return null;
+                }
+                @Override
+                protected void deliverResponse(Void response) {
+                    // nop
+                }
+            };
+            request.setRetryPolicy(new DefaultRetryPolicy(FULL_IMAGE_TIMEOUT_MS, 0, 1f));
+
+            InputStream in = null;
+            OutputStream out = null;
+            try {
+                HttpResponse response = mHttpStack.performRequest(request, new HashMap<String, String>());
+                HttpEntity entity = response.getEntity();
+                if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK || entity == null) {
+                    AppLog.w(T.READER, "photo viewer > unable to load full image, status "
+                            + response.getStatusLine().getStatusCode());
+                    return null;
+                }
+                in = entity.getContent();
+                if (entity.getContentLength() > MAX_FULL_IMAGE_BYTES) {
+                    AppLog.w(T.READER, "photo viewer > full image is too large");
+                    return null;
+                }
+
+                File file = File.createTempFile("wp-photo-", null, mCacheDir);
+                mFullImageFile = file;
+                out = new FileOutputStream(file);
+                byte[] buffer = new byte[8192];
+                long totalRead = 0;
+                int numRead;
+                while ((numRead = in.read(buffer)) != -1) {
+                    if (isCancelled()) {
+                        return null;
+                    }
+                    // the content length may be missing, so enforce the limit while reading too
+                    totalRead += numRead;
+                    if (totalRead > MAX_FULL_IMAGE_BYTES) {
+                        AppLog.w(T.READER, "photo viewer > full image is too large");
+                        return null;
+                    }
+                    out.write(buffer, 0, numRead);
+                }
+                out.close();
+                out = null;
+
+                return BitmapRegionDecoder.newInstance(file.getAbsolutePath(), false);
+            } catch (IOException e) {
+                AppLog.e(T.READER, e);
+                return null;
+            } catch (AuthFailureError e) {
+                AppLog.e(T.READER, e);
+                return null;
+            } finally {
+                closeQuietly(in);
+                closeQuietly(out);
+            }
+        }
+
+        @Override
+        protected void onCancelled(BitmapRegionDecoder decoder) {
+            if (decoder != null) {
+                decoder.recycle();
+            }
+        }
+
+        @Override
+        protected void onPostExecute(BitmapRegionDecoder decoder) {
+            if (decoder != null && !isFinishing()) {
+                onFullImageLoaded(decoder);
+            } else if (decoder != null) {
+                decoder.recycle();
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // nop
+            }
+        }
+    }
 }
@@ -23,6 +23,8 @@ import android.view.animation.Animation;
 import android.view.animation.TranslateAnimation;
 import android.view.inputmethod.EditorInfo;
 import android.view.inputmethod.InputMethodManager;
+import android.webkit.MimeTypeMap;
+import android.webkit.WebResourceResponse;
 import android.webkit.WebView;
 import android.webkit.WebView.HitTestResult;
 import android.webkit.WebViewClient;
@@ -40,7 +42,6 @@ import org.wordpress.android.datasets.ReaderUserTable;
 import org.wordpress.android.models.ReaderComment;
 import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderUserIdList;
-import org.wordpress.android.ui.WPActionBarActivity;
 import org.wordpress.android.ui.reader.ReaderActivityLauncher.OpenUrlType;
 import org.wordpress.android.ui.reader.actions.ReaderActions;
 import org.wordpress.android.ui.reader.actions.ReaderBlogActions;
@@ -53,8 +54,8 @@ import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.DateTimeUtils;
 import org.wordpress.android.util.DisplayUtils;
 import org.wordpress.android.util.EditTextUtils;
-import org.wordpress.android.util.HtmlUtils;
 import org.wordpress.android.util.PhotonUtils;
+import org.wordpress.android.util.ReaderOfflineCache;
 import org.wordpress.android.util.ReaderVideoUtils;
 import org.wordpress.android.util.StringUtils;
 import org.wordpress.android.util.ToastUtils;
@@ -63,6 +64,9 @@ import org.wordpress.android.util.stats.AnalyticsTracker;
 import org.wordpress.android.widgets.WPListView;
 import org.wordpress.android.widgets.WPNetworkImageView;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.util.ArrayList;
 
 public class ReaderPostDetailFragment extends Fragment
@@ -209,8 +213,12 @@ public class ReaderPostDetailFragment extends Fragment
         mLayoutIcons = (ViewGroup) view.findViewById(R.id.layout_actions);
         mLayoutLikes = (ViewGroup) view.findViewById(R.id.layout_likes);
 
-        // setup the webView
-        mWebView = (WebView) view.findViewById(R.id.webView);
+        // setup the webView - a pre-created one is taken from the pool to avoid creating it here
+        ViewGroup layoutWebView = (ViewGroup) view.findViewById(R.id.layout_webview);
+        mWebView = ReaderWebViewPool.acquire(getActivity());
+        mWebView.setVerticalScrollBarEnabled(false);
+        mWebView.setHorizontalScrollBarEnabled(false);
+        layoutWebView.addView(mWebView, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
         mWebView.setWebViewClient(readerWebViewClient);
         mWebView.getSettings().setUserAgentString(WordPress.getUserAgent());
 
@@ -243,6 +251,16 @@ public class ReaderPostDetailFragment extends Fragment
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        // return the webView to the pool so the next post opens without creating one
+        if (mWebView != null) {
+            ReaderWebViewPool.release(mWebView);
+            mWebView = null;
+        }
+        super.onDestroyView();
+    }
+
     private WPListView getListView() {
         return mListView;
     }
@@ -442,7 +460,7 @@ public class ReaderPostDetailFragment extends Fragment
     public void onPause() {
         // this ensures embedded videos don't continue to play when the fragment is no longer
         // active or has been detached
-        if (hasEmbedsOrIframes()) {
+        if (ReaderPostRenderer.hasEmbedsOrIframes(mPost)) {
             pauseWebView();
         }
         super.onPause();
@@ -451,7 +469,7 @@ public class ReaderPostDetailFragment extends Fragment
     @Override
     public void onResume() {
         super.onResume();
-        if (hasEmbedsOrIframes()) {
+        if (ReaderPostRenderer.hasEmbedsOrIframes(mPost)) {
             resumeWebView();
         }
     }
@@ -982,30 +1000,6 @@ public class ReaderPostDetailFragment extends Fragment
         ReaderUtils.showFollowStatus(txtFollow, isFollowed);
     }
 
-    /*
-     * creates formatted div for passed video with passed (optional) thumbnail
-     */
-    private static final String OVERLAY_IMG = "file:///android_asset/ic_reader_video_overlay.png";
-    private String makeVideoDiv(String videoUrl, String thumbnailUrl) {
-        if (TextUtils.isEmpty(videoUrl))
-            return "";
-
-        // sometimes we get src values like "//player.vimeo.com/video/70534716" - prefix these with http:
-        if (videoUrl.startsWith("//"))
-            videoUrl = "http:" + videoUrl;
-
-        int overlaySz = getResources().getDimensionPixelSize(R.dimen.reader_video_overlay_size) / 2;
-
-        if (TextUtils.isEmpty(thumbnailUrl)) {
-            return String.format("<div class='wpreader-video' align='center'><a href='%s'><img style='width:%dpx; height:%dpx; display:block;' src='%s' /></a></div>", videoUrl, overlaySz, overlaySz, OVERLAY_IMG);
-        } else {
-            return "<div style='position:relative'>"
-                    + String.format("<a href='%s'><img src='%s' style='width:100%%; height:auto;' /></a>", videoUrl, thumbnailUrl)
-                    + String.format("<a href='%s'><img src='%s' style='width:%dpx; height:%dpx; position:absolute; left:0px; right:0px; top:0px; bottom:0px; margin:auto;'' /></a>", videoUrl, OVERLAY_IMG, overlaySz, overlaySz)
-                    + "</div>";
-        }
-    }
-
     /*
      * called when user taps an image in the webView - shows the image full-screen
      */
@@ -1022,129 +1016,11 @@ public class ReaderPostDetailFragment extends Fragment
         }
     }
 
-    private boolean hasStaticMenuDrawer() {
-        return (getActivity() instanceof WPActionBarActivity)
-            && (((WPActionBarActivity) getActivity()).isStaticMenuDrawer());
-    }
-
     /*
      * size to use for images that fit the full width of the listView item
      */
     private int getFullSizeImageWidth() {
-        int displayWidth = DisplayUtils.getDisplayPixelWidth(getActivity());
-        int marginWidth = getResources().getDimensionPixelOffset(R.dimen.reader_list_margin);
-        int imageWidth = displayWidth - (marginWidth * 2);
-        if (hasStaticMenuDrawer()) {
-            int drawerWidth = getResources().getDimensionPixelOffset(R.dimen.menu_drawer_width);
-            imageWidth -= drawerWidth;
-        }
-        return imageWidth;
-    }
-
-    /*
-     * build html for post's content
-     */
-    private String getPostHtml(Context context) {
-        if (mPost == null || context == null) {
-            return "";
-        }
-
-        String content;
-        if (mPost.hasText()) {
-            // some content (such as Vimeo embeds) don't have "http:" before links, correct this here
-            content = mPost.getText().replace("src=\"//", "src=\"http://");
-            // insert video div before content if this is a VideoPress post (video otherwise won't appear)
-            if (mPost.isVideoPress)
-                content = makeVideoDiv(mPost.getFeaturedVideo(), mPost.getFeaturedImage()) + content;
-        } else if (mPost.hasFeaturedImage()) {
-            // some photo blogs have posts with empty content but still have a featured image, so
-            // use the featured image as the content
-            content = String.format("<p><img class='img.size-full' src='%s' /></p>", mPost.getFeaturedImage());
-        } else {
-            content = "";
-        }
-
-        int marginLarge = context.getResources().getDimensionPixelSize(R.dimen.margin_large);
-        int marginSmall = context.getResources().getDimensionPixelSize(R.dimen.margin_small);
-        int marginExtraSmall = context.getResources().getDimensionPixelSize(R.dimen.margin_extra_small);
-        int fullSizeImageWidth = getFullSizeImageWidth();
-
-        final String linkColor = HtmlUtils.colorResToHtmlColor(context, R.color.reader_hyperlink);
-        final String greyLight = HtmlUtils.colorResToHtmlColor(context, R.color.grey_light);
-        final String greyExtraLight = HtmlUtils.colorResToHtmlColor(context, R.color.grey_extra_light);
-
-        StringBuilder sbHtml = new StringBuilder("<!DOCTYPE html><html><head><meta charset='UTF-8' />");
-
-        // title isn't strictly necessary, but source is invalid html5 without one
-        sbHtml.append("<title>Reader Post</title>");
-
-        // https://developers.google.com/chrome/mobile/docs/webview/pixelperfect
-        sbHtml.append("<meta name='viewport' content='width=device-width, initial-scale=1'>");
-
-        // use "Open Sans" Google font
-        sbHtml.append("<link rel='stylesheet' type='text/css' href='http://fonts.googleapis.com/css?family=Open+Sans' />");
-
-        sbHtml.append("<style type='text/css'>")
-              .append("  body { font-family: 'Open Sans', sans-serif; margin: 0px; padding: 0px;}")
-              .append("  body, p, div { max-width: 100% !important;}")
-              .append("  p, div { line-height: 1.6em; font-size: 1em; }")
-              .append("  h1, h2 { line-height: 1.2em; }");
-
-        // use a consistent top/bottom margin for paragraphs, with no top margin for the first one
-        sbHtml.append(String.format("  p { margin-top: %dpx; margin-bottom: %dpx; }", marginSmall, marginSmall))
-              .append("    p:first-child { margin-top: 0px; }");
-
-        // add border, background color, and padding to pre blocks, and add overflow scrolling
-        // so user can scroll the block if it's wider than the display
-        sbHtml.append("  pre { overflow-x: scroll;")
-              .append("        border: 1px solid ").append(greyLight).append("; ")
-              .append("        background-color: ").append(greyExtraLight).append("; ")
-              .append("        padding: ").append(marginSmall).append("px; }");
-
-        // make sure links don't overflow and are shown in the same color they are elsewhere in the app
-        sbHtml.append("  a { word-wrap: break-word; text-decoration: none; color: ").append(linkColor).append("; }");
-
-        if (hasEmbedsOrIframes()) {
-            // make sure embedded videos fit the browser width and use 16:9 ratio (YouTube standard)
-            int videoWidth =  DisplayUtils.pxToDp(context, fullSizeImageWidth - (marginLarge * 2));
-            int videoHeight = (int)(videoWidth * 0.5625f);
-            sbHtml.append("  iframe, embed { width: ").append(videoWidth).append("px !important;")
-                  .append("                  height: ").append(videoHeight).append("px !important; }");
-        } else {
-            sbHtml.append("  iframe, embed { display: none; }");
-        }
-
-        // don't allow any image to be wider than the screen
-        sbHtml.append("  img { max-width: 100% !important; height: auto;}");
-
-        // show large wp images full-width (unnecessary in most cases since they'll already be at least
-        // as wide as the display, except maybe when viewed on a large landscape tablet)
-        sbHtml.append("  img.size-full, img.size-large { display: block; width: 100% !important; height: auto; }");
-
-        // center medium-sized wp image
-        sbHtml.append("  img.size-medium { display: block; margin-left: auto !important; margin-right: auto !important; }");
-
-        // tiled image galleries look bad on mobile due to their hard-coded DIV and IMG sizes, so if
-        // content contains a tiled image gallery, remove the height params and replace the width
-        // params with ones that make images fit the width of the listView item, then adjust the
-        // relevant CSS classes so their height/width are auto, and add top/bottom margin to images
-        if (content.contains("tiled-gallery-item")) {
-            String widthParam = "w=" + Integer.toString(fullSizeImageWidth);
-            content = content.replaceAll("w=[0-9]+", widthParam).replaceAll("h=[0-9]+", "");
-            sbHtml.append("  div.gallery-row, div.gallery-group { width: auto !important; height: auto !important; }")
-                  .append("  div.tiled-gallery-item img { ")
-                  .append("     width: auto !important; height: auto !important;")
-                  .append("     margin-top: ").append(marginExtraSmall).append("px; ")
-                  .append("     margin-bottom: ").append(marginExtraSmall).append("px; ")
-                  .append(" }")
-                  .append("  div.tiled-gallery-caption { clear: both; }");
-        }
-
-        sbHtml.append("</style></head><body>")
-              .append(content)
-              .append("</body></html>");
-
-        return sbHtml.toString();
+        return ReaderPostRenderer.getFullSizeImageWidth(getActivity());
     }
 
     /*
@@ -1180,22 +1056,6 @@ public class ReaderPostDetailFragment extends Fragment
         }
     }
 
-    /*
-     * returns true if content contains embed or iframe tags - if so then JavaScript is enabled
-     * and CSS is customized so embedded videos can play
-     */
-    private boolean hasEmbedsOrIframes() {
-        if (mPost == null) {
-            return false;
-        } else if (mPost.isVideoPress || mPost.hasFeaturedVideo()) {
-            return true;
-        } else {
-            return (mPost.getText().contains("<embed")
-                 || mPost.getText().contains("<iframe")
-                 || mPost.getText().contains("videos.files.wordpress.com"));
-        }
-    }
-
     private void showPost() {
         if (mIsPostTaskRunning) {
             AppLog.w(T.READER, "reader post detail > show post task already running");
@@ -1256,7 +1116,15 @@ public class ReaderPostDetailFragment extends Fragment
             if (mPost == null) {
                 return false;
             }
-            postHtml = getPostHtml(container.getContext());
+            postHtml = ReaderPostRenderer.getPostHtml(container.getContext(), mPost);
+
+            // if this post is in the offline pack, make its avatar available to Volley so it
+            // doesn't need to be downloaded
+            if (mPost.hasPostAvatar()) {
+                int avatarSz = container.getResources().getDimensionPixelSize(R.dimen.avatar_sz_medium);
+                String avatarUrl = mPost.getPostAvatarForDisplay(avatarSz);
+                ReaderOfflineCache.copyToVolleyCache(avatarUrl, avatarUrl);
+            }
 
             // detect whether the post has a featured image that's not in the content - if so,
             // it will be shown between the post's title and its content (but skip mshots)
@@ -1268,6 +1136,7 @@ public class ReaderPostDetailFragment extends Fragment
                     // note that only the width is used here - the imageView will adjust
                     // the height to match that of the image once loaded
                     featuredImageUrl = mPost.getFeaturedImageForDisplay(getFullSizeImageWidth(), 0);
+                    ReaderOfflineCache.copyToVolleyCache(mPost.getFeaturedImage(), featuredImageUrl);
                 }
             }
 
@@ -1277,7 +1146,8 @@ public class ReaderPostDetailFragment extends Fragment
         protected void onPostExecute(Boolean result) {
             mIsPostTaskRunning = false;
 
-            if (!hasActivity()) {
+            // webView is returned to the pool when the fragment's view is destroyed
+            if (!hasActivity() || mWebView == null) {
                 return;
             }
 
@@ -1384,7 +1254,7 @@ public class ReaderPostDetailFragment extends Fragment
 
             // enable JavaScript in the webView if the post content contains embeds or iframes
             // so embedded videos will work
-            mWebView.getSettings().setJavaScriptEnabled(hasEmbedsOrIframes());
+            mWebView.getSettings().setJavaScriptEnabled(ReaderPostRenderer.hasEmbedsOrIframes(mPost));
 
             // IMPORTANT: use loadDataWithBaseURL() since loadData() may fail
             // https://code.google.com/p/android/issues/detail?id=4401
@@ -1425,6 +1295,8 @@ public class ReaderPostDetailFragment extends Fragment
         mHandler.postDelayed(new Runnable() {
             @Override
             public void run() {
+                if (mWebView == null)
+                    return;
                 if (mWebView.getVisibility() != View.VISIBLE)
                     AppLog.d(T.READER, "reader post detail > webView shown before page finished");
                 showContent();
@@ -1433,7 +1305,7 @@ public class ReaderPostDetailFragment extends Fragment
     }
 
     private void showContent() {
-        if (!hasActivity())
+        if (!hasActivity() || mWebView == null)
             return;
 
         mWebView.setVisibility(View.VISIBLE);
@@ -1457,6 +1329,22 @@ public class ReaderPostDetailFragment extends Fragment
                 view.setVisibility(View.VISIBLE);
         }
         @Override
+        public WebResourceResponse shouldInterceptRequest(WebView view, String url) {
+            // serve images from the offline pack if they're in it (called on a background thread)
+            if (url == null || !url.startsWith("http")) {
+                return null;
+            }
+            File file = ReaderOfflineCache.getFile(url);
+            if (file != null) {
+                try {
+                    return new WebResourceResponse(getMimeTypeForUrl(url), null, new FileInputStream(file));
+                } catch (FileNotFoundException e) {
+                    // file was evicted after it was found, so let the webView request it
+                }
+            }
+            return null;
+        }
+        @Override
         public boolean shouldOverrideUrlLoading(WebView view, String url) {
             // open clicked urls in default browser or else urls will open in this webView,
             // but only do this when webView has loaded (is visible) - have seen some posts
@@ -1471,6 +1359,16 @@ public class ReaderPostDetailFragment extends Fragment
         }
     };
 
+    /*
+     * the offline pack only stores images - the webView sniffs the actual image type, so a
+     * generic image type is used when the extension isn't recognized
+     */
+    private static String getMimeTypeForUrl(String url) {
+        String extension = MimeTypeMap.getFileExtensionFromUrl(url);
+        String mimeType = (extension != null ? MimeTypeMap.getSingleton().getMimeTypeFromExtension(extension.toLowerCase()) : null);
+        return (mimeType != null ? mimeType : "image/*");
+    }
+
     /*
      * called when user taps a link in the webView
      */
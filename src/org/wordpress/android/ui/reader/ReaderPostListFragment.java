@@ -28,6 +28,7 @@ import org.wordpress.android.R;
 import org.wordpress.android.datasets.ReaderPostTable;
 import org.wordpress.android.datasets.ReaderTagTable;
 import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
 import org.wordpress.android.models.ReaderTag;
 import org.wordpress.android.ui.PullToRefreshHelper;
 import org.wordpress.android.ui.PullToRefreshHelper.RefreshListener;
@@ -52,7 +53,9 @@ import org.wordpress.android.util.ToastUtils;
 import org.wordpress.android.util.stats.AnalyticsTracker;
 import org.wordpress.android.widgets.WPListView;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import uk.co.senab.actionbarpulltorefresh.library.PullToRefreshLayout;
@@ -199,6 +202,9 @@ public class ReaderPostListFragment extends Fragment
 
             // likewise for tags
             refreshTags();
+
+            // the counts on the visible posts may have changed while we were paused
+            updateVisiblePostCounts();
         }
     }
 
@@ -320,6 +326,7 @@ public class ReaderPostListFragment extends Fragment
                     ReaderPost post = (ReaderPost) getPostAdapter().getItem(position);
                     if (post != null) {
                         mPostSelectedListener.onPostSelected(post.blogId, post.postId);
+                        preRenderAdjacentPosts(position);
                     }
                 }
             }
@@ -367,6 +374,55 @@ public class ReaderPostListFragment extends Fragment
         mPullToRefreshHelper.unregisterReceiver(getActivity());
     }
 
+    /*
+     * render the html for the posts before and after the one at the passed position so they
+     * open without delay if the user goes to them next
+     */
+    private void preRenderAdjacentPosts(int position) {
+        if (!hasActivity())
+            return;
+        List<ReaderPost> posts = new ArrayList<ReaderPost>();
+        for (int i = position - 1; i <= position + 1; i += 2) {
+            if (i >= 0 && i < getPostAdapter().getCount()) {
+                posts.add((ReaderPost) getPostAdapter().getItem(i));
+            }
+        }
+        ReaderPostRenderer.preRenderPostsAsync(getActivity(), posts);
+    }
+
+    /*
+     * request the latest like/comment counts for the visible posts, and reload the ones that
+     * changed - this is a single lightweight request rather than a full update of each post
+     */
+    private void updateVisiblePostCounts() {
+        if (!hasActivity() || !hasPostAdapter() || mListView == null)
+            return;
+        if (!NetworkUtils.isNetworkAvailable(getActivity()))
+            return;
+
+        int firstPosition = Math.max(0, mListView.getFirstVisiblePosition() - mListView.getHeaderViewsCount());
+        int lastPosition = Math.min(getPostAdapter().getCount() - 1,
+                                    mListView.getLastVisiblePosition() - mListView.getHeaderViewsCount());
+        final ReaderPostList posts = new ReaderPostList();
+        for (int i = firstPosition; i <= lastPosition; i++) {
+            posts.add((ReaderPost) getPostAdapter().getItem(i));
+        }
+        if (posts.size() == 0)
+            return;
+
+        ReaderActions.UpdateResultListener resultListener = new ReaderActions.UpdateResultListener() {
+            @Override
+            public void onUpdateResult(ReaderActions.UpdateResult result) {
+                if (result == ReaderActions.UpdateResult.CHANGED && hasActivity()) {
+                    for (ReaderPost post: posts) {
+                        reloadPost(post);
+                    }
+                }
+            }
+        };
+        ReaderPostActions.updatePostCounts(posts, resultListener);
+    }
+
     @Override
     public void onAttach(Activity activity) {
         super.onAttach(activity);
@@ -402,6 +458,9 @@ public class ReaderPostListFragment extends Fragment
                 case TAG_FOLLOWED:
                 case TAG_PREVIEW:
                     getPostAdapter().setCurrentTag(mCurrentTag);
+                    if (!isRecreated) {
+                        ReaderTagTable.setTagLastOpened(mCurrentTag);
+                    }
                     if (!isRecreated && ReaderTagTable.shouldAutoUpdateTag(mCurrentTag)) {
                         updatePostsWithTag(getCurrentTag(), RequestDataAction.LOAD_NEWER, RefreshType.AUTOMATIC);
                     }
@@ -684,7 +743,9 @@ public class ReaderPostListFragment extends Fragment
         hideNewPostsBar();
         updateTagPreviewHeader();
 
-        // update posts in this tag if it's time to do so
+        // update posts in this tag if it's time to do so - note that the tag is first marked as
+        // opened since tags the user reads are updated more often
+        ReaderTagTable.setTagLastOpened(tagName);
         if (ReaderTagTable.shouldAutoUpdateTag(tagName)) {
             updatePostsWithTag(tagName, RequestDataAction.LOAD_NEWER, RefreshType.AUTOMATIC);
         }
@@ -0,0 +1,362 @@
+package org.wordpress.android.ui.reader;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.support.v4.util.LruCache;
+import android.text.TextUtils;
+
+import org.wordpress.android.R;
+import org.wordpress.android.datasets.ReaderPostTable;
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.DisplayUtils;
+import org.wordpress.android.util.HtmlUtils;
+import org.wordpress.android.util.ReaderOfflineCache;
+import org.wordpress.android.util.StringUtils;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds the html document used to display a post in the detail view. Rendered html is cached
+ * by blog, post, a hash of the content and the theme colors so re-opening a post doesn't repeat
+ * the work, and posts next to the one being opened can be rendered ahead of time. Posts in the
+ * offline pack also have their rendered html stored on disk. The html doesn't depend on the
+ * width it's shown at, so the same html is used in any orientation.
+ */
+public class ReaderPostRenderer {
+    private ReaderPostRenderer() {
+        throw new AssertionError();
+    }
+
+    // max size of the cache in chars, roughly 2MB
+    private static final int MAX_CACHE_CHARS = 1024 * 1024;
+
+    private static final LruCache<String, String> mHtmlCache = new LruCache<String, String>(MAX_CACHE_CHARS) {
+        @Override
+        protected int sizeOf(String key, String html) {
+            return html.length();
+        }
+    };
+
+    public static void clearCache() {
+        mHtmlCache.evictAll();
+    }
+
+    /*
+     * returns the html for the passed post, rendering it if it's not already cached in memory
+     * or in the offline pack
+     */
+    public static String getPostHtml(Context context, ReaderPost post) {
+        if (post == null || context == null) {
+            return "";
+        }
+
+        String key = getCacheKey(context, post);
+        String html = mHtmlCache.get(key);
+        if (html == null) {
+            html = ReaderOfflineCache.getString(OFFLINE_KEY_PREFIX + key);
+            if (html == null) {
+                html = renderPostHtml(context, post);
+            }
+            mHtmlCache.put(key, html);
+        }
+        return html;
+    }
+
+    /*
+     * renders the passed post and stores it in the offline pack (see ReaderOfflinePackService),
+     * returns the html - must be called from a background thread
+     */
+    // html packed before it was sized by its css is under "html:" and is left to be trimmed
+    private static final String OFFLINE_KEY_PREFIX = "html2:";
+    public static String addPostHtmlToOfflineCache(Context context, ReaderPost post) {
+        if (post == null || context == null) {
+            return "";
+        }
+
+        String key = getCacheKey(context, post);
+        String html = mHtmlCache.get(key);
+        if (html == null) {
+            html = renderPostHtml(context, post);
+        }
+        String offlineKey = OFFLINE_KEY_PREFIX + key;
+        if (!ReaderOfflineCache.contains(offlineKey)) {
+            ReaderOfflineCache.putString(offlineKey, html);
+        }
+        return html;
+    }
+
+    public static boolean isPostHtmlCached(Context context, ReaderPost post) {
+        if (post == null || context == null) {
+            return false;
+        }
+        return mHtmlCache.get(getCacheKey(context, post)) != null;
+    }
+
+    // posts are pre-rendered by a single shared thread rather than a new thread per call
+    private static ExecutorService mPreRenderExecutor;
+    private static final Set<String> mPreRenderQueue = Collections.synchronizedSet(new HashSet<String>());
+
+    private static synchronized ExecutorService getPreRenderExecutor() {
+        if (mPreRenderExecutor == null) {
+            mPreRenderExecutor = Executors.newSingleThreadExecutor();
+        }
+        return mPreRenderExecutor;
+    }
+
+    /*
+     * renders the passed posts in the background so they're cached before they're opened - used
+     * to render the posts next to the one the user just tapped. posts that are already queued
+     * aren't queued again
+     */
+    public static void preRenderPostsAsync(final Context context, final List<ReaderPost> posts) {
+        if (context == null || posts == null || posts.size() == 0) {
+            return;
+        }
+
+        final Context appContext = context.getApplicationContext();
+        for (final ReaderPost listPost: posts) {
+            final String queueKey = listPost.blogId + ":" + listPost.postId;
+            if (!mPreRenderQueue.add(queueKey)) {
+                continue;
+            }
+            getPreRenderExecutor().submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_BACKGROUND);
+                        // posts shown in the list don't include the text, so load the full post
+                        ReaderPost post = ReaderPostTable.getPost(listPost.blogId, listPost.postId);
+                        if (post != null && !isPostHtmlCached(appContext, post)) {
+                            getPostHtml(appContext, post);
+                            AppLog.d(T.READER, "reader post renderer > pre-rendered post " + post.postId);
+                        }
+                    } finally {
+                        mPreRenderQueue.remove(queueKey);
+                    }
+                }
+            });
+        }
+    }
+
+    /*
+     * html with the reader's css and an empty body, loaded into pooled webViews so the css
+     * and font are ready before the first post is shown (see ReaderWebViewPool)
+     */
+    static String getWarmUpHtml(Context context) {
+        return renderPostHtml(context, new ReaderPost());
+    }
+
+    /*
+     * cache key contains everything the rendered html depends on - the theme is represented by
+     * the colors used in the css. the width isn't part of it since the html is sized by its
+     * css rather than for a width (see renderPostHtml), which also means html packed by the
+     * offline pack service in one orientation is found when the post is opened in another
+     */
+    private static String getCacheKey(Context context, ReaderPost post) {
+        int contentHash = StringUtils.notNullStr(post.getText()).hashCode();
+        contentHash = 31 * contentHash + StringUtils.notNullStr(post.getFeaturedImage()).hashCode();
+        contentHash = 31 * contentHash + StringUtils.notNullStr(post.getFeaturedVideo()).hashCode();
+        contentHash = 31 * contentHash + (post.isVideoPress ? 1 : 0);
+
+        return post.blogId + "-" + post.postId
+             + "-" + contentHash
+             + "-" + getThemeKey(context);
+    }
+
+    private static String getThemeKey(Context context) {
+        return HtmlUtils.colorResToHtmlColor(context, R.color.reader_hyperlink)
+             + HtmlUtils.colorResToHtmlColor(context, R.color.grey_light)
+             + HtmlUtils.colorResToHtmlColor(context, R.color.grey_extra_light);
+    }
+
+    /*
+     * size to use for images that fit the full width of the listView item - takes a context
+     * rather than an activity so the offline pack service renders posts at the same width
+     */
+    public static int getFullSizeImageWidth(Context context) {
+        if (context == null) {
+            return 0;
+        }
+        int displayWidth = DisplayUtils.getDisplayPixelWidth(context);
+        int marginWidth = context.getResources().getDimensionPixelOffset(R.dimen.reader_list_margin);
+        int imageWidth = displayWidth - (marginWidth * 2);
+        if (hasStaticMenuDrawer(context)) {
+            int drawerWidth = context.getResources().getDimensionPixelOffset(R.dimen.menu_drawer_width);
+            imageWidth -= drawerWidth;
+        }
+        return imageWidth;
+    }
+
+    /*
+     * width to request images in tiled galleries at - the css scales them to fit, so this is the
+     * widest the post can be shown at in either orientation
+     */
+    private static int getGalleryImageWidth(Context context) {
+        int displayWidth = Math.max(DisplayUtils.getDisplayPixelWidth(context),
+                                    DisplayUtils.getDisplayPixelHeight(context));
+        int marginWidth = context.getResources().getDimensionPixelOffset(R.dimen.reader_list_margin);
+        return displayWidth - (marginWidth * 2);
+    }
+
+    /*
+     * same test as WPActionBarActivity.isStaticMenuDrawer(), which the activities showing
+     * posts extend
+     */
+    private static boolean hasStaticMenuDrawer(Context context) {
+        Configuration config = context.getResources().getConfiguration();
+        return (config.screenLayout & Configuration.SCREENLAYOUT_SIZE_MASK) == Configuration.SCREENLAYOUT_SIZE_XLARGE
+            && config.orientation == Configuration.ORIENTATION_LANDSCAPE;
+    }
+
+    /*
+     * returns true if content contains embed or iframe tags - if so then JavaScript is enabled
+     * and CSS is customized so embedded videos can play
+     */
+    public static boolean hasEmbedsOrIframes(ReaderPost post) {
+        if (post == null) {
+            return false;
+        } else if (post.isVideoPress || post.hasFeaturedVideo()) {
+            return true;
+        } else {
+            return (post.getText().contains("<embed")
+                 || post.getText().contains("<iframe")
+                 || post.getText().contains("videos.files.wordpress.com"));
+        }
+    }
+
+    /*
+     * creates formatted div for passed video with passed (optional) thumbnail
+     */
+    private static final String OVERLAY_IMG = "file:///android_asset/ic_reader_video_overlay.png";
+    private static String makeVideoDiv(Context context, String videoUrl, String thumbnailUrl) {
+        if (TextUtils.isEmpty(videoUrl))
+            return "";
+
+        // sometimes we get src values like "//player.vimeo.com/video/70534716" - prefix these with http:
+        if (videoUrl.startsWith("//"))
+            videoUrl = "http:" + videoUrl;
+
+        int overlaySz = context.getResources().getDimensionPixelSize(R.dimen.reader_video_overlay_size) / 2;
+
+        if (TextUtils.isEmpty(thumbnailUrl)) {
+            return String.format("<div class='wpreader-video' align='center'><a href='%s'><img style='width:%dpx; height:%dpx; display:block;' src='%s' /></a></div>", videoUrl, overlaySz, overlaySz, OVERLAY_IMG);
+        } else {
+            return "<div style='position:relative'>"
+                    + String.format("<a href='%s'><img src='%s' style='width:100%%; height:auto;' /></a>", videoUrl, thumbnailUrl)
+                    + String.format("<a href='%s'><img src='%s' style='width:%dpx; height:%dpx; position:absolute; left:0px; right:0px; top:0px; bottom:0px; margin:auto;'' /></a>", videoUrl, OVERLAY_IMG, overlaySz, overlaySz)
+                    + "</div>";
+        }
+    }
+
+    /*
+     * build html for post's content
+     */
+    private static String renderPostHtml(Context context, ReaderPost post) {
+        String content;
+        if (post.hasText()) {
+            // some content (such as Vimeo embeds) don't have "http:" before links, correct this here
+            content = post.getText().replace("src=\"//", "src=\"http://");
+            // insert video div before content if this is a VideoPress post (video otherwise won't appear)
+            if (post.isVideoPress)
+                content = makeVideoDiv(context, post.getFeaturedVideo(), post.getFeaturedImage()) + content;
+        } else if (post.hasFeaturedImage()) {
+            // some photo blogs have posts with empty content but still have a featured image, so
+            // use the featured image as the content
+            content = String.format("<p><img class='img.size-full' src='%s' /></p>", post.getFeaturedImage());
+        } else {
+            content = "";
+        }
+
+        int marginSmall = context.getResources().getDimensionPixelSize(R.dimen.margin_small);
+        int marginExtraSmall = context.getResources().getDimensionPixelSize(R.dimen.margin_extra_small);
+
+        final String linkColor = HtmlUtils.colorResToHtmlColor(context, R.color.reader_hyperlink);
+        final String greyLight = HtmlUtils.colorResToHtmlColor(context, R.color.grey_light);
+        final String greyExtraLight = HtmlUtils.colorResToHtmlColor(context, R.color.grey_extra_light);
+
+        StringBuilder sbHtml = new StringBuilder("<!DOCTYPE html><html><head><meta charset='UTF-8' />");
+
+        // title isn't strictly necessary, but source is invalid html5 without one
+        sbHtml.append("<title>Reader Post</title>");
+
+        // https://developers.google.com/chrome/mobile/docs/webview/pixelperfect
+        sbHtml.append("<meta name='viewport' content='width=device-width, initial-scale=1'>");
+
+        // use "Open Sans" Google font
+        sbHtml.append("<link rel='stylesheet' type='text/css' href='http://fonts.googleapis.com/css?family=Open+Sans' />");
+
+        sbHtml.append("<style type='text/css'>")
+              .append("  body { font-family: 'Open Sans', sans-serif; margin: 0px; padding: 0px;}")
+              .append("  body, p, div { max-width: 100% !important;}")
+              .append("  p, div { line-height: 1.6em; font-size: 1em; }")
+              .append("  h1, h2 { line-height: 1.2em; }");
+
+        // use a consistent top/bottom margin for paragraphs, with no top margin for the first one
+        sbHtml.append(String.format("  p { margin-top: %dpx; margin-bottom: %dpx; }", marginSmall, marginSmall))
+              .append("    p:first-child { margin-top: 0px; }");
+
+        // add border, background color, and padding to pre blocks, and add overflow scrolling
+        // so user can scroll the block if it's wider than the display
+        sbHtml.append("  pre { overflow-x: scroll;")
+              .append("        border: 1px solid ").append(greyLight).append("; ")
+              .append("        background-color: ").append(greyExtraLight).append("; ")
+              .append("        padding: ").append(marginSmall).append("px; }");
+
+        // make sure links don't overflow and are shown in the same color they are elsewhere in the app
+        sbHtml.append("  a { word-wrap: break-word; text-decoration: none; color: ").append(linkColor).append("; }");
+
+        if (hasEmbedsOrIframes(post)) {
+            // make sure embedded videos fit the browser width and use 16:9 ratio (YouTube standard) -
+            // each is wrapped in a div whose bottom padding (a percentage of its width) sets its
+            // height, so they're sized correctly at any width
+            content = content.replaceAll("(?is)<iframe\\b.*?</iframe>", "<div class='wpreader-embed'>$0</div>")
+                             .replaceAll("(?is)<embed\\b[^>]*>(\\s*</embed>)?", "<div class='wpreader-embed'>$0</div>");
+            sbHtml.append("  div.wpreader-embed { position: relative; width: 100%; height: 0px; padding-bottom: 56.25%; }")
+                  .append("  iframe, embed { max-width: 100% !important; }")
+                  .append("  div.wpreader-embed iframe, div.wpreader-embed embed {")
+                  .append("     position: absolute; left: 0px; top: 0px;")
+                  .append("     width: 100% !important; height: 100% !important; }");
+        } else {
+            sbHtml.append("  iframe, embed { display: none; }");
+        }
+
+        // don't allow any image to be wider than the screen
+        sbHtml.append("  img { max-width: 100% !important; height: auto;}");
+
+        // show large wp images full-width (unnecessary in most cases since they'll already be at least
+        // as wide as the display, except maybe when viewed on a large landscape tablet)
+        sbHtml.append("  img.size-full, img.size-large { display: block; width: 100% !important; height: auto; }");
+
+        // center medium-sized wp image
+        sbHtml.append("  img.size-medium { display: block; margin-left: auto !important; margin-right: auto !important; }");
+
+        // tiled image galleries look bad on mobile due to their hard-coded DIV and IMG sizes, so if
+        // content contains a tiled image gallery, remove the height params and replace the width
+        // params with ones that make images fit the width of the listView item, then adjust the
+        // relevant CSS classes so their height/width are auto, and add top/bottom margin to images
+        if (content.contains("tiled-gallery-item")) {
+            String widthParam = "w=" + Integer.toString(getGalleryImageWidth(context));
+            content = content.replaceAll("w=[0-9]+", widthParam).replaceAll("h=[0-9]+", "");
+            sbHtml.append("  div.gallery-row, div.gallery-group { width: auto !important; height: auto !important; }")
+                  .append("  div.tiled-gallery-item img { ")
+                  .append("     width: auto !important; height: auto !important;")
+                  .append("     margin-top: ").append(marginExtraSmall).append("px; ")
+                  .append("     margin-bottom: ").append(marginExtraSmall).append("px; ")
+                  .append(" }")
+                  .append("  div.tiled-gallery-caption { clear: both; }");
+        }
+
+        sbHtml.append("</style></head><body>")
+              .append(content)
+              .append("</body></html>");
+
+        return sbHtml.toString();
+    }
+}
@@ -306,10 +306,6 @@ public class ReaderSubsActivity extends Activity
      * called when user manually enters a tag - passed tag is assumed to be validated
      */
     private void performAddTag(final String tagName) {
-        if (!NetworkUtils.checkConnection(this)) {
-            return;
-        }
-
         ReaderActions.ActionListener actionListener = new ReaderActions.ActionListener() {
             @Override
             public void onActionResult(boolean succeeded) {
@@ -0,0 +1,150 @@
+package org.wordpress.android.ui.reader;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.webkit.WebChromeClient;
+import android.webkit.WebView;
+import android.webkit.WebViewClient;
+
+import org.wordpress.android.WordPress;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayList;
+
+/**
+ * small pool of pre-created webViews used to display post content - creating a webView and
+ * laying it out the first time is one of the most expensive things done on the UI thread, so
+ * views are created while the UI thread is idle and already have the reader's css loaded.
+ * views are created with a MutableContextWrapper so they can be attached to whichever activity
+ * acquires them, and are returned to the pool with the application context so they never leak
+ * an activity. all routines must be called from the UI thread.
+ */
+public class ReaderWebViewPool {
+    private static final int MAX_POOL_SIZE = 2;
+
+    private static final ArrayList<WebView> mPool = new ArrayList<WebView>();
+    private static boolean mIsWarmUpScheduled;
+
+    private ReaderWebViewPool() {
+        throw new AssertionError();
+    }
+
+    /*
+     * fills the pool when the UI thread is idle, creating one view at a time so no single idle
+     * pass takes too long
+     */
+    public static void warmUp(Context context) {
+        if (context == null || mIsWarmUpScheduled || mPool.size() >= MAX_POOL_SIZE) {
+            return;
+        }
+
+        final Context appContext = context.getApplicationContext();
+        mIsWarmUpScheduled = true;
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                if (mPool.size() < MAX_POOL_SIZE) {
+                    WebView webView = createWebView(appContext);
+                    webView.loadDataWithBaseURL(null, ReaderPostRenderer.getWarmUpHtml(appContext), "text/html", "UTF-8", null);
+                    mPool.add(webView);
+                    AppLog.d(T.READER, "webView pool > warmed " + mPool.size() + " webViews");
+                }
+                // returning true keeps this handler until the pool is full
+                mIsWarmUpScheduled = (mPool.size() < MAX_POOL_SIZE);
+                return mIsWarmUpScheduled;
+            }
+        });
+    }
+
+    /*
+     * returns a webView attached to the passed activity context, taken from the pool if one is
+     * available - callers should return it with release() when they're done with it
+     */
+    public static WebView acquire(Context context) {
+        WebView webView;
+        if (mPool.size() > 0) {
+            webView = mPool.remove(mPool.size() - 1);
+            ((MutableContextWrapper) webView.getContext()).setBaseContext(context);
+        } else {
+            AppLog.d(T.READER, "webView pool > empty, creating webView");
+            webView = createWebView(context);
+        }
+        // replace the one that was just taken
+        warmUp(context);
+        return webView;
+    }
+
+    /*
+     * detaches the passed webView, clears its content and returns it to the pool - if the pool
+     * is full it's destroyed instead
+     */
+    public static void release(WebView webView) {
+        if (webView == null) {
+            return;
+        }
+
+        ViewParent parent = webView.getParent();
+        if (parent instanceof ViewGroup) {
+            ((ViewGroup) parent).removeView(webView);
+        }
+
+        webView.stopLoading();
+        webView.setOnTouchListener(null);
+        webView.setWebViewClient(new WebViewClient());
+        webView.setWebChromeClient(new WebChromeClient());
+        webView.getSettings().setJavaScriptEnabled(false);
+        webView.setVerticalScrollBarEnabled(true);
+        webView.setHorizontalScrollBarEnabled(true);
+        webView.setVisibility(View.VISIBLE);
+        // the owner may have paused it
+        webView.onResume();
+
+        if (mPool.size() >= MAX_POOL_SIZE || !(webView.getContext() instanceof MutableContextWrapper)) {
+            webView.destroy();
+            return;
+        }
+
+        Context appContext = webView.getContext().getApplicationContext();
+        ((MutableContextWrapper) webView.getContext()).setBaseContext(appContext);
+        webView.loadDataWithBaseURL(null, ReaderPostRenderer.getWarmUpHtml(appContext), "text/html", "UTF-8", null);
+        webView.clearHistory();
+        mPool.add(webView);
+    }
+
+    /*
+     * called when the system asks the app to reduce its memory - pooled views are recreated
+     * the next time the reader is idle, so they're destroyed unless memory is only slightly
+     * low or the app's UI was simply hidden
+     */
+    public static void trim(int level) {
+        if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            return;
+        }
+        clear();
+    }
+
+    public static void clear() {
+        if (mPool.size() == 0) {
+            return;
+        }
+        AppLog.d(T.READER, "webView pool > destroying " + mPool.size() + " webViews");
+        for (WebView webView: mPool) {
+            webView.destroy();
+        }
+        mPool.clear();
+    }
+
+    private static WebView createWebView(Context context) {
+        WebView webView = new WebView(new MutableContextWrapper(context));
+        webView.getSettings().setUserAgentString(WordPress.getUserAgent());
+        return webView;
+    }
+}
@@ -18,6 +18,9 @@ import org.wordpress.android.models.ReaderPost;
  *  4. if the network request fails, the method restores the previous state of the local data
  *  5. if caller passes a listener, it can be alerted to the actual success/failure of the request
  *
+ *  likes, follows and tag changes go through ReaderOutbox, which holds them until they can be
+ *  sent and only restores the previous state when the server rejects the change
+ *
  *  note that all methods MUST be called from the UI thread in order to guarantee that listeners
  *  are alerted on the UI thread
  */
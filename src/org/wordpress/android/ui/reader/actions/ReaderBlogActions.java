@@ -19,6 +19,7 @@ import org.wordpress.android.datasets.ReaderPostTable;
 import org.wordpress.android.models.ReaderBlogInfo;
 import org.wordpress.android.models.ReaderBlogInfoList;
 import org.wordpress.android.models.ReaderFollowedBlogList;
+import org.wordpress.android.models.ReaderOutboxAction;
 import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderRecommendBlogList;
 import org.wordpress.android.ui.reader.ReaderConstants;
@@ -77,36 +78,14 @@ public class ReaderBlogActions {
             AnalyticsTracker.track(AnalyticsTracker.Stat.READER_FOLLOWED_SITE);
         }
 
-        final String path = getFollowEndpoint(blogId, blogUrl, isAskingToFollow);
-        final String actionName = (isAskingToFollow ? "follow" : "unfollow");
-
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
-            @Override
-            public void onResponse(JSONObject jsonObject) {
-                boolean success = isFollowActionSuccessful(jsonObject, isAskingToFollow);
-                if (success) {
-                    AppLog.d(T.READER, "blog " + actionName + " succeeded");
-                } else {
-                    AppLog.w(T.READER, "blog " + actionName + " failed");
-                    localRevertFollowAction(blogId, blogUrl, isAskingToFollow);
-                }
-                if (actionListener != null) {
-                    actionListener.onActionResult(success);
-                }
-            }
-        };
-        RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
-            @Override
-            public void onErrorResponse(VolleyError volleyError) {
-                AppLog.w(T.READER, "blog " + actionName + " failed");
-                AppLog.e(T.READER, volleyError);
-                localRevertFollowAction(blogId, blogUrl, isAskingToFollow);
-                if (actionListener != null) {
-                    actionListener.onActionResult(false);
-                }
-            }
-        };
-        WordPress.getRestClientUtils().post(path, listener, errorListener);
+        // send it through the outbox so it's coalesced with other follows/unfollows of this
+        // blog and survives being offline
+        ReaderOutboxAction action = new ReaderOutboxAction(ReaderOutboxAction.OutboxActionType.FOLLOW_BLOG);
+        action.blogId = blogId;
+        action.setBlogUrl(blogUrl);
+        action.isOn = isAskingToFollow;
+        action.isOriginallyOn = !isAskingToFollow;
+        ReaderOutbox.queueAction(action, actionListener);
 
         // return before API call completes
         return true;
@@ -129,7 +108,7 @@ public class ReaderBlogActions {
     /*
      * called when a follow/unfollow fails, restores local data to previous state
      */
-    private static void localRevertFollowAction(long blogId, String blogUrl, boolean isAskingToFollow) {
+    static void localRevertFollowAction(long blogId, String blogUrl, boolean isAskingToFollow) {
         if (blogId == 0 && TextUtils.isEmpty(blogUrl)) {
             return;
         }
@@ -144,7 +123,7 @@ public class ReaderBlogActions {
      *      site/$site/follows/new
      *      site/$site/follows/mine/delete
      */
-    private static boolean isFollowActionSuccessful(JSONObject json, boolean isAskingToFollow) {
+    static boolean isFollowActionSuccessful(JSONObject json, boolean isAskingToFollow) {
         if (json == null) {
             return false;
         }
@@ -166,7 +145,7 @@ public class ReaderBlogActions {
     /*
      * returns the endpoint path to use when following/unfollowing a blog
      */
-    private static String getFollowEndpoint(long blogId, String blogUrl, boolean isAskingToFollow) {
+    static String getFollowEndpoint(long blogId, String blogUrl, boolean isAskingToFollow) {
         if (isAskingToFollow) {
             // if we have a blogId, use /sites/$siteId/follows/new - this is important
             // because /read/following/mine/new follows it as a feed rather than a blog,
@@ -269,6 +248,8 @@ public class ReaderBlogActions {
     /*
      * request info about a specific blog
      */
+    private static final ReaderRequestCoalescer<UpdateBlogInfoListener> mBlogInfoRequests =
+            new ReaderRequestCoalescer<UpdateBlogInfoListener>("update blog info");
     public static void updateBlogInfo(long blogId,
                                       final String blogUrl,
                                       final UpdateBlogInfoListener infoListener) {
@@ -283,10 +264,32 @@ public class ReaderBlogActions {
             return;
         }
 
+        final String path;
+        if (hasBlogId) {
+            path = "/sites/" + blogId;
+        } else {
+            path = "/sites/" + UrlUtils.getDomainFromUrl(UrlUtils.normalizeUrl(blogUrl));
+        }
+
+        // if info for this blog is already being requested, the caller will get the result of that request
+        if (!mBlogInfoRequests.addCaller(path, infoListener)) {
+            return;
+        }
+        final UpdateBlogInfoListener fanOutListener = new UpdateBlogInfoListener() {
+            @Override
+            public void onResult(ReaderBlogInfo blogInfo) {
+                for (UpdateBlogInfoListener caller: mBlogInfoRequests.removeCallers(path)) {
+                    if (caller != null) {
+                        caller.onResult(blogInfo);
+                    }
+                }
+            }
+        };
+
         RestRequest.Listener listener = new RestRequest.Listener() {
             @Override
             public void onResponse(JSONObject jsonObject) {
-                handleUpdateBlogInfoResponse(jsonObject, infoListener);
+                handleUpdateBlogInfoResponse(jsonObject, fanOutListener);
             }
         };
         RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
@@ -299,22 +302,15 @@ public class ReaderBlogActions {
                 // error, try again using just the domain
                 if (!isAuthErr && hasBlogId && hasBlogUrl) {
                     AppLog.w(T.READER, "failed to get blog info by id, retrying with url");
-                    updateBlogInfo(0, blogUrl, infoListener);
+                    updateBlogInfo(0, blogUrl, fanOutListener);
                 } else {
                     AppLog.e(T.READER, volleyError);
-                    if (infoListener != null) {
-                        infoListener.onResult(null);
-                    }
+                    fanOutListener.onResult(null);
                 }
             }
         };
 
-        if (hasBlogId) {
-            WordPress.getRestClientUtils().get("/sites/" + blogId, listener, errorListener);
-        } else {
-            String domain = UrlUtils.getDomainFromUrl(UrlUtils.normalizeUrl(blogUrl));
-            WordPress.getRestClientUtils().get("/sites/" + domain, listener, errorListener);
-        }
+        WordPress.getRestClientUtils().get(path, listener, errorListener);
     }
     private static void handleUpdateBlogInfoResponse(JSONObject jsonObject, UpdateBlogInfoListener infoListener) {
         if (jsonObject == null) {
@@ -2,7 +2,9 @@ package org.wordpress.android.ui.reader.actions;
 
 import android.os.Handler;
 import android.text.TextUtils;
+import android.util.JsonReader;
 
+import com.android.volley.Response;
 import com.android.volley.VolleyError;
 import com.wordpress.rest.RestRequest;
 
@@ -14,11 +16,14 @@ import org.wordpress.android.models.ReaderComment;
 import org.wordpress.android.models.ReaderCommentList;
 import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderUser;
+import org.wordpress.android.networking.StreamingRestRequest;
 import org.wordpress.android.ui.reader.ReaderConstants;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.DateTimeUtils;
+import org.wordpress.android.util.UrlUtils;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -32,15 +37,34 @@ public class ReaderCommentActions {
         // get older comments first - subsequent calls to this routine will get newer ones if they exist
         path += "&order=ASC";
 
-        // offset by the number of comments already stored locally (so we only get new comments)
-        int numLocalComments = ReaderCommentTable.getNumCommentsForPost(post);
-        if (numLocalComments > 0)
-            path += "&offset=" + Integer.toString(numLocalComments);
+        // start from where the previous request left off rather than offsetting by the number
+        // of comments stored locally, since the offset drifts when comments are added or
+        // deleted on the server between requests (see ReaderCommentTable.addPagedComments)
+        long afterTimestamp = ReaderCommentTable.getCommentPagingTimestamp(post);
+        if (afterTimestamp > 0)
+            path += "&after=" + UrlUtils.urlEncode(DateTimeUtils.timestampToIso8601Str(afterTimestamp));
 
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
+        // comments are parsed as they're read from the response rather than as a single JSONObject
+        StreamingRestRequest.StreamParser<ReaderCommentList> parser = new StreamingRestRequest.StreamParser<ReaderCommentList>() {
             @Override
-            public void onResponse(JSONObject jsonObject) {
-                handleUpdateCommentsResponse(jsonObject, post.blogId, resultListener);
+            public ReaderCommentList parse(JsonReader reader) throws IOException {
+                ReaderCommentList comments = new ReaderCommentList();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("comments")) {
+                        comments = ReaderCommentList.fromJsonReader(reader, post.blogId);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                return comments;
+            }
+        };
+        Response.Listener<ReaderCommentList> listener = new Response.Listener<ReaderCommentList>() {
+            @Override
+            public void onResponse(ReaderCommentList serverComments) {
+                handleUpdateCommentsResponse(post, serverComments, resultListener);
             }
         };
         RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
@@ -53,10 +77,12 @@ public class ReaderCommentActions {
             }
         };
         AppLog.d(T.READER, "updating comments");
-        WordPress.getRestClientUtils().get(path, null, null, listener, errorListener);
+        WordPress.getRestClientUtils().getStreaming(path, null, parser, listener, errorListener);
     }
-    private static void handleUpdateCommentsResponse(final JSONObject jsonObject, final long blogId, final ReaderActions.UpdateResultListener resultListener) {
-        if (jsonObject==null) {
+    private static void handleUpdateCommentsResponse(final ReaderPost post,
+                                                     final ReaderCommentList serverComments,
+                                                     final ReaderActions.UpdateResultListener resultListener) {
+        if (serverComments==null) {
             if (resultListener!=null)
                 resultListener.onUpdateResult(ReaderActions.UpdateResult.FAILED);
             return;
@@ -67,13 +93,11 @@ public class ReaderCommentActions {
         new Thread() {
             @Override
             public void run() {
-                // request asks for only newer comments, so if it returns any comments then they are all new
-                ReaderCommentList serverComments = ReaderCommentList.fromJson(jsonObject, blogId);
-                final int numNew = serverComments.size();
-                if (numNew > 0) {
-                    AppLog.d(T.READER, "new comments found");
-                    ReaderCommentTable.addOrUpdateComments(serverComments);
-                }
+                // the response overlaps comments we already have, so only those that aren't
+                // stored yet are new - the rest are still updated in case they were edited
+                final int numNew = ReaderCommentTable.addPagedComments(post, serverComments, ReaderConstants.READER_MAX_COMMENTS_TO_REQUEST);
+                if (numNew > 0)
+                    AppLog.d(T.READER, String.format("%d new comments found", numNew));
 
                 if (resultListener!=null) {
                     handler.post(new Runnable() {
@@ -0,0 +1,399 @@
+package org.wordpress.android.ui.reader.actions;
+
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.android.volley.VolleyError;
+import com.wordpress.rest.RestRequest;
+
+import org.json.JSONObject;
+import org.wordpress.android.WordPress;
+import org.wordpress.android.datasets.ReaderLikeTable;
+import org.wordpress.android.datasets.ReaderOutboxTable;
+import org.wordpress.android.datasets.ReaderPostTable;
+import org.wordpress.android.datasets.ReaderTagTable;
+import org.wordpress.android.models.ReaderOutboxAction;
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderTag;
+import org.wordpress.android.models.ReaderTag.ReaderTagType;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.NetworkUtils;
+import org.wordpress.android.util.VolleyUtils;
+
+import java.util.HashMap;
+
+/**
+ * persistent queue of likes, follows and tag changes - the local change is made right away and
+ * the action is stored in ReaderOutboxTable, then actions are sent one at a time. pending actions
+ * on the same target are coalesced, so liking then unliking a post before the like is sent
+ * results in no request at all, and actions made while offline are sent once a connection is
+ * available (see ConnectivityReceiver). failed requests are retried with exponential backoff,
+ * and the local change is only reverted when the server rejects the action or it has failed
+ * too many times.
+ *
+ * like the rest of this package, all methods must be called from the UI thread
+ */
+public class ReaderOutbox {
+    static final int MAX_ATTEMPTS = 8;
+    private static final long MIN_RETRY_DELAY_MS = 15 * 1000;
+    private static final long MAX_RETRY_DELAY_MS = 30 * 60 * 1000;
+
+    private static final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    // listeners waiting on the result of pending actions, keyed by action key - these can't be
+    // persisted, so actions restored from the db after a restart won't have one
+    private static final HashMap<String, ReaderActions.ActionListener> mListeners =
+            new HashMap<String, ReaderActions.ActionListener>();
+
+    // the action currently being sent - only one is sent at a time
+    private static ReaderOutboxAction mSendingAction;
+
+    // whether ConnectivityReceiver is enabled, null until it's first set in this process
+    private static Boolean mIsReceiverEnabled;
+
+    /*
+     * sends actions to the server and passes the result to handleResponse() or handleError() -
+     * replaced by tests so the outbox can be driven without a connection
+     */
+    interface ActionSender {
+        boolean canSend();
+        void send(ReaderOutboxAction action);
+    }
+    static ActionSender mSender = new RestActionSender();
+
+    private ReaderOutbox() {
+        throw new AssertionError();
+    }
+
+    /*
+     * queues the passed action, coalescing it with any pending action on the same target, then
+     * flushes the outbox - note that the caller should already have made the local change
+     */
+    static void queueAction(ReaderOutboxAction action, ReaderActions.ActionListener actionListener) {
+        String key = action.getKey();
+        ReaderOutboxAction pendingAction = ReaderOutboxTable.getAction(key);
+        if (pendingAction != null) {
+            action.isOriginallyOn = pendingAction.isOriginallyOn;
+        }
+
+        // the listener for a superseded action is told it succeeded since its change was
+        // replaced by a newer one rather than failing
+        notifyListener(key, true);
+
+        boolean isSending = (mSendingAction != null && mSendingAction.getKey().equals(key));
+        if (action.isNoOp() && !isSending) {
+            // this undoes the pending action, so neither needs to be sent
+            AppLog.d(T.READER, "outbox > cancelled " + key);
+            ReaderOutboxTable.deleteAction(key);
+            if (actionListener != null) {
+                actionListener.onActionResult(true);
+            }
+            return;
+        }
+
+        AppLog.d(T.READER, "outbox > queued " + key + (pendingAction != null ? " (coalesced)" : ""));
+        ReaderOutboxTable.addOrUpdateAction(action);
+        if (actionListener != null) {
+            mListeners.put(key, actionListener);
+        }
+
+        flush();
+    }
+
+    /*
+     * sends the next pending action if there's a connection and nothing is already being sent,
+     * otherwise schedules a flush for when the next action that's backing off is due
+     */
+    public static void flush() {
+        if (mSendingAction != null) {
+            return;
+        }
+        mHandler.removeCallbacks(mFlushRunnable);
+
+        if (!mSender.canSend()) {
+            // pending actions are sent when a connection becomes available
+            if (ReaderOutboxTable.getNumActions() > 0) {
+                setConnectivityReceiverEnabled(true);
+            }
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        ReaderOutboxAction action = ReaderOutboxTable.getNextAction(now);
+        if (action == null) {
+            long nextAttempt = ReaderOutboxTable.getNextAttemptTime();
+            if (nextAttempt > now) {
+                mHandler.postDelayed(mFlushRunnable, nextAttempt - now);
+            } else {
+                // the outbox is empty
+                setConnectivityReceiverEnabled(false);
+            }
+            return;
+        }
+
+        if (action.isNoOp()) {
+            // can happen when an action was changed while the previous request for it was sent
+            ReaderOutboxTable.deleteAction(action.getKey());
+            notifyListener(action.getKey(), true);
+            flush();
+            return;
+        }
+
+        sendAction(action);
+    }
+
+    private static final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    /*
+     * returns true if the current user has liked/unliked the passed post or followed/unfollowed
+     * its blog and that change hasn't been sent yet - used to avoid overwriting the local change
+     * with stale server data. only reads the db so it's safe to call from a background thread.
+     */
+    static boolean hasPendingActionsForPost(ReaderPost post) {
+        ReaderOutboxAction likeAction = new ReaderOutboxAction(ReaderOutboxAction.OutboxActionType.LIKE_POST);
+        likeAction.blogId = post.blogId;
+        likeAction.postId = post.postId;
+        if (ReaderOutboxTable.hasAction(likeAction.getKey())) {
+            return true;
+        }
+
+        // external feeds are followed by url (see ReaderBlogActions.performFollowAction)
+        ReaderOutboxAction followAction = new ReaderOutboxAction(ReaderOutboxAction.OutboxActionType.FOLLOW_BLOG);
+        followAction.blogId = (post.isExternal ? 0 : post.blogId);
+        followAction.setBlogUrl(post.getBlogUrl());
+        return ReaderOutboxTable.hasAction(followAction.getKey());
+    }
+
+    private static void sendAction(ReaderOutboxAction action) {
+        mSendingAction = action;
+        AppLog.d(T.READER, "outbox > sending " + action.getKey() + " (" + (action.isOn ? "on" : "off") + ")");
+        mSender.send(action);
+    }
+
+    static ReaderOutboxAction getSendingAction() {
+        return mSendingAction;
+    }
+
+    private static class RestActionSender implements ActionSender {
+        @Override
+        public boolean canSend() {
+            return NetworkUtils.isNetworkAvailable(WordPress.getContext());
+        }
+
+        @Override
+        public void send(final ReaderOutboxAction action) {
+            RestRequest.Listener listener = new RestRequest.Listener() {
+                @Override
+                public void onResponse(JSONObject jsonObject) {
+                    handleResponse(action, jsonObject);
+                }
+            };
+            RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
+                @Override
+                public void onErrorResponse(VolleyError volleyError) {
+                    AppLog.e(T.READER, volleyError);
+                    handleError(action, volleyError);
+                }
+            };
+            WordPress.getRestClientUtils().post(getPath(action), listener, errorListener);
+        }
+    }
+
+    static void handleResponse(ReaderOutboxAction action, JSONObject jsonObject) {
+        if (action.actionType == ReaderOutboxAction.OutboxActionType.FOLLOW_BLOG
+                && !ReaderBlogActions.isFollowActionSuccessful(jsonObject, action.isOn)) {
+            handleRejected(action, "unexpected follow response");
+        } else {
+            handleSent(action);
+        }
+    }
+
+    static void handleError(ReaderOutboxAction action, VolleyError volleyError) {
+        String error = VolleyUtils.errStringFromVolleyError(volleyError);
+        // if we're adding a topic and the error says the user is already following
+        // this topic, or we're removing a topic and the error says the user isn't
+        // following it, treat it as a success - this can happen if the user edits
+        // topics in the web reader while this app is running
+        if (action.actionType == ReaderOutboxAction.OutboxActionType.FOLLOW_TAG
+                && ((action.isOn && "already_subscribed".equals(error))
+                 || (!action.isOn && "not_subscribed".equals(error)))) {
+            handleSent(action);
+        } else if (isTransientError(volleyError) && action.numAttempts + 1 < MAX_ATTEMPTS) {
+            handleRetry(action);
+        } else {
+            handleRejected(action, error);
+        }
+    }
+
+    /*
+     * the server now has the state that was sent - if the user changed it again while it was
+     * being sent the action is kept so the new state is sent next, otherwise it's done
+     */
+    private static void handleSent(ReaderOutboxAction sentAction) {
+        mSendingAction = null;
+        String key = sentAction.getKey();
+        ReaderOutboxAction pendingAction = ReaderOutboxTable.getAction(key);
+        if (pendingAction != null && pendingAction.isOn != sentAction.isOn) {
+            AppLog.d(T.READER, "outbox > sent " + key + ", changed while sending");
+            pendingAction.isOriginallyOn = sentAction.isOn;
+            pendingAction.numAttempts = 0;
+            pendingAction.nextAttempt = 0;
+            ReaderOutboxTable.addOrUpdateAction(pendingAction);
+        } else {
+            AppLog.d(T.READER, "outbox > sent " + key);
+            ReaderOutboxTable.deleteAction(key);
+            notifyListener(key, true);
+        }
+        flush();
+    }
+
+    /*
+     * a network or server error occurred, so keep the action and try again later
+     */
+    private static void handleRetry(ReaderOutboxAction sentAction) {
+        mSendingAction = null;
+        String key = sentAction.getKey();
+        ReaderOutboxAction pendingAction = ReaderOutboxTable.getAction(key);
+        if (pendingAction != null) {
+            pendingAction.numAttempts = sentAction.numAttempts + 1;
+            long delay = getRetryDelay(pendingAction.numAttempts);
+            pendingAction.nextAttempt = System.currentTimeMillis() + delay;
+            AppLog.w(T.READER, "outbox > failed to send " + key + ", retrying in " + (delay / 1000) + " seconds");
+            ReaderOutboxTable.addOrUpdateAction(pendingAction);
+        }
+        flush();
+    }
+
+    /*
+     * the server rejected the action (or it failed too many times), so give up and restore
+     * the local data to the state the server has
+     */
+    private static void handleRejected(ReaderOutboxAction sentAction, String error) {
+        mSendingAction = null;
+        String key = sentAction.getKey();
+        AppLog.w(T.READER, "outbox > failed to send " + key + " (" + error + ")");
+        ReaderOutboxTable.deleteAction(key);
+        localRevertAction(sentAction);
+        notifyListener(key, false);
+        flush();
+    }
+
+    /*
+     * exponential backoff after the passed number of failed attempts
+     */
+    static long getRetryDelay(int numAttempts) {
+        return Math.min(MIN_RETRY_DELAY_MS << Math.max(0, numAttempts - 1), MAX_RETRY_DELAY_MS);
+    }
+
+    private static void localRevertAction(ReaderOutboxAction action) {
+        switch (action.actionType) {
+            case LIKE_POST:
+                ReaderPost post = ReaderPostTable.getPost(action.blogId, action.postId);
+                if (post != null && post.isLikedByCurrentUser != action.isOriginallyOn) {
+                    post.isLikedByCurrentUser = action.isOriginallyOn;
+                    if (action.isOriginallyOn) {
+                        post.numLikes++;
+                    } else if (post.numLikes > 0) {
+                        post.numLikes--;
+                    }
+                    ReaderPostTable.addOrUpdatePost(post);
+                    ReaderLikeTable.setCurrentUserLikesPost(post, action.isOriginallyOn);
+                }
+                break;
+            case FOLLOW_BLOG:
+                ReaderBlogActions.localRevertFollowAction(action.blogId, action.getBlogUrl(), action.isOn);
+                break;
+            case FOLLOW_TAG:
+                if (action.isOriginallyOn) {
+                    // note that posts deleted along with the tag aren't restored
+                    String endpoint = ReaderTagActions.getReadEndpointForTag(action.getTagName());
+                    ReaderTagTable.addOrUpdateTag(new ReaderTag(action.getTagName(), endpoint, ReaderTagType.FOLLOWED));
+                } else {
+                    ReaderTagTable.deleteTag(action.getTagName());
+                }
+                break;
+        }
+    }
+
+    private static String getPath(ReaderOutboxAction action) {
+        switch (action.actionType) {
+            case LIKE_POST:
+                return "sites/" + action.blogId + "/posts/" + action.postId + "/likes/"
+                     + (action.isOn ? "new" : "mine/delete");
+            case FOLLOW_BLOG:
+                return ReaderBlogActions.getFollowEndpoint(action.blogId, action.getBlogUrl(), action.isOn);
+            default:
+                return "read/tags/" + ReaderTagActions.sanitizeTitle(action.getTagName())
+                     + (action.isOn ? "/mine/new" : "/mine/delete");
+        }
+    }
+
+    /*
+     * network failures, timeouts and server errors are worth retrying, client errors aren't
+     */
+    private static boolean isTransientError(VolleyError volleyError) {
+        if (volleyError == null || volleyError.networkResponse == null) {
+            return true;
+        }
+        return (volleyError.networkResponse.statusCode >= 500);
+    }
+
+    private static void notifyListener(String key, boolean succeeded) {
+        ReaderActions.ActionListener actionListener = mListeners.remove(key);
+        if (actionListener != null) {
+            actionListener.onActionResult(succeeded);
+        }
+    }
+
+    /*
+     * forgets the action being sent and any scheduled flush - called when the reader db is
+     * reset on sign out, since the request for the action being sent is cancelled then and
+     * would otherwise block the outbox
+     */
+    public static void reset() {
+        mHandler.removeCallbacks(mFlushRunnable);
+        mSendingAction = null;
+        mListeners.clear();
+    }
+
+    /*
+     * the receiver is only enabled while actions are waiting for a connection, so the app isn't
+     * started on every connectivity change
+     */
+    private static void setConnectivityReceiverEnabled(boolean isEnabled) {
+        if (mIsReceiverEnabled != null && mIsReceiverEnabled == isEnabled) {
+            return;
+        }
+        Context context = WordPress.getContext();
+        ComponentName component = new ComponentName(context, ConnectivityReceiver.class);
+        context.getPackageManager().setComponentEnabledSetting(component,
+                isEnabled ? PackageManager.COMPONENT_ENABLED_STATE_ENABLED : PackageManager.COMPONENT_ENABLED_STATE_DISABLED,
+                PackageManager.DONT_KILL_APP);
+        mIsReceiverEnabled = isEnabled;
+    }
+
+    /*
+     * registered (disabled) in the manifest to send actions made while offline once a
+     * connection is available again
+     */
+    public static class ConnectivityReceiver extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (NetworkUtils.isNetworkAvailable(context)) {
+                AppLog.d(T.READER, "outbox > connection available, flushing");
+                flush();
+            }
+        }
+    }
+}
@@ -1,32 +1,46 @@
 package org.wordpress.android.ui.reader.actions;
 
+import android.database.sqlite.SQLiteDatabase;
 import android.os.Handler;
 import android.text.TextUtils;
+import android.util.JsonReader;
+import android.util.JsonToken;
 
+import com.android.volley.Response;
 import com.android.volley.VolleyError;
 import com.wordpress.rest.RestRequest;
 
 import org.json.JSONObject;
 import org.wordpress.android.WordPress;
+import org.wordpress.android.datasets.ReaderDatabase;
 import org.wordpress.android.datasets.ReaderLikeTable;
 import org.wordpress.android.datasets.ReaderPostTable;
 import org.wordpress.android.datasets.ReaderTagTable;
 import org.wordpress.android.datasets.ReaderUserTable;
+import org.wordpress.android.models.ReaderOutboxAction;
 import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderPostList;
 import org.wordpress.android.models.ReaderTag;
 import org.wordpress.android.models.ReaderUserList;
+import org.wordpress.android.networking.StreamingRestRequest;
 import org.wordpress.android.ui.reader.ReaderConstants;
+import org.wordpress.android.ui.reader.ReaderUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.DateTimeUtils;
+import org.wordpress.android.util.JSONStreamUtils;
 import org.wordpress.android.util.JSONUtil;
+import org.wordpress.android.util.ReaderThumbnailResolver;
 import org.wordpress.android.util.UrlUtils;
-import org.wordpress.android.util.VolleyUtils;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class ReaderPostActions {
 
@@ -39,8 +53,7 @@ public class ReaderPostActions {
      */
     public static boolean performLikeAction(final ReaderPost post,
                                             final boolean isAskingToLike) {
-        // get post BEFORE we make changes so we can revert on error
-        final ReaderPost originalPost = ReaderPostTable.getPost(post.blogId, post.postId);
+        final ReaderPost originalPost = ReaderPostTable.getPost(post.blogId, post.postId, true);
 
         // do nothing and return true if post's like state is same as passed
         if (originalPost != null && originalPost.isLikedByCurrentUser == isAskingToLike) {
@@ -57,41 +70,14 @@ public class ReaderPostActions {
         ReaderPostTable.addOrUpdatePost(post);
         ReaderLikeTable.setCurrentUserLikesPost(post, isAskingToLike);
 
-        final String actionName = isAskingToLike ? "like" : "unlike";
-        String path = "sites/" + post.blogId + "/posts/" + post.postId + "/likes/";
-        if (isAskingToLike) {
-            path += "new";
-        } else {
-            path += "mine/delete";
-        }
-
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
-            @Override
-            public void onResponse(JSONObject jsonObject) {
-                AppLog.d(T.READER, String.format("post %s succeeded", actionName));
-            }
-        };
-
-        RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
-            @Override
-            public void onErrorResponse(VolleyError volleyError) {
-                String error = VolleyUtils.errStringFromVolleyError(volleyError);
-                if (TextUtils.isEmpty(error)) {
-                    AppLog.w(T.READER, String.format("post %s failed", actionName));
-                } else {
-                    AppLog.w(T.READER, String.format("post %s failed (%s)", actionName, error));
-                }
-                AppLog.e(T.READER, volleyError);
-
-                // revert to original post
-                if (originalPost != null) {
-                    ReaderPostTable.addOrUpdatePost(originalPost);
-                    ReaderLikeTable.setCurrentUserLikesPost(post, originalPost.isLikedByCurrentUser);
-                }
-            }
-        };
-
-        WordPress.getRestClientUtils().post(path, listener, errorListener);
+        // send it through the outbox, which reverts the local change if the server rejects it -
+        // rapid like/unlike toggles are coalesced so at most one request is sent
+        ReaderOutboxAction action = new ReaderOutboxAction(ReaderOutboxAction.OutboxActionType.LIKE_POST);
+        action.blogId = post.blogId;
+        action.postId = post.postId;
+        action.isOn = isAskingToLike;
+        action.isOriginallyOn = !isAskingToLike;
+        ReaderOutbox.queueAction(action, null);
 
         return true;
     }
@@ -150,21 +136,28 @@ public class ReaderPostActions {
      * get the latest version of this post - note that the post is only considered changed if the
      * like/comment count has changed, or if the current user's like/follow status has changed
      */
+    private static final ReaderRequestCoalescer<PostUpdateCaller> mPostUpdateRequests =
+            new ReaderRequestCoalescer<PostUpdateCaller>("update post");
     public static void updatePost(final ReaderPost post, final ReaderActions.UpdateResultListener resultListener) {
-        String path = "sites/" + post.blogId + "/posts/" + post.postId + "/?meta=site,likes";
+        final String path = "sites/" + post.blogId + "/posts/" + post.postId + "/?meta=site,likes";
+
+        // if this post is already being updated, the caller will get the result of that request
+        if (!mPostUpdateRequests.addCaller(path, new PostUpdateCaller(post, resultListener))) {
+            return;
+        }
 
         com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
             @Override
             public void onResponse(JSONObject jsonObject) {
-                handleUpdatePostResponse(post, jsonObject, resultListener);
+                handleUpdatePostResponse(post, jsonObject, mPostUpdateRequests.removeCallers(path));
             }
         };
         RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
             @Override
             public void onErrorResponse(VolleyError volleyError) {
                 AppLog.e(T.READER, volleyError);
-                if (resultListener != null) {
-                    resultListener.onUpdateResult(ReaderActions.UpdateResult.FAILED);
+                for (PostUpdateCaller caller: mPostUpdateRequests.removeCallers(path)) {
+                    caller.onUpdateResult(ReaderActions.UpdateResult.FAILED);
                 }
             }
         };
@@ -172,12 +165,40 @@ public class ReaderPostActions {
         WordPress.getRestClientUtils().get(path, null, null, listener, errorListener);
     }
 
+    /*
+     * a caller waiting on a (possibly coalesced) post update - each caller passes its own copy
+     * of the post, and whether the post changed is decided against that copy
+     */
+    private static class PostUpdateCaller {
+        private final ReaderPost mPost;
+        private final ReaderActions.UpdateResultListener mResultListener;
+
+        PostUpdateCaller(ReaderPost post, ReaderActions.UpdateResultListener resultListener) {
+            mPost = post;
+            mResultListener = resultListener;
+        }
+
+        boolean hasChanges(ReaderPost updatedPost) {
+            return (updatedPost.numReplies != mPost.numReplies
+                 || updatedPost.numLikes != mPost.numLikes
+                 || updatedPost.isCommentsOpen != mPost.isCommentsOpen
+                 || updatedPost.isLikedByCurrentUser != mPost.isLikedByCurrentUser
+                 || updatedPost.isFollowedByCurrentUser != mPost.isFollowedByCurrentUser);
+        }
+
+        void onUpdateResult(ReaderActions.UpdateResult result) {
+            if (mResultListener != null) {
+                mResultListener.onUpdateResult(result);
+            }
+        }
+    }
+
     private static void handleUpdatePostResponse(final ReaderPost post,
                                                  final JSONObject jsonObject,
-                                                 final ReaderActions.UpdateResultListener resultListener) {
+                                                 final List<PostUpdateCaller> callers) {
         if (jsonObject == null) {
-            if (resultListener != null) {
-                resultListener.onUpdateResult(ReaderActions.UpdateResult.FAILED);
+            for (PostUpdateCaller caller: callers) {
+                caller.onUpdateResult(ReaderActions.UpdateResult.FAILED);
             }
             return;
         }
@@ -188,11 +209,12 @@ public class ReaderPostActions {
             @Override
             public void run() {
                 ReaderPost updatedPost = ReaderPost.fromJson(jsonObject);
-                final boolean hasChanges = (updatedPost.numReplies != post.numReplies
-                                         || updatedPost.numLikes != post.numLikes
-                                         || updatedPost.isCommentsOpen != post.isCommentsOpen
-                                         || updatedPost.isLikedByCurrentUser != post.isLikedByCurrentUser
-                                         || updatedPost.isFollowedByCurrentUser != post.isFollowedByCurrentUser);
+                final boolean[] callerHasChanges = new boolean[callers.size()];
+                boolean hasChanges = false;
+                for (int i = 0; i < callers.size(); i++) {
+                    callerHasChanges[i] = callers.get(i).hasChanges(updatedPost);
+                    hasChanges |= callerHasChanges[i];
+                }
 
                 if (hasChanges) {
                     AppLog.d(T.READER, "post updated");
@@ -216,96 +238,136 @@ public class ReaderPostActions {
                 // ensures that the liking avatars are immediately available to post detail
                 handlePostLikes(updatedPost, jsonObject);
 
-                if (resultListener != null) {
-                    handler.post(new Runnable() {
-                        public void run() {
-                            resultListener.onUpdateResult(hasChanges ? ReaderActions.UpdateResult.CHANGED : ReaderActions.UpdateResult.UNCHANGED);
+                handler.post(new Runnable() {
+                    public void run() {
+                        for (int i = 0; i < callers.size(); i++) {
+                            callers.get(i).onUpdateResult(callerHasChanges[i] ? ReaderActions.UpdateResult.CHANGED : ReaderActions.UpdateResult.UNCHANGED);
                         }
-                    });
-                }
+                    }
+                });
             }
         }.start();
     }
 
     /*
-     * updates local liking users based on the "likes" meta section of the post's json - requires
-     * using the /sites/ endpoint with ?meta=likes
+     * get the latest posts in the passed topic - note that this uses an UpdateResultAndCountListener
+     * so the caller can be told how many new posts were added - use the second method which accepts
+     * a backfillListener to request new posts and backfill missing posts - note that a backfill
+     * will NOT occur unless a backfillListener is passed
      */
-    private static void handlePostLikes(final ReaderPost post, JSONObject jsonPost) {
-        if (post == null || jsonPost == null) {
+    public static void updatePostsInTag(final String tagName,
+                                        final ReaderActions.RequestDataAction updateAction,
+                                        final ReaderActions.UpdateResultAndCountListener resultListener) {
+        updatePostsInTag(tagName, updateAction, resultListener, null);
+    }
+    public static void updatePostsInTagWithBackfill(final String tagName,
+                                                    final ReaderActions.UpdateResultAndCountListener resultListener,
+                                                    final ReaderActions.PostBackfillListener backfillListener) {
+        updatePostsInTag(tagName, ReaderActions.RequestDataAction.LOAD_NEWER, resultListener, backfillListener);
+    }
+    private static final ReaderRequestCoalescer<TagUpdateCaller> mTagUpdateRequests =
+            new ReaderRequestCoalescer<TagUpdateCaller>("update tag");
+    private static void updatePostsInTag(final String tagName,
+                                         final ReaderActions.RequestDataAction updateAction,
+                                         final ReaderActions.UpdateResultAndCountListener resultListener,
+                                         final ReaderActions.PostBackfillListener backfillListener) {
+
+        final String path = getRequestPathForTag(tagName, updateAction);
+        if (TextUtils.isEmpty(path)) {
+            if (resultListener != null) {
+                resultListener.onUpdateResult(ReaderActions.UpdateResult.FAILED, -1);
+            }
             return;
         }
 
-        JSONObject jsonLikes = JSONUtil.getJSONChild(jsonPost, "meta/data/likes");
-        if (jsonLikes == null) {
+        // if the same request is already in flight, the caller will get the result of that
+        // request (and its backfill, if the caller asked for one)
+        if (!mTagUpdateRequests.addCaller(path, new TagUpdateCaller(resultListener, backfillListener))) {
             return;
         }
 
-        ReaderUserList likingUsers = ReaderUserList.fromJsonLikes(jsonLikes);
-        ReaderUserTable.addOrUpdateUsers(likingUsers);
-        ReaderLikeTable.setLikesForPost(post, likingUsers.getUserIds());
-    }
-
-    /**
-     * similar to updatePost, but used when post doesn't already exist in local db
-     **/
-    public static void requestPost(final long blogId, final long postId, final ReaderActions.ActionListener actionListener) {
-        String path = "sites/" + blogId + "/posts/" + postId + "/?meta=site,likes";
-
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
+        Response.Listener<PostListResponse> listener = new Response.Listener<PostListResponse>() {
             @Override
-            public void onResponse(JSONObject jsonObject) {
-                ReaderPost post = ReaderPost.fromJson(jsonObject);
-                // make sure the post has the passed blogId so it's saved correctly - necessary
-                // since the /sites/ endpoints return site_id="1" for Jetpack-powered blogs
-                post.blogId = blogId;
-                ReaderPostTable.addOrUpdatePost(post);
-                handlePostLikes(post, jsonObject);
-                if (actionListener != null) {
-                    actionListener.onActionResult(true);
-                }
+            public void onResponse(PostListResponse response) {
+                List<TagUpdateCaller> callers = mTagUpdateRequests.removeCallers(path);
+                handleUpdatePostsWithTagResponse(tagName, updateAction, response,
+                        getTagResultFanOut(callers), getTagBackfillFanOut(callers));
             }
         };
         RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
             @Override
             public void onErrorResponse(VolleyError volleyError) {
                 AppLog.e(T.READER, volleyError);
-                if (actionListener != null) {
-                    actionListener.onActionResult(false);
-                }
+                getTagResultFanOut(mTagUpdateRequests.removeCallers(path)).onUpdateResult(ReaderActions.UpdateResult.FAILED, -1);
             }
         };
-        AppLog.d(T.READER, "requesting post");
-        WordPress.getRestClientUtils().get(path, null, null, listener, errorListener);
+
+        WordPress.getRestClientUtils().getStreaming(path, null, POST_LIST_PARSER, listener, errorListener);
     }
 
     /*
-     * get the latest posts in the passed topic - note that this uses an UpdateResultAndCountListener
-     * so the caller can be told how many new posts were added - use the second method which accepts
-     * a backfillListener to request new posts and backfill missing posts - note that a backfill
-     * will NOT occur unless a backfillListener is passed
+     * a caller waiting on a (possibly coalesced) tag update - either listener may be null
      */
-    public static void updatePostsInTag(final String tagName,
-                                        final ReaderActions.RequestDataAction updateAction,
-                                        final ReaderActions.UpdateResultAndCountListener resultListener) {
-        updatePostsInTag(tagName, updateAction, resultListener, null);
+    private static class TagUpdateCaller {
+        private final ReaderActions.UpdateResultAndCountListener mResultListener;
+        private final ReaderActions.PostBackfillListener mBackfillListener;
+
+        TagUpdateCaller(ReaderActions.UpdateResultAndCountListener resultListener,
+                        ReaderActions.PostBackfillListener backfillListener) {
+            mResultListener = resultListener;
+            mBackfillListener = backfillListener;
+        }
     }
-    public static void updatePostsInTagWithBackfill(final String tagName,
-                                                    final ReaderActions.UpdateResultAndCountListener resultListener,
-                                                    final ReaderActions.PostBackfillListener backfillListener) {
-        updatePostsInTag(tagName, ReaderActions.RequestDataAction.LOAD_NEWER, resultListener, backfillListener);
+
+    /*
+     * returns a listener which passes the result of a tag update to every caller waiting on it
+     */
+    private static ReaderActions.UpdateResultAndCountListener getTagResultFanOut(final List<TagUpdateCaller> callers) {
+        return new ReaderActions.UpdateResultAndCountListener() {
+            @Override
+            public void onUpdateResult(ReaderActions.UpdateResult result, int numNew) {
+                for (TagUpdateCaller caller: callers) {
+                    if (caller.mResultListener != null) {
+                        caller.mResultListener.onUpdateResult(result, numNew);
+                    }
+                }
+            }
+        };
+    }
+
+    /*
+     * returns a listener which tells every caller that asked for a backfill that it completed,
+     * or null if none of them asked for one (so no backfill occurs)
+     */
+    private static ReaderActions.PostBackfillListener getTagBackfillFanOut(final List<TagUpdateCaller> callers) {
+        final List<ReaderActions.PostBackfillListener> backfillListeners = new ArrayList<ReaderActions.PostBackfillListener>();
+        for (TagUpdateCaller caller: callers) {
+            if (caller.mBackfillListener != null) {
+                backfillListeners.add(caller.mBackfillListener);
+            }
+        }
+        if (backfillListeners.size() == 0) {
+            return null;
+        }
+        return new ReaderActions.PostBackfillListener() {
+            @Override
+            public void onPostsBackfilled() {
+                for (ReaderActions.PostBackfillListener backfillListener: backfillListeners) {
+                    backfillListener.onPostsBackfilled();
+                }
+            }
+        };
     }
-    private static void updatePostsInTag(final String tagName,
-                                         final ReaderActions.RequestDataAction updateAction,
-                                         final ReaderActions.UpdateResultAndCountListener resultListener,
-                                         final ReaderActions.PostBackfillListener backfillListener) {
 
+    /*
+     * returns the path to request when updating the passed tag, or null if the tag doesn't
+     * have an endpoint
+     */
+    private static String getRequestPathForTag(final String tagName,
+                                               final ReaderActions.RequestDataAction updateAction) {
         String endpoint = getEndpointForTag(tagName);
         if (TextUtils.isEmpty(endpoint)) {
-            if (resultListener != null) {
-                resultListener.onUpdateResult(ReaderActions.UpdateResult.FAILED, -1);
-            }
-            return;
+            return null;
         }
 
         StringBuilder sb = new StringBuilder(endpoint);
@@ -345,31 +407,15 @@ public class ReaderPostActions {
             AppLog.d(T.READER, String.format("requesting posts in empty topic %s", tagName));
         }
 
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
-            @Override
-            public void onResponse(JSONObject jsonObject) {
-                handleUpdatePostsWithTagResponse(tagName, updateAction, jsonObject, resultListener, backfillListener);
-            }
-        };
-        RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
-            @Override
-            public void onErrorResponse(VolleyError volleyError) {
-                AppLog.e(T.READER, volleyError);
-                if (resultListener != null) {
-                    resultListener.onUpdateResult(ReaderActions.UpdateResult.FAILED, -1);
-                }
-            }
-        };
-
-        WordPress.getRestClientUtils().get(sb.toString(), null, null, listener, errorListener);
+        return sb.toString();
     }
 
     private static void handleUpdatePostsWithTagResponse(final String tagName,
                                                          final ReaderActions.RequestDataAction updateAction,
-                                                         final JSONObject jsonObject,
+                                                         final PostListResponse response,
                                                          final ReaderActions.UpdateResultAndCountListener resultListener,
                                                          final ReaderActions.PostBackfillListener backfillListener) {
-        if (jsonObject == null) {
+        if (response == null) {
             if (resultListener != null) {
                 resultListener.onUpdateResult(ReaderActions.UpdateResult.FAILED, -1);
             }
@@ -380,13 +426,13 @@ public class ReaderPostActions {
         new Thread() {
             @Override
             public void run() {
-                final ReaderPostList serverPosts = ReaderPostList.fromJson(jsonObject);
+                final ReaderPostList serverPosts = response.posts;
 
-                // remember when this topic was updated if newer posts were requested, regardless of
-                // whether the response contained any posts
-                if (updateAction == ReaderActions.RequestDataAction.LOAD_NEWER) {
-                    ReaderTagTable.setTagLastUpdated(tagName, DateTimeUtils.javaDateToIso8601(new Date()));
-                }
+                // remember whether there were existing posts with this tag before adding
+                // the ones we just retrieved, and where they started if we need to backfill
+                final boolean hasExistingPostsWithTag = ReaderPostTable.hasPostsWithTag(tagName);
+                final String dateBackfillAfter = (hasExistingPostsWithTag && backfillListener != null ? getBackfillAfterDate(tagName) : null);
+                final int numNewPosts = savePostsWithTag(tagName, updateAction, response, hasExistingPostsWithTag);
 
                 // go no further if the response didn't contain any posts
                 if (serverPosts.size() == 0) {
@@ -401,43 +447,6 @@ public class ReaderPostActions {
                     return;
                 }
 
-                // json "date_range" tells the the range of dates in the response, which we want to
-                // store for use the next time we request newer/older if this response contained any
-                // posts - note that freshly-pressed uses "newest" and "oldest" but other endpoints
-                // use "after" and "before"
-                JSONObject jsonDateRange = jsonObject.optJSONObject("date_range");
-                if (jsonDateRange != null) {
-                    switch (updateAction) {
-                        case LOAD_NEWER:
-                            String newest = jsonDateRange.has("before") ? JSONUtil.getString(jsonDateRange, "before") : JSONUtil.getString(jsonDateRange, "newest");
-                            if (!TextUtils.isEmpty(newest)) {
-                                ReaderTagTable.setTagNewestDate(tagName, newest);
-                            }
-                            break;
-                        case LOAD_OLDER:
-                            String oldest = jsonDateRange.has("after") ? JSONUtil.getString(jsonDateRange, "after") : JSONUtil.getString(jsonDateRange, "oldest");
-                            if (!TextUtils.isEmpty(oldest)) {
-                                ReaderTagTable.setTagOldestDate(tagName, oldest);
-                            }
-                            break;
-                    }
-                }
-
-                // remember whether there were existing posts with this tag before adding
-                // the ones we just retrieved
-                final boolean hasExistingPostsWithTag = ReaderPostTable.hasPostsWithTag(tagName);
-
-                // determine how many of the downloaded posts are new (response may contain both
-                // new posts and posts updated since the last call), then save the posts even if
-                // none are new in order to update comment counts, likes, etc., on existing posts
-                final int numNewPosts;
-                if (hasExistingPostsWithTag) {
-                    numNewPosts = ReaderPostTable.getNumNewPostsWithTag(tagName, serverPosts);
-                } else {
-                    numNewPosts = serverPosts.size();
-                }
-                ReaderPostTable.addOrUpdatePosts(tagName, serverPosts);
-
                 AppLog.d(T.READER, String.format("retrieved %d posts (%d new) in topic %s", serverPosts.size(), numNewPosts, tagName));
 
                 handler.post(new Runnable() {
@@ -454,8 +463,7 @@ public class ReaderPostActions {
                         if (backfillListener != null && hasExistingPostsWithTag) {
                             boolean areAllPostsNew = (numNewPosts == ReaderConstants.READER_MAX_POSTS_TO_REQUEST);
                             if (areAllPostsNew) {
-                                Date dtOldestServerPost = serverPosts.getOldestPubDate();
-                                backfillPostsWithTag(tagName, dtOldestServerPost, 0, backfillListener);
+                                backfillPostsWithTag(tagName, dateBackfillAfter, serverPosts, backfillListener);
                             }
                         }
                     }
@@ -464,6 +472,251 @@ public class ReaderPostActions {
         }.start();
     }
 
+    /*
+     * saves the posts in the passed response along with the tag's update dates in a single
+     * transaction, returns the number of new posts
+     */
+    private static int savePostsWithTag(final String tagName,
+                                        final ReaderActions.RequestDataAction updateAction,
+                                        final PostListResponse response,
+                                        final boolean hasExistingPostsWithTag) {
+        ReaderThumbnailResolver.resolveThumbnailsForPosts(response.posts);
+
+        SQLiteDatabase db = ReaderDatabase.getWritableDb();
+        db.beginTransaction();
+        try {
+            // remember when this topic was updated if newer posts were requested, regardless of
+            // whether the response contained any posts
+            if (updateAction == ReaderActions.RequestDataAction.LOAD_NEWER) {
+                ReaderTagTable.setTagLastUpdated(tagName, DateTimeUtils.javaDateToIso8601(new Date()));
+            }
+
+            final ReaderPostList serverPosts = response.posts;
+            if (serverPosts.size() == 0) {
+                if (updateAction == ReaderActions.RequestDataAction.LOAD_NEWER) {
+                    ReaderTagTable.addTagUpdateStats(tagName, 0);
+                }
+                db.setTransactionSuccessful();
+                return 0;
+            }
+
+            // json "date_range" tells the the range of dates in the response, which we want to
+            // store for use the next time we request newer/older if this response contained any
+            // posts - note that freshly-pressed uses "newest" and "oldest" but other endpoints
+            // use "after" and "before"
+            JSONObject jsonDateRange = response.dateRange;
+            if (jsonDateRange != null) {
+                switch (updateAction) {
+                    case LOAD_NEWER:
+                        String newest = jsonDateRange.has("before") ? JSONUtil.getString(jsonDateRange, "before") : JSONUtil.getString(jsonDateRange, "newest");
+                        if (!TextUtils.isEmpty(newest)) {
+                            ReaderTagTable.setTagNewestDate(tagName, newest);
+                        }
+                        break;
+                    case LOAD_OLDER:
+                        String oldest = jsonDateRange.has("after") ? JSONUtil.getString(jsonDateRange, "after") : JSONUtil.getString(jsonDateRange, "oldest");
+                        if (!TextUtils.isEmpty(oldest)) {
+                            ReaderTagTable.setTagOldestDate(tagName, oldest);
+                        }
+                        break;
+                }
+            }
+
+            // determine how many of the downloaded posts are new (response may contain both
+            // new posts and posts updated since the last call), then save the posts even if
+            // none are new in order to update comment counts, likes, etc., on existing posts
+            final int numNewPosts;
+            if (hasExistingPostsWithTag) {
+                numNewPosts = ReaderPostTable.getNumNewPostsWithTag(tagName, serverPosts);
+            } else {
+                numNewPosts = serverPosts.size();
+            }
+            ReaderPostTable.addOrUpdatePosts(tagName, serverPosts);
+
+            // record how many new posts were found so busy topics are updated more often than
+            // quiet ones (see ReaderTagTable.shouldAutoUpdateTag)
+            if (updateAction == ReaderActions.RequestDataAction.LOAD_NEWER) {
+                ReaderTagTable.addTagUpdateStats(tagName, numNewPosts);
+            }
+
+            db.setTransactionSuccessful();
+            return numNewPosts;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /*
+     * updates all followed tags that are due for an update (see ReaderTagTable.shouldAutoUpdateTag)
+     * using the /batch/ endpoint, so users who follow many tags don't make a request for each of
+     * them - the passed tag (if any) is skipped since the caller is updating it separately
+     */
+    private static final int MAX_TAGS_PER_BATCH = 5;
+    public static void updateStaleFollowedTags(final String skipTagName,
+                                               final ReaderActions.UpdateResultListener resultListener) {
+        final Handler handler = new Handler();
+
+        new Thread() {
+            @Override
+            public void run() {
+                // map of request path to tag name for each tag in the current batch
+                Map<String, String> batch = new HashMap<String, String>();
+                int numBatches = 0;
+                for (ReaderTag tag: ReaderTagTable.getFollowedTags()) {
+                    String tagName = tag.getTagName();
+                    if (tagName.equals(skipTagName) || !ReaderTagTable.shouldAutoUpdateTag(tagName)) {
+                        continue;
+                    }
+                    String path = getRequestPathForTag(tagName, ReaderActions.RequestDataAction.LOAD_NEWER);
+                    if (!TextUtils.isEmpty(path)) {
+                        batch.put(getRelativePath(path), tagName);
+                        if (batch.size() >= MAX_TAGS_PER_BATCH) {
+                            requestTagBatch(batch, handler, resultListener);
+                            batch = new HashMap<String, String>();
+                            numBatches++;
+                        }
+                    }
+                }
+
+                if (batch.size() > 0) {
+                    requestTagBatch(batch, handler, resultListener);
+                    numBatches++;
+                }
+
+                if (numBatches == 0 && resultListener != null) {
+                    handler.post(new Runnable() {
+                        public void run() {
+                            resultListener.onUpdateResult(ReaderActions.UpdateResult.UNCHANGED);
+                        }
+                    });
+                }
+            }
+        }.start();
+    }
+
+    /*
+     * batch requests must use paths relative to the api root
+     */
+    private static String getRelativePath(String path) {
+        int index = path.indexOf(REST_API_PATH);
+        if (index > -1) {
+            path = path.substring(index + REST_API_PATH.length());
+        }
+        return (path.startsWith("/") ? path : "/" + path);
+    }
+    private static final String REST_API_PATH = "/rest/v1";
+
+    private static void requestTagBatch(final Map<String, String> batch,
+                                        final Handler handler,
+                                        final ReaderActions.UpdateResultListener resultListener) {
+        Response.Listener<Map<String, PostListResponse>> listener = new Response.Listener<Map<String, PostListResponse>>() {
+            @Override
+            public void onResponse(final Map<String, PostListResponse> responses) {
+                new Thread() {
+                    @Override
+                    public void run() {
+                        int numNewPosts = 0;
+                        for (Map.Entry<String, String> entry: batch.entrySet()) {
+                            String tagName = entry.getValue();
+                            // the /batch/ endpoint identifies each response by the requested url
+                            PostListResponse response = responses.get(entry.getKey());
+                            if (response == null || response.isError) {
+                                AppLog.w(T.READER, String.format("batch update failed for topic %s", tagName));
+                                continue;
+                            }
+                            boolean hasExistingPostsWithTag = ReaderPostTable.hasPostsWithTag(tagName);
+                            int numNew = savePostsWithTag(tagName,
+                                                          ReaderActions.RequestDataAction.LOAD_NEWER,
+                                                          response,
+                                                          hasExistingPostsWithTag);
+                            AppLog.d(T.READER, String.format("batch retrieved %d posts (%d new) in topic %s",
+                                    response.posts.size(), numNew, tagName));
+                            numNewPosts += numNew;
+                        }
+
+                        if (resultListener != null) {
+                            final boolean hasNewPosts = (numNewPosts > 0);
+                            handler.post(new Runnable() {
+                                public void run() {
+                                    resultListener.onUpdateResult(hasNewPosts ? ReaderActions.UpdateResult.CHANGED : ReaderActions.UpdateResult.UNCHANGED);
+                                }
+                            });
+                        }
+                    }
+                }.start();
+            }
+        };
+        RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
+            @Override
+            public void onErrorResponse(VolleyError volleyError) {
+                AppLog.e(T.READER, volleyError);
+                if (resultListener != null) {
+                    resultListener.onUpdateResult(ReaderActions.UpdateResult.FAILED);
+                }
+            }
+        };
+
+        AppLog.d(T.READER, String.format("requesting batch update of %d topics", batch.size()));
+        String path = ReaderUtils.getBatchEndpointForRequests(new ArrayList<String>(batch.keySet()));
+        WordPress.getRestClientUtils().getStreaming(path, null, BATCH_POST_LIST_PARSER, listener, errorListener);
+    }
+
+    /*
+     * responses containing lists of posts are parsed as they're read rather than being turned
+     * into a single JSONObject, since they can be very large - the posts are read one at a time,
+     * and the only other part of the response we need is the (small) date range
+     */
+    private static class PostListResponse {
+        ReaderPostList posts = new ReaderPostList();
+        JSONObject dateRange;
+        boolean isError;
+    }
+    private static final StreamingRestRequest.StreamParser<PostListResponse> POST_LIST_PARSER =
+            new StreamingRestRequest.StreamParser<PostListResponse>() {
+        @Override
+        public PostListResponse parse(JsonReader reader) throws IOException {
+            PostListResponse response = new PostListResponse();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("posts")) {
+                    response.posts = ReaderPostList.fromJsonReader(reader);
+                } else if (name.equals("date_range")) {
+                    response.dateRange = JSONStreamUtils.readObject(reader);
+                } else if (name.equals("error")) {
+                    response.isError = true;
+                    reader.skipValue();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return response;
+        }
+    };
+
+    /*
+     * a /batch/ response is an object containing the response to each request keyed by its url
+     */
+    private static final StreamingRestRequest.StreamParser<Map<String, PostListResponse>> BATCH_POST_LIST_PARSER =
+            new StreamingRestRequest.StreamParser<Map<String, PostListResponse>>() {
+        @Override
+        public Map<String, PostListResponse> parse(JsonReader reader) throws IOException {
+            Map<String, PostListResponse> responses = new HashMap<String, PostListResponse>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String url = reader.nextName();
+                if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    responses.put(url, POST_LIST_PARSER.parse(reader));
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return responses;
+        }
+    };
+
     /*
      * get the latest posts in the passed blog
      */
@@ -486,10 +739,10 @@ public class ReaderPostActions {
                 path += "&before=" + UrlUtils.urlEncode(dateOldest);
             }
         }
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
+        Response.Listener<PostListResponse> listener = new Response.Listener<PostListResponse>() {
             @Override
-            public void onResponse(JSONObject jsonObject) {
-                handleGetPostsResponse(jsonObject, actionListener);
+            public void onResponse(PostListResponse response) {
+                handleGetPostsResponse(response, actionListener);
             }
         };
         RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
@@ -502,19 +755,20 @@ public class ReaderPostActions {
             }
         };
         AppLog.d(T.READER, "updating posts in blog " + blogId);
-        WordPress.getRestClientUtils().get(path, null, null, listener, errorListener);
+        WordPress.getRestClientUtils().getStreaming(path, null, POST_LIST_PARSER, listener, errorListener);
     }
 
-    private static void handleGetPostsResponse(JSONObject jsonObject, final ReaderActions.ActionListener actionListener) {
-        if (jsonObject==null) {
+    private static void handleGetPostsResponse(PostListResponse response, final ReaderActions.ActionListener actionListener) {
+        if (response==null) {
             if (actionListener != null) {
                 actionListener.onActionResult(false);
             }
             return;
         }
 
-        ReaderPostList posts = ReaderPostList.fromJson(jsonObject);
+        ReaderPostList posts = response.posts;
         ReaderPostTable.addOrUpdatePosts(null, posts);
+        ReaderThumbnailResolver.resolveThumbnailsForPosts(posts);
 
         if (actionListener != null) {
             actionListener.onActionResult(posts.size() > 0);
@@ -543,80 +797,176 @@ public class ReaderPostActions {
     /*
      * "backfill" posts with a specific tag - used to fill in gaps between syncs, ex: sync the
      * reader, come back the next day and sync again, with a popular tag there may be posts
-     * missing between the posts retrieved the previous day and the posts just retrieved
+     * missing between the posts retrieved the previous day and the posts just retrieved. the
+     * gap is split into non-overlapping windows which are requested at the same time (a few at
+     * a time), and once they've all returned the posts are merged and saved together so the
+     * gap is closed in about one round trip rather than one page at a time
+     */
+    private static final int BACKFILL_MAX_WINDOWS = 4;
+    private static final int BACKFILL_MAX_CONCURRENT = 3;
+
+    /*
+     * returns the date of the newest post we had with this tag before updating it - this is
+     * where the gap starts
      */
-    private static final int BACKFILL_MAX_RECURSION = 3;
+    private static String getBackfillAfterDate(String tagName) {
+        String dateNewest = ReaderTagTable.getTagNewestDate(tagName);
+        if (TextUtils.isEmpty(dateNewest)) {
+            dateNewest = ReaderPostTable.getNewestPubDateWithTag(tagName);
+        }
+        return dateNewest;
+    }
+
     private static void backfillPostsWithTag(final String tagName,
-                                             final Date dateBefore,
-                                             final int recursionCounter,
+                                             final String dateAfter,
+                                             final ReaderPostList serverPosts,
                                              final ReaderActions.PostBackfillListener backfillListener) {
         String endpoint = getEndpointForTag(tagName);
-        if (TextUtils.isEmpty(endpoint)) {
+        Date dtAfter = DateTimeUtils.iso8601ToJavaDate(dateAfter);
+        Date dtBefore = serverPosts.getOldestPubDate();
+        Date dtNewest = serverPosts.getNewestPubDate();
+        if (TextUtils.isEmpty(endpoint) || dtAfter == null || dtBefore == null || !dtBefore.after(dtAfter)) {
             return;
         }
 
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
-            @Override
-            public void onResponse(JSONObject jsonObject) {
-                handleBackfillResponse(jsonObject, tagName, recursionCounter, backfillListener);
-            }
-        };
-        RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
-            @Override
-            public void onErrorResponse(VolleyError volleyError) {
-                AppLog.e(T.READER, volleyError);
-            }
-        };
-
-        String strDateBefore = DateTimeUtils.javaDateToIso8601(dateBefore);
-        String path = endpoint
+        // estimate how many posts are missing from how long it took for the posts we just
+        // retrieved to be published, and use enough windows to retrieve that many
+        long gapMs = dtBefore.getTime() - dtAfter.getTime();
+        long pageMs = (dtNewest != null ? dtNewest.getTime() - dtBefore.getTime() : 0);
+        int numWindows;
+        if (pageMs <= 0) {
+            numWindows = BACKFILL_MAX_WINDOWS;
+        } else {
+            numWindows = (int) Math.min(BACKFILL_MAX_WINDOWS, (gapMs + pageMs - 1) / pageMs);
+        }
+        numWindows = Math.max(1, numWindows);
+
+        // each window covers an equal part of the gap, newest first
+        final List<String> paths = new ArrayList<String>();
+        long windowMs = gapMs / numWindows;
+        for (int i = 0; i < numWindows; i++) {
+            long windowEnd = dtBefore.getTime() - (i * windowMs);
+            long windowStart = (i == numWindows - 1 ? dtAfter.getTime() : windowEnd - windowMs);
+            paths.add(endpoint
                     + "?number=" + ReaderConstants.READER_MAX_POSTS_TO_REQUEST
                     + "&order=DESC"
-                    + "&before=" + UrlUtils.urlEncode(strDateBefore);
-        AppLog.i(T.READER, String.format("backfilling tag %s, recursion %d", tagName, recursionCounter));
-        WordPress.getRestClientUtils().get(path, null, null, listener, errorListener);
+                    + "&after=" + UrlUtils.urlEncode(DateTimeUtils.javaDateToIso8601(new Date(windowStart)))
+                    + "&before=" + UrlUtils.urlEncode(DateTimeUtils.javaDateToIso8601(new Date(windowEnd))));
+        }
+
+        AppLog.i(T.READER, String.format("backfilling tag %s using %d windows", tagName, numWindows));
+        new BackfillRequest(tagName, paths, backfillListener).start();
     }
-    private static void handleBackfillResponse(final JSONObject jsonObject,
-                                               final String tagName,
-                                               final int recursionCounter,
-                                               final ReaderActions.PostBackfillListener backfillListener) {
-        if (jsonObject == null) {
-            return;
+
+    /*
+     * requests each backfill window with at most BACKFILL_MAX_CONCURRENT in flight, then saves
+     * the merged posts - must be started on the UI thread
+     */
+    private static class BackfillRequest {
+        private final String mTagName;
+        private final List<String> mPaths;
+        private final ReaderActions.PostBackfillListener mBackfillListener;
+        private final ReaderPostList mPosts = new ReaderPostList();
+        private final Handler mHandler = new Handler();
+        private int mNextPath;
+        private int mNumPending;
+
+        BackfillRequest(String tagName, List<String> paths, ReaderActions.PostBackfillListener backfillListener) {
+            mTagName = tagName;
+            mPaths = paths;
+            mBackfillListener = backfillListener;
         }
 
-        final Handler handler = new Handler();
+        void start() {
+            while (mNumPending < BACKFILL_MAX_CONCURRENT && mNextPath < mPaths.size()) {
+                requestWindow(mPaths.get(mNextPath++));
+            }
+        }
 
-        new Thread() {
-            @Override
-            public void run() {
-                final ReaderPostList serverPosts = ReaderPostList.fromJson(jsonObject);
-                final int numNewPosts = ReaderPostTable.getNumNewPostsWithTag(tagName, serverPosts);
-                if (numNewPosts == 0) {
-                    return;
+        private void requestWindow(final String path) {
+            mNumPending++;
+            Response.Listener<PostListResponse> listener = new Response.Listener<PostListResponse>() {
+                @Override
+                public void onResponse(PostListResponse response) {
+                    if (response != null && !response.isError) {
+                        if (response.posts.size() == ReaderConstants.READER_MAX_POSTS_TO_REQUEST) {
+                            // more posts were published in this window than we requested, so
+                            // there's still a (smaller) gap - it will be filled in when older
+                            // posts are requested
+                            AppLog.d(T.READER, String.format("backfill window in tag %s was full", mTagName));
+                        }
+                        mPosts.addAll(response.posts);
+                    }
+                    onWindowCompleted();
+                }
+            };
+            RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
+                @Override
+                public void onErrorResponse(VolleyError volleyError) {
+                    AppLog.e(T.READER, volleyError);
+                    onWindowCompleted();
                 }
+            };
+            WordPress.getRestClientUtils().getStreaming(path, null, POST_LIST_PARSER, listener, errorListener);
+        }
+
+        private void onWindowCompleted() {
+            mNumPending--;
+            if (mNextPath < mPaths.size()) {
+                start();
+            } else if (mNumPending == 0) {
+                savePosts();
+            }
+        }
 
-                AppLog.i(T.READER, String.format("backfilling tag %s found %d new posts", tagName, numNewPosts));
-                ReaderPostTable.addOrUpdatePosts(tagName, serverPosts);
+        private void savePosts() {
+            if (mPosts.size() == 0) {
+                return;
+            }
 
-                handler.post(new Runnable() {
-                    public void run() {
-                        if (backfillListener != null) {
-                            backfillListener.onPostsBackfilled();
+            new Thread() {
+                @Override
+                public void run() {
+                    // windows don't overlap, but a post whose date changed between requests
+                    // may show up in two of them
+                    ReaderPostList uniquePosts = new ReaderPostList();
+                    Set<String> postKeys = new HashSet<String>();
+                    for (ReaderPost post: mPosts) {
+                        if (postKeys.add(post.blogId + ":" + post.postId)) {
+                            uniquePosts.add(post);
                         }
+                    }
 
-                        // backfill again if all posts were new, but enforce a max on recursion
-                        // so we don't backfill forever
-                        boolean areAllPostsNew = (numNewPosts == ReaderConstants.READER_MAX_POSTS_TO_REQUEST);
-                        if (areAllPostsNew && recursionCounter < BACKFILL_MAX_RECURSION) {
-                            backfillPostsWithTag(tagName,
-                                    serverPosts.getOldestPubDate(),
-                                    recursionCounter + 1,
-                                    backfillListener);
+                    final int numNewPosts;
+                    SQLiteDatabase db = ReaderDatabase.getWritableDb();
+                    db.beginTransaction();
+                    try {
+                        numNewPosts = ReaderPostTable.getNumNewPostsWithTag(mTagName, uniquePosts);
+                        if (numNewPosts > 0) {
+                            ReaderPostTable.addOrUpdatePosts(mTagName, uniquePosts);
                         }
+                        db.setTransactionSuccessful();
+                    } finally {
+                        db.endTransaction();
                     }
-                });
-            }
-        }.start();
+
+                    if (numNewPosts == 0) {
+                        return;
+                    }
+
+                    AppLog.i(T.READER, String.format("backfilling tag %s found %d new posts", mTagName, numNewPosts));
+                    ReaderThumbnailResolver.resolveThumbnailsForPosts(uniquePosts);
+
+                    if (mBackfillListener != null) {
+                        mHandler.post(new Runnable() {
+                            public void run() {
+                                mBackfillListener.onPostsBackfilled();
+                            }
+                        });
+                    }
+                }
+            }.start();
+        }
     }
 
 }
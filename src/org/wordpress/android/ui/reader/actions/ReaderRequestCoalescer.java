@@ -0,0 +1,70 @@
+package org.wordpress.android.ui.reader.actions;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces identical in-flight reader requests - the first caller for a key makes the request,
+ * callers with the same key that arrive before it completes are attached to it rather than
+ * making their own request, and all of them receive the single result. The key should include
+ * the endpoint and any parameters.
+ */
+public class ReaderRequestCoalescer<L> {
+    private static final AtomicInteger mNumRequestsMade = new AtomicInteger();
+    private static final AtomicInteger mNumRequestsSaved = new AtomicInteger();
+
+    private final String mName;
+    private final HashMap<String, ArrayList<L>> mPendingCallers = new HashMap<String, ArrayList<L>>();
+
+    ReaderRequestCoalescer(String name) {
+        mName = name;
+    }
+
+    /*
+     * adds the passed listener as a caller for the passed key - returns true if the caller should
+     * make the request, false if it was attached to a request that's already in flight
+     */
+    synchronized boolean addCaller(String key, L listener) {
+        ArrayList<L> callers = mPendingCallers.get(key);
+        if (callers != null) {
+            callers.add(listener);
+            int numSaved = mNumRequestsSaved.incrementAndGet();
+            AppLog.d(T.READER, String.format("%s > joined pending request %s (%d requests saved, %d made)",
+                    mName, key, numSaved, mNumRequestsMade.get()));
+            return false;
+        }
+
+        callers = new ArrayList<L>();
+        callers.add(listener);
+        mPendingCallers.put(key, callers);
+        mNumRequestsMade.incrementAndGet();
+        return true;
+    }
+
+    /*
+     * called when the request for the passed key completes, returns the listeners for everyone
+     * who was waiting on it - note that listeners may be null
+     */
+    synchronized List<L> removeCallers(String key) {
+        ArrayList<L> callers = mPendingCallers.remove(key);
+        if (callers == null) {
+            return new ArrayList<L>();
+        }
+        return callers;
+    }
+
+    /*
+     * metrics across all coalesced reader requests
+     */
+    public static int getNumRequestsMade() {
+        return mNumRequestsMade.get();
+    }
+    public static int getNumRequestsSaved() {
+        return mNumRequestsSaved.get();
+    }
+}
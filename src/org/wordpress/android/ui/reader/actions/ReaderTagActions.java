@@ -11,13 +11,13 @@ import org.wordpress.android.WordPress;
 import org.wordpress.android.datasets.ReaderDatabase;
 import org.wordpress.android.datasets.ReaderPostTable;
 import org.wordpress.android.datasets.ReaderTagTable;
+import org.wordpress.android.models.ReaderOutboxAction;
 import org.wordpress.android.models.ReaderTag;
 import org.wordpress.android.models.ReaderTag.ReaderTagType;
 import org.wordpress.android.models.ReaderTagList;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.JSONUtil;
-import org.wordpress.android.util.VolleyUtils;
 
 import java.util.Iterator;
 
@@ -50,81 +50,29 @@ public class ReaderTagActions {
             return false;
         }
 
-        final ReaderTag originalTopic;
-        final String path;
-        final String tagNameForApi = sanitizeTitle(tagName);
-
         switch (action) {
             case DELETE:
-                originalTopic = ReaderTagTable.getTag(tagName, ReaderTagType.FOLLOWED);
                 // delete tag & all related posts
                 ReaderTagTable.deleteTag(tagName);
                 ReaderPostTable.deletePostsWithTag(tagName);
-                path = "read/tags/" + tagNameForApi + "/mine/delete";
                 break;
 
             case ADD :
-                originalTopic = null; // prevent compiler warning
-                String endpoint = "/read/tags/" + tagNameForApi + "/posts";
-                ReaderTag newTopic = new ReaderTag(tagName, endpoint, ReaderTagType.FOLLOWED);
+                ReaderTag newTopic = new ReaderTag(tagName, getReadEndpointForTag(tagName), ReaderTagType.FOLLOWED);
                 ReaderTagTable.addOrUpdateTag(newTopic);
-                path = "read/tags/" + tagNameForApi + "/mine/new";
                 break;
 
             default :
                 return false;
         }
 
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
-            @Override
-            public void onResponse(JSONObject jsonObject) {
-                AppLog.i(T.READER, "tag action " + action.name() + " succeeded");
-                if (actionListener != null) {
-                    actionListener.onActionResult(true);
-                }
-            }
-        };
-        RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
-            @Override
-            public void onErrorResponse(VolleyError volleyError) {
-                // if we're adding a topic and the error says the user is already following
-                // this topic, or we're removing a topic and the error says the user isn't
-                // following it, treat it as a success - this can happen if the user edits
-                // topics in the web reader while this app is running
-                String error = VolleyUtils.errStringFromVolleyError(volleyError);
-                boolean isSuccess = (action== TagAction.ADD    && error.equals("already_subscribed"))
-                                 || (action== TagAction.DELETE && error.equals("not_subscribed"));
-                if (isSuccess) {
-                    AppLog.w(T.READER, "tag action " + action.name() + " succeeded with error " + error);
-                    if (actionListener != null) {
-                        actionListener.onActionResult(true);
-                    }
-                    return;
-                }
-
-                AppLog.w(T.READER, "tag action " + action.name() + " failed");
-                AppLog.e(T.READER, volleyError);
-
-                // revert on failure
-                switch (action) {
-                    case DELETE:
-                        // add back original topic
-                        if (originalTopic != null) {
-                            ReaderTagTable.addOrUpdateTag(originalTopic);
-                        }
-                        break;
-                    case ADD:
-                        // remove new topic
-                        ReaderTagTable.deleteTag(tagName);
-                        break;
-                }
-
-                if (actionListener != null) {
-                    actionListener.onActionResult(false);
-                }
-            }
-        };
-        WordPress.getRestClientUtils().post(path, listener, errorListener);
+        // send it through the outbox so it's coalesced with other changes to this tag and
+        // survives being offline - the outbox reverts the local change if the server rejects it
+        ReaderOutboxAction outboxAction = new ReaderOutboxAction(ReaderOutboxAction.OutboxActionType.FOLLOW_TAG);
+        outboxAction.setTagName(tagName);
+        outboxAction.isOn = (action == TagAction.ADD);
+        outboxAction.isOriginallyOn = !outboxAction.isOn;
+        ReaderOutbox.queueAction(outboxAction, actionListener);
 
         return true;
     }
@@ -307,8 +307,8 @@ public class ReaderCommentAdapter extends BaseAdapter {
             mMoreCommentsExist = tmpMoreCommentsExist;
 
             if (result) {
-                // assign the comments with children sorted under their parents and indent levels applied
-                mComments = ReaderCommentList.getLevelList(tmpComments);
+                // comments are stored in thread order with indent levels already applied
+                mComments = tmpComments;
                 notifyDataSetChanged();
             }
             if (mDataLoadedListener != null) {
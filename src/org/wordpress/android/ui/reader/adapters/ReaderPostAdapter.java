@@ -43,6 +43,7 @@ import org.wordpress.android.util.stats.AnalyticsTracker;
 import org.wordpress.android.widgets.WPNetworkImageView;
 
 import java.lang.ref.WeakReference;
+import java.util.HashMap;
 
 /**
  * adapter for list of posts in a specific tag
@@ -183,7 +184,7 @@ public class ReaderPostAdapter extends BaseAdapter {
         if (index == -1)
             return;
 
-        final ReaderPost updatedPost = ReaderPostTable.getPost(post.blogId, post.postId);
+        final ReaderPost updatedPost = ReaderPostTable.getPost(post.blogId, post.postId, true);
         if (updatedPost==null)
             return;
 
@@ -245,14 +246,19 @@ public class ReaderPostAdapter extends BaseAdapter {
         return mPosts.get(position);
     }
 
+    /*
+     * ids are based on the post rather than its position so the ListView can keep track of rows
+     * when posts are inserted or removed
+     */
     @Override
     public long getItemId(int position) {
-        return position;
+        ReaderPost post = mPosts.get(position);
+        return (post.blogId * 31) + post.postId;
     }
 
     @Override
     public boolean hasStableIds() {
-        return false;
+        return true;
     }
 
     @Override
@@ -268,6 +274,41 @@ public class ReaderPostAdapter extends BaseAdapter {
             holder = (PostViewHolder) convertView.getTag();
         }
 
+        // skip binding the post if this view is already showing the same version of it - this
+        // way unchanged rows keep their views & image requests when the list is updated
+        int postVersion = getPostVersion(post, mCurrentTag);
+        if (holder.boundPostId != post.postId
+                || holder.boundBlogId != post.blogId
+                || holder.boundPostVersion != postVersion) {
+            bindPost(holder, post, parent);
+            holder.boundBlogId = post.blogId;
+            holder.boundPostId = post.postId;
+            holder.boundPostVersion = postVersion;
+        }
+
+        // animate the appearance of this row while new posts are being loaded
+        if (mAnimateRows) {
+            animateRow(convertView);
+        }
+
+        // if we're nearing the end of the posts, fire request to load more
+        if (mCanRequestMorePosts && mDataRequestedListener != null && (position >= getCount()-1)) {
+            mDataRequestedListener.onRequestData(ReaderActions.RequestDataAction.LOAD_OLDER);
+        }
+
+        // if image preload is enabled, preload images in the post PRELOAD_OFFSET positions ahead of this one
+        if (mEnableImagePreload && position > (mLastPreloadPos - PRELOAD_OFFSET)) {
+            preloadPostImages(position + PRELOAD_OFFSET);
+        }
+
+        return convertView;
+    }
+
+    /*
+     * binds the passed post to the passed view holder - note that the listeners look up the
+     * post's current position when tapped since the post may have moved since it was bound
+     */
+    private void bindPost(final PostViewHolder holder, final ReaderPost post, final ViewGroup parent) {
         holder.txtTitle.setText(post.getTitle());
         holder.txtDate.setText(DateTimeUtils.javaDateToTimeSpan(post.getDatePublished()));
 
@@ -287,7 +328,10 @@ public class ReaderPostAdapter extends BaseAdapter {
             holder.txtFollow.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View v) {
-                    toggleFollow(holder, position, post);
+                    int position = mPosts.indexOfPost(post);
+                    if (position > -1) {
+                        toggleFollow(holder, position, mPosts.get(position));
+                    }
                 }
             });
 
@@ -361,7 +405,8 @@ public class ReaderPostAdapter extends BaseAdapter {
             holder.imgBtnComment.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View v) {
-                    if (parent instanceof ListView) {
+                    int position = mPosts.indexOfPost(post);
+                    if (position > -1 && parent instanceof ListView) {
                         ListView listView = (ListView) parent;
                         // the base listView onItemClick includes the header count in the position,
                         // so do the same here
@@ -374,7 +419,10 @@ public class ReaderPostAdapter extends BaseAdapter {
             holder.imgBtnLike.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View v) {
-                    toggleLike(holder, position, post);
+                    int position = mPosts.indexOfPost(post);
+                    if (position > -1) {
+                        toggleLike(holder, position, mPosts.get(position));
+                    }
                 }
             });
 
@@ -403,22 +451,30 @@ public class ReaderPostAdapter extends BaseAdapter {
             holder.txtCommentCount.setVisibility(View.GONE);
         }
 
-        // animate the appearance of this row while new posts are being loaded
-        if (mAnimateRows) {
-            animateRow(convertView);
-        }
-
-        // if we're nearing the end of the posts, fire request to load more
-        if (mCanRequestMorePosts && mDataRequestedListener != null && (position >= getCount()-1)) {
-            mDataRequestedListener.onRequestData(ReaderActions.RequestDataAction.LOAD_OLDER);
-        }
-
-        // if image preload is enabled, preload images in the post PRELOAD_OFFSET positions ahead of this one
-        if (mEnableImagePreload && position > (mLastPreloadPos - PRELOAD_OFFSET)) {
-            preloadPostImages(position + PRELOAD_OFFSET);
-        }
+    }
 
-        return convertView;
+    /*
+     * returns a hash of the post fields shown in the list - a post whose version hasn't changed
+     * doesn't need to be rebound
+     */
+    private static int getPostVersion(ReaderPost post, String currentTag) {
+        int version = 17;
+        version = 31 * version + post.getTitle().hashCode();
+        version = 31 * version + post.getExcerpt().hashCode();
+        version = 31 * version + post.getFeaturedImage().hashCode();
+        version = 31 * version + post.getFeaturedVideo().hashCode();
+        version = 31 * version + post.getBlogName().hashCode();
+        version = 31 * version + post.getAuthorName().hashCode();
+        version = 31 * version + post.getPostAvatar().hashCode();
+        version = 31 * version + post.getTagForDisplay(currentTag).hashCode();
+        version = 31 * version + (int) (post.timestamp ^ (post.timestamp >>> 32));
+        version = 31 * version + post.numLikes;
+        version = 31 * version + post.numReplies;
+        version = 31 * version + (post.isLikedByCurrentUser ? 1 : 0);
+        version = 31 * version + (post.isFollowedByCurrentUser ? 2 : 0);
+        version = 31 * version + (post.isRebloggedByCurrentUser ? 4 : 0);
+        version = 31 * version + (post.isCommentsOpen ? 8 : 0);
+        return version;
     }
 
     /*
@@ -475,6 +531,11 @@ public class ReaderPostAdapter extends BaseAdapter {
 
         private final ViewGroup layoutPostHeader;
 
+        // identifies the post and version this view was last bound to
+        private long boundBlogId;
+        private long boundPostId;
+        private int boundPostVersion;
+
         PostViewHolder(View view, ReaderPostListType postListType) {
             txtTitle = (TextView) view.findViewById(R.id.text_title);
             txtText = (TextView) view.findViewById(R.id.text_excerpt);
@@ -520,7 +581,7 @@ public class ReaderPostAdapter extends BaseAdapter {
         }
 
         // update post in array and on screen
-        ReaderPost updatedPost = ReaderPostTable.getPost(post.blogId, post.postId);
+        ReaderPost updatedPost = ReaderPostTable.getPost(post.blogId, post.postId, true);
         mPosts.set(position, updatedPost);
         showLikeStatus(holder.imgBtnLike, updatedPost.isLikedByCurrentUser);
         showCounts(holder, post);
@@ -553,7 +614,7 @@ public class ReaderPostAdapter extends BaseAdapter {
             return;
         }
 
-        ReaderPost updatedPost = ReaderPostTable.getPost(post.blogId, post.postId);
+        ReaderPost updatedPost = ReaderPostTable.getPost(post.blogId, post.postId, true);
         if (updatedPost != null) {
             mPosts.set(position, updatedPost);
         }
@@ -577,9 +638,11 @@ public class ReaderPostAdapter extends BaseAdapter {
     private boolean mIsTaskRunning = false;
     private class LoadPostsTask extends AsyncTask<Void, Void, Boolean> {
         ReaderPostList tmpPosts;
+        ReaderPostList currentPosts;
         @Override
         protected void onPreExecute() {
             mIsTaskRunning = true;
+            currentPosts = (ReaderPostList) mPosts.clone();
         }
         @Override
         protected void onCancelled() {
@@ -601,9 +664,16 @@ public class ReaderPostAdapter extends BaseAdapter {
                     return false;
             }
 
-            if (mPosts.isSameList(tmpPosts)) {
+            // compare the posts against the ones being displayed, and skip updating the list
+            // if nothing changed - unchanged posts are replaced by the ones already displayed
+            // so their pre-calculated values (see below) are retained
+            PostListDiff diff = PostListDiff.diff(currentPosts, tmpPosts, mCurrentTag);
+            if (!diff.hasChanges()) {
                 return false;
             }
+            AppLog.d(T.READER, String.format("reader post adapter > %d inserted, %d removed, %d changed%s",
+                    diff.numInserted, diff.numRemoved, diff.numChanged, diff.isReordered ? ", reordered" : ""));
+            tmpPosts = diff.posts;
 
             // if we're not already displaying the max # posts, enable requesting more when
             // the user scrolls to the end of the list
@@ -645,6 +715,60 @@ public class ReaderPostAdapter extends BaseAdapter {
         }
     }
 
+    /*
+     * keyed diff between the posts being displayed and the posts just loaded - posts are matched
+     * by blogId/postId and are considered changed when their version differs
+     */
+    private static class PostListDiff {
+        private ReaderPostList posts;
+        private int numInserted;
+        private int numRemoved;
+        private int numChanged;
+        private boolean isReordered;
+
+        private boolean hasChanges() {
+            return (numInserted > 0 || numRemoved > 0 || numChanged > 0 || isReordered);
+        }
+
+        private static PostListDiff diff(ReaderPostList oldPosts, ReaderPostList newPosts, String currentTag) {
+            HashMap<String, Integer> oldIndexes = new HashMap<String, Integer>(oldPosts.size());
+            for (int i = 0; i < oldPosts.size(); i++) {
+                ReaderPost post = oldPosts.get(i);
+                oldIndexes.put(post.blogId + ":" + post.postId, i);
+            }
+
+            PostListDiff diff = new PostListDiff();
+            diff.posts = new ReaderPostList();
+            int numMatched = 0;
+            int lastOldIndex = -1;
+            for (ReaderPost newPost: newPosts) {
+                Integer oldIndex = oldIndexes.get(newPost.blogId + ":" + newPost.postId);
+                if (oldIndex == null) {
+                    diff.numInserted++;
+                    diff.posts.add(newPost);
+                    continue;
+                }
+
+                numMatched++;
+                if (oldIndex < lastOldIndex) {
+                    diff.isReordered = true;
+                }
+                lastOldIndex = oldIndex;
+
+                ReaderPost oldPost = oldPosts.get(oldIndex);
+                if (getPostVersion(oldPost, currentTag) == getPostVersion(newPost, currentTag)) {
+                    diff.posts.add(oldPost);
+                } else {
+                    diff.numChanged++;
+                    diff.posts.add(newPost);
+                }
+            }
+            diff.numRemoved = oldPosts.size() - numMatched;
+
+            return diff;
+        }
+    }
+
     /*
      * called from ReaderPostListFragment when user starts/ends listview fling
      */
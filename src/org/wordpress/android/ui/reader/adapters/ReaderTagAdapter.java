@@ -21,7 +21,6 @@ import org.wordpress.android.ui.reader.actions.ReaderTagActions;
 import org.wordpress.android.ui.reader.actions.ReaderTagActions.TagAction;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
-import org.wordpress.android.util.NetworkUtils;
 import org.wordpress.android.util.ToastUtils;
 
 import java.lang.ref.WeakReference;
@@ -149,10 +148,6 @@ public class ReaderTagAdapter extends BaseAdapter {
     }
 
     private void performTagAction(final TagAction action, String tagName) {
-        if (!NetworkUtils.checkConnection(getContext())) {
-            return;
-        }
-
         ReaderActions.ActionListener actionListener = new ReaderActions.ActionListener() {
             @Override
             public void onActionResult(boolean succeeded) {
@@ -1,31 +1,83 @@
-
 package org.wordpress.android.util;
 
 import android.graphics.Bitmap;
+import android.os.Build;
 import android.support.v4.util.LruCache;
 
 import com.android.volley.toolbox.ImageLoader.ImageCache;
 
+/**
+ * memory cache of decoded bitmaps - bitmaps evicted from the cache are added to a BitmapPool
+ * so they can be decoded into rather than garbage collected. the cache and the pool share a
+ * single budget, with the pool only using what the cache isn't.
+ */
 public class BitmapLruCache extends LruCache<String, Bitmap> implements ImageCache {
+    private final BitmapPool mBitmapPool;
+    private boolean mIsClearing;
+
     public BitmapLruCache(int maxSize) {
         super(maxSize);
+        mBitmapPool = new BitmapPool(maxSize);
+    }
+
+    public BitmapPool getBitmapPool() {
+        return mBitmapPool;
     }
 
     @Override
     protected int sizeOf(String key, Bitmap value) {
         // The cache size will be measured in kilobytes rather than
         // number of items.
-        int bytes = (value.getRowBytes() * value.getHeight());
+        // bitmaps decoded into pooled bitmaps may be larger than the image they contain, so
+        // measure their whole allocation on KitKat and later
+        int bytes;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            bytes = value.getAllocationByteCount();
+        } else {
+            bytes = (value.getRowBytes() * value.getHeight());
+        }
         return (bytes / 1024); //value.getByteCount() introduced in HONEYCOMB_MR1 or higher.
     }
 
+    @Override
+    protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+        // only bitmaps pushed out by newer ones are pooled - replaced bitmaps may still be shown
+        if (evicted && !mIsClearing) {
+            mBitmapPool.put(oldValue, maxSize() - size());
+        }
+    }
+
     @Override
     public Bitmap getBitmap(String key) {
         return this.get(key);
     }
 
+    /*
+     * use this rather than put() so the pool shrinks to fit what the cache leaves of the budget
+     */
     @Override
     public void putBitmap(String key, Bitmap bitmap) {
         this.put(key, bitmap);
+        mBitmapPool.trimToSize(maxSize() - size());
+    }
+
+    /*
+     * adds a bitmap that's no longer needed (and was never shown) to the pool
+     */
+    public void addToPool(Bitmap bitmap) {
+        mBitmapPool.put(bitmap, maxSize() - size());
+    }
+
+    /*
+     * empties both the cache and the pool - used when memory is low
+     */
+    public void clearAll() {
+        mIsClearing = true;
+        try {
+            evictAll();
+        } finally {
+            mIsClearing = false;
+        }
+        mBitmapPool.clear();
     }
-}
\ No newline at end of file
+}
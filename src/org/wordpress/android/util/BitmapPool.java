@@ -0,0 +1,292 @@
+package org.wordpress.android.util;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.widget.ImageView;
+
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+/**
+ * pool of bitmaps that can be decoded into using BitmapFactory.Options.inBitmap, so decoding
+ * images doesn't allocate a new bitmap each time - bitmaps enter the pool when they're evicted
+ * from BitmapLruCache, which owns the pool and shares its memory budget with it. only mutable
+ * bitmaps can be reused, so only bitmaps decoded by decodeFile() below are ever pooled.
+ *
+ * a bitmap must never be decoded into while it's still on screen, so views showing bitmaps
+ * that came from the cache should display them with setImageBitmap() below - bitmaps shown
+ * that way aren't pooled until nothing shows them.
+ *
+ * on KitKat and later a bitmap can be reused by any image that fits in its allocation, so
+ * bitmaps are bucketed by allocation size (rounded up to a power of two). before KitKat the
+ * image must match the bitmap's size exactly, so bitmaps are bucketed by width and height.
+ */
+public class BitmapPool {
+    // bitmaps larger than this fraction of the budget are never pooled
+    private static final int MAX_BITMAP_FRACTION = 4;
+
+    // sizes are in kilobytes, as in BitmapLruCache
+    private final int mMaxSizeKb;
+    private int mSizeKb;
+
+    private final HashMap<String, ArrayDeque<Bitmap>> mBuckets = new HashMap<String, ArrayDeque<Bitmap>>();
+    // all pooled bitmaps, oldest first
+    private final ArrayDeque<Bitmap> mBitmaps = new ArrayDeque<Bitmap>();
+
+    private int mNumHits;
+    private int mNumMisses;
+
+    // # views showing each bitmap (weak keys so bitmaps are never kept alive by this)
+    private static final WeakHashMap<Bitmap, Integer> mDisplayCounts = new WeakHashMap<Bitmap, Integer>();
+    private static final WeakHashMap<ImageView, Bitmap> mDisplayedBitmaps = new WeakHashMap<ImageView, Bitmap>();
+
+    public BitmapPool(int maxSizeKb) {
+        mMaxSizeKb = maxSizeKb;
+    }
+
+    public static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
+    }
+
+    private static boolean canReuseAnySize() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+    }
+
+    private static int getSizeKb(Bitmap bitmap) {
+        int bytes;
+        if (canReuseAnySize()) {
+            bytes = bitmap.getAllocationByteCount();
+        } else {
+            bytes = bitmap.getRowBytes() * bitmap.getHeight();
+        }
+        return bytes / 1024;
+    }
+
+    private static int getBytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.ALPHA_8) {
+            return 1;
+        } else if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+            return 2;
+        } else {
+            return 4;
+        }
+    }
+
+    private static String getBucketKey(int width, int height, Bitmap.Config config) {
+        if (canReuseAnySize()) {
+            int bytes = width * height * getBytesPerPixel(config);
+            return "b" + Integer.highestOneBit(Math.max(bytes - 1, 1)) * 2;
+        }
+        return width + "x" + height + ":" + config;
+    }
+
+    private static String getBucketKey(Bitmap bitmap) {
+        if (canReuseAnySize()) {
+            return "b" + Integer.highestOneBit(Math.max(bitmap.getAllocationByteCount() - 1, 1)) * 2;
+        }
+        return getBucketKey(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+    }
+
+    /*
+     * adds the passed bitmap to the pool if it can be reused and nothing is showing it - oldest
+     * bitmaps are dropped so the pool stays within availableKb (the part of the shared budget
+     * the cache isn't using)
+     */
+    synchronized void put(Bitmap bitmap, int availableKb) {
+        if (!isSupported()
+                || bitmap == null
+                || bitmap.isRecycled()
+                || !bitmap.isMutable()
+                || bitmap.getConfig() == null
+                || isDisplayed(bitmap)) {
+            return;
+        }
+
+        int sizeKb = getSizeKb(bitmap);
+        if (sizeKb * MAX_BITMAP_FRACTION > mMaxSizeKb || sizeKb > availableKb) {
+            return;
+        }
+
+        trimToSize(availableKb - sizeKb);
+
+        String key = getBucketKey(bitmap);
+        ArrayDeque<Bitmap> bucket = mBuckets.get(key);
+        if (bucket == null) {
+            bucket = new ArrayDeque<Bitmap>();
+            mBuckets.put(key, bucket);
+        }
+        bucket.add(bitmap);
+        mBitmaps.add(bitmap);
+        mSizeKb += sizeKb;
+    }
+
+    /*
+     * returns a pooled bitmap that an image of the passed size can be decoded into, or null if
+     * there isn't one - the bitmap is removed from the pool
+     */
+    synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+        if (!isSupported() || width <= 0 || height <= 0 || mBitmaps.isEmpty()) {
+            return null;
+        }
+
+        Bitmap bitmap = removeFromBucket(getBucketKey(width, height, config), width, height, config);
+        if (bitmap == null && canReuseAnySize()) {
+            // the next bucket up is at most twice the size that's needed
+            int bytes = width * height * getBytesPerPixel(config);
+            String nextKey = "b" + Integer.highestOneBit(Math.max(bytes - 1, 1)) * 4;
+            bitmap = removeFromBucket(nextKey, width, height, config);
+        }
+
+        if (bitmap != null) {
+            mNumHits++;
+            mBitmaps.remove(bitmap);
+            mSizeKb -= getSizeKb(bitmap);
+        } else {
+            mNumMisses++;
+        }
+        return bitmap;
+    }
+
+    private Bitmap removeFromBucket(String key, int width, int height, Bitmap.Config config) {
+        ArrayDeque<Bitmap> bucket = mBuckets.get(key);
+        if (bucket == null) {
+            return null;
+        }
+        int neededBytes = width * height * getBytesPerPixel(config);
+        for (Bitmap bitmap: bucket) {
+            if (bitmap.getConfig() != config) {
+                continue;
+            }
+            if (!canReuseAnySize() || bitmap.getAllocationByteCount() >= neededBytes) {
+                bucket.remove(bitmap);
+                if (bucket.isEmpty()) {
+                    mBuckets.remove(key);
+                }
+                return bitmap;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * drops the oldest bitmaps until the pool is no larger than the passed size
+     */
+    synchronized void trimToSize(int maxSizeKb) {
+        while (mSizeKb > maxSizeKb && !mBitmaps.isEmpty()) {
+            Bitmap bitmap = mBitmaps.removeFirst();
+            String key = getBucketKey(bitmap);
+            ArrayDeque<Bitmap> bucket = mBuckets.get(key);
+            if (bucket != null) {
+                bucket.remove(bitmap);
+                if (bucket.isEmpty()) {
+                    mBuckets.remove(key);
+                }
+            }
+            mSizeKb -= getSizeKb(bitmap);
+        }
+        if (mBitmaps.isEmpty()) {
+            mSizeKb = 0;
+        }
+    }
+
+    public synchronized void clear() {
+        mBuckets.clear();
+        mBitmaps.clear();
+        mSizeKb = 0;
+    }
+
+    public synchronized int getSizeKb() {
+        return mSizeKb;
+    }
+
+    public synchronized String getStatsDescription() {
+        return String.format("%d bitmaps (%dKB), %d hits, %d misses", mBitmaps.size(), mSizeKb, mNumHits, mNumMisses);
+    }
+
+    /*
+     * decodes the passed file using the passed options (which must include inSampleSize),
+     * reusing a pooled bitmap when one fits - the decoded bitmap is mutable so it can be pooled
+     * once it's evicted from the cache. must be called from a background thread.
+     */
+    public Bitmap decodeFile(String path, BitmapFactory.Options options) {
+        if (!isSupported()) {
+            return BitmapFactory.decodeFile(path, options);
+        }
+
+        options.inMutable = true;
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(path, options);
+            options.inJustDecodeBounds = false;
+        }
+        addInBitmapOptions(options);
+
+        Bitmap bitmap = BitmapFactory.decodeFile(path, options);
+        if (bitmap == null && options.inBitmap != null) {
+            // decodeFile() returns null rather than throwing when the pooled bitmap can't be
+            // decoded into (before KitKat only JPEG and PNG images can be), so decode into a
+            // new bitmap instead
+            AppLog.w(T.UTILS, "bitmap pool > unable to reuse bitmap");
+            options.inBitmap = null;
+            bitmap = BitmapFactory.decodeFile(path, options);
+        }
+        return bitmap;
+    }
+
+    /*
+     * sets options.inBitmap to a pooled bitmap that the image with the bounds in the passed
+     * options can be decoded into - before KitKat only images decoded at full size can be
+     * decoded into an existing bitmap
+     */
+    private void addInBitmapOptions(BitmapFactory.Options options) {
+        int sampleSize = Math.max(1, options.inSampleSize);
+        if (!canReuseAnySize() && sampleSize != 1) {
+            return;
+        }
+        int width = (options.outWidth + sampleSize - 1) / sampleSize;
+        int height = (options.outHeight + sampleSize - 1) / sampleSize;
+        Bitmap.Config config = (options.inPreferredConfig != null ? options.inPreferredConfig : Bitmap.Config.ARGB_8888);
+        options.inBitmap = get(width, height, config);
+    }
+
+    /*
+     * shows the passed bitmap in the passed imageView and records that it's on screen (so it
+     * won't be pooled) - the bitmap previously shown by this routine is released
+     */
+    public static void setImageBitmap(ImageView imageView, Bitmap bitmap) {
+        if (imageView == null) {
+            return;
+        }
+        synchronized (mDisplayCounts) {
+            Bitmap previous = (bitmap != null ? mDisplayedBitmaps.put(imageView, bitmap) : mDisplayedBitmaps.remove(imageView));
+            if (previous != bitmap) {
+                changeDisplayCount(previous, -1);
+                changeDisplayCount(bitmap, 1);
+            }
+        }
+        imageView.setImageBitmap(bitmap);
+    }
+
+    private static void changeDisplayCount(Bitmap bitmap, int delta) {
+        if (bitmap == null) {
+            return;
+        }
+        Integer count = mDisplayCounts.get(bitmap);
+        int newCount = (count != null ? count : 0) + delta;
+        if (newCount > 0) {
+            mDisplayCounts.put(bitmap, newCount);
+        } else {
+            mDisplayCounts.remove(bitmap);
+        }
+    }
+
+    private static boolean isDisplayed(Bitmap bitmap) {
+        synchronized (mDisplayCounts) {
+            return mDisplayCounts.containsKey(bitmap);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.wordpress.android.util;
+
+import android.net.Uri;
+import android.support.v4.util.LruCache;
+import android.text.TextUtils;
+
+import com.android.volley.toolbox.ImageLoader;
+
+import java.util.ArrayList;
+
+/**
+ * remembers which sizes of each image have been loaded so a view can be shown a larger copy
+ * that's already in memory rather than requesting (and caching) its own copy - images are
+ * keyed by their source url (see PhotonUtils.getSourceImageUrl), and sizes are read from the
+ * photon or gravatar query of each url
+ */
+public class CachedImageIndex {
+    private static final int MAX_SOURCES = 250;
+    private static final int MAX_SIZES_PER_SOURCE = 4;
+
+    // crops are only interchangeable if their aspect ratios are this close
+    private static final float MAX_ASPECT_DIFF = 0.02f;
+
+    private static final LruCache<String, ArrayList<String>> mLoadedUrls =
+            new LruCache<String, ArrayList<String>>(MAX_SOURCES);
+
+    private CachedImageIndex() {
+        throw new AssertionError();
+    }
+
+    /*
+     * size requested by an image url - width and height are zero if not set, and isCrop is
+     * true if the image is cropped to exactly that size
+     */
+    static class ImageSize {
+        int width;
+        int height;
+        boolean isCrop;
+
+        boolean isUnsized() {
+            return width == 0 && height == 0;
+        }
+    }
+
+    static ImageSize getImageSize(String url) {
+        ImageSize size = new ImageSize();
+        if (TextUtils.isEmpty(url) || !url.contains("?")) {
+            return size;
+        }
+
+        Uri uri = Uri.parse(url);
+        String resize = uri.getQueryParameter("resize");
+        String gravatarSize = (url.contains("gravatar.com") ? uri.getQueryParameter("s") : null);
+        if (resize != null && resize.contains(",")) {
+            String[] parts = resize.split(",");
+            size.width = StringUtils.stringToInt(parts[0]);
+            size.height = StringUtils.stringToInt(parts[1]);
+            size.isCrop = true;
+        } else if (gravatarSize != null) {
+            size.width = StringUtils.stringToInt(gravatarSize);
+            size.height = size.width;
+            size.isCrop = true;
+        } else {
+            size.width = StringUtils.stringToInt(uri.getQueryParameter("w"));
+            size.height = StringUtils.stringToInt(uri.getQueryParameter("h"));
+        }
+        return size;
+    }
+
+    /*
+     * returns true if an image of the available size can be shown in place of the requested one
+     */
+    static boolean canSubstitute(ImageSize requested, ImageSize available) {
+        if (available.isUnsized()) {
+            // the original image can stand in for anything other than a crop
+            return !requested.isCrop;
+        }
+        if (requested.isUnsized() || requested.isCrop != available.isCrop) {
+            return false;
+        }
+        if (requested.isCrop) {
+            float requestedAspect = requested.width / (float) requested.height;
+            float availableAspect = available.width / (float) available.height;
+            return available.width >= requested.width
+                && Math.abs(requestedAspect - availableAspect) <= MAX_ASPECT_DIFF * requestedAspect;
+        }
+        // only a width or height was requested, so the same one must be constrained
+        if (requested.width > 0) {
+            return available.width >= requested.width && available.height == 0;
+        }
+        return available.height >= requested.height && available.width == 0;
+    }
+
+    /*
+     * called once the image at the passed url has been loaded
+     */
+    public static void addLoadedUrl(String url) {
+        if (TextUtils.isEmpty(url)) {
+            return;
+        }
+        String source = PhotonUtils.getSourceImageUrl(url);
+        synchronized (mLoadedUrls) {
+            ArrayList<String> urls = mLoadedUrls.get(source);
+            if (urls == null) {
+                urls = new ArrayList<String>();
+                mLoadedUrls.put(source, urls);
+            }
+            urls.remove(url);
+            urls.add(0, url);
+            if (urls.size() > MAX_SIZES_PER_SOURCE) {
+                urls.remove(urls.size() - 1);
+            }
+        }
+    }
+
+    /*
+     * returns the url of a larger copy of the passed image that's in the passed loader's
+     * memory cache, or null if there isn't one
+     */
+    public static String getLargerCachedUrl(String url, ImageLoader imageLoader) {
+        if (TextUtils.isEmpty(url) || imageLoader == null) {
+            return null;
+        }
+
+        ArrayList<String> urls;
+        synchronized (mLoadedUrls) {
+            ArrayList<String> loadedUrls = mLoadedUrls.get(PhotonUtils.getSourceImageUrl(url));
+            if (loadedUrls == null) {
+                return null;
+            }
+            urls = new ArrayList<String>(loadedUrls);
+        }
+
+        ImageSize requested = getImageSize(url);
+        for (String loadedUrl: urls) {
+            if (!loadedUrl.equals(url)
+                    && canSubstitute(requested, getImageSize(loadedUrl))
+                    && imageLoader.isCached(loadedUrl, 0, 0)) {
+                return loadedUrl;
+            }
+        }
+        return null;
+    }
+}
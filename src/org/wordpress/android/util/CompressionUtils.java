@@ -0,0 +1,112 @@
+package org.wordpress.android.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate compression for large text stored in the db. Compressed text starts with a marker
+ * byte followed by the length of the uncompressed utf-8 text, so it can be told apart from
+ * uncompressed text and inflated into a buffer of the right size.
+ */
+public class CompressionUtils {
+    private static final byte COMPRESSED_MARKER = (byte) 0xDF;
+    private static final int HEADER_LENGTH = 5; // marker + 4-byte length
+
+    // text shorter than this isn't worth compressing
+    public static final int MIN_COMPRESS_LENGTH = 256;
+
+    private CompressionUtils() {
+        throw new AssertionError();
+    }
+
+    public static boolean isCompressed(byte[] data) {
+        return (data != null && data.length > HEADER_LENGTH && data[0] == COMPRESSED_MARKER);
+    }
+
+    /*
+     * returns the compressed form of the passed text, or null if the text is too short to
+     * compress or compressing it wouldn't save any space
+     */
+    public static byte[] compressText(String text) {
+        if (text == null || text.length() < MIN_COMPRESS_LENGTH)
+            return null;
+
+        byte[] input = toUtf8(text);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 2);
+            output.write(COMPRESSED_MARKER);
+            output.write(input.length >>> 24);
+            output.write(input.length >>> 16);
+            output.write(input.length >>> 8);
+            output.write(input.length);
+
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                output.write(buffer, 0, count);
+                if (output.size() >= input.length)
+                    return null;
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /*
+     * returns the text stored in the passed data, which may or may not be compressed
+     */
+    public static String decompressText(byte[] data) {
+        if (data == null)
+            return null;
+        if (!isCompressed(data))
+            return fromUtf8(data, 0, data.length);
+
+        int length = ((data[1] & 0xFF) << 24)
+                   | ((data[2] & 0xFF) << 16)
+                   | ((data[3] & 0xFF) << 8)
+                   |  (data[4] & 0xFF);
+        byte[] output = new byte[length];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                int count = inflater.inflate(output, offset, length - offset);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                offset += count;
+            }
+            return fromUtf8(output, 0, offset);
+        } catch (DataFormatException e) {
+            AppLog.e(AppLog.T.DB, e);
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] toUtf8(String text) {
+        try {
+            return text.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // can't happen, utf-8 is always supported
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String fromUtf8(byte[] data, int offset, int length) {
+        try {
+            return new String(data, offset, length, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.wordpress.android.util;
+
+import android.app.ActivityManager;
+import android.app.AlarmManager;
+import android.app.IntentService;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.preference.PreferenceManager;
+import android.support.v4.content.WakefulBroadcastReceiver;
+
+import org.wordpress.android.datasets.DatabaseMaintenance;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.List;
+
+/**
+ * Runs DatabaseMaintenance in the background. The reader starts this once per session to
+ * purge older data, and it's also started when the device is connected to power. The more
+ * expensive work (refreshing planner statistics and a full VACUUM) blocks every db writer, so
+ * it's only done when the device is idle - the screen is off and the app isn't in the
+ * foreground - and at most once a day. Since the device is rarely idle when the reader is
+ * opened or power is connected, an inexact alarm also checks for idle every hour or so.
+ * Otherwise being connected to power only releases free pages in dbs which already use
+ * incremental vacuum.
+ */
+public class DatabaseMaintenanceService extends IntentService {
+    private static final String ARG_IS_POWER_CONNECTED = "is_power_connected";
+    private static final String ARG_IS_IDLE_CHECK = "is_idle_check";
+    private static final String PREFKEY_LAST_IDLE_MAINTENANCE = "db_last_idle_maintenance";
+    private static final long IDLE_MAINTENANCE_INTERVAL = 24 * 60 * 60 * 1000;
+
+    public DatabaseMaintenanceService() {
+        super("DatabaseMaintenanceService");
+    }
+
+    public static void startService(Context context) {
+        if (context == null)
+            return;
+        context.startService(new Intent(context, DatabaseMaintenanceService.class));
+        scheduleIdleCheck(context);
+    }
+
+    /*
+     * schedules the alarm that checks whether the device is idle, unless it's already scheduled -
+     * alarms don't survive a reboot, so this is called whenever the service is started
+     */
+    private static void scheduleIdleCheck(Context context) {
+        Intent intent = new Intent(context, IdleCheckReceiver.class);
+        if (PendingIntent.getBroadcast(context, 0, intent, PendingIntent.FLAG_NO_CREATE) != null)
+            return;
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null)
+            return;
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, 0, intent, 0);
+        alarmManager.setInexactRepeating(AlarmManager.ELAPSED_REALTIME_WAKEUP,
+                SystemClock.elapsedRealtime() + AlarmManager.INTERVAL_HOUR,
+                AlarmManager.INTERVAL_HOUR,
+                pendingIntent);
+    }
+
+    /*
+     * registered in the manifest to start maintenance when the device is connected to power
+     */
+    public static class PowerConnectedReceiver extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            Intent serviceIntent = new Intent(context, DatabaseMaintenanceService.class);
+            serviceIntent.putExtra(ARG_IS_POWER_CONNECTED, true);
+            context.startService(serviceIntent);
+        }
+    }
+
+    /*
+     * started by the idle check alarm - the device is kept awake until the service is done
+     */
+    public static class IdleCheckReceiver extends WakefulBroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            Intent serviceIntent = new Intent(context, DatabaseMaintenanceService.class);
+            serviceIntent.putExtra(ARG_IS_IDLE_CHECK, true);
+            startWakefulService(context, serviceIntent);
+        }
+    }
+
+    @Override
+    protected void onHandleIntent(Intent intent) {
+        boolean isPowerConnected = (intent != null && intent.getBooleanExtra(ARG_IS_POWER_CONNECTED, false));
+        boolean isIdleCheck = (intent != null && intent.getBooleanExtra(ARG_IS_IDLE_CHECK, false));
+        boolean performIdleWork = isIdleMaintenanceDue() && isDeviceIdle();
+
+        try {
+            if (performIdleWork) {
+                DatabaseMaintenance.maintainAll(true, true, true);
+                getPrefs().edit().putLong(PREFKEY_LAST_IDLE_MAINTENANCE, System.currentTimeMillis()).commit();
+            } else if (!isIdleCheck) {
+                // the idle check has nothing to do unless the device is idle
+                DatabaseMaintenance.maintainAll(false, isPowerConnected, false);
+            }
+        } catch (RuntimeException e) {
+            // maintenance is best-effort, never crash the app because of it
+            AppLog.e(T.DB, "database maintenance failed", e);
+        } finally {
+            if (isIdleCheck) {
+                WakefulBroadcastReceiver.completeWakefulIntent(intent);
+            }
+        }
+    }
+
+    private SharedPreferences getPrefs() {
+        return PreferenceManager.getDefaultSharedPreferences(this);
+    }
+
+    private boolean isIdleMaintenanceDue() {
+        long lastRun = getPrefs().getLong(PREFKEY_LAST_IDLE_MAINTENANCE, 0);
+        return (System.currentTimeMillis() - lastRun) > IDLE_MAINTENANCE_INTERVAL;
+    }
+
+    /*
+     * device is considered idle if the screen is off and the app isn't in the foreground - being
+     * connected to power doesn't count, since the user may still be using the app
+     */
+    private boolean isDeviceIdle() {
+        PowerManager pm = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        if (pm == null || pm.isScreenOn())
+            return false;
+        return !isAppInForeground();
+    }
+
+    private boolean isAppInForeground() {
+        ActivityManager am = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
+        List<ActivityManager.RunningAppProcessInfo> processes = (am != null ? am.getRunningAppProcesses() : null);
+        if (processes == null)
+            return false;
+        int myPid = android.os.Process.myPid();
+        for (ActivityManager.RunningAppProcessInfo process: processes) {
+            if (process.pid == myPid)
+                return process.importance <= ActivityManager.RunningAppProcessInfo.IMPORTANCE_VISIBLE;
+        }
+        return false;
+    }
+}
@@ -25,22 +25,145 @@ public class HtmlUtils {
 
     /*
      * this is much faster than stripHtml() but should only be used when we know the html is valid
-     * since the regex will be unpredictable with invalid html
+     * since it doesn't attempt to handle invalid html - tags, comments and script/style blocks
+     * are removed and entities are converted in a single pass
      */
     public static String fastStripHtml(String text) {
+        return fastStripHtml(text, 0);
+    }
+
+    /*
+     * same as above, but stops once maxLength characters have been output - use this when only
+     * the start of the text is needed (ex: a preview), pass 0 for no limit
+     */
+    public static String fastStripHtml(String text, int maxLength) {
         if (TextUtils.isEmpty(text))
             return text;
 
-        // insert a line break before P tags unless the only one is at the start
-        if (text.lastIndexOf("<p") > 0)
-            text = text.replaceAll("<p(.|\n)*?>","\n<p>");
+        // insert a line break for P tags unless the only one is at the start
+        boolean breakOnParagraph = (text.lastIndexOf("<p") > 0);
+
+        final int length = text.length();
+        StringBuilder sb = new StringBuilder(maxLength > 0 ? Math.min(length, maxLength) : length);
+
+        // length of the output without trailing whitespace, which is removed at the end
+        int trimmedLength = 0;
+
+        int i = 0;
+        while (i < length) {
+            if (maxLength > 0 && trimmedLength >= maxLength)
+                break;
+
+            char c = text.charAt(i);
+            if (c == '<') {
+                int tagEnd = text.indexOf('>', i + 1);
+                if (tagEnd > -1) {
+                    if (text.startsWith("<!--", i)) {
+                        int commentEnd = text.indexOf("-->", i + 4);
+                        i = (commentEnd > -1 ? commentEnd + 3 : tagEnd + 1);
+                    } else if (isTagNamed(text, i, "script") || isTagNamed(text, i, "style")) {
+                        i = skipElement(text, i, tagEnd);
+                    } else {
+                        if (text.startsWith("<br", i) || (breakOnParagraph && text.startsWith("<p", i))) {
+                            if (sb.length() > 0)
+                                sb.append('\n');
+                        }
+                        i = tagEnd + 1;
+                    }
+                    continue;
+                }
+            } else if (c == '&') {
+                int entityEnd = findEntityEnd(text, i);
+                if (entityEnd > -1) {
+                    sb.append(unescapeEntity(text.substring(i, entityEnd + 1)));
+                    trimmedLength = sb.length();
+                    i = entityEnd + 1;
+                    continue;
+                }
+            }
+
+            // leading whitespace is skipped, trailing whitespace is removed below
+            if (c > ' ') {
+                sb.append(c);
+                trimmedLength = sb.length();
+            } else if (sb.length() > 0) {
+                sb.append(c);
+            }
+            i++;
+        }
+
+        if (maxLength > 0 && trimmedLength > maxLength)
+            trimmedLength = maxLength;
+        sb.setLength(trimmedLength);
+        return sb.toString();
+    }
+
+    /*
+     * returns true if the tag starting at the passed position has the passed name
+     */
+    private static boolean isTagNamed(String text, int tagStart, String name) {
+        if (!text.regionMatches(true, tagStart + 1, name, 0, name.length()))
+            return false;
+        int nameEnd = tagStart + 1 + name.length();
+        if (nameEnd >= text.length())
+            return false;
+        char c = text.charAt(nameEnd);
+        return (c == '>' || c == '/' || c <= ' ');
+    }
+
+    /*
+     * returns the position following the closing tag of the script or style element starting
+     * at the passed position - if there's no closing tag only the opening tag is skipped
+     */
+    private static int skipElement(String text, int tagStart, int tagEnd) {
+        int nameEnd = tagStart + 1;
+        while (nameEnd < text.length() && Character.isLetter(text.charAt(nameEnd)))
+            nameEnd++;
+        String closingTag = "</" + text.substring(tagStart + 1, nameEnd);
+        for (int i = text.indexOf("</", tagEnd); i > -1; i = text.indexOf("</", i + 2)) {
+            if (text.regionMatches(true, i, closingTag, 0, closingTag.length())) {
+                int closeEnd = text.indexOf('>', i);
+                return (closeEnd > -1 ? closeEnd + 1 : text.length());
+            }
+        }
+        return tagEnd + 1;
+    }
 
-        // convert BR tags to line breaks
-        if (text.contains("<br"))
-            text = text.replaceAll("<br(.|\n)*?>","\n");
+    /*
+     * returns the position of the semicolon ending the entity starting at the passed position,
+     * or -1 if this isn't an entity
+     */
+    private static final int MAX_ENTITY_LENGTH = 12;
+    private static int findEntityEnd(String text, int entityStart) {
+        int maxEnd = Math.min(text.length(), entityStart + MAX_ENTITY_LENGTH);
+        for (int i = entityStart + 1; i < maxEnd; i++) {
+            char c = text.charAt(i);
+            if (c == ';')
+                return (i > entityStart + 1 ? i : -1);
+            if (c == '&' || c == '<' || c <= ' ')
+                return -1;
+        }
+        return -1;
+    }
 
-        // use regex to strip tags, then convert entities in the result
-        return fastUnescapeHtml(text.replaceAll("<(.|\n)*?>", "").trim());
+    /*
+     * converts a single entity, handling the most common ones here and passing the rest to
+     * commons lang (which returns the entity unchanged if it's not recognized)
+     */
+    private static String unescapeEntity(String entity) {
+        if (entity.equals("&amp;"))
+            return "&";
+        if (entity.equals("&quot;"))
+            return "\"";
+        if (entity.equals("&lt;"))
+            return "<";
+        if (entity.equals("&gt;"))
+            return ">";
+        if (entity.equals("&nbsp;"))
+            return "\u00A0";
+        if (entity.equals("&#39;") || entity.equals("&#039;"))
+            return "'";
+        return StringEscapeUtils.unescapeHtml(entity);
     }
 
     /*
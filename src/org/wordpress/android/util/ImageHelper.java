@@ -20,13 +20,13 @@ import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.wordpress.android.WordPress;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.CrashlyticsUtils.ExceptionType;
 import org.wordpress.android.util.CrashlyticsUtils.ExtraKey;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.ref.WeakReference;
@@ -205,6 +205,9 @@ public class ImageHelper {
             bfo.inSampleSize = calculateInSampleSize(bfo, targetWidth, targetHeight);
             bfo.inJustDecodeBounds = false;
 
+            // decode into a bitmap evicted from the cache when one fits
+            BitmapPool bitmapPool = WordPress.getBitmapCache().getBitmapPool();
+
             // get proper rotation
             int bitmapWidth = 0;
             int bitmapHeight = 0;
@@ -214,7 +217,7 @@ public class ImageHelper {
                 int orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
                 int angle = 0;
                 if (orientation == ExifInterface.ORIENTATION_NORMAL) { // no need to rotate
-                    return BitmapFactory.decodeFile(path, bfo);
+                    return bitmapPool.decodeFile(path, bfo);
                 } else if (orientation == ExifInterface.ORIENTATION_ROTATE_90) {
                     angle = 90;
                 } else if (orientation == ExifInterface.ORIENTATION_ROTATE_180) {
@@ -227,14 +230,19 @@ public class ImageHelper {
                 mat.postRotate(angle);
 
                 try {
-                    Bitmap bmp = BitmapFactory.decodeStream(new FileInputStream(f), null, bfo);
+                    Bitmap bmp = bitmapPool.decodeFile(f.getPath(), bfo);
                     if (bmp == null) {
                         AppLog.e(T.UTILS, "can't decode bitmap: " + f.getPath());
                         return null;
                     }
                     bitmapWidth = bmp.getWidth();
                     bitmapHeight = bmp.getHeight();
-                    return Bitmap.createBitmap(bmp, 0, 0, bmp.getWidth(), bmp.getHeight(), mat, true);
+                    Bitmap rotated = Bitmap.createBitmap(bmp, 0, 0, bmp.getWidth(), bmp.getHeight(), mat, true);
+                    // the unrotated bitmap was never shown, so it can be reused right away
+                    if (rotated != bmp) {
+                        WordPress.getBitmapCache().addToPool(bmp);
+                    }
+                    return rotated;
                 } catch (OutOfMemoryError oom) {
                     CrashlyticsUtils.setInt(ExtraKey.IMAGE_ANGLE, angle);
                     CrashlyticsUtils.setInt(ExtraKey.IMAGE_WIDTH, bitmapWidth);
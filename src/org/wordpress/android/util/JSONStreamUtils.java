@@ -0,0 +1,94 @@
+package org.wordpress.android.util;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+/**
+ * Helpers for reading json with a pull parser. Large responses (ex: a list of posts) are read
+ * one element at a time, with each element converted to a JSONObject so the existing
+ * fromJson() routines can be used - this way only a single element's JSONObject is in memory
+ * at any time rather than a tree for the entire response.
+ */
+public class JSONStreamUtils {
+    private JSONStreamUtils() {
+        throw new AssertionError();
+    }
+
+    /*
+     * reads the object at the reader's current position
+     */
+    public static JSONObject readObject(JsonReader reader) throws IOException {
+        JSONObject json = new JSONObject();
+        reader.beginObject();
+        try {
+            while (reader.hasNext()) {
+                json.put(reader.nextName(), readValue(reader));
+            }
+        } catch (JSONException e) {
+            // only thrown by put() when passed a NaN or infinite number
+            throw new IOException(e.getMessage());
+        }
+        reader.endObject();
+        return json;
+    }
+
+    /*
+     * reads the array at the reader's current position
+     */
+    public static JSONArray readArray(JsonReader reader) throws IOException {
+        JSONArray json = new JSONArray();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            json.put(readValue(reader));
+        }
+        reader.endArray();
+        return json;
+    }
+
+    private static Object readValue(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        switch (token) {
+            case BEGIN_OBJECT:
+                return readObject(reader);
+            case BEGIN_ARRAY:
+                return readArray(reader);
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NUMBER:
+                return readNumber(reader.nextString());
+            case NULL:
+                reader.nextNull();
+                return JSONObject.NULL;
+            default:
+                return reader.nextString();
+        }
+    }
+
+    /*
+     * matches the types org.json uses for numbers so getLong(), optInt(), etc. behave the same
+     */
+    private static Object readNumber(String value) {
+        if (value.indexOf('.') == -1 && value.indexOf('e') == -1 && value.indexOf('E') == -1) {
+            try {
+                long longValue = Long.parseLong(value);
+                if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+                    return (int) longValue;
+                }
+                return longValue;
+            } catch (NumberFormatException e) {
+                // fall through to double
+            }
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.wordpress.android.util;
+
+import android.os.Process;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared, bounded executor for CPU-bound parsing of network responses (ex: turning a list of
+ * posts into models). Threads run at background priority and time out when idle, and when
+ * the queue is full the task is run on the calling thread rather than being rejected.
+ */
+public class ParsingExecutor {
+    private static final int MAX_THREADS = 4;
+    private static final int MAX_QUEUED_TASKS = 64;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final int NUM_THREADS =
+            Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+
+    private static ThreadPoolExecutor mExecutor;
+
+    private ParsingExecutor() {
+        throw new AssertionError();
+    }
+
+    /*
+     * number of threads work can be spread across - callers use this to decide how to chunk work
+     */
+    public static int getNumThreads() {
+        return NUM_THREADS;
+    }
+
+    public static synchronized ExecutorService getExecutor() {
+        if (mExecutor == null) {
+            mExecutor = new ThreadPoolExecutor(
+                    NUM_THREADS,
+                    NUM_THREADS,
+                    KEEP_ALIVE_SECONDS,
+                    TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(MAX_QUEUED_TASKS),
+                    new ParsingThreadFactory(),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            mExecutor.allowCoreThreadTimeOut(true);
+        }
+        return mExecutor;
+    }
+
+    private static class ParsingThreadFactory implements ThreadFactory {
+        private final AtomicInteger mCount = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "ParsingExecutor #" + mCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -24,7 +24,46 @@ public class PhotonUtils {
             return getPhotonImageUrl(imageUrl, avatarSz, avatarSz);
 
         // remove all other params, then add query string for size and "mystery man" default
-        return UrlUtils.removeQuery(imageUrl) + String.format("?s=%d&d=mm", avatarSz);
+        return UrlUtils.removeQuery(imageUrl) + String.format("?s=%d&d=mm", getSizeBucket(avatarSz));
+    }
+
+    /*
+     * requested image sizes are rounded up to one of these so views of similar sizes request
+     * (and cache) the same image rather than each getting their own copy - steps are about 25%
+     * apart so an image is never much larger than the view showing it
+     */
+    private static final int[] SIZE_BUCKETS =
+            {16, 24, 32, 40, 48, 64, 80, 96, 120, 150, 190, 240, 300, 380, 480, 600, 750, 1000};
+
+    public static int getSizeBucket(int size) {
+        if (size <= 0) {
+            return size;
+        }
+        for (int bucket: SIZE_BUCKETS) {
+            if (bucket >= size) {
+                return bucket;
+            }
+        }
+        return size;
+    }
+
+    /*
+     * returns the passed image url without its scheme, query, or photon host, so the same image
+     * has the same source url no matter how it was requested
+     */
+    public static String getSourceImageUrl(String imageUrl) {
+        if (TextUtils.isEmpty(imageUrl)) {
+            return "";
+        }
+        String source = UrlUtils.removeQuery(imageUrl);
+        int schemePos = source.indexOf("://");
+        if (schemePos != -1) {
+            source = source.substring(schemePos + 3);
+        }
+        if (source.matches("^i[0-9]\\.wp\\.com/.*")) {
+            source = source.substring(source.indexOf('/') + 1);
+        }
+        return source;
     }
 
     /*
@@ -68,6 +107,24 @@ public class PhotonUtils {
             return imageUrl + String.format("?w=%d&h=%d", width, height);
         }
 
+        // round the size up to a bucket so similar requests share the same url - when both
+        // width & height are passed the larger is rounded and the other scaled to keep the
+        // aspect ratio of the crop
+        if (width > 0 && height > 0) {
+            if (width >= height) {
+                int bucket = getSizeBucket(width);
+                height = Math.round(height * (bucket / (float) width));
+                width = bucket;
+            } else {
+                int bucket = getSizeBucket(height);
+                width = Math.round(width * (bucket / (float) height));
+                height = bucket;
+            }
+        } else {
+            width = getSizeBucket(width);
+            height = getSizeBucket(height);
+        }
+
         // photon fails with images larger than the max, so enforce a max size
         // TODO: revisit this when photon increases the max - https://code.trac.wordpress.org/ticket/47
         if (width > MAX_PHOTON_SZ) {
@@ -90,17 +147,13 @@ public class PhotonUtils {
             query = "";
         }
 
-        // return passed url+query if it's already a photon url
-        if (imageUrl.contains(".wp.com")) {
-            if (imageUrl.contains("i0.wp.com") || imageUrl.contains("i1.wp.com") || imageUrl.contains("i2.wp.com"))
-                return imageUrl + query;
-        }
-
-        // must use https for https image urls
+        // existing photon urls (which may use any of the i0/i1/i2 hosts) are rebuilt on i0 so
+        // the same image always has the same url - must use https for https image urls
+        String source = getSourceImageUrl(imageUrl);
         if (UrlUtils.isHttps(imageUrl)) {
-            return "https://i0.wp.com/" + imageUrl.substring(schemePos+3, imageUrl.length()) + query;
+            return "https://i0.wp.com/" + source + query;
         } else {
-            return "http://i0.wp.com/" + imageUrl.substring(schemePos+3, imageUrl.length()) + query;
+            return "http://i0.wp.com/" + source + query;
         }
     }
 }
@@ -0,0 +1,330 @@
+package org.wordpress.android.util;
+
+import android.content.Context;
+import android.text.TextUtils;
+
+import com.android.volley.Cache;
+
+import org.wordpress.android.WordPress;
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * disk cache of images and rendered html used to read posts offline - filled by
+ * ReaderOfflinePackService, and read when a post is displayed. files are named by a hash of
+ * their key and the least-recently used files are deleted once the cache exceeds its budget.
+ * lookups are counted so the hit rate can be logged and inspected.
+ */
+public class ReaderOfflineCache {
+    private static final String CACHE_DIR_NAME = "reader_offline";
+    private static final long MAX_CACHE_BYTES = 30 * 1024 * 1024;
+
+    // largest file that's downloaded, and how long a download may stall before it's abandoned
+    private static final long MAX_DOWNLOAD_BYTES = 5 * 1024 * 1024;
+    private static final int DOWNLOAD_TIMEOUT_MS = 30 * 1000;
+
+    // how long images copied into Volley's cache are considered fresh
+    private static final long VOLLEY_ENTRY_TTL_MS = 7 * 24 * 60 * 60 * 1000L;
+
+    private static final AtomicInteger mNumHits = new AtomicInteger();
+    private static final AtomicInteger mNumMisses = new AtomicInteger();
+
+    private ReaderOfflineCache() {
+        throw new AssertionError();
+    }
+
+    private static File getCacheDir() {
+        Context context = WordPress.getContext();
+        if (context == null) {
+            return null;
+        }
+        File dir = new File(context.getCacheDir(), CACHE_DIR_NAME);
+        if (!dir.exists() && !dir.mkdirs()) {
+            return null;
+        }
+        return dir;
+    }
+
+    private static File getFileForKey(String key) {
+        File dir = getCacheDir();
+        if (dir == null || TextUtils.isEmpty(key)) {
+            return null;
+        }
+        return new File(dir, StringUtils.getMd5Hash(key));
+    }
+
+    public static boolean contains(String key) {
+        File file = getFileForKey(key);
+        return (file != null && file.exists());
+    }
+
+    /*
+     * returns the cached file for the passed key, or null if it's not cached - this counts
+     * toward the hit rate, so only call it when the content is actually needed
+     */
+    public static File getFile(String key) {
+        File file = getFileForKey(key);
+        if (file == null || !file.exists()) {
+            mNumMisses.incrementAndGet();
+            return null;
+        }
+        mNumHits.incrementAndGet();
+        // last-modified time is used to determine which files were least recently used
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    public static String getString(String key) {
+        File file = getFile(key);
+        if (file == null) {
+            return null;
+        }
+        try {
+            return new String(readFile(file), "UTF-8");
+        } catch (IOException e) {
+            AppLog.e(T.READER, e);
+            return null;
+        }
+    }
+
+    public static void putString(String key, String value) {
+        if (value == null) {
+            return;
+        }
+        try {
+            writeFile(key, value.getBytes("UTF-8"));
+        } catch (IOException e) {
+            AppLog.e(T.READER, e);
+        }
+    }
+
+    /*
+     * downloads the passed url and stores it using the passed key (which is usually the url
+     * itself, but may be the original url of a resized image) - must be called from a
+     * background thread. the download is streamed to a temp file that's only renamed once
+     * it's complete, and it's abandoned if it stalls or is larger than MAX_DOWNLOAD_BYTES
+     */
+    public static boolean download(String key, String url) {
+        if (TextUtils.isEmpty(key) || TextUtils.isEmpty(url)) {
+            return false;
+        }
+        File file = getFileForKey(key);
+        if (file == null) {
+            return false;
+        }
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        HttpURLConnection conn = null;
+        InputStream in = null;
+        OutputStream out = null;
+        boolean succeeded = false;
+        try {
+            conn = (HttpURLConnection) new URL(url).openConnection();
+            conn.setConnectTimeout(DOWNLOAD_TIMEOUT_MS);
+            conn.setReadTimeout(DOWNLOAD_TIMEOUT_MS);
+            if (conn.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                return false;
+            }
+            if (conn.getContentLength() > MAX_DOWNLOAD_BYTES) {
+                AppLog.w(T.READER, "offline cache > skipped large download " + url);
+                return false;
+            }
+            in = conn.getInputStream();
+            out = new FileOutputStream(tempFile);
+            byte[] buffer = new byte[8192];
+            long totalRead = 0;
+            int numRead;
+            while ((numRead = in.read(buffer)) != -1) {
+                // content-length may be missing or wrong, so the size is also checked while reading
+                totalRead += numRead;
+                if (totalRead > MAX_DOWNLOAD_BYTES) {
+                    AppLog.w(T.READER, "offline cache > skipped large download " + url);
+                    return false;
+                }
+                out.write(buffer, 0, numRead);
+            }
+            closeQuietly(out);
+            out = null;
+            succeeded = tempFile.renameTo(file);
+            return succeeded;
+        } catch (IOException e) {
+            AppLog.w(T.READER, "offline cache > failed to download " + url);
+            return false;
+        } finally {
+            closeQuietly(in);
+            closeQuietly(out);
+            if (!succeeded) {
+                tempFile.delete();
+            }
+            if (conn != null) {
+                conn.disconnect();
+            }
+        }
+    }
+
+    /*
+     * copies the cached image with the passed key into Volley's disk cache as the passed url so
+     * it can be shown by WPNetworkImageView without a network request - must be called from a
+     * background thread
+     */
+    public static void copyToVolleyCache(String key, String url) {
+        if (TextUtils.isEmpty(key) || TextUtils.isEmpty(url) || WordPress.requestQueue == null) {
+            return;
+        }
+        Cache volleyCache = WordPress.requestQueue.getCache();
+        Cache.Entry existing = volleyCache.get(url);
+        if (existing != null && !existing.isExpired()) {
+            return;
+        }
+
+        File file = getFile(key);
+        if (file == null) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            Cache.Entry entry = new Cache.Entry();
+            entry.data = readFile(file);
+            entry.serverDate = now;
+            entry.ttl = now + VOLLEY_ENTRY_TTL_MS;
+            entry.softTtl = entry.ttl;
+            entry.responseHeaders = Collections.emptyMap();
+            volleyCache.put(url, entry);
+        } catch (IOException e) {
+            AppLog.e(T.READER, e);
+        }
+    }
+
+    /*
+     * deletes the least-recently used files until the cache is within its budget
+     */
+    public static void trimToSize() {
+        File dir = getCacheDir();
+        File[] files = (dir != null ? dir.listFiles() : null);
+        if (files == null) {
+            return;
+        }
+
+        long totalBytes = 0;
+        for (File file: files) {
+            totalBytes += file.length();
+        }
+        if (totalBytes <= MAX_CACHE_BYTES) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                long diff = file1.lastModified() - file2.lastModified();
+                return (diff < 0 ? -1 : (diff > 0 ? 1 : 0));
+            }
+        });
+        int numDeleted = 0;
+        for (File file: files) {
+            if (totalBytes <= MAX_CACHE_BYTES) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                totalBytes -= length;
+                numDeleted++;
+            }
+        }
+        AppLog.d(T.READER, String.format("offline cache > trimmed %d files", numDeleted));
+    }
+
+    public static void clear() {
+        File dir = getCacheDir();
+        File[] files = (dir != null ? dir.listFiles() : null);
+        if (files != null) {
+            for (File file: files) {
+                file.delete();
+            }
+        }
+        resetStats();
+    }
+
+    /*
+     * hit-rate statistics since the app started (or since they were last reset)
+     */
+    public static int getNumHits() {
+        return mNumHits.get();
+    }
+    public static int getNumMisses() {
+        return mNumMisses.get();
+    }
+    public static float getHitRate() {
+        int hits = mNumHits.get();
+        int total = hits + mNumMisses.get();
+        return (total > 0 ? (float) hits / total : 0f);
+    }
+    public static void resetStats() {
+        mNumHits.set(0);
+        mNumMisses.set(0);
+    }
+    public static String getStatsDescription() {
+        return String.format("%d hits, %d misses (%.0f%% hit rate)",
+                getNumHits(), getNumMisses(), getHitRate() * 100);
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[8192];
+            int numRead;
+            while ((numRead = in.read(buffer)) != -1) {
+                out.write(buffer, 0, numRead);
+            }
+            return out.toByteArray();
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /*
+     * writes to a temp file first so a partially-written file is never read
+     */
+    private static void writeFile(String key, byte[] data) throws IOException {
+        File file = getFileForKey(key);
+        if (file == null) {
+            throw new IOException("offline cache unavailable");
+        }
+        File tempFile = new File(file.getPath() + ".tmp");
+        OutputStream out = new FileOutputStream(tempFile);
+        try {
+            out.write(data);
+        } finally {
+            closeQuietly(out);
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("unable to write offline cache file");
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // nop
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.wordpress.android.util;
+
+import android.app.IntentService;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.preference.PreferenceManager;
+
+import org.wordpress.android.R;
+import org.wordpress.android.datasets.ReaderPostTable;
+import org.wordpress.android.datasets.ReaderTagTable;
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+import org.wordpress.android.models.ReaderTag;
+import org.wordpress.android.ui.reader.ReaderPostRenderer;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the "offline pack" - the newest posts in each followed tag are rendered and their
+ * images are downloaded (resized by Photon to fit the display) into ReaderOfflineCache, so
+ * these posts can be opened without a network request. Post bodies are already stored with
+ * each post when its tag is updated, so only rendered html and images are cached here. The
+ * pack is only built on Wi-Fi, or on an unmetered connection while charging, and at most
+ * every few hours. The reader starts this once per session, and it's also started when the
+ * device is connected to power.
+ */
+public class ReaderOfflinePackService extends IntentService {
+    private static final int MAX_POSTS_PER_TAG = 10;
+    private static final String PREFKEY_LAST_OFFLINE_PACK = "reader_last_offline_pack";
+    private static final long OFFLINE_PACK_INTERVAL = 4 * 60 * 60 * 1000;
+
+    private static final Pattern IMG_SRC_PATTERN =
+            Pattern.compile("<img[^>]+src\\s*=\\s*['\"]([^'\"]+)['\"]", Pattern.CASE_INSENSITIVE);
+
+    public ReaderOfflinePackService() {
+        super("ReaderOfflinePackService");
+    }
+
+    public static void startService(Context context) {
+        if (context == null)
+            return;
+        context.startService(new Intent(context, ReaderOfflinePackService.class));
+    }
+
+    /*
+     * registered in the manifest to build the pack when the device is connected to power
+     */
+    public static class PowerConnectedReceiver extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            startService(context);
+        }
+    }
+
+    @Override
+    protected void onHandleIntent(Intent intent) {
+        if (!canBuildPack()) {
+            AppLog.d(T.READER, "offline pack > skipped, no unmetered connection");
+            return;
+        }
+        if (!isPackDue()) {
+            return;
+        }
+
+        try {
+            buildPack();
+            getPrefs().edit().putLong(PREFKEY_LAST_OFFLINE_PACK, System.currentTimeMillis()).commit();
+        } catch (RuntimeException e) {
+            // the pack is best-effort, never crash the app because of it
+            AppLog.e(T.READER, "offline pack failed", e);
+        }
+    }
+
+    private void buildPack() {
+        android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_BACKGROUND);
+
+        int imageWidth = ReaderPostRenderer.getFullSizeImageWidth(this);
+        int avatarSz = getResources().getDimensionPixelSize(R.dimen.avatar_sz_medium);
+        Set<String> packedPostKeys = new HashSet<String>();
+        int numPosts = 0;
+        int numImages = 0;
+
+        for (ReaderTag tag: ReaderTagTable.getFollowedTags()) {
+            // posts loaded for lists don't include the text, so each is loaded in full below
+            ReaderPostList listPosts = ReaderPostTable.getPostsWithTag(tag.getTagName(), MAX_POSTS_PER_TAG);
+            for (ReaderPost listPost: listPosts) {
+                // the same post may appear in more than one tag
+                if (!packedPostKeys.add(listPost.blogId + ":" + listPost.postId)) {
+                    continue;
+                }
+                // images in private posts require authentication
+                ReaderPost post = ReaderPostTable.getPost(listPost.blogId, listPost.postId);
+                if (post == null || post.isPrivate) {
+                    continue;
+                }
+                // stop if the connection changed to a metered one while building the pack
+                if (!canBuildPack()) {
+                    AppLog.i(T.READER, "offline pack > stopped, connection changed");
+                    return;
+                }
+
+                numImages += packPost(post, imageWidth, avatarSz);
+                numPosts++;
+            }
+            ReaderOfflineCache.trimToSize();
+        }
+
+        AppLog.i(T.READER, String.format("offline pack > packed %d posts, downloaded %d images", numPosts, numImages));
+        AppLog.i(T.READER, "offline pack > cache " + ReaderOfflineCache.getStatsDescription());
+    }
+
+    /*
+     * renders the passed post and downloads its images, returns the number of images downloaded
+     */
+    private int packPost(ReaderPost post, int imageWidth, int avatarSz) {
+        String html = ReaderPostRenderer.addPostHtmlToOfflineCache(this, post);
+
+        int numImages = 0;
+        Matcher matcher = IMG_SRC_PATTERN.matcher(html);
+        while (matcher.find()) {
+            // the webView requests the decoded url, so that's what the image is stored as
+            String imageUrl = matcher.group(1).replace("&amp;", "&");
+            if (packImage(imageUrl, imageWidth)) {
+                numImages++;
+            }
+        }
+        // the featured image and avatar are shown outside the content
+        if (post.hasFeaturedImage() && packImage(post.getFeaturedImage(), imageWidth)) {
+            numImages++;
+        }
+        if (post.hasPostAvatar() && packImage(post.getPostAvatarForDisplay(avatarSz), 0)) {
+            numImages++;
+        }
+        return numImages;
+    }
+
+    /*
+     * downloads the passed image if it's not already cached - images are stored under their
+     * original url (which is what appears in the post) but downloaded through Photon at the
+     * width they're displayed, pass zero as the width for images that are already sized
+     */
+    private boolean packImage(String imageUrl, int imageWidth) {
+        if (imageUrl == null || !imageUrl.startsWith("http") || ReaderOfflineCache.contains(imageUrl)) {
+            return false;
+        }
+        String downloadUrl = (imageWidth > 0 ? PhotonUtils.getPhotonImageUrl(imageUrl, imageWidth, 0) : imageUrl);
+        return ReaderOfflineCache.download(imageUrl, downloadUrl);
+    }
+
+    private SharedPreferences getPrefs() {
+        return PreferenceManager.getDefaultSharedPreferences(this);
+    }
+
+    private boolean isPackDue() {
+        long lastRun = getPrefs().getLong(PREFKEY_LAST_OFFLINE_PACK, 0);
+        return (System.currentTimeMillis() - lastRun) > OFFLINE_PACK_INTERVAL;
+    }
+
+    /*
+     * the pack may only be built on Wi-Fi, or on an unmetered connection while charging
+     */
+    private boolean canBuildPack() {
+        if (NetworkUtils.isWiFiConnected(this)) {
+            return true;
+        }
+        if (!NetworkUtils.isNetworkAvailable(this) || !isCharging()) {
+            return false;
+        }
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            // can't tell whether other connections are metered
+            return false;
+        }
+        ConnectivityManager cm = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+        return (cm != null && !cm.isActiveNetworkMetered());
+    }
+
+    private boolean isCharging() {
+        Intent batteryStatus = registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        return (batteryStatus != null && batteryStatus.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0);
+    }
+}
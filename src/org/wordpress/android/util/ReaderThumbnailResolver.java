@@ -0,0 +1,173 @@
+package org.wordpress.android.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+
+import org.wordpress.android.datasets.ReaderThumbnailTable;
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * resolves thumbnails for Vimeo videos in reader posts (YouTube thumbnails don't require a
+ * network request) - posts are passed here when they're downloaded so their thumbnails are
+ * usually available by the time they're displayed. only a few thumbnails are requested at a
+ * time, and results are stored in ReaderThumbnailTable - including videos that don't have a
+ * thumbnail, so they aren't requested again until that result expires.
+ */
+public class ReaderThumbnailResolver {
+    private static final int MAX_CONCURRENT_REQUESTS = 2;
+
+    public interface ThumbnailListener {
+        void onThumbnailResolved(String videoUrl, String thumbnailUrl);
+    }
+
+    private static final Handler mHandler = new Handler(Looper.getMainLooper());
+    private static final Object mLock = new Object();
+
+    // videos waiting to be requested (mapped to their postId), in the order they were added
+    private static final LinkedHashMap<String, Long> mPendingVideos = new LinkedHashMap<String, Long>();
+
+    // listeners waiting on specific videos, keyed by video url
+    private static final HashMap<String, List<ThumbnailListener>> mListeners =
+            new HashMap<String, List<ThumbnailListener>>();
+
+    private static int mNumActiveRequests = 0;
+
+    private ReaderThumbnailResolver() {
+        throw new AssertionError();
+    }
+
+    /*
+     * queues the featured videos in the passed posts that haven't already been resolved - may
+     * be called from any thread, and should be called from a background thread when passing a
+     * large list since it queries the db
+     */
+    public static void resolveThumbnailsForPosts(List<ReaderPost> posts) {
+        if (posts == null || posts.size() == 0) {
+            return;
+        }
+
+        Map<String, Long> videos = new HashMap<String, Long>();
+        for (ReaderPost post: posts) {
+            String videoUrl = post.getFeaturedVideo();
+            if (ReaderVideoUtils.isVimeoLink(videoUrl)) {
+                videos.put(videoUrl, post.postId);
+            }
+        }
+        if (videos.size() == 0) {
+            return;
+        }
+
+        Set<String> unresolvedUrls = ReaderThumbnailTable.getUnresolvedUrls(videos.keySet());
+        if (unresolvedUrls.size() == 0) {
+            return;
+        }
+
+        synchronized (mLock) {
+            for (String videoUrl: unresolvedUrls) {
+                if (!mPendingVideos.containsKey(videoUrl)) {
+                    mPendingVideos.put(videoUrl, videos.get(videoUrl));
+                }
+            }
+        }
+        AppLog.d(T.READER, String.format("thumbnail resolver > queued %d videos", unresolvedUrls.size()));
+        startRequests();
+    }
+
+    /*
+     * called when a video is displayed whose thumbnail isn't known - the passed listener is
+     * called on the UI thread once it's resolved, unless the video doesn't have a thumbnail
+     */
+    public static void resolveThumbnail(long postId, String videoUrl, ThumbnailListener listener) {
+        if (!ReaderVideoUtils.isVimeoLink(videoUrl)) {
+            return;
+        }
+        if (ReaderThumbnailTable.isThumbnailResolved(videoUrl)) {
+            // this video doesn't have a thumbnail (otherwise the caller would have found it)
+            return;
+        }
+
+        synchronized (mLock) {
+            if (listener != null) {
+                List<ThumbnailListener> listeners = mListeners.get(videoUrl);
+                if (listeners == null) {
+                    listeners = new ArrayList<ThumbnailListener>();
+                    mListeners.put(videoUrl, listeners);
+                }
+                listeners.add(listener);
+            }
+            if (!mPendingVideos.containsKey(videoUrl)) {
+                mPendingVideos.put(videoUrl, postId);
+            }
+        }
+        startRequests();
+    }
+
+    /*
+     * starts requests for pending videos until the concurrency limit is reached
+     */
+    private static void startRequests() {
+        while (true) {
+            final String videoUrl;
+            final long postId;
+            synchronized (mLock) {
+                if (mNumActiveRequests >= MAX_CONCURRENT_REQUESTS || mPendingVideos.isEmpty()) {
+                    return;
+                }
+                Map.Entry<String, Long> entry = mPendingVideos.entrySet().iterator().next();
+                videoUrl = entry.getKey();
+                postId = entry.getValue();
+                mPendingVideos.remove(videoUrl);
+                mNumActiveRequests++;
+            }
+
+            ReaderVideoUtils.requestVimeoThumbnail(videoUrl, new ReaderVideoUtils.VideoThumbnailListener() {
+                @Override
+                public void onResponse(boolean successful, String thumbnailUrl) {
+                    // note that failed requests are stored as missing thumbnails so they're
+                    // retried once that result expires rather than every time they're shown
+                    if (successful) {
+                        ReaderThumbnailTable.addThumbnail(postId, videoUrl, thumbnailUrl);
+                    } else {
+                        ReaderThumbnailTable.addMissingThumbnail(postId, videoUrl);
+                    }
+
+                    final List<ThumbnailListener> listeners;
+                    synchronized (mLock) {
+                        mNumActiveRequests--;
+                        listeners = mListeners.remove(videoUrl);
+                    }
+                    if (successful && listeners != null) {
+                        notifyListeners(listeners, videoUrl, thumbnailUrl);
+                    }
+
+                    startRequests();
+                }
+            });
+        }
+    }
+
+    private static void notifyListeners(final List<ThumbnailListener> listeners,
+                                        final String videoUrl,
+                                        final String thumbnailUrl) {
+        if (TextUtils.isEmpty(thumbnailUrl)) {
+            return;
+        }
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (ThumbnailListener listener: listeners) {
+                    listener.onThumbnailResolved(videoUrl, thumbnailUrl);
+                }
+            }
+        });
+    }
+}
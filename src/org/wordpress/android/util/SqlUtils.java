@@ -1,5 +1,6 @@
 package org.wordpress.android.util;
 
+import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
@@ -8,7 +9,10 @@ import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteStatement;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SqlUtils {
     private SqlUtils() {
@@ -69,6 +73,169 @@ public class SqlUtils {
         }
     }
 
+    /*
+     * large text columns may be stored compressed (see CompressionUtils) - text which is too
+     * short to benefit from compression is stored as-is, so readers must use getCompressedText()
+     * or getCompressedBlob() rather than getString()
+     */
+    public static void bindCompressedText(SQLiteStatement stmt, int index, String text) {
+        byte[] compressed = CompressionUtils.compressText(text);
+        if (compressed != null) {
+            stmt.bindBlob(index, compressed);
+        } else {
+            stmt.bindString(index, StringUtils.notNullStr(text));
+        }
+    }
+
+    public static void putCompressedText(ContentValues values, String key, String text) {
+        byte[] compressed = CompressionUtils.compressText(text);
+        if (compressed != null) {
+            values.put(key, compressed);
+        } else {
+            values.put(key, text);
+        }
+    }
+
+    public static String getCompressedText(Cursor c, int columnIndex) {
+        if (c.getType(columnIndex) == Cursor.FIELD_TYPE_BLOB) {
+            return CompressionUtils.decompressText(c.getBlob(columnIndex));
+        }
+        return c.getString(columnIndex);
+    }
+
+    /*
+     * returns the still-compressed data in the passed column, or null if the column isn't
+     * compressed - enables callers to defer decompression until the text is actually needed
+     */
+    public static byte[] getCompressedBlob(Cursor c, int columnIndex) {
+        if (c.getType(columnIndex) == Cursor.FIELD_TYPE_BLOB) {
+            byte[] data = c.getBlob(columnIndex);
+            if (CompressionUtils.isCompressed(data))
+                return data;
+        }
+        return null;
+    }
+
+    /*
+     * placeholder in sql passed to the set membership helpers below - it's replaced with either
+     * a list of bound parameters or a subquery on a temp table containing the set's values, so
+     * it must follow an IN (ex: "SELECT ... WHERE user_id IN {set}"). any other args must appear
+     * in the sql before the placeholder.
+     */
+    public static final String SET_PLACEHOLDER = "{set}";
+
+    // SQLite's default limit on the number of bound parameters in a single statement
+    private static final int MAX_PARAMS_PER_STATEMENT = 999;
+
+    // sets larger than this are written to a temp table rather than queried in chunks
+    private static final int TEMP_TABLE_THRESHOLD = 2500;
+    private static final AtomicInteger mTempTableId = new AtomicInteger();
+
+    public interface RowHandler {
+        void onRow(Cursor c);
+    }
+
+    /*
+     * runs the passed query for every value in the passed set, which may be of any size, and
+     * calls the handler for each resulting row - note that if the set is queried in chunks
+     * any ORDER BY or LIMIT in the query applies to each chunk rather than the entire result
+     */
+    public static void queryInSet(SQLiteDatabase db,
+                                  String sql,
+                                  String[] args,
+                                  Collection<?> values,
+                                  RowHandler handler) {
+        if (values == null || values.size() == 0)
+            return;
+
+        List<Object> distinctValues = new ArrayList<Object>(new LinkedHashSet<Object>(values));
+        if (distinctValues.size() > TEMP_TABLE_THRESHOLD) {
+            queryInTempTable(db, sql, args, distinctValues, handler);
+            return;
+        }
+
+        int numArgs = (args != null ? args.length : 0);
+        int chunkSize = MAX_PARAMS_PER_STATEMENT - numArgs;
+        for (int start = 0; start < distinctValues.size(); start += chunkSize) {
+            int end = Math.min(distinctValues.size(), start + chunkSize);
+            String[] chunkArgs = new String[numArgs + (end - start)];
+            if (numArgs > 0)
+                System.arraycopy(args, 0, chunkArgs, 0, numArgs);
+
+            StringBuilder params = new StringBuilder("(");
+            for (int i = start; i < end; i++) {
+                if (i > start)
+                    params.append(',');
+                params.append('?');
+                chunkArgs[numArgs + i - start] = distinctValues.get(i).toString();
+            }
+            params.append(')');
+
+            queryRows(db, sql.replace(SET_PLACEHOLDER, params), chunkArgs, handler);
+        }
+    }
+
+    /*
+     * runs a "SELECT COUNT(*) ... IN {set}" query for the passed set, which may be of any size
+     */
+    public static int countInSet(SQLiteDatabase db, String sql, String[] args, Collection<?> values) {
+        final int[] count = {0};
+        queryInSet(db, sql, args, values, new RowHandler() {
+            @Override
+            public void onRow(Cursor c) {
+                count[0] += c.getInt(0);
+            }
+        });
+        return count[0];
+    }
+
+    /*
+     * writes the values to a temp table and runs the query once against it - the temp table
+     * is created inside a transaction so it stays on the same connection as the query
+     */
+    private static void queryInTempTable(SQLiteDatabase db,
+                                         String sql,
+                                         String[] args,
+                                         List<Object> values,
+                                         RowHandler handler) {
+        String tableName = "tmp_set_" + mTempTableId.incrementAndGet();
+        db.beginTransaction();
+        try {
+            db.execSQL("CREATE TEMP TABLE " + tableName + " (value PRIMARY KEY)");
+            SQLiteStatement stmt = db.compileStatement("INSERT OR IGNORE INTO " + tableName + " (value) VALUES (?1)");
+            try {
+                for (Object value: values) {
+                    if (value instanceof Long || value instanceof Integer) {
+                        stmt.bindLong(1, ((Number) value).longValue());
+                    } else {
+                        stmt.bindString(1, value.toString());
+                    }
+                    stmt.execute();
+                }
+            } finally {
+                closeStatement(stmt);
+            }
+
+            queryRows(db, sql.replace(SET_PLACEHOLDER, "(SELECT value FROM " + tableName + ")"), args, handler);
+
+            db.execSQL("DROP TABLE " + tableName);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void queryRows(SQLiteDatabase db, String sql, String[] args, RowHandler handler) {
+        Cursor c = db.rawQuery(sql, args);
+        try {
+            while (c.moveToNext()) {
+                handler.onRow(c);
+            }
+        } finally {
+            closeCursor(c);
+        }
+    }
+
     /*
      * returns the number of rows in the passed table
      */
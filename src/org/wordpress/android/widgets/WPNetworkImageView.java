@@ -22,6 +22,8 @@ import org.wordpress.android.R;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.datasets.ReaderThumbnailTable;
 import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.CachedImageIndex;
+import org.wordpress.android.util.ReaderThumbnailResolver;
 import org.wordpress.android.util.ReaderVideoUtils;
 import org.wordpress.android.util.VolleyUtils;
 
@@ -43,6 +45,7 @@ public class WPNetworkImageView extends ImageView {
 
     private ImageType mImageType = ImageType.NONE;
     private String mUrl;
+    private String mVideoUrl;
     private ImageLoader.ImageContainer mImageContainer;
 
     private int mRetryCnt;
@@ -86,6 +89,7 @@ public class WPNetworkImageView extends ImageView {
      */
     public void setVideoUrl(final long postId, final String videoUrl) {
         mImageType = ImageType.VIDEO;
+        mVideoUrl = videoUrl;
 
         if (TextUtils.isEmpty(videoUrl)) {
             showDefaultImage();
@@ -101,13 +105,15 @@ public class WPNetworkImageView extends ImageView {
 
         showDefaultImage();
 
-        // vimeo videos require network request to get thumbnail
+        // vimeo videos require network request to get thumbnail - these are normally resolved
+        // when the post is downloaded, so this only happens when that hasn't completed yet
+        // (or the thumbnail expired), and does nothing if the video is known not to have one
         if (ReaderVideoUtils.isVimeoLink(videoUrl)) {
-            ReaderVideoUtils.requestVimeoThumbnail(videoUrl, new ReaderVideoUtils.VideoThumbnailListener() {
+            ReaderThumbnailResolver.resolveThumbnail(postId, videoUrl, new ReaderThumbnailResolver.ThumbnailListener() {
                 @Override
-                public void onResponse(boolean successful, String thumbnailUrl) {
-                    if (successful) {
-                        ReaderThumbnailTable.addThumbnail(postId, videoUrl, thumbnailUrl);
+                public void onThumbnailResolved(String resolvedVideoUrl, String thumbnailUrl) {
+                    // make sure this view hasn't been reused for another image since the request
+                    if (mImageType == ImageType.VIDEO && resolvedVideoUrl.equals(mVideoUrl)) {
                         setImageUrl(thumbnailUrl, ImageType.VIDEO);
                     }
                 }
@@ -165,9 +171,20 @@ public class WPNetworkImageView extends ImageView {
             return;
         }
 
+        // if this image isn't in memory at the requested size but a larger copy of it is, show
+        // that rather than requesting (and caching) another copy - full-screen photos are
+        // sized by the view rather than the url, so they're always requested as is
+        String requestUrl = mUrl;
+        if (mImageType != ImageType.PHOTO_FULL && !WordPress.imageLoader.isCached(mUrl, 0, 0)) {
+            String cachedUrl = CachedImageIndex.getLargerCachedUrl(mUrl, WordPress.imageLoader);
+            if (cachedUrl != null) {
+                requestUrl = cachedUrl;
+            }
+        }
+
         // if there was an old request in this view, check if it needs to be canceled.
         if (mImageContainer != null && mImageContainer.getRequestUrl() != null) {
-            if (mImageContainer.getRequestUrl().equals(mUrl)) {
+            if (mImageContainer.getRequestUrl().equals(requestUrl)) {
                 // if the request is from the same URL, return.
                 return;
             } else {
@@ -177,9 +194,15 @@ public class WPNetworkImageView extends ImageView {
             }
         }
 
+        // full-screen photos are limited to the size of the view so a large photo can't use
+        // more memory than the screen can display (the photo viewer shows full-resolution tiles
+        // on top of it when zoomed), other images are already sized by the server
+        int maxWidth = (mImageType == ImageType.PHOTO_FULL ? width : 0);
+        int maxHeight = (mImageType == ImageType.PHOTO_FULL ? height : 0);
+
         // The pre-existing content of this view didn't match the current URL. Load the new image
         // from the network.
-        ImageLoader.ImageContainer newContainer = WordPress.imageLoader.get(mUrl,
+        ImageLoader.ImageContainer newContainer = WordPress.imageLoader.get(requestUrl,
                 new ImageLoader.ImageListener() {
                     @Override
                     public void onErrorResponse(VolleyError error) {
@@ -218,7 +241,7 @@ public class WPNetworkImageView extends ImageView {
                             handleResponse(response, isImmediate, true);
                         }
                     }
-                });
+                }, maxWidth, maxHeight);
 
         // update the ImageContainer to be the new bitmap container.
         mImageContainer = newContainer;
@@ -236,6 +259,11 @@ public class WPNetworkImageView extends ImageView {
         if (response.getBitmap() != null) {
             setImageBitmap(response.getBitmap());
 
+            // remember this size of the image so smaller views can use it
+            if (mImageType != ImageType.PHOTO_FULL) {
+                CachedImageIndex.addLoadedUrl(response.getRequestUrl());
+            }
+
             // fade in photos/videos if not cached (not used for other image types since animation can be expensive)
             if (!isCached && allowFadeIn && canFadeInImageType(mImageType))
                 fadeIn();
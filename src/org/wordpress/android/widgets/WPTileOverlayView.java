@@ -0,0 +1,302 @@
+package org.wordpress.android.widgets;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Process;
+import android.support.v4.util.LruCache;
+import android.util.AttributeSet;
+import android.view.View;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * draws full-resolution tiles of a large image on top of a low-resolution version of the same
+ * image - used by the photo viewer so zooming into large photos shows them at full detail
+ * without ever decoding the whole photo. the low-resolution image is displayed by the view
+ * beneath this one, and whenever its display rect changes this decodes the tiles for the
+ * visible region at the current zoom level using BitmapRegionDecoder. tiles are kept in a
+ * cache whose size depends only on the size of this view, so memory use is the same no matter
+ * how large the image is.
+ */
+public class WPTileOverlayView extends View {
+    private static final int TILE_SIZE = 256;
+    private static final int NUM_DECODE_THREADS = 2;
+    private static final int DECODER_RELEASE_TIMEOUT_SECS = 10;
+
+    private BitmapRegionDecoder mDecoder;
+    private int mImageWidth;
+    private int mImageHeight;
+    private int mBaseWidth;
+
+    // where the image is currently displayed, in view coordinates
+    private final RectF mDisplayRect = new RectF();
+
+    private LruCache<String, Bitmap> mTileCache;
+    private ExecutorService mDecodeExecutor;
+
+    // tiles currently being decoded, and the tiles needed for the current display rect - the
+    // latter is checked before decoding so tiles scrolled out of view aren't decoded
+    private final Set<String> mPendingTiles = Collections.synchronizedSet(new HashSet<String>());
+    private volatile Set<String> mVisibleTiles = new HashSet<String>();
+
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect mDstRect = new Rect();
+
+    public WPTileOverlayView(Context context) {
+        super(context);
+    }
+    public WPTileOverlayView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+    public WPTileOverlayView(Context context, AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+    }
+
+    /*
+     * sets the decoder for the full image - baseWidth is the width of the low-resolution image
+     * shown beneath this view, and tiles are only drawn when the image is zoomed past it
+     */
+    public void setRegionDecoder(BitmapRegionDecoder decoder, int baseWidth) {
+        cleanup();
+        if (decoder == null) {
+            return;
+        }
+
+        mDecoder = decoder;
+        mImageWidth = decoder.getWidth();
+        mImageHeight = decoder.getHeight();
+        mBaseWidth = baseWidth;
+        mDecodeExecutor = Executors.newFixedThreadPool(NUM_DECODE_THREADS);
+        invalidate();
+    }
+
+    /*
+     * called whenever the low-resolution image is scaled or scrolled
+     */
+    public void setDisplayRect(RectF displayRect) {
+        if (displayRect == null || displayRect.equals(mDisplayRect)) {
+            return;
+        }
+        mDisplayRect.set(displayRect);
+        invalidate();
+    }
+
+    /*
+     * stops decoding and releases the decoder and tiles - must be called when the view is no
+     * longer needed
+     */
+    public void cleanup() {
+        if (mDecodeExecutor != null) {
+            // queued tiles are dropped, but a tile that's already being decoded can't be stopped
+            // and recycling the decoder during decodeRegion() can crash, so the decoder is only
+            // recycled once the decode threads have finished
+            releaseDecoderWhenIdle(mDecodeExecutor, mDecoder);
+            mDecodeExecutor = null;
+            mDecoder = null;
+        } else if (mDecoder != null) {
+            mDecoder.recycle();
+            mDecoder = null;
+        }
+        if (mTileCache != null) {
+            mTileCache.evictAll();
+            mTileCache = null;
+        }
+        mPendingTiles.clear();
+        mVisibleTiles = new HashSet<String>();
+    }
+
+    private static void releaseDecoderWhenIdle(final ExecutorService executor, final BitmapRegionDecoder decoder) {
+        executor.shutdownNow();
+        if (decoder == null) {
+            return;
+        }
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    if (executor.awaitTermination(DECODER_RELEASE_TIMEOUT_SECS, TimeUnit.SECONDS)) {
+                        decoder.recycle();
+                    } else {
+                        // still decoding, so leave the decoder to be released when it's collected
+                        AppLog.w(T.READER, "tile overlay > timed out waiting to release decoder");
+                    }
+                } catch (InterruptedException e) {
+                    // nop
+                }
+            }
+        }.start();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        // the cache is sized for this view, so recreate it at the new size
+        if (mTileCache != null) {
+            mTileCache.evictAll();
+            mTileCache = null;
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        cleanup();
+        super.onDetachedFromWindow();
+    }
+
+    /*
+     * the sample size is chosen so tiles are never drawn larger than their decoded size, but
+     * they may be drawn at just over half of it, so filling this view can take four times as
+     * many tiles as it would at their decoded size. the cache must hold all of them or each
+     * decode would evict a visible tile which is then requested again on the next draw, so
+     * it's sized for that worst case plus an extra row and column for scrolling - tiles from
+     * the previous zoom level are the least recently used and are evicted first
+     */
+    private LruCache<String, Bitmap> getTileCache() {
+        if (mTileCache == null) {
+            int minDrawnSize = TILE_SIZE / 2;
+            int tilesAcross = (getWidth() / minDrawnSize) + 3;
+            int tilesDown = (getHeight() / minDrawnSize) + 3;
+            int maxBytes = tilesAcross * tilesDown * TILE_SIZE * TILE_SIZE * 4;
+            mTileCache = new LruCache<String, Bitmap>(maxBytes) {
+                @Override
+                protected int sizeOf(String key, Bitmap value) {
+                    return value.getRowBytes() * value.getHeight();
+                }
+            };
+        }
+        return mTileCache;
+    }
+
+    /*
+     * returns the largest power of two subsample that still has at least one image pixel per
+     * screen pixel at the passed scale (screen pixels per full-image pixel)
+     */
+    private static int getSampleSize(float scale) {
+        int sampleSize = 1;
+        while (sampleSize * 2 * scale <= 1f) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static String getTileKey(int sampleSize, int col, int row) {
+        return sampleSize + ":" + col + ":" + row;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        // nothing to draw unless the image is zoomed past the resolution of the base image
+        if (mDecoder == null
+                || mDisplayRect.isEmpty()
+                || mDisplayRect.width() <= mBaseWidth
+                || getWidth() == 0) {
+            mVisibleTiles = new HashSet<String>();
+            return;
+        }
+
+        float scale = mDisplayRect.width() / mImageWidth;
+        int sampleSize = getSampleSize(scale);
+        int tileSpan = TILE_SIZE * sampleSize; // size of a tile in full-image pixels
+
+        // visible region of the image in full-image pixels
+        int left   = Math.max(0, (int) ((0 - mDisplayRect.left) / scale));
+        int top    = Math.max(0, (int) ((0 - mDisplayRect.top) / scale));
+        int right  = Math.min(mImageWidth, (int) Math.ceil((getWidth() - mDisplayRect.left) / scale));
+        int bottom = Math.min(mImageHeight, (int) Math.ceil((getHeight() - mDisplayRect.top) / scale));
+        if (left >= right || top >= bottom) {
+            mVisibleTiles = new HashSet<String>();
+            return;
+        }
+
+        LruCache<String, Bitmap> cache = getTileCache();
+        Set<String> visibleTiles = new HashSet<String>();
+        for (int row = top / tileSpan; row * tileSpan < bottom; row++) {
+            for (int col = left / tileSpan; col * tileSpan < right; col++) {
+                String key = getTileKey(sampleSize, col, row);
+                visibleTiles.add(key);
+
+                Bitmap tile = cache.get(key);
+                if (tile != null) {
+                    int tileLeft = col * tileSpan;
+                    int tileTop = row * tileSpan;
+                    int tileRight = Math.min(tileLeft + tileSpan, mImageWidth);
+                    int tileBottom = Math.min(tileTop + tileSpan, mImageHeight);
+                    mDstRect.set(
+                            Math.round(mDisplayRect.left + tileLeft * scale),
+                            Math.round(mDisplayRect.top + tileTop * scale),
+                            Math.round(mDisplayRect.left + tileRight * scale),
+                            Math.round(mDisplayRect.top + tileBottom * scale));
+                    canvas.drawBitmap(tile, null, mDstRect, mPaint);
+                }
+            }
+        }
+        mVisibleTiles = visibleTiles;
+
+        // request missing tiles after updating the visible set so stale requests are skipped
+        for (String key: visibleTiles) {
+            if (cache.get(key) == null) {
+                requestTile(key, sampleSize);
+            }
+        }
+    }
+
+    private void requestTile(final String key, final int sampleSize) {
+        if (mDecodeExecutor == null || !mPendingTiles.add(key)) {
+            return;
+        }
+
+        final BitmapRegionDecoder decoder = mDecoder;
+        final LruCache<String, Bitmap> cache = mTileCache;
+        final int tileSpan = TILE_SIZE * sampleSize;
+        String[] parts = key.split(":");
+        final int col = Integer.parseInt(parts[1]);
+        final int row = Integer.parseInt(parts[2]);
+
+        mDecodeExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // skip tiles that were scrolled or zoomed out of view while this was queued
+                    if (!mVisibleTiles.contains(key)) {
+                        return;
+                    }
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    Rect region = new Rect(
+                            col * tileSpan,
+                            row * tileSpan,
+                            Math.min((col + 1) * tileSpan, mImageWidth),
+                            Math.min((row + 1) * tileSpan, mImageHeight));
+                    BitmapFactory.Options options = new BitmapFactory.Options();
+                    options.inSampleSize = sampleSize;
+                    Bitmap tile = decoder.decodeRegion(region, options);
+                    if (tile != null) {
+                        cache.put(key, tile);
+                        postInvalidate();
+                    }
+                } catch (IllegalStateException e) {
+                    // decoder was recycled
+                } catch (OutOfMemoryError e) {
+                    AppLog.e(T.READER, "out of memory decoding image tile");
+                } finally {
+                    mPendingTiles.remove(key);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,161 @@
+package org.wordpress.android.datasets;
+
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.models.ReaderComment;
+import org.wordpress.android.models.ReaderCommentList;
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.ui.reader.ReaderConstants;
+
+public class ReaderCommentTableTest extends InstrumentationTestCase {
+    private static final int PAGE_SIZE = ReaderConstants.READER_MAX_COMMENTS_TO_REQUEST;
+
+    private ReaderPost mPost;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        ReaderDatabase.reset();
+        mPost = new ReaderPost();
+        mPost.blogId = 1;
+        mPost.postId = 1;
+        mPost.setPseudoId("pseudo1");
+        ReaderPostTable.addOrUpdatePost(mPost);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ReaderDatabase.reset();
+        super.tearDown();
+    }
+
+    public void testAnchorUsesIdToBreakTies() {
+        FakeCommentServer server = new FakeCommentServer();
+        server.addComment(1000);
+        server.addComment(1000);
+        server.addComment(1000);
+
+        ReaderCommentList page = server.getPage(0);
+        // return them out of id order
+        page.add(page.remove(0));
+        assertEquals(3, ReaderCommentTable.addPagedComments(mPost, page, PAGE_SIZE));
+
+        ReaderComment anchor = ReaderCommentTable.getCommentAnchor(mPost);
+        assertEquals(3, anchor.commentId);
+        assertEquals(1000, anchor.timestamp);
+        assertTrue(ReaderCommentTable.getCommentPagingTimestamp(mPost) < 1000);
+
+        // an older page must not move the anchor or the window back
+        long pagingTimestamp = ReaderCommentTable.getCommentPagingTimestamp(mPost);
+        ReaderCommentList olderPage = new ReaderCommentList();
+        olderPage.add(makeComment(99, 500));
+        assertEquals(1, ReaderCommentTable.addPagedComments(mPost, olderPage, PAGE_SIZE));
+        assertEquals(3, ReaderCommentTable.getCommentAnchor(mPost).commentId);
+        assertEquals(pagingTimestamp, ReaderCommentTable.getCommentPagingTimestamp(mPost));
+    }
+
+    /*
+     * a full page of comments published in the same second used to be requested forever
+     * since the window never moved past it
+     */
+    public void testFullPageWithSameTimestampDoesNotStall() {
+        FakeCommentServer server = new FakeCommentServer();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            server.addComment(1000);
+        }
+        for (int i = 1; i <= 10; i++) {
+            server.addComment(1000 + i);
+        }
+
+        int numNewTotal = pageUntilUnchanged(server);
+
+        assertEquals(server.comments.size(), numNewTotal);
+        assertEquals(server.comments.size(), ReaderCommentTable.getNumCommentsForPost(mPost));
+        assertEquals(server.comments.getNewestComment().commentId, ReaderCommentTable.getCommentAnchor(mPost).commentId);
+    }
+
+    /*
+     * other users add and delete comments between requests - every comment must be fetched
+     * and none may be counted as new more than once
+     */
+    public void testPagingWithConcurrentInserts() {
+        FakeCommentServer server = new FakeCommentServer();
+        for (int i = 0; i < 50; i++) {
+            server.addComment(1000 + (i / 3)); // three comments per second
+        }
+
+        int numNewTotal = 0;
+        for (int i = 0; i < 3; i++) {
+            numNewTotal += ReaderCommentTable.addPagedComments(mPost, server.getPage(getPagingTimestamp()), PAGE_SIZE);
+            // a comment is posted in the same second as the anchor, another one later, and
+            // one that's already been fetched is deleted
+            long anchorTimestamp = ReaderCommentTable.getCommentAnchor(mPost).timestamp;
+            server.addComment(anchorTimestamp);
+            server.addComment(anchorTimestamp + 60);
+            server.comments.remove(0);
+        }
+        numNewTotal += pageUntilUnchanged(server);
+
+        assertEquals(ReaderCommentTable.getNumCommentsForPost(mPost), numNewTotal);
+        for (ReaderComment comment: server.comments) {
+            assertTrue("missing comment " + comment.commentId,
+                    ReaderCommentTable.getCommentIdsForPost(mPost).contains(comment.commentId));
+        }
+    }
+
+    /*
+     * requests pages the way ReaderCommentActions does until one has no new comments and the
+     * window stops moving, returns the number of new comments
+     */
+    private int pageUntilUnchanged(FakeCommentServer server) {
+        int numNewTotal = 0;
+        for (int numRequests = 0; numRequests < 20; numRequests++) {
+            long pagingTimestamp = getPagingTimestamp();
+            int numNew = ReaderCommentTable.addPagedComments(mPost, server.getPage(pagingTimestamp), PAGE_SIZE);
+            numNewTotal += numNew;
+            if (numNew == 0 && getPagingTimestamp() == pagingTimestamp)
+                return numNewTotal;
+        }
+        fail("paging didn't finish");
+        return numNewTotal;
+    }
+
+    private long getPagingTimestamp() {
+        return ReaderCommentTable.getCommentPagingTimestamp(mPost);
+    }
+
+    private static ReaderComment makeComment(long commentId, long timestamp) {
+        ReaderComment comment = new ReaderComment();
+        comment.blogId = 1;
+        comment.postId = 1;
+        comment.commentId = commentId;
+        comment.timestamp = timestamp;
+        return comment;
+    }
+
+    /*
+     * comments on a single post, returned oldest first like the /replies/ endpoint with order=ASC
+     */
+    private static class FakeCommentServer {
+        final ReaderCommentList comments = new ReaderCommentList();
+        private long mNextCommentId = 1;
+
+        void addComment(long timestamp) {
+            // ids increase as comments are added, so insert after older and same-second comments
+            int index = 0;
+            while (index < comments.size() && comments.get(index).timestamp <= timestamp) {
+                index++;
+            }
+            comments.add(index, makeComment(mNextCommentId++, timestamp));
+        }
+
+        ReaderCommentList getPage(long afterTimestamp) {
+            ReaderCommentList page = new ReaderCommentList();
+            for (ReaderComment comment: comments) {
+                if (comment.timestamp >= afterTimestamp && page.size() < PAGE_SIZE)
+                    page.add(comment);
+            }
+            return page;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package org.wordpress.android.datasets;
+
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.CompressionUtils;
+import org.wordpress.android.util.SqlUtils;
+
+public class ReaderPostTableTest extends InstrumentationTestCase {
+    private static final int NUM_SEEDED_POSTS = 5000;
+    private static final String TAG_NAME = "benchmark";
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        ReaderDatabase.reset();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ReaderDatabase.reset();
+        super.tearDown();
+    }
+
+    public void testCompressionRoundTrip() {
+        String longText = makePostText(1);
+        byte[] compressed = CompressionUtils.compressText(longText);
+        assertTrue(CompressionUtils.isCompressed(compressed));
+        assertTrue(compressed.length < longText.length());
+        assertEquals(longText, CompressionUtils.decompressText(compressed));
+
+        // short text isn't compressed, and uncompressed data is returned as-is
+        assertNull(CompressionUtils.compressText("short"));
+        assertEquals("plain", CompressionUtils.decompressText("plain".getBytes()));
+    }
+
+    public void testPostTextIsInflatedOnlyWhenNeeded() {
+        ReaderPost post = makePost(1);
+        ReaderPostTable.addOrUpdatePost(post);
+
+        // posts loaded for lists don't include the text
+        ReaderPostList posts = ReaderPostTable.getPostsInBlog(post.blogId, 0);
+        assertEquals(1, posts.size());
+        ReaderPost listPost = posts.get(0);
+        assertFalse(listPost.isTextLoaded());
+
+        // writing the post back without its text must not lose the text
+        listPost.isLikedByCurrentUser = true;
+        ReaderPostTable.addOrUpdatePost(listPost);
+
+        // the detail post has the text, which stays compressed until it's accessed
+        ReaderPost detailPost = ReaderPostTable.getPost(post.blogId, post.postId);
+        assertTrue(detailPost.isLikedByCurrentUser);
+        assertNotNull(detailPost.getCompressedText());
+        assertEquals(post.getText(), detailPost.getText());
+        assertNull(detailPost.getCompressedText());
+    }
+
+    /*
+     * loads 200 posts with 50K bodies both for a list, which excludes the text, and with their
+     * text - timings are logged for comparison
+     */
+    public void testListProjectionBenchmark() {
+        int numPosts = 200;
+        ReaderPostList posts = new ReaderPostList();
+        for (int i = 1; i <= numPosts; i++) {
+            ReaderPost post = makePost(i);
+            StringBuilder sb = new StringBuilder(55 * 1024);
+            while (sb.length() < 50 * 1024) {
+                sb.append(makePostText(sb.length()));
+            }
+            post.setText(sb.toString());
+            posts.add(post);
+        }
+        ReaderPostTable.addOrUpdatePosts(TAG_NAME, posts);
+
+        long start = System.nanoTime();
+        ReaderPostList listPosts = ReaderPostTable.getPostsWithTag(TAG_NAME, 0);
+        long listMicros = (System.nanoTime() - start) / 1000;
+        assertEquals(numPosts, listPosts.size());
+
+        start = System.nanoTime();
+        for (ReaderPost listPost: listPosts) {
+            assertFalse(listPost.isTextLoaded());
+            ReaderPost fullPost = ReaderPostTable.getPost(listPost.blogId, listPost.postId);
+            assertTrue(fullPost.getText().length() >= 50 * 1024);
+        }
+        long fullMicros = (System.nanoTime() - start) / 1000;
+
+        AppLog.i(T.TESTS, "reader list projection benchmark: " + numPosts + " posts with 50K bodies,"
+                + " list load " + listMicros + "us, full load with text " + fullMicros + "us");
+    }
+
+    public void testLargePostSetsAreQueriedInBulk() {
+        int numPosts = 10000;
+
+        // store the first half of the posts, with every other one followed
+        ReaderPostList storedPosts = new ReaderPostList();
+        ReaderPostList allPosts = new ReaderPostList();
+        for (int i = 1; i <= numPosts; i++) {
+            ReaderPost post = new ReaderPost();
+            post.postId = i;
+            post.blogId = i;
+            post.setPseudoId("pseudo" + i);
+            post.isFollowedByCurrentUser = (i % 2 == 0);
+            if (i <= numPosts / 2)
+                storedPosts.add(post);
+
+            ReaderPost copy = new ReaderPost();
+            copy.postId = i;
+            copy.blogId = i;
+            copy.setPseudoId("pseudo" + i);
+            allPosts.add(copy);
+        }
+        ReaderPostTable.addOrUpdatePosts(TAG_NAME, storedPosts);
+
+        assertEquals(numPosts / 2, ReaderPostTable.getNumNewPostsWithTag(TAG_NAME, allPosts));
+
+        // none of the copies are marked as followed, so the stored followed posts should change
+        assertTrue(ReaderPostTable.checkFollowStatusOnPosts(allPosts));
+        for (ReaderPost post: allPosts) {
+            boolean expected = (post.postId <= numPosts / 2 && post.postId % 2 == 0);
+            assertEquals(expected, post.isFollowedByCurrentUser);
+        }
+    }
+
+    /*
+     * seeds the reader db with 5,000 posts then reports storage size and read latency - the
+     * timings are logged rather than asserted since they vary so much between devices
+     */
+    public void testCompressedStorageBenchmark() {
+        ReaderPostList posts = new ReaderPostList();
+        long rawBytes = 0;
+        for (int i = 1; i <= NUM_SEEDED_POSTS; i++) {
+            ReaderPost post = makePost(i);
+            rawBytes += post.getText().length();
+            posts.add(post);
+        }
+
+        long start = System.nanoTime();
+        ReaderPostTable.addOrUpdatePosts(TAG_NAME, posts);
+        long writeMs = (System.nanoTime() - start) / 1000000;
+
+        long storedBytes = SqlUtils.longForQuery(ReaderDatabase.getReadableDb(),
+                "SELECT SUM(LENGTH(text)) FROM tbl_posts", null);
+        long dbFileBytes = getInstrumentation().getTargetContext()
+                .getDatabasePath(ReaderDatabase.DB_NAME).length();
+
+        // list load, which shouldn't inflate any text
+        start = System.nanoTime();
+        ReaderPostList listPosts = ReaderPostTable.getPostsWithTag(TAG_NAME, 0);
+        long listMs = (System.nanoTime() - start) / 1000000;
+        assertEquals(NUM_SEEDED_POSTS, listPosts.size());
+
+        // detail load of a single post, including inflating its text
+        int numDetailReads = 100;
+        start = System.nanoTime();
+        for (int i = 1; i <= numDetailReads; i++) {
+            ReaderPost post = ReaderPostTable.getPost(i, i);
+            assertEquals(makePostText(i), post.getText());
+        }
+        long detailMicros = (System.nanoTime() - start) / numDetailReads / 1000;
+
+        AppLog.i(T.TESTS, "reader compression benchmark: "
+                + NUM_SEEDED_POSTS + " posts, raw text " + rawBytes + " bytes, stored text " + storedBytes
+                + " bytes, db file " + dbFileBytes + " bytes, write " + writeMs + "ms, list load " + listMs
+                + "ms, detail load " + detailMicros + "us/post");
+
+        assertTrue("stored " + storedBytes + " of " + rawBytes + " bytes", storedBytes < rawBytes / 2);
+    }
+
+    private static ReaderPost makePost(int id) {
+        ReaderPost post = new ReaderPost();
+        post.postId = id;
+        post.blogId = id;
+        post.timestamp = id;
+        post.setPseudoId("pseudo" + id);
+        post.setTitle("Post " + id);
+        post.setText(makePostText(id));
+        return post;
+    }
+
+    /*
+     * returns typical post html of roughly 8K
+     */
+    private static String makePostText(int id) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            sb.append("<p>Paragraph ").append(i).append(" of post ").append(id)
+              .append(" - Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod")
+              .append(" tempor <a href=\"http://example.com/").append(id).append("/").append(i)
+              .append("\">incididunt</a> ut labore et dolore magna aliqua.</p>\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,154 @@
+package org.wordpress.android.datasets;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.test.InstrumentationTestCase;
+import android.test.RenamingDelegatingContext;
+
+import org.wordpress.android.WordPressDB;
+import org.wordpress.android.models.MediaFile;
+import org.wordpress.android.models.PostsListPost;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SearchTableTest extends InstrumentationTestCase {
+    private static final int NUM_SEEDED_POSTS = 10000;
+    private static final int BLOG_ID = 1;
+
+    private Context mTargetContext;
+    private WordPressDB mDB;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mTargetContext = new RenamingDelegatingContext(getInstrumentation().getTargetContext(), "test_");
+        mTargetContext.deleteDatabase("wordpress");
+        mDB = new WordPressDB(mTargetContext);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mTargetContext.deleteDatabase("wordpress");
+        super.tearDown();
+    }
+
+    public void testToPrefixQuery() {
+        assertNull(SearchTable.toPrefixQuery(null));
+        assertNull(SearchTable.toPrefixQuery("  \"*() "));
+        assertEquals("hello* wor*", SearchTable.toPrefixQuery("Hello wor"));
+        // FTS operators must not leak into the query
+        assertEquals("cats* dogs*", SearchTable.toPrefixQuery("cats OR dogs"));
+    }
+
+    public void testSearchPostsIsRankedAndPrefixed() {
+        List<Object> posts = new ArrayList<Object>();
+        posts.add(makePost("1", "Unrelated title", "body mentions android once"));
+        posts.add(makePost("2", "Android tips", "all about android and more android"));
+        posts.add(makePost("3", "Nothing here", "completely different"));
+        mDB.savePosts(posts, BLOG_ID, false, true);
+
+        List<PostsListPost> results = mDB.searchPostsListPosts(BLOG_ID, "andr", false);
+        assertEquals(2, results.size());
+        assertEquals("Android tips", results.get(0).getTitle());
+
+        // pages are indexed separately from posts
+        assertEquals(0, mDB.searchPostsListPosts(BLOG_ID, "andr", true).size());
+    }
+
+    /*
+     * each page of posts is indexed as it's saved, and posts saved again are reindexed
+     */
+    public void testSavingPagesKeepsIndexCurrent() {
+        List<Object> firstPage = new ArrayList<Object>();
+        firstPage.add(makePost("1", "Android tips", "first page"));
+        firstPage.add(makePost("2", "Kitten pictures", "first page"));
+        mDB.savePosts(firstPage, BLOG_ID, false, true);
+
+        List<Object> secondPage = new ArrayList<Object>();
+        secondPage.add(makePost("2", "Puppy pictures", "updated"));
+        secondPage.add(makePost("3", "Android news", "second page"));
+        mDB.savePosts(secondPage, BLOG_ID, false, true);
+
+        assertEquals(2, mDB.searchPostsListPosts(BLOG_ID, "android", false).size());
+        assertEquals(0, mDB.searchPostsListPosts(BLOG_ID, "kitten", false).size());
+        assertEquals(1, mDB.searchPostsListPosts(BLOG_ID, "puppy", false).size());
+    }
+
+    /*
+     * searches a large blog for the few posts that match - the time taken is logged rather
+     * than asserted since it varies too much between devices
+     */
+    public void testSearchOnSeededDatabase() {
+        List<Object> posts = new ArrayList<Object>(NUM_SEEDED_POSTS);
+        for (int i = 0; i < NUM_SEEDED_POSTS; i++) {
+            String title = (i % 1000 == 0 ? "Needle " + i : "Post number " + i);
+            posts.add(makePost(Integer.toString(i + 1), title, "Lorem ipsum dolor sit amet, post " + i));
+        }
+        mDB.savePosts(posts, BLOG_ID, false, true);
+
+        // warm up, then time a batch of searches
+        mDB.searchPostsListPosts(BLOG_ID, "need", false);
+        int numSearches = 20;
+        long start = System.nanoTime();
+        List<PostsListPost> results = null;
+        for (int i = 0; i < numSearches; i++) {
+            results = mDB.searchPostsListPosts(BLOG_ID, "need", false);
+        }
+        long avgMs = (System.nanoTime() - start) / numSearches / 1000000;
+        AppLog.i(T.TESTS, "search over " + NUM_SEEDED_POSTS + " posts took " + avgMs + "ms");
+
+        assertEquals(NUM_SEEDED_POSTS / 1000, results.size());
+        for (PostsListPost post: results) {
+            assertTrue(post.getTitle(), post.getTitle().startsWith("Needle "));
+        }
+    }
+
+    /*
+     * media that isn't in the library must be filtered out before results are limited, or
+     * better-ranked media that's still uploading can crowd out every match
+     */
+    public void testSearchMediaFiltersBeforeLimit() {
+        for (int i = 1; i <= 5; i++) {
+            mDB.saveMediaFile(makeMediaFile("q" + i, "Sunset " + i, "sunset at the beach", "queued"));
+        }
+        for (int i = 1; i <= 3; i++) {
+            mDB.saveMediaFile(makeMediaFile("u" + i, "Photo " + i, "", "uploaded"));
+        }
+
+        List<Long> ids = SearchTable.searchMedia(mDB.getDatabase(), Integer.toString(BLOG_ID), "sun", 3);
+        assertEquals(3, ids.size());
+        Cursor cursor = mDB.getMediaFilesForBlog(Integer.toString(BLOG_ID), "sun");
+        try {
+            assertEquals(3, cursor.getCount());
+            while (cursor.moveToNext()) {
+                assertEquals("uploaded", cursor.getString(cursor.getColumnIndex("uploadState")));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static MediaFile makeMediaFile(String mediaId, String title, String caption, String uploadState) {
+        MediaFile mediaFile = new MediaFile();
+        mediaFile.setBlogId(Integer.toString(BLOG_ID));
+        mediaFile.setMediaId(mediaId);
+        mediaFile.setTitle(title);
+        mediaFile.setCaption(caption);
+        mediaFile.setFileName("sunset-" + mediaId + ".jpg");
+        mediaFile.setUploadState(uploadState);
+        return mediaFile;
+    }
+
+    private static Map<String, Object> makePost(String postId, String title, String description) {
+        Map<String, Object> post = new HashMap<String, Object>();
+        post.put("postid", postId);
+        post.put("title", title);
+        post.put("description", description);
+        return post;
+    }
+}
@@ -0,0 +1,107 @@
+package org.wordpress.android.models;
+
+import junit.framework.TestCase;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.HashSet;
+
+public class ReaderCommentListTest extends TestCase {
+    private static final int NUM_BENCHMARK_COMMENTS = 5000;
+
+    public void testRepliesAreThreadedUnderParents() {
+        ReaderCommentList comments = new ReaderCommentList();
+        comments.add(makeComment(1, 0));
+        comments.add(makeComment(2, 0));
+        comments.add(makeComment(3, 1));
+        comments.add(makeComment(4, 3));
+        comments.add(makeComment(5, 1));
+        comments.add(makeComment(6, 99)); // orphan
+        comments.add(makeComment(7, 6));
+
+        ReaderCommentList threaded = ReaderCommentList.getLevelList(comments);
+        long[] expectedIds = {1, 3, 4, 5, 2, 6, 7};
+        int[] expectedLevels = {0, 1, 2, 1, 0, 1, 2};
+        assertEquals(expectedIds.length, threaded.size());
+        for (int i = 0; i < expectedIds.length; i++) {
+            assertEquals(expectedIds[i], threaded.get(i).commentId);
+            assertEquals(expectedLevels[i], threaded.get(i).level);
+        }
+    }
+
+    public void testCycleDoesNotLoseComments() {
+        ReaderCommentList comments = new ReaderCommentList();
+        comments.add(makeComment(1, 0));
+        comments.add(makeComment(2, 3));
+        comments.add(makeComment(3, 2));
+
+        ReaderCommentList threaded = ReaderCommentList.getLevelList(comments);
+        assertEquals(3, threaded.size());
+        assertEquals(1, threaded.get(0).commentId);
+    }
+
+    /*
+     * threads a post with thousands of deeply nested comments - this used to be quadratic
+     */
+    public void testThreadingBenchmark() {
+        ReaderCommentList comments = new ReaderCommentList();
+        for (int i = 1; i <= NUM_BENCHMARK_COMMENTS; i++) {
+            // every fifth comment starts a new thread, the rest reply to the previous comment
+            comments.add(makeComment(i, i % 5 == 1 ? 0 : i - 1));
+        }
+
+        long start = System.nanoTime();
+        ReaderCommentList threaded = ReaderCommentList.getLevelList(comments);
+        long micros = (System.nanoTime() - start) / 1000;
+
+        assertEquals(NUM_BENCHMARK_COMMENTS, threaded.size());
+        assertEquals(4, threaded.get(4).level);
+        assertTrue(threaded.isSameList(comments));
+
+        AppLog.i(T.TESTS, "reader comment threading benchmark: " + NUM_BENCHMARK_COMMENTS
+                + " comments, " + micros + "us");
+    }
+
+    public void testNewestCommentUsesIdToBreakTies() {
+        ReaderCommentList comments = new ReaderCommentList();
+        comments.add(makeComment(5, 0, 100));
+        comments.add(makeComment(7, 0, 100));
+        comments.add(makeComment(6, 0, 100));
+        comments.add(makeComment(9, 0, 99));
+        assertEquals(7, comments.getNewestComment().commentId);
+        assertNull(new ReaderCommentList().getNewestComment());
+    }
+
+    public void testUnknownCommentsAreCountedOnce() {
+        ReaderCommentList comments = new ReaderCommentList();
+        comments.add(makeComment(1, 0));
+        comments.add(makeComment(2, 0));
+        comments.add(makeComment(2, 0));
+        comments.add(makeComment(3, 0));
+
+        HashSet<Long> knownIds = new HashSet<Long>();
+        knownIds.add(1L);
+        ReaderCommentList unknown = comments.getUnknownComments(knownIds);
+        assertEquals(2, unknown.size());
+        assertEquals(2, unknown.get(0).commentId);
+        assertEquals(3, unknown.get(1).commentId);
+        assertEquals(0, comments.getUnknownComments(knownIds).size());
+    }
+
+    private static ReaderComment makeComment(long commentId, long parentId, long timestamp) {
+        ReaderComment comment = makeComment(commentId, parentId);
+        comment.timestamp = timestamp;
+        return comment;
+    }
+
+    private static ReaderComment makeComment(long commentId, long parentId) {
+        ReaderComment comment = new ReaderComment();
+        comment.blogId = 1;
+        comment.postId = 1;
+        comment.commentId = commentId;
+        comment.parentId = parentId;
+        comment.timestamp = commentId;
+        return comment;
+    }
+}
@@ -0,0 +1,123 @@
+package org.wordpress.android.models;
+
+import android.util.JsonReader;
+
+import junit.framework.TestCase;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.StringReader;
+
+public class ReaderPostListTest extends TestCase {
+    private static final int NUM_FIXTURE_POSTS = 100;
+    private static final int NUM_BENCHMARK_RUNS = 10;
+
+    public void testParallelParsingKeepsOrder() throws Exception {
+        JSONObject json = makeFixture(NUM_FIXTURE_POSTS);
+        ReaderPostList serialPosts = ReaderPostList.fromJson(json, false);
+        ReaderPostList parallelPosts = ReaderPostList.fromJson(json, true);
+        ReaderPostList streamedPosts = ReaderPostList.fromJsonReader(
+                new JsonReader(new StringReader(json.getJSONArray("posts").toString())));
+
+        assertEquals(NUM_FIXTURE_POSTS, serialPosts.size());
+        assertEquals(NUM_FIXTURE_POSTS, parallelPosts.size());
+        assertEquals(NUM_FIXTURE_POSTS, streamedPosts.size());
+        for (int i = 0; i < NUM_FIXTURE_POSTS; i++) {
+            ReaderPost expected = serialPosts.get(i);
+            assertEquals(i + 1, expected.postId);
+            assertSamePost(expected, parallelPosts.get(i));
+            assertSamePost(expected, streamedPosts.get(i));
+        }
+    }
+
+    public void testSmallListIsParsed() throws Exception {
+        ReaderPostList posts = ReaderPostList.fromJson(makeFixture(2));
+        assertEquals(2, posts.size());
+        assertEquals(1, posts.get(0).postId);
+        assertEquals(2, posts.get(1).postId);
+    }
+
+    /*
+     * parses the 100-post fixture serially and in parallel - timings are logged rather than
+     * asserted since they depend on the number of cores
+     */
+    public void testParallelParsingBenchmark() throws Exception {
+        JSONObject json = makeFixture(NUM_FIXTURE_POSTS);
+
+        // warm up
+        ReaderPostList.fromJson(json, false);
+        ReaderPostList.fromJson(json, true);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_BENCHMARK_RUNS; i++) {
+            ReaderPostList.fromJson(json, false);
+        }
+        long serialMicros = (System.nanoTime() - start) / NUM_BENCHMARK_RUNS / 1000;
+
+        start = System.nanoTime();
+        for (int i = 0; i < NUM_BENCHMARK_RUNS; i++) {
+            ReaderPostList.fromJson(json, true);
+        }
+        long parallelMicros = (System.nanoTime() - start) / NUM_BENCHMARK_RUNS / 1000;
+
+        AppLog.i(T.TESTS, "reader post parsing benchmark: " + NUM_FIXTURE_POSTS + " posts, "
+                + Runtime.getRuntime().availableProcessors() + " cores, serial " + serialMicros
+                + "us, parallel " + parallelMicros + "us");
+    }
+
+    private static void assertSamePost(ReaderPost expected, ReaderPost actual) {
+        assertEquals(expected.postId, actual.postId);
+        assertEquals(expected.blogId, actual.blogId);
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getExcerpt(), actual.getExcerpt());
+        assertEquals(expected.getFeaturedImage(), actual.getFeaturedImage());
+        assertEquals(expected.timestamp, actual.timestamp);
+    }
+
+    /*
+     * returns a response resembling read/tags/$tag/posts - posts have html excerpts and content
+     * with images, and no featured image so the content is scanned for one
+     */
+    private static JSONObject makeFixture(int numPosts) throws Exception {
+        JSONArray jsonPosts = new JSONArray();
+        for (int i = 1; i <= numPosts; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int p = 0; p < 20; p++) {
+                content.append("<p>Paragraph ").append(p).append(" of post ").append(i)
+                       .append(" &#8211; lorem ipsum <a href=\"http://example.com/").append(p)
+                       .append("\">dolor</a> sit amet.</p>");
+                if (p % 5 == 0) {
+                    content.append("<img src=\"http://example.files.wordpress.com/").append(i)
+                           .append("/image").append(p).append(".jpg?w=640\" width=\"640\" height=\"480\" />");
+                }
+            }
+
+            JSONObject jsonAuthor = new JSONObject();
+            jsonAuthor.put("ID", 5000 + i);
+            jsonAuthor.put("name", "Author " + i);
+            jsonAuthor.put("avatar_URL", "http://gravatar.com/avatar/" + i);
+
+            JSONObject jsonPost = new JSONObject();
+            jsonPost.put("ID", i);
+            jsonPost.put("site_ID", 1000 + i);
+            jsonPost.put("pseudo_ID", "pseudo" + i);
+            jsonPost.put("title", "Post &amp; title " + i);
+            jsonPost.put("excerpt", "<p>The <strong>excerpt</strong> of post " + i + " &hellip;</p>");
+            jsonPost.put("content", content.toString());
+            jsonPost.put("URL", "http://example.com/post/" + i);
+            jsonPost.put("site_URL", "http://example.com");
+            jsonPost.put("date", "2014-05-01T12:00:00+00:00");
+            jsonPost.put("comment_count", i);
+            jsonPost.put("like_count", i * 2);
+            jsonPost.put("author", jsonAuthor);
+            jsonPosts.put(jsonPost);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("posts", jsonPosts);
+        return json;
+    }
+}
@@ -0,0 +1,66 @@
+package org.wordpress.android.models;
+
+import junit.framework.TestCase;
+
+public class ReaderTagStatsTest extends TestCase {
+    private static final long MINUTE_MS = 60 * 1000;
+    private static final long DAY_MS = 24 * 60 * MINUTE_MS;
+    private static final long NOW = 100 * DAY_MS;
+
+    public void testNeverUpdatedUsesMinimumInterval() {
+        ReaderTagStats stats = new ReaderTagStats();
+        assertEquals(ReaderTagStats.MIN_UPDATE_INTERVAL_MINUTES, stats.getUpdateIntervalMinutes(NOW));
+    }
+
+    public void testQuietTagBacksOff() {
+        ReaderTagStats stats = new ReaderTagStats();
+        long time = NOW;
+        stats.addUpdate(5, time);
+
+        long previousInterval = stats.getUpdateIntervalMinutes(time);
+        for (int i = 0; i < 4; i++) {
+            time += previousInterval * MINUTE_MS;
+            stats.addUpdate(0, time);
+            long interval = stats.getUpdateIntervalMinutes(time);
+            assertTrue(interval > previousInterval);
+            previousInterval = interval;
+        }
+
+        // a single update with new posts resets the backoff
+        stats.addUpdate(3, time + MINUTE_MS);
+        assertTrue(stats.getUpdateIntervalMinutes(time + MINUTE_MS) < previousInterval);
+    }
+
+    public void testIntervalNeverExceedsMaximum() {
+        ReaderTagStats stats = new ReaderTagStats();
+        for (int i = 0; i < 50; i++) {
+            stats.addUpdate(0, NOW + i * DAY_MS);
+        }
+        assertEquals(ReaderTagStats.MAX_UPDATE_INTERVAL_MINUTES, stats.getUpdateIntervalMinutes(NOW + 50 * DAY_MS));
+    }
+
+    public void testBusyTagIsUpdatedMoreOftenThanQuietTag() {
+        ReaderTagStats busyStats = new ReaderTagStats();
+        ReaderTagStats quietStats = new ReaderTagStats();
+        for (int i = 0; i < 10; i++) {
+            busyStats.addUpdate(15, NOW + i * 30 * MINUTE_MS);
+            quietStats.addUpdate(1, NOW + i * 6 * 60 * MINUTE_MS);
+        }
+        long busyInterval = busyStats.getUpdateIntervalMinutes(NOW + DAY_MS);
+        long quietInterval = quietStats.getUpdateIntervalMinutes(NOW + DAY_MS);
+        assertTrue(busyInterval < quietInterval);
+    }
+
+    public void testRecentlyOpenedTagStaysFresh() {
+        ReaderTagStats stats = new ReaderTagStats();
+        for (int i = 0; i < 10; i++) {
+            stats.addUpdate(0, NOW + i * MINUTE_MS);
+        }
+        long neglectedInterval = stats.getUpdateIntervalMinutes(NOW + DAY_MS);
+
+        stats.dateLastOpened = NOW + DAY_MS;
+        long openedInterval = stats.getUpdateIntervalMinutes(NOW + DAY_MS);
+        assertTrue(openedInterval <= 60);
+        assertTrue(openedInterval < neglectedInterval);
+    }
+}
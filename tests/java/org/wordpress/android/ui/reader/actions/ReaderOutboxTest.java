@@ -0,0 +1,177 @@
+package org.wordpress.android.ui.reader.actions;
+
+import android.test.InstrumentationTestCase;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.VolleyError;
+
+import org.json.JSONObject;
+import org.wordpress.android.datasets.ReaderDatabase;
+import org.wordpress.android.datasets.ReaderOutboxTable;
+import org.wordpress.android.datasets.ReaderPostTable;
+import org.wordpress.android.models.ReaderOutboxAction;
+import org.wordpress.android.models.ReaderPost;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public class ReaderOutboxTest extends InstrumentationTestCase {
+    private ReaderOutbox.ActionSender mDefaultSender;
+    private FakeSender mSender;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        ReaderDatabase.reset();
+        ReaderOutbox.reset();
+        mDefaultSender = ReaderOutbox.mSender;
+        mSender = new FakeSender();
+        ReaderOutbox.mSender = mSender;
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ReaderOutbox.mSender = mDefaultSender;
+        ReaderOutbox.reset();
+        ReaderDatabase.reset();
+        super.tearDown();
+    }
+
+    public void testLikeThenUnlikeCancelsOut() {
+        // nothing is sent while offline, so the unlike undoes the pending like
+        mSender.canSend = false;
+        ResultListener likeListener = new ResultListener();
+        ResultListener unlikeListener = new ResultListener();
+        ReaderOutbox.queueAction(makeLikeAction(false, true), likeListener);
+        assertEquals(1, ReaderOutboxTable.getNumActions());
+
+        ReaderOutbox.queueAction(makeLikeAction(true, false), unlikeListener);
+        assertEquals(0, ReaderOutboxTable.getNumActions());
+        assertEquals(Boolean.TRUE, likeListener.result);
+        assertEquals(Boolean.TRUE, unlikeListener.result);
+
+        mSender.canSend = true;
+        ReaderOutbox.flush();
+        assertEquals(0, mSender.sentActions.size());
+    }
+
+    public void testChangeWhileSendingIsSentNext() {
+        ReaderOutbox.queueAction(makeLikeAction(false, true), null);
+        ReaderOutboxAction sentLike = ReaderOutbox.getSendingAction();
+        assertNotNull(sentLike);
+        assertTrue(sentLike.isOn);
+
+        // the unlike can't cancel the like since the like may already have reached the server
+        ReaderOutbox.queueAction(makeLikeAction(true, false), null);
+        assertEquals(1, mSender.sentActions.size());
+        assertEquals(1, ReaderOutboxTable.getNumActions());
+
+        // once the like is sent, the unlike is sent against the state the server now has
+        ReaderOutbox.handleResponse(sentLike, new JSONObject());
+        assertEquals(2, mSender.sentActions.size());
+        ReaderOutboxAction sentUnlike = ReaderOutbox.getSendingAction();
+        assertFalse(sentUnlike.isOn);
+        assertTrue(sentUnlike.isOriginallyOn);
+
+        ReaderOutbox.handleResponse(sentUnlike, new JSONObject());
+        assertNull(ReaderOutbox.getSendingAction());
+        assertEquals(0, ReaderOutboxTable.getNumActions());
+    }
+
+    public void testRetryBacksOffUntilMaxAttempts() {
+        ResultListener listener = new ResultListener();
+        ReaderOutboxAction action = makeLikeAction(false, true);
+        ReaderOutbox.queueAction(action, listener);
+
+        long previousDelay = 0;
+        for (int attempt = 1; attempt < ReaderOutbox.MAX_ATTEMPTS; attempt++) {
+            ReaderOutboxAction sentAction = ReaderOutbox.getSendingAction();
+            assertNotNull(sentAction);
+            ReaderOutbox.handleError(sentAction, makeError(503));
+
+            // the action is kept and isn't sent again until its backoff has passed
+            assertNull(ReaderOutbox.getSendingAction());
+            ReaderOutboxAction pendingAction = ReaderOutboxTable.getAction(action.getKey());
+            assertEquals(attempt, pendingAction.numAttempts);
+            assertTrue(pendingAction.nextAttempt > System.currentTimeMillis());
+            long delay = ReaderOutbox.getRetryDelay(attempt);
+            assertTrue(delay >= previousDelay);
+            previousDelay = delay;
+            assertNull(listener.result);
+
+            // make it due now rather than waiting
+            pendingAction.nextAttempt = 0;
+            ReaderOutboxTable.addOrUpdateAction(pendingAction);
+            ReaderOutbox.flush();
+        }
+        assertEquals(ReaderOutbox.MAX_ATTEMPTS, mSender.sentActions.size());
+
+        // the last attempt fails for good
+        ReaderOutbox.handleError(ReaderOutbox.getSendingAction(), makeError(503));
+        assertEquals(0, ReaderOutboxTable.getNumActions());
+        assertEquals(Boolean.FALSE, listener.result);
+    }
+
+    public void testRejectedActionRevertsLocalChange() {
+        // the post was liked locally before the action was queued
+        ReaderPost post = new ReaderPost();
+        post.blogId = 1;
+        post.postId = 1;
+        post.setPseudoId("pseudo1");
+        post.isLikedByCurrentUser = true;
+        post.numLikes = 1;
+        ReaderPostTable.addOrUpdatePost(post);
+
+        ResultListener listener = new ResultListener();
+        ReaderOutbox.queueAction(makeLikeAction(false, true), listener);
+        ReaderOutbox.handleError(ReaderOutbox.getSendingAction(), makeError(403));
+
+        assertEquals(1, mSender.sentActions.size());
+        assertEquals(0, ReaderOutboxTable.getNumActions());
+        assertEquals(Boolean.FALSE, listener.result);
+        ReaderPost revertedPost = ReaderPostTable.getPost(1, 1);
+        assertFalse(revertedPost.isLikedByCurrentUser);
+        assertEquals(0, revertedPost.numLikes);
+    }
+
+    private static ReaderOutboxAction makeLikeAction(boolean isOriginallyOn, boolean isOn) {
+        ReaderOutboxAction action = new ReaderOutboxAction(ReaderOutboxAction.OutboxActionType.LIKE_POST);
+        action.blogId = 1;
+        action.postId = 1;
+        action.isOriginallyOn = isOriginallyOn;
+        action.isOn = isOn;
+        return action;
+    }
+
+    private static VolleyError makeError(int statusCode) {
+        return new VolleyError(new NetworkResponse(statusCode, new byte[0], new HashMap<String, String>(), false));
+    }
+
+    /*
+     * records the actions sent rather than sending them - tests complete each send by calling
+     * ReaderOutbox.handleResponse() or handleError()
+     */
+    private static class FakeSender implements ReaderOutbox.ActionSender {
+        boolean canSend = true;
+        final ArrayList<ReaderOutboxAction> sentActions = new ArrayList<ReaderOutboxAction>();
+
+        @Override
+        public boolean canSend() {
+            return canSend;
+        }
+
+        @Override
+        public void send(ReaderOutboxAction action) {
+            sentActions.add(action);
+        }
+    }
+
+    private static class ResultListener implements ReaderActions.ActionListener {
+        Boolean result;
+
+        @Override
+        public void onActionResult(boolean succeeded) {
+            result = succeeded;
+        }
+    }
+}
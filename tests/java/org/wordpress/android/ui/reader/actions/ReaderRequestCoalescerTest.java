@@ -0,0 +1,29 @@
+package org.wordpress.android.ui.reader.actions;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+public class ReaderRequestCoalescerTest extends TestCase {
+    public void testDuplicateCallersAreAttached() {
+        ReaderRequestCoalescer<String> coalescer = new ReaderRequestCoalescer<String>("test");
+        int numSaved = ReaderRequestCoalescer.getNumRequestsSaved();
+
+        assertTrue(coalescer.addCaller("sites/1/posts/1", "first"));
+        assertFalse(coalescer.addCaller("sites/1/posts/1", "second"));
+        assertFalse(coalescer.addCaller("sites/1/posts/1", null));
+        assertTrue(coalescer.addCaller("sites/1/posts/2", "other"));
+        assertEquals(numSaved + 2, ReaderRequestCoalescer.getNumRequestsSaved());
+
+        List<String> callers = coalescer.removeCallers("sites/1/posts/1");
+        assertEquals(3, callers.size());
+        assertEquals("first", callers.get(0));
+        assertEquals("second", callers.get(1));
+        assertNull(callers.get(2));
+
+        // once the request completes, the next caller makes a new request
+        assertTrue(coalescer.addCaller("sites/1/posts/1", "third"));
+        assertEquals(1, coalescer.removeCallers("sites/1/posts/2").size());
+        assertEquals(0, coalescer.removeCallers("sites/1/posts/2").size());
+    }
+}
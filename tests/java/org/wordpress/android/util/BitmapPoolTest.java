@@ -0,0 +1,92 @@
+package org.wordpress.android.util;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.test.InstrumentationTestCase;
+import android.widget.ImageView;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+public class BitmapPoolTest extends InstrumentationTestCase {
+    private static final int BUDGET_KB = 4096;
+
+    // 100x100 ARGB_8888 is just under 40KB
+    private static Bitmap makeBitmap() {
+        return Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+    }
+
+    public void testPooledBitmapIsReused() {
+        BitmapPool pool = new BitmapPool(BUDGET_KB);
+        Bitmap bitmap = makeBitmap();
+        pool.put(bitmap, BUDGET_KB);
+        assertSame(bitmap, pool.get(100, 100, Bitmap.Config.ARGB_8888));
+        // it's no longer in the pool once it's been taken
+        assertNull(pool.get(100, 100, Bitmap.Config.ARGB_8888));
+        assertEquals(0, pool.getSizeKb());
+    }
+
+    public void testImmutableBitmapIsNotPooled() {
+        BitmapPool pool = new BitmapPool(BUDGET_KB);
+        Bitmap immutable = makeBitmap().copy(Bitmap.Config.ARGB_8888, false);
+        pool.put(immutable, BUDGET_KB);
+        assertNull(pool.get(100, 100, Bitmap.Config.ARGB_8888));
+    }
+
+    public void testDisplayedBitmapIsNotPooled() {
+        BitmapPool pool = new BitmapPool(BUDGET_KB);
+        Bitmap bitmap = makeBitmap();
+        ImageView imageView = new ImageView(getInstrumentation().getTargetContext());
+
+        BitmapPool.setImageBitmap(imageView, bitmap);
+        pool.put(bitmap, BUDGET_KB);
+        assertNull(pool.get(100, 100, Bitmap.Config.ARGB_8888));
+
+        // once the view shows something else the bitmap can be pooled
+        BitmapPool.setImageBitmap(imageView, null);
+        pool.put(bitmap, BUDGET_KB);
+        assertSame(bitmap, pool.get(100, 100, Bitmap.Config.ARGB_8888));
+    }
+
+    public void testPoolStaysWithinAvailableBudget() {
+        BitmapPool pool = new BitmapPool(BUDGET_KB);
+        for (int i = 0; i < 20; i++) {
+            pool.put(makeBitmap(), 200);
+        }
+        assertTrue(pool.getSizeKb() <= 200);
+
+        // the cache growing leaves less of the budget for the pool
+        pool.trimToSize(50);
+        assertTrue(pool.getSizeKb() <= 50);
+    }
+
+    /*
+     * before KitKat only JPEG and PNG images can be decoded into an existing bitmap, so a WebP
+     * of the same size as a pooled bitmap must still decode (into a new bitmap)
+     */
+    public void testIncompatibleFileStillDecodes() throws Exception {
+        File file = new File(getInstrumentation().getTargetContext().getCacheDir(), "bitmap_pool_test.webp");
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            assertTrue(makeBitmap().compress(Bitmap.CompressFormat.WEBP, 90, out));
+        } finally {
+            out.close();
+        }
+
+        try {
+            BitmapPool pool = new BitmapPool(BUDGET_KB);
+            pool.put(makeBitmap(), BUDGET_KB);
+
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = 1;
+            Bitmap bitmap = pool.decodeFile(file.getPath(), options);
+            assertNotNull(bitmap);
+            assertEquals(100, bitmap.getWidth());
+            assertEquals(100, bitmap.getHeight());
+            // the pooled bitmap was taken for the attempt either way
+            assertEquals(0, pool.getSizeKb());
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.wordpress.android.util;
+
+import android.test.InstrumentationTestCase;
+import android.text.TextUtils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class HtmlUtilsTest extends InstrumentationTestCase {
+    private static final String[] FIXTURES = {
+            "default-metaWeblog.getRecentPosts.json",
+            "default-wp.getComments.json",
+            "rest-v1-notifications-num_note_items=20.json"
+    };
+
+    private static final String[] SAMPLES = {
+            "<p>First paragraph</p><p>Second paragraph</p>",
+            "<p>Only one paragraph with a<br />line break</p>",
+            "Text with <a href=\"http://example.com\">a link</a> &amp; an entity",
+            "  <strong>leading</strong> and trailing whitespace &nbsp; ",
+            "Smart quotes &#8220;here&#8221; and an ellipsis &hellip;",
+            "Numeric &#x41; &#65; and unknown &bogus; entities, plus a lone & and &;",
+            "Unterminated < bracket and a > bracket",
+            "<pre>preformatted</pre> text at index > 0 <p class=\"x\">para</p>",
+            "<img src=\"http://example.com/image.jpg\" width=\"640\" height=\"480\" />",
+            "<br><br>text after breaks<br>",
+            "&#32;entity whitespace is kept&#32;",
+            "<p>multi\nline\n<em>\ntag</em></p>"
+    };
+
+    public void testMatchesLegacyOutputOnFixtures() throws Exception {
+        List<String> corpus = new ArrayList<String>();
+        for (String sample: SAMPLES) {
+            corpus.add(sample);
+        }
+        for (String fixture: FIXTURES) {
+            addStrings(new JSONTokener(readAsset(fixture)).nextValue(), corpus);
+        }
+
+        for (String text: corpus) {
+            assertEquals(text, legacyStripHtml(text), HtmlUtils.fastStripHtml(text));
+        }
+    }
+
+    public void testRemovesScriptStyleAndComments() {
+        assertEquals("before after",
+                HtmlUtils.fastStripHtml("before <script type=\"text/javascript\">if (a > b) { x(); }</script>after"));
+        assertEquals("before after",
+                HtmlUtils.fastStripHtml("before <STYLE>p > a { color: red; }</STYLE>after"));
+        assertEquals("before after",
+                HtmlUtils.fastStripHtml("before <!-- a > b -->after"));
+        assertEquals("scripted",
+                HtmlUtils.fastStripHtml("<scripted>scripted</scripted>"));
+    }
+
+    public void testMaxLength() {
+        String html = "<p>The quick &amp; brown fox</p><p>jumps over the lazy dog</p>";
+        assertEquals("The quick & brown", HtmlUtils.fastStripHtml(html, 17));
+        assertEquals(HtmlUtils.fastStripHtml(html), HtmlUtils.fastStripHtml(html, 1000));
+    }
+
+    /*
+     * strips a 100K post with both the legacy regex and the new stripper - both must produce
+     * the same text, and the time each takes is logged
+     */
+    public void testStripBenchmark() {
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        while (sb.length() < 100 * 1024) {
+            sb.append("<p class=\"para\">Paragraph ").append(i)
+              .append(" &#8211; lorem <a href=\"http://example.com/").append(i)
+              .append("\">ipsum</a> dolor<br />sit &amp; amet <img src=\"http://example.com/")
+              .append(i).append(".jpg\" /></p>\n");
+            i++;
+        }
+        String html = sb.toString();
+
+        assertEquals(legacyStripHtml(html), HtmlUtils.fastStripHtml(html));
+
+        int numRuns = 5;
+        long start = System.nanoTime();
+        for (int run = 0; run < numRuns; run++) {
+            legacyStripHtml(html);
+        }
+        long legacyMicros = (System.nanoTime() - start) / numRuns / 1000;
+
+        start = System.nanoTime();
+        for (int run = 0; run < numRuns; run++) {
+            HtmlUtils.fastStripHtml(html);
+        }
+        long fastMicros = (System.nanoTime() - start) / numRuns / 1000;
+
+        AppLog.i(T.TESTS, "html strip benchmark: " + html.length() + " chars, regex " + legacyMicros
+                + "us, single pass " + fastMicros + "us");
+    }
+
+    /*
+     * the regex-based implementation fastStripHtml() replaced
+     */
+    private static String legacyStripHtml(String text) {
+        if (TextUtils.isEmpty(text))
+            return text;
+        if (text.lastIndexOf("<p") > 0)
+            text = text.replaceAll("<p(.|\n)*?>","\n<p>");
+        if (text.contains("<br"))
+            text = text.replaceAll("<br(.|\n)*?>","\n");
+        return HtmlUtils.fastUnescapeHtml(text.replaceAll("<(.|\n)*?>", "").trim());
+    }
+
+    private static void addStrings(Object json, List<String> corpus) throws Exception {
+        if (json instanceof JSONObject) {
+            JSONObject jsonObject = (JSONObject) json;
+            Iterator<String> it = jsonObject.keys();
+            while (it.hasNext()) {
+                addStrings(jsonObject.get(it.next()), corpus);
+            }
+        } else if (json instanceof JSONArray) {
+            JSONArray jsonArray = (JSONArray) json;
+            for (int i = 0; i < jsonArray.length(); i++) {
+                addStrings(jsonArray.get(i), corpus);
+            }
+        } else if (json instanceof String) {
+            corpus.add((String) json);
+        }
+    }
+
+    private String readAsset(String filename) throws Exception {
+        InputStream is = getInstrumentation().getContext().getAssets().open(filename);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(is, "UTF-8"));
+        StringBuilder sb = new StringBuilder();
+        try {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                sb.append(line).append('\n');
+            }
+        } finally {
+            reader.close();
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,58 @@
+package org.wordpress.android.util;
+
+import android.util.JsonReader;
+
+import junit.framework.TestCase;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+
+import java.io.StringReader;
+
+public class JSONStreamUtilsTest extends TestCase {
+    public void testReadObjectMatchesJSONObject() throws Exception {
+        String json = "{\"ID\":123,\"site_ID\":9876543210,\"title\":\"Title\",\"like_count\":1.5,"
+                    + "\"is_following\":true,\"excerpt\":null,\"tags\":[\"a\",\"b\"],"
+                    + "\"author\":{\"name\":\"Author\"}}";
+        JSONObject expected = new JSONObject(json);
+        JSONObject actual = JSONStreamUtils.readObject(new JsonReader(new StringReader(json)));
+
+        assertEquals(expected.getInt("ID"), actual.getInt("ID"));
+        assertEquals(expected.getLong("site_ID"), actual.getLong("site_ID"));
+        assertEquals(expected.getString("title"), actual.getString("title"));
+        assertEquals(expected.getDouble("like_count"), actual.getDouble("like_count"));
+        assertTrue(actual.getBoolean("is_following"));
+        assertTrue(actual.isNull("excerpt"));
+        assertEquals(2, actual.getJSONArray("tags").length());
+        assertEquals("Author", actual.getJSONObject("author").getString("name"));
+    }
+
+    public void testPostListFromJsonReader() throws Exception {
+        JSONArray jsonPosts = new JSONArray();
+        for (int i = 1; i <= 20; i++) {
+            JSONObject jsonPost = new JSONObject();
+            jsonPost.put("ID", i);
+            jsonPost.put("site_ID", 1000 + i);
+            jsonPost.put("title", "Post " + i);
+            jsonPost.put("content", "<p>Content of post " + i + "</p>");
+            jsonPosts.put(jsonPost);
+        }
+        JSONObject json = new JSONObject();
+        json.put("posts", jsonPosts);
+
+        ReaderPostList expected = ReaderPostList.fromJson(json);
+        ReaderPostList actual = ReaderPostList.fromJsonReader(new JsonReader(new StringReader(jsonPosts.toString())));
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ReaderPost expectedPost = expected.get(i);
+            ReaderPost actualPost = actual.get(i);
+            assertEquals(expectedPost.postId, actualPost.postId);
+            assertEquals(expectedPost.blogId, actualPost.blogId);
+            assertEquals(expectedPost.getTitle(), actualPost.getTitle());
+            assertEquals(expectedPost.getText(), actualPost.getText());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.wordpress.android.util;
+
+import junit.framework.TestCase;
+
+public class PhotonUtilsTest extends TestCase {
+    private static final String IMAGE_URL = "http://example.files.wordpress.com/2014/05/photo.jpg";
+
+    public void testSimilarSizesShareUrl() {
+        String url1 = PhotonUtils.getPhotonImageUrl(IMAGE_URL, 580, 0);
+        String url2 = PhotonUtils.getPhotonImageUrl(IMAGE_URL, 600, 0);
+        assertEquals(url1, url2);
+        assertEquals("http://i0.wp.com/example.files.wordpress.com/2014/05/photo.jpg?w=600", url1);
+    }
+
+    public void testCropKeepsAspectRatio() {
+        String url = PhotonUtils.getPhotonImageUrl(IMAGE_URL, 590, 295);
+        assertEquals("http://i0.wp.com/example.files.wordpress.com/2014/05/photo.jpg?resize=600,300", url);
+    }
+
+    public void testPhotonHostsAndQueriesAreCanonical() {
+        String url1 = PhotonUtils.getPhotonImageUrl("http://i2.wp.com/example.files.wordpress.com/2014/05/photo.jpg?fit=800,600&zoom=2", 600, 0);
+        String url2 = PhotonUtils.getPhotonImageUrl(IMAGE_URL + "?w=1024", 600, 0);
+        assertEquals(url1, url2);
+        assertEquals(PhotonUtils.getSourceImageUrl(url1), PhotonUtils.getSourceImageUrl(IMAGE_URL));
+    }
+
+    public void testLargerImageSubstitutesForSmaller() {
+        CachedImageIndex.ImageSize small = CachedImageIndex.getImageSize(PhotonUtils.getPhotonImageUrl(IMAGE_URL, 150, 100));
+        CachedImageIndex.ImageSize large = CachedImageIndex.getImageSize(PhotonUtils.getPhotonImageUrl(IMAGE_URL, 300, 200));
+        CachedImageIndex.ImageSize wide = CachedImageIndex.getImageSize(PhotonUtils.getPhotonImageUrl(IMAGE_URL, 300, 100));
+        CachedImageIndex.ImageSize original = CachedImageIndex.getImageSize(IMAGE_URL);
+
+        assertTrue(CachedImageIndex.canSubstitute(small, large));
+        assertFalse(CachedImageIndex.canSubstitute(large, small));
+        // a crop with a different aspect ratio shows a different part of the image
+        assertFalse(CachedImageIndex.canSubstitute(small, wide));
+        // the original can't stand in for a crop, but can for a width
+        assertFalse(CachedImageIndex.canSubstitute(small, original));
+        CachedImageIndex.ImageSize width = CachedImageIndex.getImageSize(PhotonUtils.getPhotonImageUrl(IMAGE_URL, 300, 0));
+        assertTrue(CachedImageIndex.canSubstitute(width, original));
+    }
+}
@@ -0,0 +1,113 @@
+package org.wordpress.android.util;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class SqlUtilsTest extends TestCase {
+    private static final int NUM_IDS = 10000;
+
+    private SQLiteDatabase mDb;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mDb = SQLiteDatabase.create(null);
+        mDb.execSQL("CREATE TABLE tbl_items (item_id INTEGER PRIMARY KEY, name TEXT, group_name TEXT)");
+
+        // only the even ids exist in the table
+        SQLiteStatement stmt = mDb.compileStatement("INSERT INTO tbl_items (item_id, name, group_name) VALUES (?1,?2,?3)");
+        mDb.beginTransaction();
+        try {
+            for (int i = 0; i < NUM_IDS; i += 2) {
+                stmt.bindLong  (1, i);
+                stmt.bindString(2, "item" + i);
+                stmt.bindString(3, (i % 4 == 0 ? "a" : "b"));
+                stmt.execute();
+            }
+            mDb.setTransactionSuccessful();
+        } finally {
+            mDb.endTransaction();
+            SqlUtils.closeStatement(stmt);
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mDb.close();
+        super.tearDown();
+    }
+
+    private static List<Long> makeIds(int count) {
+        List<Long> ids = new ArrayList<Long>(count);
+        for (long i = 0; i < count; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+
+    public void testCountInSetWithTenThousandIds() {
+        int count = SqlUtils.countInSet(mDb,
+                "SELECT COUNT(*) FROM tbl_items WHERE item_id IN " + SqlUtils.SET_PLACEHOLDER,
+                null,
+                makeIds(NUM_IDS));
+        assertEquals(NUM_IDS / 2, count);
+    }
+
+    public void testCountInSetWithArgsAndChunks() {
+        // 2000 ids is below the temp table threshold so this is queried in chunks, and the
+        // extra arg must be bound in every chunk
+        int count = SqlUtils.countInSet(mDb,
+                "SELECT COUNT(*) FROM tbl_items WHERE group_name=? AND item_id IN " + SqlUtils.SET_PLACEHOLDER,
+                new String[]{"a"},
+                makeIds(2000));
+        assertEquals(500, count);
+    }
+
+    public void testQueryInSetWithTenThousandStrings() {
+        List<String> names = new ArrayList<String>(NUM_IDS);
+        for (int i = 0; i < NUM_IDS; i++) {
+            names.add("item" + i);
+        }
+
+        final Set<Long> found = new HashSet<Long>();
+        SqlUtils.queryInSet(mDb,
+                "SELECT item_id FROM tbl_items WHERE name IN " + SqlUtils.SET_PLACEHOLDER,
+                null,
+                names,
+                new SqlUtils.RowHandler() {
+                    @Override
+                    public void onRow(Cursor c) {
+                        found.add(c.getLong(0));
+                    }
+                });
+
+        assertEquals(NUM_IDS / 2, found.size());
+        assertTrue(found.contains(0L));
+        assertFalse(found.contains(1L));
+    }
+
+    public void testDuplicatesAreCountedOnce() {
+        List<Long> ids = makeIds(10);
+        ids.addAll(makeIds(10));
+        int count = SqlUtils.countInSet(mDb,
+                "SELECT COUNT(*) FROM tbl_items WHERE item_id IN " + SqlUtils.SET_PLACEHOLDER,
+                null,
+                ids);
+        assertEquals(5, count);
+    }
+
+    public void testEmptySet() {
+        assertEquals(0, SqlUtils.countInSet(mDb,
+                "SELECT COUNT(*) FROM tbl_items WHERE item_id IN " + SqlUtils.SET_PLACEHOLDER,
+                null,
+                new ArrayList<Long>()));
+    }
+}